@@ -0,0 +1,97 @@
+package br.com.fleao.word_similarity.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.com.fleao.word_similarity.util.LevenshteinBatch;
+import br.com.fleao.word_similarity.util.LevenshteinPattern;
+
+/**
+ * <p>
+ * Compara o cálculo escalar de {@link LevenshteinPattern} com o cálculo em lote de {@link LevenshteinBatch} na
+ * comparação de uma keyword com todas as palavras de um grupo de mesmo tamanho, como nas varreduras.
+ * </p>
+ * <p>
+ * As palavras do grupo são variações da keyword com tamanho ajustado ao do grupo, armazenadas em um único array de
+ * caracteres como na arena de palavras. O resultado é expresso por palavra comparada.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchDistanceBenchmark {
+
+	private static final int WORDS = 4096;
+
+	@Param({"5", "8", "12", "20"})
+	public int keywordLength;
+
+	private LevenshteinPattern pattern;
+	private LevenshteinBatch batch;
+	private int[] distances;
+	private char[] chars;
+	private int textLength;
+
+	@Setup
+	public void setUp(){
+		Random random = new Random(13);
+		String keyword = BenchmarkWords.generate(1, BenchmarkWords.LengthDistribution.LONG, keywordLength)[0]
+				.substring(0, keywordLength);
+		textLength = keywordLength + 1;
+		chars = new char[WORDS * textLength];
+		for(int i = 0; i < WORDS; i++){
+			StringBuilder word = new StringBuilder(BenchmarkWords.mutate(keyword, 3, random));
+			while(word.length() < textLength)
+				word.append(keyword.charAt(random.nextInt(keywordLength)));
+			word.getChars(0, textLength, chars, i * textLength);
+		}
+		pattern = new LevenshteinPattern(keyword);
+		batch = new LevenshteinBatch(pattern);
+		distances = new int[batch.getLanes()];
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public int scalar(){
+		int sum = 0;
+		for(int i = 0; i < WORDS; i++)
+			sum += pattern.distance(chars, i * textLength, textLength);
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(WORDS)
+	public int batched(){
+		int sum = 0;
+		batch.reset(textLength);
+		for(int i = 0; i < WORDS; i++){
+			batch.add(chars, i * textLength);
+			if(batch.isFull() || i == WORDS - 1){
+				int count = batch.computeDistances(distances);
+				for(int lane = 0; lane < count; lane++)
+					sum += distances[lane];
+			}
+		}
+		return sum;
+	}
+
+}
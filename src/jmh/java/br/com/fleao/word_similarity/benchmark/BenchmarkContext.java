@@ -0,0 +1,68 @@
+package br.com.fleao.word_similarity.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.MapPropertySource;
+
+import br.com.fleao.word_similarity.services.WordService;
+
+/**
+ * <p>
+ * Contexto Spring mínimo para os benchmarks, contendo somente o {@link WordService}. As propriedades informadas
+ * substituem os valores padrão das anotações {@code @Value} do serviço; o arquivo application.properties não é lido,
+ * de forma que os resultados não dependam da configuração local.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class BenchmarkContext implements AutoCloseable {
+
+	private final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+
+	/**
+	 * @param properties propriedades "word-similarity.*" do serviço
+	 */
+	public BenchmarkContext(Map<String, String> properties){
+		Map<String, Object> source = new HashMap<String, Object>(properties);
+		context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", source));
+		context.register(Beans.class);
+		context.refresh();
+	}
+
+	/**
+	 * @return serviço inicializado
+	 */
+	public WordService getWordService(){
+		return context.getBean(WordService.class);
+	}
+
+	/**
+	 * Encerra o serviço, liberando seus pools de threads.
+	 */
+	@Override
+	public void close(){
+		context.close();
+	}
+
+	@Configuration
+	static class Beans {
+
+		@Bean
+		public static PropertySourcesPlaceholderConfigurer propertyPlaceholderConfigurer(){
+			return new PropertySourcesPlaceholderConfigurer();
+		}
+
+		@Bean
+		public WordService wordService(){
+			return new WordService();
+		}
+
+	}
+
+}
@@ -0,0 +1,102 @@
+package br.com.fleao.word_similarity.benchmark;
+
+import java.util.Random;
+
+/**
+ * <p>
+ * Geração determinística das palavras utilizadas nos benchmarks. As letras são sorteadas com frequências próximas às
+ * do português e os tamanhos seguem uma distribuição triangular entre os limites de cada {@link LengthDistribution},
+ * de forma que os filtros por tamanho, assinatura e q-gramas se comportem como em um dicionário real.
+ * </p>
+ * <p>
+ * A mesma semente sempre gera as mesmas palavras, permitindo comparar resultados de execuções diferentes.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class BenchmarkWords {
+
+	// Cada letra aparece proporcionalmente à sua frequência aproximada em textos em português
+	private static final String LETTERS = "aaaaaaaaaaaaaaeeeeeeeeeeeeeooooooooooiiiiiirrrrrrssssssnnnnnddddduuuummmmtttttcccc"
+			+ "llllpppvvggqqbfhzjxk";
+
+	/**
+	 * Distribuições de tamanho das palavras geradas.
+	 */
+	public enum LengthDistribution {
+		SHORT(2, 6), MEDIUM(5, 12), LONG(16, 40), MIXED(2, 24);
+
+		private final int minLength;
+		private final int maxLength;
+
+		private LengthDistribution(int minLength, int maxLength){
+			this.minLength = minLength;
+			this.maxLength = maxLength;
+		}
+
+		int nextLength(Random random){
+			int range = maxLength - minLength;
+			return minLength + random.nextInt(range / 2 + 1) + random.nextInt(range - range / 2 + 1);
+		}
+	}
+
+	private BenchmarkWords(){
+	}
+
+	/**
+	 * Gera palavras aleatórias, possivelmente repetidas.
+	 *
+	 * @param count quantidade de palavras
+	 * @param lengths distribuição dos tamanhos
+	 * @param seed semente do gerador
+	 * @return palavras geradas
+	 */
+	public static String[] generate(int count, LengthDistribution lengths, long seed){
+		Random random = new Random(seed);
+		String[] words = new String[count];
+		for(int i = 0; i < count; i++)
+			words[i] = nextWord(random, lengths.nextLength(random));
+		return words;
+	}
+
+	/**
+	 * Aplica até "maxEdits" operações aleatórias de inserção, remoção ou substituição à palavra informada, simulando um
+	 * erro de digitação.
+	 *
+	 * @param word palavra original
+	 * @param maxEdits quantidade máxima de operações
+	 * @param random gerador utilizado
+	 * @return palavra alterada
+	 */
+	public static String mutate(String word, int maxEdits, Random random){
+		StringBuilder result = new StringBuilder(word);
+		int edits = random.nextInt(maxEdits + 1);
+		for(int i = 0; i < edits; i++){
+			int position = random.nextInt(result.length() + 1);
+			switch(result.length() == 0 ? 0 : random.nextInt(3)){
+				case 0:
+					result.insert(position, nextLetter(random));
+					break;
+				case 1:
+					result.deleteCharAt(Math.min(position, result.length() - 1));
+					break;
+				default:
+					result.setCharAt(Math.min(position, result.length() - 1), nextLetter(random));
+			}
+		}
+		return result.toString();
+	}
+
+	private static String nextWord(Random random, int length){
+		char[] word = new char[length];
+		for(int i = 0; i < length; i++)
+			word[i] = nextLetter(random);
+		return new String(word);
+	}
+
+	private static char nextLetter(Random random){
+		return LETTERS.charAt(random.nextInt(LETTERS.length()));
+	}
+
+}
@@ -0,0 +1,90 @@
+package br.com.fleao.word_similarity.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.com.fleao.word_similarity.benchmark.BenchmarkWords.LengthDistribution;
+import br.com.fleao.word_similarity.util.LevenshteinDistanceAlgorithm;
+
+/**
+ * <p>
+ * Compara as implementações do cálculo de distância de {@link LevenshteinDistanceAlgorithm} para cada distribuição de
+ * tamanhos de palavras.
+ * </p>
+ * <p>
+ * Os pares são pré-gerados: metade formada por uma palavra e uma variação dela com até 3 operações, como nas
+ * buscas por similares, e metade por palavras independentes. Cada invocação calcula a distância do próximo par, de
+ * forma que o JIT não consiga especializar o cálculo para um único par.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+
+	private static final int PAIRS = 1024;
+	private static final int MASK = PAIRS - 1;
+
+	@Param({"SHORT", "MEDIUM", "LONG", "MIXED"})
+	public LengthDistribution lengths;
+
+	@Param({"2"})
+	public int maxDistance;
+
+	private String[] left;
+	private String[] right;
+	private int next;
+
+	@Setup
+	public void setUp(){
+		Random random = new Random(7);
+		left = BenchmarkWords.generate(PAIRS, lengths, 1);
+		String[] unrelated = BenchmarkWords.generate(PAIRS, lengths, 2);
+		right = new String[PAIRS];
+		for(int i = 0; i < PAIRS; i++)
+			right[i] = i % 2 == 0 ? BenchmarkWords.mutate(left[i], 3, random) : unrelated[i];
+	}
+
+	@Benchmark
+	public int getDistance(){
+		int i = next++ & MASK;
+		return LevenshteinDistanceAlgorithm.getDistance(left[i], right[i]);
+	}
+
+	@Benchmark
+	public int getDistanceEfficiently(){
+		int i = next++ & MASK;
+		return LevenshteinDistanceAlgorithm.getDistanceEfficiently(left[i], right[i]);
+	}
+
+	@Benchmark
+	public int getDistanceBitParallel(){
+		int i = next++ & MASK;
+		return LevenshteinDistanceAlgorithm.getDistanceBitParallel(left[i], right[i]);
+	}
+
+	@Benchmark
+	public int boundedDistance(){
+		int i = next++ & MASK;
+		return LevenshteinDistanceAlgorithm.boundedDistance(left[i], right[i], maxDistance);
+	}
+
+}
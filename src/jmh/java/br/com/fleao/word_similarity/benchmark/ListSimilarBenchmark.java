@@ -0,0 +1,94 @@
+package br.com.fleao.word_similarity.benchmark;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.com.fleao.word_similarity.benchmark.BenchmarkWords.LengthDistribution;
+import br.com.fleao.word_similarity.services.WordService;
+
+/**
+ * <p>
+ * Mede a latência de {@link WordService#listSimilarStoredWords(String, int)} para cada tamanho de dicionário,
+ * threshold e tipo de índice, com o cache de resultados desabilitado.
+ * </p>
+ * <p>
+ * As keywords são pré-geradas: metade são variações de palavras do dicionário, com até 2 operações, e metade são
+ * palavras independentes. A montagem do dicionário não é medida, mas é repetida a cada combinação de parâmetros;
+ * para executar somente parte das combinações utilize a opção {@code -p} do JMH (por exemplo
+ * {@code -p words=10000,100000}). Dicionários de 10 milhões de palavras exigem alguns GB de heap.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx8g"})
+public class ListSimilarBenchmark {
+
+	private static final int KEYWORDS = 256;
+	private static final int MASK = KEYWORDS - 1;
+
+	@Param({"10000", "100000", "1000000", "10000000"})
+	public int words;
+
+	@Param({"0", "1", "2", "3", "4", "5"})
+	public int threshold;
+
+	@Param({"BKTREE", "TRIE"})
+	public String indexType;
+
+	private BenchmarkContext context;
+	private WordService wordService;
+	private String[] keywords;
+	private int next;
+
+	@Setup
+	public void setUp(){
+		Map<String, String> properties = new HashMap<String, String>();
+		properties.put("word-similarity.index.type", indexType);
+		properties.put("word-similarity.cache.enabled", "false");
+		context = new BenchmarkContext(properties);
+		wordService = context.getWordService();
+
+		String[] dictionary = BenchmarkWords.generate(words, LengthDistribution.MIXED, 1);
+		wordService.storeWords(Arrays.asList(dictionary));
+
+		Random random = new Random(3);
+		String[] unrelated = BenchmarkWords.generate(KEYWORDS, LengthDistribution.MIXED, 2);
+		keywords = new String[KEYWORDS];
+		for(int i = 0; i < KEYWORDS; i++)
+			keywords[i] = i % 2 == 0 ? BenchmarkWords.mutate(dictionary[random.nextInt(words)], 2, random) : unrelated[i];
+	}
+
+	@TearDown
+	public void tearDown(){
+		context.close();
+	}
+
+	@Benchmark
+	public Set<String> listSimilarStoredWords(){
+		return wordService.listSimilarStoredWords(keywords[next++ & MASK], threshold);
+	}
+
+}
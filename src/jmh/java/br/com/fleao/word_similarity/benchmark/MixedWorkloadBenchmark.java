@@ -0,0 +1,107 @@
+package br.com.fleao.word_similarity.benchmark;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.com.fleao.word_similarity.benchmark.BenchmarkWords.LengthDistribution;
+import br.com.fleao.word_similarity.services.WordService;
+
+/**
+ * <p>
+ * Carga concorrente de leitura e escrita sobre o mesmo {@link WordService}: três threads buscam palavras similares
+ * enquanto uma thread armazena palavras novas, medindo a vazão de cada operação. Permite observar o custo da
+ * publicação de palavras para as buscas em andamento e da atualização incremental do cache.
+ * </p>
+ * <p>
+ * O dicionário cresce durante a medição, já que cada escrita armazena uma palavra inédita.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx4g"})
+public class MixedWorkloadBenchmark {
+
+	private static final int KEYWORDS = 256;
+	private static final int MASK = KEYWORDS - 1;
+
+	@Param({"100000", "1000000"})
+	public int words;
+
+	@Param({"2"})
+	public int threshold;
+
+	@Param({"true", "false"})
+	public String cacheEnabled;
+
+	private BenchmarkContext context;
+	private WordService wordService;
+	private String[] keywords;
+
+	/**
+	 * Posição de cada thread na lista de keywords e gerador das palavras escritas.
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+		int next;
+		final Random random = new Random(Thread.currentThread().getId());
+	}
+
+	@Setup
+	public void setUp(){
+		Map<String, String> properties = new HashMap<String, String>();
+		properties.put("word-similarity.cache.enabled", cacheEnabled);
+		context = new BenchmarkContext(properties);
+		wordService = context.getWordService();
+
+		String[] dictionary = BenchmarkWords.generate(words, LengthDistribution.MIXED, 1);
+		wordService.storeWords(Arrays.asList(dictionary));
+		// Keywords repetidas, como em uma carga real, para que o cache seja efetivo quando habilitado
+		keywords = BenchmarkWords.generate(KEYWORDS, LengthDistribution.MIXED, 2);
+	}
+
+	@TearDown
+	public void tearDown(){
+		context.close();
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(3)
+	public Set<String> listSimilarStoredWords(Cursor cursor){
+		return wordService.listSimilarStoredWords(keywords[cursor.next++ & MASK], threshold);
+	}
+
+	@Benchmark
+	@Group("mixed")
+	@GroupThreads(1)
+	public void storeWord(Cursor cursor){
+		// O sufixo numérico garante palavras inéditas sem consultar o dicionário
+		wordService.storeWord(keywords[cursor.random.nextInt(KEYWORDS)] + (cursor.next++));
+	}
+
+}
@@ -1,9 +1,14 @@
 package br.com.fleao.word_similarity;
 
+import java.nio.file.Paths;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import br.com.fleao.word_similarity.services.WordService;
 
 /**
  * Classe para inicialização da aplicação através do Spring Boot. 
@@ -11,12 +16,19 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * Esta classe classe comporta os métodos básicos para a incialização da aplicação, invocando o SpringBoot
  * para que todas as APIs subjacentes sejam incializadas e injeções necessárias realizadas.
  * 
+ * Quando invocada com o argumento --export-index=arquivo, a aplicação é inicializada sem o servidor web, carrega as 
+ * palavras configuradas (dicionários e persistência), exporta o índice pré-construído para o arquivo informado e é 
+ * encerrada. O arquivo gerado pode ser mapeado em memória nas inicializações seguintes através da propriedade 
+ * word-similarity.mapped-index.file.
+ * 
  * @author Felipe Leão
  * @since 0.0.1-SNAPSHOT
  */
 @SpringBootApplication
 public class Runner {
 	private static final Logger logger = LoggerFactory.getLogger(Runner.class);
+	private static final String EXPORT_INDEX_ARGUMENT = "--export-index=";
+	
 	/**
 	 * Método utilizado para inicializar a aplicação quando o JAR é invocado.
 	 * 
@@ -24,6 +36,12 @@ public class Runner {
 	 */
     public static void main( String[] args ){
     	try {
+			String exportFile = findExportFile(args);
+			if(exportFile != null){
+				exportIndex(exportFile, args);
+				return;
+			}
+			
 			logger.info("Inicializando aplicação...");
 			SpringApplication.run(Runner.class, args);
 			logger.info("Aplicação inicializada com sucesso. Serviços ativos.");
@@ -31,4 +49,27 @@ public class Runner {
 			logger.error("Erro fatal na execução. A aplicação será encerrada.", e);
 		}
     }
+    
+    /**
+     * Exporta o índice pré-construído, inicializando a aplicação sem o servidor web.
+     */
+    private static void exportIndex(String file, String[] args){
+    	logger.info("Exportando índice para {}...", file);
+    	SpringApplication application = new SpringApplication(Runner.class);
+    	application.setWebEnvironment(false);
+    	ConfigurableApplicationContext context = application.run(args);
+    	try{
+    		context.getBean(WordService.class).exportIndex(Paths.get(file));
+    	}finally{
+    		SpringApplication.exit(context);
+    	}
+    }
+    
+    private static String findExportFile(String[] args){
+    	for(String arg : args){
+    		if(arg.startsWith(EXPORT_INDEX_ARGUMENT))
+    			return arg.substring(EXPORT_INDEX_ARGUMENT.length());
+    	}
+    	return null;
+    }
 }
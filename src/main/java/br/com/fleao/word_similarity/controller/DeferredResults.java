@@ -0,0 +1,48 @@
+package br.com.fleao.word_similarity.controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Conversão dos resultados assíncronos dos serviços nos resultados diferidos do Spring MVC, compartilhada pelos
+ * controllers.
+ *
+ * @author felipe
+ *
+ */
+final class DeferredResults {
+
+	private DeferredResults(){
+	}
+
+	/**
+	 * Converte o resultado de uma operação assíncrona no resultado diferido do Spring MVC. Caso a requisição expire no
+	 * servlet container antes da conclusão, a operação é cancelada.
+	 *
+	 * @param future resultado da operação
+	 * @return resultado diferido, concluído com o valor ou com a causa da falha da operação
+	 */
+	static <T> DeferredResult<T> of(final CompletableFuture<T> future){
+		final DeferredResult<T> deferred = new DeferredResult<T>();
+		deferred.onTimeout(new Runnable(){
+			@Override
+			public void run(){
+				future.cancel(true);
+			}
+		});
+		future.whenComplete(new BiConsumer<T, Throwable>(){
+			@Override
+			public void accept(T value, Throwable error){
+				if(error == null)
+					deferred.setResult(value);
+				else
+					deferred.setErrorResult(error instanceof CompletionException ? error.getCause() : error);
+			}
+		});
+		return deferred;
+	}
+
+}
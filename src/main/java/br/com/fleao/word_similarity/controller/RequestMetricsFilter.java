@@ -0,0 +1,78 @@
+package br.com.fleao.word_similarity.controller;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import br.com.fleao.word_similarity.services.WordService;
+
+/**
+ * <p>
+ * Filtro que mede o tempo total de cada requisição, da chegada ao envio completo da resposta, e o registra no
+ * histograma {@code request.<padrão da URL>} das métricas do {@link WordService} (por exemplo
+ * {@code request./rest/listSimilar/{keyword}}).
+ * </p>
+ * <p>
+ * Nas requisições assíncronas o tempo é registrado somente ao final do processamento assíncrono, incluindo a
+ * serialização da resposta: comparado aos histogramas de espera na fila e de execução das buscas, ele revela o custo
+ * da serialização e do envio. Requisições que não correspondem a nenhum endpoint não são registradas.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+@Component
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+	@Autowired
+	private WordService wordService;
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException{
+		final long start = System.nanoTime();
+		try{
+			chain.doFilter(request, response);
+		}finally{
+			if(request.isAsyncStarted()){
+				request.getAsyncContext().addListener(new AsyncListener(){
+					@Override
+					public void onComplete(AsyncEvent event){
+						record(request, start);
+					}
+
+					@Override
+					public void onTimeout(AsyncEvent event){
+					}
+
+					@Override
+					public void onError(AsyncEvent event){
+					}
+
+					@Override
+					public void onStartAsync(AsyncEvent event){
+					}
+				});
+			}else{
+				record(request, start);
+			}
+		}
+	}
+
+	private void record(HttpServletRequest request, long start){
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		if(pattern != null)
+			wordService.getQueryMetrics().recordLatency("request." + pattern, System.nanoTime() - start);
+	}
+
+}
@@ -0,0 +1,149 @@
+package br.com.fleao.word_similarity.controller;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import br.com.fleao.word_similarity.services.ShardCoordinator;
+import br.com.fleao.word_similarity.services.ShardedResult;
+import br.com.fleao.word_similarity.util.WordDistance;
+
+/**
+ * <p>
+ * Serviços REST do modo distribuído, disponíveis somente quando a propriedade {@code word-similarity.shard.nodes}
+ * lista os shards ({@link ShardCoordinator}). Os serviços espelham os serviços de {@link WordSimilarityRESTController}
+ * sob o prefixo {@code /rest/cluster}, encaminhando as inserções ao shard dono de cada palavra e as buscas a todos os
+ * shards.
+ * </p>
+ * <p>
+ * As buscas e a inserção em lote respondem com o resultado combinado e a situação de cada shard ({@link ShardedResult}):
+ * shards que não respondem dentro do prazo tornam o resultado parcial, sem erro. A inserção de uma única palavra depende
+ * de um único shard e responde com erro caso ele não responda.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+@RestController
+@RequestMapping("/rest/cluster")
+@ConditionalOnExpression("'${word-similarity.shard.nodes:}'.trim() != ''")
+public class ShardCoordinatorRESTController {
+
+	@Autowired
+	private ShardCoordinator shardCoordinator;
+
+	/**
+	 * Adiciona uma palavra ao shard dono dela.
+	 *
+	 * @param word a palavra a ser adicionada
+	 * @return boolean indicando o sucesso ou fracasso da operação no shard
+	 */
+	@RequestMapping(value="/add/{word}", method={RequestMethod.GET, RequestMethod.POST})
+	public DeferredResult<Boolean> addWord(@PathVariable(value="word") String word){
+		return DeferredResults.of(shardCoordinator.storeWord(word));
+	}
+
+	/**
+	 * Remove uma palavra do shard dono dela.
+	 *
+	 * @param word a palavra a ser removida
+	 * @return boolean indicando se a palavra foi removida pelo shard
+	 */
+	@RequestMapping(value="/word/{word}", method=RequestMethod.DELETE)
+	public DeferredResult<Boolean> removeWord(@PathVariable(value="word") String word){
+		return DeferredResults.of(shardCoordinator.removeWord(word));
+	}
+
+	/**
+	 * Adiciona em lote as palavras enviadas no corpo da requisição como um array JSON de strings, enviando a cada shard
+	 * as palavras das quais ele é dono.
+	 *
+	 * @param words palavras a serem adicionadas
+	 * @return quantidade de palavras efetivamente adicionadas e situação de cada shard
+	 */
+	@RequestMapping(value="/addAll", method=RequestMethod.POST, consumes=MediaType.APPLICATION_JSON_VALUE)
+	public DeferredResult<ShardedResult<Integer>> addAllWords(@RequestBody List<String> words){
+		return DeferredResults.of(shardCoordinator.storeWords(words));
+	}
+
+	/**
+	 * Recupera as palavras similares à keyword informada armazenadas em todos os shards.
+	 *
+	 * @param keyword
+	 * @param threshold
+	 * @param timeoutMs prazo de cada shard em milissegundos (opcional)
+	 * @return palavras similares em ordem alfabética e situação de cada shard
+	 */
+	@RequestMapping(value="/listSimilar/{keyword}", method={RequestMethod.GET, RequestMethod.POST})
+	public DeferredResult<ShardedResult<Set<String>>> listSimilarWords(
+			@PathVariable(value="keyword") String keyword,
+			@RequestParam(value="threshold", defaultValue="3") int threshold,
+			@RequestParam(value="timeoutMs", defaultValue="0") long timeoutMs
+		){
+
+		return DeferredResults.of(shardCoordinator.listSimilarWords(keyword, threshold, timeoutMs));
+
+	}
+
+	/**
+	 * Recupera as palavras mais próximas da keyword informada entre as palavras de todos os shards.
+	 *
+	 * @param keyword palavra cujas vizinhas deseja-se encontrar
+	 * @param k quantidade máxima de palavras retornadas
+	 * @param timeoutMs prazo de cada shard em milissegundos (opcional)
+	 * @return palavras mais próximas com suas distâncias e situação de cada shard
+	 */
+	@RequestMapping(value="/nearest/{keyword}", method={RequestMethod.GET, RequestMethod.POST})
+	public DeferredResult<ShardedResult<List<WordDistance>>> listNearestWords(
+			@PathVariable(value="keyword") String keyword,
+			@RequestParam(value="k", defaultValue="10") int k,
+			@RequestParam(value="timeoutMs", defaultValue="0") long timeoutMs
+		){
+
+		return DeferredResults.of(shardCoordinator.listNearestWords(keyword, k, timeoutMs));
+
+	}
+
+	/**
+	 * Responde com erro 503 as inserções rejeitadas por falta de capacidade do coordenador.
+	 */
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<String> requestRejected(RejectedExecutionException e){
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+				.body("O coordenador está sobrecarregado.");
+	}
+
+	/**
+	 * Responde com erro 504 as inserções cujo shard não respondeu dentro do prazo.
+	 */
+	@ExceptionHandler(TimeoutException.class)
+	public ResponseEntity<String> shardTimedOut(TimeoutException e){
+		return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(e.getMessage());
+	}
+
+	/**
+	 * Responde com erro 502 as inserções cujo shard está indisponível ou respondeu com erro.
+	 */
+	@ExceptionHandler(RestClientException.class)
+	public ResponseEntity<String> shardFailed(RestClientException e){
+		return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(e.getMessage());
+	}
+
+}
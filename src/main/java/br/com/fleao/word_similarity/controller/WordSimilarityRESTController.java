@@ -1,15 +1,46 @@
 package br.com.fleao.word_similarity.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import br.com.fleao.word_similarity.services.CacheStatistics;
+import br.com.fleao.word_similarity.services.MetricsReport;
+import br.com.fleao.word_similarity.services.QueryPlan;
+import br.com.fleao.word_similarity.services.ShardIdentity;
+import br.com.fleao.word_similarity.services.SimilarityQuery;
+import br.com.fleao.word_similarity.services.SimilarityResult;
+import br.com.fleao.word_similarity.services.StaleCursorException;
+import br.com.fleao.word_similarity.services.WordIngestionService;
+import br.com.fleao.word_similarity.services.WordPage;
 import br.com.fleao.word_similarity.services.WordService;
+import br.com.fleao.word_similarity.util.DeletionIndex;
+import br.com.fleao.word_similarity.util.NdjsonWordWriter;
+import br.com.fleao.word_similarity.util.ScanStatistics;
+import br.com.fleao.word_similarity.util.WordDistance;
 
 /**
  * <p>
@@ -19,6 +50,11 @@ import br.com.fleao.word_similarity.services.WordService;
  * Os serviços disponibilizados possibilitam o armazenamento de novas palavras, a recuperação das
  * palavras armazenadas e a recuperação de uma lista de palavras similares à uma keyword informada.
  * </p>
+ * <p>
+ * As buscas por palavras similares são executadas de forma assíncrona, em um executor dedicado com capacidade 
+ * limitada, sem ocupar as threads do servlet container. Quando o executor está sobrecarregado ou o prazo de uma busca 
+ * (parâmetro opcional "timeoutMs") expira, a resposta é imediatamente um erro 503 (Service Unavailable).
+ * </p>
  * 
  * @author felipe
  *
@@ -27,9 +63,15 @@ import br.com.fleao.word_similarity.services.WordService;
 @RequestMapping("/rest")
 public class WordSimilarityRESTController {
 	
+	// Uma String JSON por linha, utilizado nos modos de streaming
+	private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+	
 	@Autowired
 	private WordService wordService;
 	
+	@Autowired
+	private WordIngestionService wordIngestionService;
+	
 	/**
 	 * Adiciona uma palavra ao conjunto de palavras armazenadas pela aplicação. 
 	 * 
@@ -47,6 +89,45 @@ public class WordSimilarityRESTController {
 	}
 	
 	
+	/**
+	 * Remove uma palavra do conjunto de palavras armazenadas pela aplicação, retirando-a incrementalmente dos índices.
+	 * Palavras do índice mapeado em memória não podem ser removidas.
+	 * 
+	 * @param word a palavra a ser removida
+	 * @return boolean indicando se a palavra foi removida
+	 */
+	@RequestMapping(value="/word/{word}", method=RequestMethod.DELETE)
+	public boolean removeWord(@PathVariable(value="word") String word){
+		return wordService.removeWord(word);
+	}
+	
+	/**
+	 * Adiciona em lote as palavras enviadas no corpo da requisição como um array JSON de strings. O corpo é lido de 
+	 * forma incremental e as palavras são armazenadas em lotes.
+	 * 
+	 * @param body corpo da requisição
+	 * @return quantidade de palavras efetivamente adicionadas
+	 * @throws IOException caso ocorra um erro na leitura do corpo da requisição
+	 */
+	@RequestMapping(value="/addAll", method=RequestMethod.POST, consumes=MediaType.APPLICATION_JSON_VALUE)
+	public int addAllWordsFromJson(InputStream body) throws IOException{
+		return wordIngestionService.storeJsonArray(body);
+	}
+	
+	/**
+	 * Adiciona em lote as palavras enviadas no corpo da requisição, uma por linha (UTF-8). O corpo é lido de forma 
+	 * incremental e as palavras são armazenadas em lotes.
+	 * 
+	 * @param body corpo da requisição
+	 * @return quantidade de palavras efetivamente adicionadas
+	 * @throws IOException caso ocorra um erro na leitura do corpo da requisição
+	 */
+	@RequestMapping(value="/addAll", method=RequestMethod.POST)
+	public int addAllWords(InputStream body) throws IOException{
+		return wordIngestionService.storeLines(Channels.newChannel(body));
+	}
+	
+	
 	/**
 	 * Recupera uma lista com todas as palavras atualmente armazenadas pela aplicação.
 	 * 
@@ -58,6 +139,48 @@ public class WordSimilarityRESTController {
 	}
 	
 	
+	/**
+	 * Recupera uma página das palavras armazenadas pela aplicação, na ordem de inserção. A primeira página é obtida 
+	 * sem o parâmetro "after"; as seguintes informando o cursor "next" retornado pela página anterior, até que ele 
+	 * seja nulo. Quando o dicionário é reconstruído durante a navegação, o cursor deixa de ser válido e a resposta é 
+	 * um erro 410 (Gone).
+	 * 
+	 * @param after cursor retornado pela página anterior (opcional)
+	 * @param limit quantidade máxima de palavras da página
+	 * @return palavras da página e cursor da página seguinte
+	 */
+	@RequestMapping(value="/listAll", method={RequestMethod.GET, RequestMethod.POST}, params="limit")
+	public WordPage listWordsPage(
+			@RequestParam(value="after", required=false) String after, 
+			@RequestParam(value="limit") int limit
+		){
+		
+		return wordService.getStoredWordsPage(after, limit);
+		
+	}
+	
+	
+	/**
+	 * Envia todas as palavras armazenadas pela aplicação no formato NDJSON (uma String JSON por linha), à medida que 
+	 * são lidas, sem montar a lista completa em memória. Utilizado quando o parâmetro "stream=true" é informado.
+	 * 
+	 * @return corpo da resposta, escrito de forma incremental
+	 */
+	@RequestMapping(value="/listAll", method={RequestMethod.GET, RequestMethod.POST}, params={"stream=true", "!limit"})
+	public ResponseEntity<StreamingResponseBody> streamAllWords(){
+		final Set<String> words = wordService.getAllStoredWords();
+		return streamWords(new StreamingResponseBody(){
+			@Override
+			public void writeTo(OutputStream output) throws IOException{
+				NdjsonWordWriter writer = new NdjsonWordWriter(output);
+				for(String word : words)
+					writer.add(word);
+				writer.flush();
+			}
+		});
+	}
+	
+	
 	/**
 	 * Recupera uma lista de palavras armazenadas pela aplicação que são similares à keyword informada. 
 	 * O nível de similaridade aceito é determinado pelo parâmetro "threshold" (opcional). Caso nenhum 
@@ -65,18 +188,263 @@ public class WordSimilarityRESTController {
 	 * 
 	 * @param keyword
 	 * @param threshold
+	 * @param timeoutMs prazo da busca em milissegundos (opcional)
 	 * @return
 	 */
 	@RequestMapping(value="/listSimilar/{keyword}", method={RequestMethod.GET, RequestMethod.POST})
-	public Set<String> listSimilarWords(
+	public DeferredResult<Set<String>> listSimilarWords(
+			@PathVariable(value="keyword") String keyword, 
+			@RequestParam(value="threshold", defaultValue="3") int threshold,
+			@RequestParam(value="timeoutMs", defaultValue="0") long timeoutMs
+		){
+		
+		return DeferredResults.of(wordService.listSimilarStoredWordsAsync(keyword, threshold, timeoutMs));
+		
+	}
+	
+	
+	/**
+	 * Executa a busca por palavras similares à keyword informada e retorna, ao invés das palavras, a explicação da 
+	 * sua execução: a estratégia escolhida, o custo estimado de cada estratégia disponível, as palavras examinadas, 
+	 * as distâncias calculadas e o tempo gasto. Utilizado quando o parâmetro "explain=true" é informado sem o 
+	 * parâmetro "stream", que tem precedência.
+	 * 
+	 * @param keyword
+	 * @param threshold
+	 * @param timeoutMs prazo da busca em milissegundos (opcional)
+	 * @return explicação da execução da busca
+	 */
+	@RequestMapping(value="/listSimilar/{keyword}", method={RequestMethod.GET, RequestMethod.POST}, 
+			params={"explain=true", "!stream"})
+	public DeferredResult<QueryPlan> explainSimilarWords(
+			@PathVariable(value="keyword") String keyword, 
+			@RequestParam(value="threshold", defaultValue="3") int threshold,
+			@RequestParam(value="timeoutMs", defaultValue="0") long timeoutMs
+		){
+		
+		return DeferredResults.of(wordService.explainSimilarStoredWordsAsync(keyword, threshold, timeoutMs));
+		
+	}
+	
+	
+	/**
+	 * Envia as palavras similares à keyword informada no formato NDJSON (uma String JSON por linha), à medida que são 
+	 * encontradas pela busca. Utilizado quando o parâmetro "stream=true" é informado. Os parâmetros são validados na 
+	 * submissão da busca, antes do início da resposta, e parâmetros inválidos resultam em erro 400.
+	 * <p>
+	 * A busca é submetida ao executor de buscas antes do início da resposta, de forma que um executor sobrecarregado 
+	 * também resulta em erro 503. O prazo (parâmetro opcional "timeoutMs") interrompe a busca como nos demais modos; 
+	 * expirado após o envio das primeiras palavras, ele encerra a resposta incompleta.
+	 * </p>
+	 * 
+	 * @param keyword
+	 * @param threshold
+	 * @param timeoutMs prazo da busca em milissegundos (opcional)
+	 * @return corpo da resposta, escrito de forma incremental
+	 */
+	@RequestMapping(value="/listSimilar/{keyword}", method={RequestMethod.GET, RequestMethod.POST}, params="stream=true")
+	public ResponseEntity<StreamingResponseBody> streamSimilarWords(
+			@PathVariable(value="keyword") String keyword, 
+			@RequestParam(value="threshold", defaultValue="3") int threshold,
+			@RequestParam(value="timeoutMs", defaultValue="0") long timeoutMs
+		){
+		
+		// A busca aguarda, já no executor, o início da escrita da resposta
+		final CompletableFuture<NdjsonWordWriter> target = new CompletableFuture<NdjsonWordWriter>();
+		final CompletableFuture<Void> search = wordService.listSimilarStoredWordsAsync(keyword, threshold, target, 
+				timeoutMs);
+		return streamWords(new StreamingResponseBody(){
+			@Override
+			public void writeTo(OutputStream output) throws IOException{
+				NdjsonWordWriter writer = new NdjsonWordWriter(output);
+				target.complete(writer);
+				try{
+					search.join();
+				}finally{
+					// Escrita interrompida antes da conclusão: a busca também é interrompida
+					search.cancel(true);
+				}
+				writer.flush();
+			}
+		});
+		
+	}
+	
+	
+	/**
+	 * Executa em lote várias buscas por palavras similares, enviadas no corpo da requisição como um array JSON de 
+	 * consultas no formato {@code {"keyword": "...", "threshold": 3}}. O threshold de cada consulta é opcional e, 
+	 * caso não seja informado, será utilizado o valor default (3).
+	 * 
+	 * @param queries consultas a serem executadas
+	 * @param timeoutMs prazo do lote em milissegundos (opcional)
+	 * @return resultado de cada consulta, na mesma ordem
+	 */
+	@RequestMapping(value="/listSimilarBatch", method=RequestMethod.POST, consumes=MediaType.APPLICATION_JSON_VALUE)
+	public DeferredResult<List<SimilarityResult>> listSimilarWordsBatch(
+			@RequestBody List<SimilarityQuery> queries, 
+			@RequestParam(value="timeoutMs", defaultValue="0") long timeoutMs
+		){
+		
+		return DeferredResults.of(wordService.listSimilarStoredWordsBatchAsync(queries, timeoutMs));
+		
+	}
+	
+	
+	/**
+	 * Recupera as palavras armazenadas mais próximas da keyword informada, ordenadas pela distância e acompanhadas 
+	 * dela. A quantidade de palavras é determinada pelo parâmetro "k" (opcional). Caso nenhuma quantidade seja 
+	 * informada, será utilizado o valor default (10).
+	 * 
+	 * @param keyword palavra cujas vizinhas deseja-se encontrar
+	 * @param k quantidade máxima de palavras retornadas
+	 * @return palavras mais próximas com suas distâncias
+	 */
+	@RequestMapping(value="/nearest/{keyword}", method={RequestMethod.GET, RequestMethod.POST})
+	public DeferredResult<List<WordDistance>> listNearestWords(
 			@PathVariable(value="keyword") String keyword, 
-			@RequestParam(value="threshold", defaultValue="3") int threshold
+			@RequestParam(value="k", defaultValue="10") int k,
+			@RequestParam(value="timeoutMs", defaultValue="0") long timeoutMs
 		){
 		
-		return wordService.listSimilarStoredWords(keyword, threshold);
+		return DeferredResults.of(wordService.listNearestStoredWordsAsync(keyword, k, timeoutMs));
 		
 	}
 	
 	
+	/**
+	 * Recupera o relatório de ocupação de memória do índice de remoções utilizado nas buscas com threshold pequeno.
+	 * 
+	 * @return relatório de memória, ou vazio caso o índice não esteja habilitado
+	 */
+	@RequestMapping(value="/deletionIndex/report", method={RequestMethod.GET})
+	public DeletionIndex.MemoryReport deletionIndexReport(){
+		return wordService.getDeletionIndexReport();
+	}
+	
+	
+	/**
+	 * Recupera os contadores das varreduras de palavras similares, com a quantidade de palavras descartadas pelo 
+	 * filtro de tamanho e pelo filtro de assinatura de caracteres antes do cálculo da distância.
+	 * 
+	 * @return estatísticas das varreduras
+	 */
+	@RequestMapping(value="/scan/report", method={RequestMethod.GET})
+	public ScanStatistics scanReport(){
+		return wordService.getScanStatistics();
+	}
+	
+	
+	/**
+	 * Recupera os contadores do cache de resultados das buscas por palavras similares: acertos, consultas calculadas 
+	 * por completo, consultas atualizadas somente com as palavras novas e resultados descartados.
+	 * 
+	 * @return estatísticas do cache, ou vazio caso ele não esteja habilitado
+	 */
+	@RequestMapping(value="/cache/report", method={RequestMethod.GET})
+	public CacheStatistics cacheReport(){
+		return wordService.getCacheStatistics();
+	}
+	
+	
+	/**
+	 * Recupera as métricas da aplicação: palavras armazenadas e ocupação de memória, estado do executor de buscas, 
+	 * histogramas de latência por endpoint e por fase das buscas (espera na fila, execução e espera pelo lock de 
+	 * escrita) e os contadores de palavras examinadas, descartadas e verificadas e de células calculadas por 
+	 * estratégia de busca. As mesmas métricas são expostas via JMX.
+	 * 
+	 * @return relatório das métricas
+	 */
+	@RequestMapping(value="/metrics/report", method={RequestMethod.GET})
+	public MetricsReport metricsReport(){
+		return wordService.getMetricsReport();
+	}
+	
+	
+	/**
+	 * Recupera a posição desta instância entre os shards, conferida pelo coordenador do modo distribuído na sua 
+	 * inicialização.
+	 * 
+	 * @return posição do shard, com quantidade zero caso não tenha sido configurada
+	 */
+	@RequestMapping(value="/shard/identity", method={RequestMethod.GET})
+	public ShardIdentity shardIdentity(){
+		return wordService.getShardIdentity();
+	}
+	
+	
+	/**
+	 * Exporta todas as palavras armazenadas para o arquivo de índice pré-construído configurado na propriedade 
+	 * word-similarity.mapped-index.export-file, que pode ser mapeado em memória na inicialização da aplicação.
+	 * 
+	 * @return quantidade de palavras exportadas
+	 */
+	@RequestMapping(value="/index/export", method={RequestMethod.POST})
+	public int exportIndex(){
+		return wordService.exportIndex();
+	}
+	
+	
+	/**
+	 * Monta a resposta NDJSON escrita pelo corpo informado. Falhas de escrita propagadas pelo {@link NdjsonWordWriter}, 
+	 * como a desconexão do cliente, interrompem a escrita e são relançadas como {@link IOException}, 
+	 * inclusive quando ocorrem na thread da busca.
+	 */
+	private ResponseEntity<StreamingResponseBody> streamWords(final StreamingResponseBody body){
+		return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(new StreamingResponseBody(){
+			@Override
+			public void writeTo(OutputStream output) throws IOException{
+				try{
+					body.writeTo(output);
+				}catch(UncheckedIOException e){
+					throw e.getCause();
+				}catch(CompletionException e){
+					// Falha de escrita na thread da busca
+					if(e.getCause() instanceof UncheckedIOException)
+						throw ((UncheckedIOException) e.getCause()).getCause();
+					throw e;
+				}
+			}
+		});
+	}
+	
+	
+	/**
+	 * Responde imediatamente com erro 503 as buscas rejeitadas pelo executor sobrecarregado, sugerindo ao cliente uma 
+	 * nova tentativa.
+	 */
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<String> queryRejected(RejectedExecutionException e){
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+				.body("O serviço de buscas está sobrecarregado.");
+	}
+	
+	
+	/**
+	 * Responde com erro 503 as buscas cujo prazo expirou.
+	 */
+	@ExceptionHandler(TimeoutException.class)
+	public ResponseEntity<String> queryTimedOut(TimeoutException e){
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+	}
+	
+	
+	/**
+	 * Responde com erro 400 as requisições com parâmetros inválidos, validados antes do início das respostas em 
+	 * streaming.
+	 */
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<String> illegalArgument(IllegalArgumentException e){
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+	}
+	
+	
+	/**
+	 * Responde com erro 410 as páginas solicitadas com um cursor obtido antes da reconstrução do dicionário.
+	 */
+	@ExceptionHandler(StaleCursorException.class)
+	public ResponseEntity<String> staleCursor(StaleCursorException e){
+		return ResponseEntity.status(HttpStatus.GONE).body(e.getMessage());
+	}
 	
 }
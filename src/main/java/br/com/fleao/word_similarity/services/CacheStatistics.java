@@ -0,0 +1,70 @@
+package br.com.fleao.word_similarity.services;
+
+/**
+ * Contadores acumulados e ocupação do cache de resultados de buscas por palavras similares.
+ * 
+ * @author felipe
+ *
+ */
+public final class CacheStatistics {
+	
+	private final long hits;
+	private final long misses;
+	private final long refreshes;
+	private final long evictions;
+	private final long entries;
+	private final long weight;
+	private final long maxWeight;
+	
+	CacheStatistics(long hits, long misses, long refreshes, long evictions, long entries, long weight, long maxWeight){
+		this.hits = hits;
+		this.misses = misses;
+		this.refreshes = refreshes;
+		this.evictions = evictions;
+		this.entries = entries;
+		this.weight = weight;
+		this.maxWeight = maxWeight;
+	}
+	
+	/** @return consultas respondidas pelo cache sem nenhum cálculo de distância */
+	public long getHits(){
+		return hits;
+	}
+	
+	/** @return consultas calculadas por completo, por não estarem no cache ou estarem muito desatualizadas */
+	public long getMisses(){
+		return misses;
+	}
+	
+	/** @return consultas respondidas pelo cache após avaliar somente as palavras adicionadas desde o cálculo */
+	public long getRefreshes(){
+		return refreshes;
+	}
+	
+	/** @return resultados descartados para liberar espaço */
+	public long getEvictions(){
+		return evictions;
+	}
+	
+	/** @return resultados armazenados */
+	public long getEntries(){
+		return entries;
+	}
+	
+	/** @return peso total dos resultados armazenados (palavras + 1 por resultado) */
+	public long getWeight(){
+		return weight;
+	}
+	
+	/** @return peso máximo configurado */
+	public long getMaxWeight(){
+		return maxWeight;
+	}
+	
+	@Override
+	public String toString(){
+		return "CacheStatistics[hits=" + hits + ", misses=" + misses + ", refreshes=" + refreshes + ", evictions=" 
+				+ evictions + ", entries=" + entries + ", weight=" + weight + ", maxWeight=" + maxWeight + "]";
+	}
+	
+}
@@ -0,0 +1,56 @@
+package br.com.fleao.word_similarity.services;
+
+/**
+ * Políticas de escolha das palavras removidas quando o armazenamento atinge a capacidade configurada, selecionadas
+ * através da propriedade {@code word-similarity.store.eviction-policy}. Ambas consideram o uso de cada palavra nos
+ * resultados das buscas ({@link WordUsage}).
+ *
+ * @author felipe
+ *
+ */
+public enum EvictionPolicy {
+
+	/**
+	 * Remove a palavra que está há mais tempo sem aparecer no resultado de uma busca (least recently used). O uso de
+	 * cada palavra é a marca do relógio lógico da última busca que a retornou, ou da sua inserção.
+	 */
+	LRU {
+		@Override
+		int initialUsage(int clock){
+			return clock;
+		}
+
+		@Override
+		int touch(int usage, int clock){
+			return clock;
+		}
+	},
+
+	/**
+	 * Remove a palavra que apareceu menos vezes nos resultados das buscas (least frequently used). Os contadores são
+	 * reduzidos à metade periodicamente, de forma que palavras muito buscadas no passado não fiquem armazenadas para
+	 * sempre.
+	 */
+	LFU {
+		@Override
+		int initialUsage(int clock){
+			return 1;
+		}
+
+		@Override
+		int touch(int usage, int clock){
+			return usage == Integer.MAX_VALUE ? usage : usage + 1;
+		}
+	};
+
+	/**
+	 * Uso atribuído a uma palavra recém-inserida.
+	 */
+	abstract int initialUsage(int clock);
+
+	/**
+	 * Uso de uma palavra após aparecer no resultado da busca da marca de relógio informada.
+	 */
+	abstract int touch(int usage, int clock);
+
+}
@@ -0,0 +1,131 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.Map;
+
+import br.com.fleao.word_similarity.util.LatencyHistogram;
+
+/**
+ * Relatório das métricas da aplicação: ocupação das palavras armazenadas e da memória, estado do executor de buscas,
+ * latências e contadores das buscas ({@link QueryMetrics}).
+ *
+ * @author felipe
+ *
+ */
+public final class MetricsReport {
+
+	private final int storedWords;
+	private final int mappedWords;
+	private final long storeEstimatedBytes;
+	private final long removedWords;
+	private final long evictedWords;
+	private final Long deletionIndexEstimatedBytes;
+	private final Long cacheWeight;
+	private final long heapUsedBytes;
+	private final long heapMaxBytes;
+	private final int queuedQueries;
+	private final long rejectedQueries;
+	private final long timedOutQueries;
+	private final Map<String, LatencyHistogram> latencies;
+	private final Map<SearchStrategy, QueryMetrics.SearchMetrics> searches;
+
+	MetricsReport(int storedWords, int mappedWords, long storeEstimatedBytes, long removedWords, long evictedWords,
+			Long deletionIndexEstimatedBytes, Long cacheWeight, long heapUsedBytes, long heapMaxBytes, int queuedQueries, long rejectedQueries,
+			long timedOutQueries, Map<String, LatencyHistogram> latencies,
+			Map<SearchStrategy, QueryMetrics.SearchMetrics> searches){
+		this.storedWords = storedWords;
+		this.mappedWords = mappedWords;
+		this.storeEstimatedBytes = storeEstimatedBytes;
+		this.removedWords = removedWords;
+		this.evictedWords = evictedWords;
+		this.deletionIndexEstimatedBytes = deletionIndexEstimatedBytes;
+		this.cacheWeight = cacheWeight;
+		this.heapUsedBytes = heapUsedBytes;
+		this.heapMaxBytes = heapMaxBytes;
+		this.queuedQueries = queuedQueries;
+		this.rejectedQueries = rejectedQueries;
+		this.timedOutQueries = timedOutQueries;
+		this.latencies = latencies;
+		this.searches = searches;
+	}
+
+	/** @return palavras armazenadas em tempo de execução */
+	public int getStoredWords(){
+		return storedWords;
+	}
+
+	/** @return palavras do índice mapeado em memória */
+	public int getMappedWords(){
+		return mappedWords;
+	}
+
+	/** @return memória estimada da arena de palavras armazenadas, em bytes */
+	public long getStoreEstimatedBytes(){
+		return storeEstimatedBytes;
+	}
+
+	/** @return palavras removidas explicitamente desde a inicialização */
+	public long getRemovedWords(){
+		return removedWords;
+	}
+
+	/** @return palavras removidas por exceder a capacidade do armazenamento desde a inicialização */
+	public long getEvictedWords(){
+		return evictedWords;
+	}
+
+	/** @return memória estimada do índice de remoções, em bytes, ou null caso ele não esteja habilitado */
+	public Long getDeletionIndexEstimatedBytes(){
+		return deletionIndexEstimatedBytes;
+	}
+
+	/** @return peso das entradas do cache de resultados, ou null caso ele não esteja habilitado */
+	public Long getCacheWeight(){
+		return cacheWeight;
+	}
+
+	/** @return memória heap ocupada, em bytes */
+	public long getHeapUsedBytes(){
+		return heapUsedBytes;
+	}
+
+	/** @return memória heap máxima, em bytes */
+	public long getHeapMaxBytes(){
+		return heapMaxBytes;
+	}
+
+	/** @return buscas aguardando uma thread livre do executor */
+	public int getQueuedQueries(){
+		return queuedQueries;
+	}
+
+	/** @return buscas rejeitadas por falta de capacidade do executor */
+	public long getRejectedQueries(){
+		return rejectedQueries;
+	}
+
+	/** @return buscas cujo prazo expirou */
+	public long getTimedOutQueries(){
+		return timedOutQueries;
+	}
+
+	/** @return histogramas de latência ordenados pelo nome */
+	public Map<String, LatencyHistogram> getLatencies(){
+		return latencies;
+	}
+
+	/** @return métricas das buscas por palavras similares de cada estratégia */
+	public Map<SearchStrategy, QueryMetrics.SearchMetrics> getSearches(){
+		return searches;
+	}
+
+	@Override
+	public String toString(){
+		return "MetricsReport[storedWords=" + storedWords + ", mappedWords=" + mappedWords + ", storeEstimatedBytes="
+				+ storeEstimatedBytes + ", removedWords=" + removedWords + ", evictedWords=" + evictedWords
+				+ ", deletionIndexEstimatedBytes=" + deletionIndexEstimatedBytes
+				+ ", cacheWeight=" + cacheWeight + ", heapUsedBytes=" + heapUsedBytes + ", heapMaxBytes="
+				+ heapMaxBytes + ", queuedQueries=" + queuedQueries + ", rejectedQueries=" + rejectedQueries
+				+ ", timedOutQueries=" + timedOutQueries + ", latencies=" + latencies + ", searches=" + searches + "]";
+	}
+
+}
@@ -0,0 +1,99 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RecursiveTask;
+
+import br.com.fleao.word_similarity.util.LengthBucketIndex;
+import br.com.fleao.word_similarity.util.LevenshteinDistanceAlgorithm;
+import br.com.fleao.word_similarity.util.SearchCounters;
+
+/**
+ * <p>
+ * Tarefa fork-join que compara a keyword com as palavras de um intervalo de uma consulta preparada em um
+ * {@link LengthBucketIndex}, ou seja, somente com as palavras dos tamanhos compatíveis com o threshold.
+ * </p>
+ * <p>
+ * Intervalos maiores que o tamanho de bloco configurado são divididos ao meio recursivamente. Cada bloco é processado
+ * sequencialmente e produz sua própria lista de resultados, que é concatenada às listas dos demais blocos durante o
+ * "join", sem nenhuma estrutura compartilhada entre as threads.
+ * </p>
+ * <p>
+ * Os blocos são executados pelas threads do pool, e não pela thread que iniciou a busca: antes de processar cada bloco
+ * a tarefa verifica se a thread de origem foi interrompida, estendendo o cancelamento cooperativo das buscas
+ * ({@link br.com.fleao.word_similarity.util.QueryCancellation}) à varredura paralela.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+class ParallelScanTask extends RecursiveTask<List<String>> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final LengthBucketIndex index;
+	private final LengthBucketIndex.Query query;
+	private final int from;
+	private final int to;
+	private final int chunkSize;
+	private final Thread owner;
+	private final SearchCounters counters;
+
+	/**
+	 * @param index estrutura com as palavras a serem comparadas
+	 * @param query consulta preparada, compartilhada entre todos os blocos
+	 * @param from primeira posição do intervalo (inclusive)
+	 * @param to última posição do intervalo (exclusive)
+	 * @param chunkSize quantidade máxima de palavras processadas sequencialmente por uma tarefa
+	 * @param owner thread que iniciou a busca, cuja interrupção cancela os blocos ainda não processados
+	 * @param counters contadores da busca, compartilhados entre os blocos, ou null
+	 */
+	ParallelScanTask(LengthBucketIndex index, LengthBucketIndex.Query query, int from, int to, int chunkSize, 
+			Thread owner, SearchCounters counters){
+		this.index = index;
+		this.query = query;
+		this.from = from;
+		this.to = to;
+		this.chunkSize = chunkSize;
+		this.owner = owner;
+		this.counters = counters;
+	}
+
+	@Override
+	protected List<String> compute(){
+		if(to - from <= chunkSize)
+			return scan();
+
+		int middle = (from + to) >>> 1;
+		ParallelScanTask left = new ParallelScanTask(index, query, from, middle, chunkSize, owner, counters);
+		ParallelScanTask right = new ParallelScanTask(index, query, middle, to, chunkSize, owner, counters);
+		left.fork();
+		List<String> result = right.compute();
+		List<String> leftResult = left.join();
+
+		// Concatena no maior dos resultados para reduzir cópias
+		if(leftResult.size() >= result.size()){
+			leftResult.addAll(result);
+			return leftResult;
+		}
+		result.addAll(leftResult);
+		return result;
+	}
+
+	/**
+	 * Compara sequencialmente a keyword com as palavras do bloco, contabilizando as células da matriz de distância 
+	 * calculadas pela thread que o processou.
+	 */
+	private List<String> scan(){
+		if(owner.isInterrupted())
+			throw new CancellationException("A busca foi cancelada.");
+		List<String> result = new ArrayList<String>();
+		long cells = LevenshteinDistanceAlgorithm.getComputedCells();
+		index.scan(query, from, to, result, counters);
+		if(counters != null)
+			counters.addCells(LevenshteinDistanceAlgorithm.getComputedCells() - cells);
+		return result;
+	}
+
+}
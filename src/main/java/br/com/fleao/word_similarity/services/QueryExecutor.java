@@ -0,0 +1,171 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import br.com.fleao.word_similarity.util.LatencyHistogram;
+
+/**
+ * <p>
+ * Executor dedicado às buscas por palavras similares, que libera as threads do servlet container enquanto as buscas
+ * são calculadas.
+ * </p>
+ * <p>
+ * A quantidade de threads e a fila de buscas pendentes são limitadas: quando ambas estão ocupadas a busca é rejeitada
+ * imediatamente com uma {@link RejectedExecutionException}, ao invés de acumular requisições indefinidamente. Cada
+ * busca pode ter um prazo, contado a partir da submissão: ao expirar, o resultado é concluído com uma
+ * {@link TimeoutException} e a thread que executa a busca é interrompida, encerrando-a no próximo ponto de verificação
+ * ({@link br.com.fleao.word_similarity.util.QueryCancellation}). O cancelamento do resultado devolvido tem o mesmo
+ * efeito.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+final class QueryExecutor {
+
+	private final ThreadPoolExecutor executor;
+	// Dispara os prazos das buscas; prazos cancelados são removidos da fila imediatamente
+	private final ScheduledThreadPoolExecutor deadlines = new ScheduledThreadPoolExecutor(1);
+
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder timedOut = new LongAdder();
+
+	/**
+	 * @param threads quantidade de threads que executam as buscas
+	 * @param queueCapacity quantidade máxima de buscas aguardando uma thread livre; zero desabilita a fila
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	QueryExecutor(int threads, int queueCapacity) throws IllegalArgumentException{
+		if(threads <= 0)
+			throw new IllegalArgumentException("A quantidade de threads informada deve ser positiva.");
+		if(queueCapacity < 0)
+			throw new IllegalArgumentException("A capacidade da fila informada não pode ser negativa.");
+
+		BlockingQueue<Runnable> queue = queueCapacity == 0 ? new SynchronousQueue<Runnable>()
+				: new ArrayBlockingQueue<Runnable>(queueCapacity);
+		executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue);
+		deadlines.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Submete uma busca para execução assíncrona.
+	 *
+	 * @param query busca a ser executada
+	 * @param timeoutMs prazo da busca em milissegundos, ou zero para nenhum prazo
+	 * @return resultado da busca, concluído com {@link TimeoutException} caso o prazo expire
+	 * @throws RejectedExecutionException caso todas as threads estejam ocupadas e a fila esteja cheia
+	 */
+	<T> CompletableFuture<T> submit(Callable<T> query, long timeoutMs) throws RejectedExecutionException{
+		return submit(query, timeoutMs, null, null);
+	}
+
+	/**
+	 * Submete uma busca para execução assíncrona, registrando o tempo de espera na fila e o tempo de execução.
+	 *
+	 * @param query busca a ser executada
+	 * @param timeoutMs prazo da busca em milissegundos, ou zero para nenhum prazo
+	 * @param queueLatency histograma do tempo de espera na fila, ou null
+	 * @param executionLatency histograma do tempo de execução, ou null
+	 * @return resultado da busca, concluído com {@link TimeoutException} caso o prazo expire
+	 * @throws RejectedExecutionException caso todas as threads estejam ocupadas e a fila esteja cheia
+	 */
+	<T> CompletableFuture<T> submit(final Callable<T> query, long timeoutMs, final LatencyHistogram queueLatency, 
+			final LatencyHistogram executionLatency) throws RejectedExecutionException{
+		final CompletableFuture<T> result = new CompletableFuture<T>();
+		final long submitted = System.nanoTime();
+		final Future<?> task;
+		try{
+			task = executor.submit(new Runnable(){
+				@Override
+				public void run(){
+					long started = System.nanoTime();
+					if(queueLatency != null)
+						queueLatency.record(started - submitted);
+					// Buscas expiradas ou canceladas enquanto aguardavam na fila não são executadas
+					if(result.isDone())
+						return;
+					try{
+						result.complete(query.call());
+					}catch(Throwable e){
+						result.completeExceptionally(e);
+					}finally{
+						if(executionLatency != null)
+							executionLatency.record(System.nanoTime() - started);
+					}
+				}
+			});
+		}catch(RejectedExecutionException e){
+			rejected.increment();
+			throw e;
+		}
+
+		final ScheduledFuture<?> deadline = timeoutMs <= 0 ? null : deadlines.schedule(new Runnable(){
+			@Override
+			public void run(){
+				if(result.completeExceptionally(new TimeoutException("O prazo de " + timeoutMs + " ms da busca expirou.")))
+					timedOut.increment();
+			}
+		}, timeoutMs, TimeUnit.MILLISECONDS);
+
+		result.whenComplete(new BiConsumer<T, Throwable>(){
+			@Override
+			public void accept(T value, Throwable error){
+				if(deadline != null)
+					deadline.cancel(false);
+				// Resultado expirado ou cancelado: interrompe a busca, caso ela ainda esteja em execução
+				if(error != null)
+					task.cancel(true);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Retorna a quantidade de buscas rejeitadas por falta de capacidade.
+	 *
+	 * @return quantidade de buscas rejeitadas
+	 */
+	long getRejectedCount(){
+		return rejected.sum();
+	}
+
+	/**
+	 * Retorna a quantidade de buscas cujo prazo expirou.
+	 *
+	 * @return quantidade de buscas expiradas
+	 */
+	long getTimedOutCount(){
+		return timedOut.sum();
+	}
+
+	/**
+	 * Retorna a quantidade de buscas aguardando uma thread livre.
+	 *
+	 * @return quantidade de buscas na fila
+	 */
+	int getQueuedCount(){
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * Encerra as threads do executor, interrompendo as buscas em andamento.
+	 */
+	void shutdown(){
+		executor.shutdownNow();
+		deadlines.shutdownNow();
+	}
+
+}
@@ -0,0 +1,150 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import br.com.fleao.word_similarity.util.LatencyHistogram;
+import br.com.fleao.word_similarity.util.SearchCounters;
+
+/**
+ * <p>
+ * Métricas acumuladas das buscas e das requisições, mantidas pelo {@link WordService} desde a inicialização da
+ * aplicação:
+ * </p>
+ * <ul>
+ * <li>histogramas de latência por nome, no formato {@code categoria.nome.fase}: o tempo total de cada endpoint
+ * ({@code request.<padrão da URL>}, incluindo a serialização da resposta), a espera na fila e a execução de cada tipo
+ * de busca assíncrona ({@code query.<tipo>.queue} e {@code query.<tipo>.execution}) e a espera pelo lock de escrita
+ * ({@code store.writeLock.wait});</li>
+ * <li>contadores por estratégia das buscas por palavras similares ({@link SearchMetrics}): palavras examinadas,
+ * descartadas e verificadas, células da matriz de distância calculadas e a latência da busca.</li>
+ * </ul>
+ * <p>
+ * Cada busca acumula seu trabalho em variáveis locais e o registra uma única vez ao final, de forma que as métricas não
+ * acrescentam nenhuma alocação nem sincronização por palavra e podem permanecer sempre habilitadas.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class QueryMetrics {
+
+	private final ConcurrentMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<String, LatencyHistogram>();
+	private final Map<SearchStrategy, SearchMetrics> searches;
+
+	QueryMetrics(){
+		Map<SearchStrategy, SearchMetrics> metrics = new EnumMap<SearchStrategy, SearchMetrics>(SearchStrategy.class);
+		for(SearchStrategy strategy : SearchStrategy.values())
+			metrics.put(strategy, new SearchMetrics());
+		searches = Collections.unmodifiableMap(metrics);
+	}
+
+	/**
+	 * Retorna o histograma de latências com o nome informado, criando-o no primeiro uso.
+	 *
+	 * @param name nome do histograma
+	 * @return histograma de latências
+	 */
+	public LatencyHistogram latency(String name){
+		LatencyHistogram histogram = latencies.get(name);
+		if(histogram != null)
+			return histogram;
+		LatencyHistogram created = new LatencyHistogram();
+		histogram = latencies.putIfAbsent(name, created);
+		return histogram == null ? created : histogram;
+	}
+
+	/**
+	 * Registra uma latência no histograma com o nome informado.
+	 *
+	 * @param name nome do histograma
+	 * @param nanos latência em nanossegundos
+	 */
+	public void recordLatency(String name, long nanos){
+		latency(name).record(nanos);
+	}
+
+	/**
+	 * Registra o trabalho realizado por uma busca por palavras similares.
+	 */
+	void recordSearch(SearchStrategy strategy, SearchCounters counters, long nanos){
+		SearchMetrics metrics = searches.get(strategy);
+		metrics.searches.increment();
+		metrics.examined.add(counters.getExamined());
+		metrics.verified.add(counters.getVerified());
+		metrics.cells.add(counters.getCells());
+		metrics.latency.record(nanos);
+	}
+
+	/**
+	 * @return histogramas de latência ordenados pelo nome
+	 */
+	public Map<String, LatencyHistogram> getLatencies(){
+		return Collections.unmodifiableMap(new TreeMap<String, LatencyHistogram>(latencies));
+	}
+
+	/**
+	 * @return métricas das buscas por palavras similares de cada estratégia
+	 */
+	public Map<SearchStrategy, SearchMetrics> getSearches(){
+		return searches;
+	}
+
+	/**
+	 * Contadores acumulados das buscas por palavras similares realizadas por uma estratégia.
+	 */
+	public static final class SearchMetrics {
+
+		private final LongAdder searches = new LongAdder();
+		private final LongAdder examined = new LongAdder();
+		private final LongAdder verified = new LongAdder();
+		private final LongAdder cells = new LongAdder();
+		private final LatencyHistogram latency = new LatencyHistogram();
+
+		private SearchMetrics(){
+		}
+
+		/** @return quantidade de buscas realizadas */
+		public long getSearches(){
+			return searches.sum();
+		}
+
+		/** @return palavras (ou nós do índice) alcançadas pelas buscas, antes de qualquer filtro */
+		public long getExamined(){
+			return examined.sum();
+		}
+
+		/** @return palavras (ou nós do índice) descartadas pelos filtros sem nenhum cálculo de distância */
+		public long getPruned(){
+			return Math.max(0, examined.sum() - verified.sum());
+		}
+
+		/** @return cálculos de distância realizados */
+		public long getVerified(){
+			return verified.sum();
+		}
+
+		/** @return células da matriz de distância calculadas */
+		public long getCells(){
+			return cells.sum();
+		}
+
+		/** @return latência das buscas, sem a espera na fila e a consulta ao cache */
+		public LatencyHistogram getLatency(){
+			return latency;
+		}
+
+		@Override
+		public String toString(){
+			return "SearchMetrics[searches=" + getSearches() + ", examined=" + getExamined() + ", pruned=" + getPruned()
+					+ ", verified=" + getVerified() + ", cells=" + getCells() + ", latency=" + latency + "]";
+		}
+
+	}
+
+}
@@ -0,0 +1,112 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.Map;
+
+/**
+ * Explicação da execução de uma busca por palavras similares: a estratégia escolhida pelo {@link QueryPlanner}, o 
+ * custo estimado de cada estratégia disponível, o trabalho efetivamente realizado e o tempo gasto.
+ * 
+ * @author felipe
+ *
+ */
+public class QueryPlan {
+	
+	private final String keyword;
+	private final int threshold;
+	private final SearchStrategy strategy;
+	private final Map<SearchStrategy, Double> estimatedCosts;
+	private final boolean cached;
+	private final int visibleWords;
+	private final int lengthWindowWords;
+	private final long examined;
+	private final long verified;
+	private final long cells;
+	private final int matches;
+	private final long elapsedMicros;
+	
+	QueryPlan(String keyword, int threshold, SearchStrategy strategy, Map<SearchStrategy, Double> estimatedCosts, 
+			boolean cached, int visibleWords, int lengthWindowWords, long examined, long verified, long cells, 
+			int matches, long elapsedMicros){
+		this.keyword = keyword;
+		this.threshold = threshold;
+		this.strategy = strategy;
+		this.estimatedCosts = estimatedCosts;
+		this.cached = cached;
+		this.visibleWords = visibleWords;
+		this.lengthWindowWords = lengthWindowWords;
+		this.examined = examined;
+		this.verified = verified;
+		this.cells = cells;
+		this.matches = matches;
+		this.elapsedMicros = elapsedMicros;
+	}
+	
+	/** @return palavra consultada */
+	public String getKeyword(){
+		return keyword;
+	}
+	
+	/** @return distância máxima utilizada na consulta */
+	public int getThreshold(){
+		return threshold;
+	}
+	
+	/** @return estratégia escolhida para as palavras armazenadas em tempo de execução */
+	public SearchStrategy getStrategy(){
+		return strategy;
+	}
+	
+	/** @return custo estimado de cada estratégia disponível para a consulta, na unidade de um cálculo de distância */
+	public Map<SearchStrategy, Double> getEstimatedCosts(){
+		return estimatedCosts;
+	}
+	
+	/** @return true caso uma consulta normal fosse respondida pelo cache sem nenhum cálculo */
+	public boolean isCached(){
+		return cached;
+	}
+	
+	/** @return quantidade de palavras armazenadas em tempo de execução visíveis à consulta */
+	public int getVisibleWords(){
+		return visibleWords;
+	}
+	
+	/** @return quantidade de palavras com tamanho compatível com o threshold */
+	public int getLengthWindowWords(){
+		return lengthWindowWords;
+	}
+	
+	/** @return palavras ou nós do índice alcançados pela busca */
+	public long getExamined(){
+		return examined;
+	}
+	
+	/** @return cálculos de distância realizados */
+	public long getVerified(){
+		return verified;
+	}
+	
+	/** @return células da matriz de distância calculadas */
+	public long getCells(){
+		return cells;
+	}
+	
+	/** @return quantidade de palavras similares encontradas, incluindo as do índice mapeado em memória */
+	public int getMatches(){
+		return matches;
+	}
+	
+	/** @return tempo gasto na busca, em microssegundos */
+	public long getElapsedMicros(){
+		return elapsedMicros;
+	}
+	
+	@Override
+	public String toString(){
+		return "QueryPlan[keyword=" + keyword + ", threshold=" + threshold + ", strategy=" + strategy 
+				+ ", estimatedCosts=" + estimatedCosts + ", cached=" + cached + ", visibleWords=" + visibleWords 
+				+ ", lengthWindowWords=" + lengthWindowWords + ", examined=" + examined + ", verified=" + verified 
+				+ ", cells=" + cells + ", matches=" + matches + ", elapsedMicros=" + elapsedMicros + "]";
+	}
+	
+}
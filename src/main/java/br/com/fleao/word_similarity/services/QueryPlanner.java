@@ -0,0 +1,167 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.Map;
+
+import br.com.fleao.word_similarity.util.DeletionIndex;
+import br.com.fleao.word_similarity.util.LengthBucketIndex;
+import br.com.fleao.word_similarity.util.QGramIndex;
+import br.com.fleao.word_similarity.util.ScanStatistics;
+
+/**
+ * <p>
+ * Planejador de consultas baseado em custo: estima o custo de cada estratégia de busca disponível a partir das
+ * estatísticas do dicionário e escolhe a mais barata para cada consulta.
+ * </p>
+ * <p>
+ * Os custos são expressos na unidade de um cálculo de distância limitado durante a varredura e utilizam somente
+ * informações obtidas sem percorrer as palavras: o histograma de tamanhos ({@link LengthBucketIndex#countWords(int, int,
+ * int)}), que determina quantas palavras têm tamanho compatível com o threshold, a taxa de aprovação do filtro de
+ * assinatura observada nas varreduras anteriores ({@link ScanStatistics}), o tamanho das listas dos índices de
+ * remoções e de q-gramas e a razão entre o threshold e o tamanho da keyword, que determina a capacidade de descarte
+ * do índice configurado:
+ * </p>
+ * <ul>
+ * <li>varredura: palavras de tamanho compatível × (filtro de assinatura + taxa de aprovação);</li>
+ * <li>varredura paralela: custo da varredura dividido entre as threads, mais o custo fixo de coordenação do pool. A
+ * partir da quantidade de palavras configurada em {@code word-similarity.parallel.min-words} a varredura é sempre
+ * paralela e substitui a sequencial entre as estratégias consideradas;</li>
+ * <li>índice configurado: fração das palavras visitada, estimada por {@code ((2t + 1) / (|keyword| + 1))²}, já que
+ * cada nó só visita os filhos em uma faixa de {@code 2t + 1} distâncias; o índice não é considerado quando o threshold
+ * atinge a fração configurada do tamanho da keyword;</li>
+ * <li>índice de remoções: remoções da keyword × (consulta ao mapa + média de palavras por remoção);</li>
+ * <li>índice de q-gramas: entradas das listas dos q-gramas da keyword, mais as palavras dos tamanhos para os quais o
+ * filtro de contagem não descarta nada.</li>
+ * </ul>
+ * <p>
+ * As estimativas são aproximações: o objetivo é separar os casos em que cada estratégia é claramente superior, não
+ * prever o tempo exato de uma consulta. O plano escolhido e o trabalho efetivamente realizado podem ser comparados
+ * através de {@link WordService#explainSimilarStoredWords(String, int)}.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+final class QueryPlanner {
+
+	// Custos relativos a um cálculo de distância limitado durante a varredura
+	static final double SIGNATURE_COST = 0.05;
+	static final double INDEX_NODE_COST = 1.5;
+	static final double HASH_LOOKUP_COST = 0.5;
+	static final double POSTING_COST = 0.05;
+	// Custo fixo de dividir a varredura entre as threads e reunir os resultados
+	static final double PARALLEL_OVERHEAD = 2000;
+	// Taxa de aprovação do filtro de assinatura utilizada antes da primeira varredura
+	static final double DEFAULT_SIGNATURE_PASS_RATE = 0.5;
+
+	private final int parallelism;
+	private final int parallelMinWords;
+	private final double indexMaxThresholdRatio;
+
+	/**
+	 * @param parallelism quantidade de threads disponíveis para a varredura paralela, ou zero caso ela não esteja
+	 * disponível
+	 * @param parallelMinWords menor quantidade de palavras para considerar a varredura paralela
+	 * @param indexMaxThresholdRatio fração do tamanho da keyword a partir da qual o índice configurado deixa de ser
+	 * considerado
+	 */
+	QueryPlanner(int parallelism, int parallelMinWords, double indexMaxThresholdRatio){
+		this.parallelism = parallelism;
+		this.parallelMinWords = parallelMinWords;
+		this.indexMaxThresholdRatio = indexMaxThresholdRatio;
+	}
+
+	/**
+	 * Escolhe a estratégia de menor custo estimado para a consulta.
+	 *
+	 * @param keyword palavra cujos similares deseja-se encontrar
+	 * @param threshold distância máxima da consulta
+	 * @param visibleCount quantidade de palavras visíveis à consulta
+	 * @param lengthBuckets palavras agrupadas por tamanho, sempre disponíveis
+	 * @param deletions índice de remoções, ou null caso não esteja habilitado
+	 * @param qgrams índice de q-gramas, ou null caso não esteja habilitado
+	 * @param parallelAllowed indica se a varredura paralela pode ser utilizada
+	 * @param costs mapa que recebe o custo estimado de cada estratégia considerada, ou null
+	 * @return estratégia escolhida
+	 */
+	SearchStrategy plan(String keyword, int threshold, int visibleCount, LengthBucketIndex lengthBuckets,
+			DeletionIndex deletions, QGramIndex qgrams, boolean parallelAllowed, Map<SearchStrategy, Double> costs){
+		int length = keyword.length();
+		int window = lengthBuckets.countWords(length - threshold, length + threshold, visibleCount);
+
+		SearchStrategy best = SearchStrategy.SCAN;
+		double bestCost = window * (SIGNATURE_COST + signaturePassRate(lengthBuckets.getStatistics()));
+		if(parallelAllowed && parallelism > 1 && visibleCount >= parallelMinWords){
+			best = SearchStrategy.PARALLEL_SCAN;
+			bestCost = bestCost / parallelism + PARALLEL_OVERHEAD;
+		}
+		record(costs, best, bestCost);
+
+		if(threshold < indexMaxThresholdRatio * Math.max(1, length)){
+			double fraction = Math.min(1, (2.0 * threshold + 1) / (length + 1));
+			double cost = INDEX_NODE_COST * visibleCount * fraction * fraction;
+			record(costs, SearchStrategy.SIMILARITY_INDEX, cost);
+			if(cost < bestCost){
+				best = SearchStrategy.SIMILARITY_INDEX;
+				bestCost = cost;
+			}
+		}
+
+		if(deletions != null && deletions.supports(threshold)){
+			DeletionIndex.MemoryReport report = deletions.getMemoryReport();
+			double postingsPerKey = report.getDeletionKeys() == 0 ? 0
+					: (double) report.getPostings() / report.getDeletionKeys();
+			double cost = countDeletions(length, threshold) * (HASH_LOOKUP_COST + postingsPerKey);
+			record(costs, SearchStrategy.DELETION_INDEX, cost);
+			if(cost < bestCost){
+				best = SearchStrategy.DELETION_INDEX;
+				bestCost = cost;
+			}
+		}
+
+		if(qgrams != null && qgrams.minimumSharedGrams(length, length, threshold) > 0){
+			long postings = qgrams.countPostings(keyword);
+			// Palavras dos tamanhos em que o filtro não descarta nada são todas verificadas
+			int unfiltered = 0;
+			for(int wordLength = Math.max(0, length - threshold); wordLength <= length + threshold; wordLength++){
+				if(qgrams.minimumSharedGrams(length, wordLength, threshold) <= 0)
+					unfiltered += lengthBuckets.countWords(wordLength, wordLength, visibleCount);
+			}
+			// Cada palavra candidata ocupa em média uma entrada por q-grama da keyword
+			double candidates = (double) postings / Math.max(1, length - qgrams.getQ() + 1);
+			double cost = postings * POSTING_COST + candidates + unfiltered;
+			record(costs, SearchStrategy.QGRAM_INDEX, cost);
+			if(cost < bestCost){
+				best = SearchStrategy.QGRAM_INDEX;
+				bestCost = cost;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Fração das palavras varridas aprovada pelo filtro de assinatura nas varreduras anteriores.
+	 */
+	private static double signaturePassRate(ScanStatistics statistics){
+		long scanned = statistics.getScanned();
+		return scanned == 0 ? DEFAULT_SIGNATURE_PASS_RATE : (double) statistics.getVerified() / scanned;
+	}
+
+	/**
+	 * Quantidade máxima de remoções geradas para a keyword: soma das combinações de até "t" caracteres removidos.
+	 */
+	static double countDeletions(int length, int threshold){
+		double total = 0;
+		double combinations = 1;
+		for(int removed = 0; removed <= Math.min(threshold, length); removed++){
+			total += combinations;
+			combinations = combinations * (length - removed) / (removed + 1);
+		}
+		return total;
+	}
+
+	private static void record(Map<SearchStrategy, Double> costs, SearchStrategy strategy, double cost){
+		if(costs != null)
+			costs.put(strategy, cost);
+	}
+
+}
@@ -0,0 +1,40 @@
+package br.com.fleao.word_similarity.services;
+
+/**
+ * Estratégias disponíveis para a busca de palavras similares entre as palavras armazenadas em tempo de execução, 
+ * escolhidas a cada consulta pelo {@link QueryPlanner}.
+ * 
+ * @author felipe
+ *
+ */
+public enum SearchStrategy {
+	
+	/**
+	 * Índice de remoções (SymSpell): consultas em mapa hash com as remoções da keyword, custo independente do tamanho 
+	 * do dicionário, mas que cresce rapidamente com o threshold.
+	 */
+	DELETION_INDEX,
+	
+	/**
+	 * Índice de q-gramas: contagem de q-gramas em comum nas listas dos q-gramas da keyword, seguida da verificação dos 
+	 * candidatos que atingem a contagem mínima.
+	 */
+	QGRAM_INDEX,
+	
+	/**
+	 * Índice configurado em {@code word-similarity.index.type} (BK-tree ou trie), que descarta palavras pela estrutura 
+	 * do índice enquanto o threshold é pequeno em relação ao tamanho da keyword.
+	 */
+	SIMILARITY_INDEX,
+	
+	/**
+	 * Varredura sequencial das palavras com tamanho compatível com o threshold, com filtro de assinatura.
+	 */
+	SCAN,
+	
+	/**
+	 * Varredura das palavras com tamanho compatível dividida entre as threads do pool fork-join.
+	 */
+	PARALLEL_SCAN
+	
+}
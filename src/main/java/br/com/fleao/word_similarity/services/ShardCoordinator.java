@@ -0,0 +1,461 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import br.com.fleao.word_similarity.util.WordDistance;
+
+/**
+ * <p>
+ * Coordenador do modo distribuído, habilitado quando a propriedade {@code word-similarity.shard.nodes} lista os
+ * endereços base de outras instâncias da aplicação (os shards). As palavras são particionadas entre os shards pelo
+ * hash da palavra: cada palavra pertence a um único shard, de forma que o dicionário e o custo das varreduras são
+ * divididos entre as instâncias.
+ * </p>
+ * <p>
+ * As inserções são encaminhadas ao shard dono da palavra; as buscas por palavras similares e pelas palavras mais
+ * próximas são enviadas a todos os shards em paralelo e as respostas combinadas (união das palavras similares e as "k"
+ * menores distâncias entre as "k" melhores de cada shard). Cada shard possui um prazo, repassado também à busca do
+ * próprio shard: shards que não respondem dentro do prazo ou falham são identificados no resultado
+ * ({@link ShardedResult}), que nesse caso é parcial.
+ * </p>
+ * <p>
+ * O hash utilizado é o de {@link String#hashCode()}, definido pela especificação da linguagem, de forma que qualquer
+ * coordenador com a mesma lista de shards, na mesma ordem, encaminha cada palavra ao mesmo shard. Alterar a lista de
+ * shards altera o dono da maioria das palavras e exige recarregar o dicionário. Por isso, na inicialização, cada shard
+ * informa a sua posição no cluster ({@link ShardIdentity}) e o coordenador não é iniciado caso alguma posição
+ * configurada seja diferente da posição do shard na lista.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+@Service
+@ConditionalOnExpression("'${word-similarity.shard.nodes:}'.trim() != ''")
+public class ShardCoordinator {
+
+	private static final Logger logger = LoggerFactory.getLogger(ShardCoordinator.class);
+
+	// Configuração dos shards (ver application.properties)
+	@Value("${word-similarity.shard.nodes:}")
+	private String nodesProperty = "";
+	@Value("${word-similarity.shard.timeout-ms:2000}")
+	private long shardTimeoutMs = 2000;
+	@Value("${word-similarity.shard.threads:0}")
+	private int threads = 0;
+
+	private List<String> nodes;
+	private RestTemplate restTemplate;
+	// Requisições aos shards, com threads limitadas e prazo por requisição
+	private QueryExecutor executor;
+
+	/**
+	 * Cria um coordenador configurado pelas propriedades da aplicação.
+	 */
+	public ShardCoordinator(){
+	}
+
+	/**
+	 * Cria e inicializa um coordenador para os shards informados.
+	 *
+	 * @param nodes endereços base dos shards, separados por vírgula
+	 * @param shardTimeoutMs prazo de cada requisição a um shard, em milissegundos
+	 * @param threads quantidade de threads das requisições, ou zero para 4 threads por shard
+	 */
+	ShardCoordinator(String nodes, long shardTimeoutMs, int threads){
+		this.nodesProperty = nodes;
+		this.shardTimeoutMs = shardTimeoutMs;
+		this.threads = threads;
+		initialize();
+	}
+
+	/**
+	 * Valida a lista de shards, cria o cliente HTTP e o executor das requisições e confere a posição informada por
+	 * cada shard.
+	 *
+	 * @throws IllegalArgumentException caso a configuração seja inválida ou diferente da configuração de algum shard
+	 */
+	@PostConstruct
+	public void initialize(){
+		List<String> parsed = new ArrayList<String>();
+		for(String node : nodesProperty.split(",")){
+			node = node.trim();
+			while(node.endsWith("/"))
+				node = node.substring(0, node.length() - 1);
+			if(node.isEmpty())
+				continue;
+			if(!node.startsWith("http://") && !node.startsWith("https://"))
+				throw new IllegalArgumentException("O endereço do shard deve utilizar HTTP ou HTTPS: " + node);
+			if(parsed.contains(node))
+				throw new IllegalArgumentException("O shard informado está duplicado: " + node);
+			parsed.add(node);
+		}
+		if(parsed.isEmpty())
+			throw new IllegalArgumentException("Nenhum shard foi configurado.");
+		if(shardTimeoutMs <= 0)
+			throw new IllegalArgumentException("O prazo das requisições aos shards deve ser positivo.");
+		nodes = Collections.unmodifiableList(parsed);
+
+		// Os limites de conexão e leitura liberam as threads mesmo quando o prazo já foi reportado como expirado
+		SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+		requestFactory.setConnectTimeout((int) Math.min(Integer.MAX_VALUE, shardTimeoutMs));
+		requestFactory.setReadTimeout((int) Math.min(Integer.MAX_VALUE, shardTimeoutMs));
+		restTemplate = new RestTemplate(requestFactory);
+
+		int poolSize = threads > 0 ? threads : 4 * nodes.size();
+		executor = new QueryExecutor(poolSize, 16 * poolSize);
+		try{
+			verifyShards();
+		}catch(IllegalArgumentException e){
+			executor.shutdown();
+			throw e;
+		}
+		logger.info("Modo distribuído habilitado com {} shards: {}", nodes.size(), nodes);
+	}
+
+	/**
+	 * Confere a posição informada por cada shard com a sua posição na lista configurada, em paralelo. Shards que não
+	 * respondem dentro do prazo ou não têm a posição configurada não podem ser conferidos e são apenas registrados no
+	 * log.
+	 *
+	 * @throws IllegalArgumentException caso algum shard esteja configurado com outra posição ou outra quantidade de
+	 * shards
+	 */
+	private void verifyShards(){
+		List<CompletableFuture<JsonNode>> requests = new ArrayList<CompletableFuture<JsonNode>>();
+		for(final String node : nodes){
+			requests.add(request(new Callable<JsonNode>(){
+				@Override
+				public JsonNode call(){
+					return restTemplate.getForObject(node + "/rest/shard/identity", JsonNode.class);
+				}
+			}, shardTimeoutMs));
+		}
+
+		for(int i = 0; i < nodes.size(); i++){
+			JsonNode identity;
+			try{
+				identity = requests.get(i).join();
+			}catch(CompletionException | CancellationException e){
+				Throwable cause = e.getCause() != null ? e.getCause() : e;
+				logger.warn("Não foi possível conferir a posição do shard {}: {}", nodes.get(i), cause.toString());
+				continue;
+			}
+			int count = identity.path("count").asInt(0);
+			int index = identity.path("index").asInt(0);
+			if(count == 0){
+				logger.warn("O shard {} não tem a posição configurada (word-similarity.shard.index e "
+						+ "word-similarity.shard.count) e não pode ser conferido.", nodes.get(i));
+			}else if(count != nodes.size() || index != i){
+				throw new IllegalArgumentException("O shard " + nodes.get(i) + " está configurado na posição " + index
+						+ " de " + count + " shards, mas está na posição " + i + " de " + nodes.size()
+						+ " shards da lista configurada.");
+			}
+		}
+	}
+
+	/**
+	 * Encerra as threads das requisições aos shards.
+	 */
+	@PreDestroy
+	public void shutdown(){
+		if(executor != null)
+			executor.shutdown();
+	}
+
+	/**
+	 * Retorna os endereços base dos shards, na ordem de configuração.
+	 *
+	 * @return endereços dos shards
+	 */
+	public List<String> getNodes(){
+		return nodes;
+	}
+
+	/**
+	 * Retorna o shard dono da palavra informada.
+	 *
+	 * @param word palavra
+	 * @return endereço base do shard que armazena a palavra
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 */
+	public String getOwner(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		return nodes.get(ownerIndex(word));
+	}
+
+	/**
+	 * Armazena uma palavra no shard dono dela.
+	 *
+	 * @param word palavra a ser armazenada
+	 * @return resultado do shard: true caso a palavra tenha sido armazenada; concluído com a falha da requisição caso
+	 * o shard não responda dentro do prazo
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 */
+	public CompletableFuture<Boolean> storeWord(final String word) throws IllegalArgumentException{
+		final String owner = getOwner(word);
+		return request(new Callable<Boolean>(){
+			@Override
+			public Boolean call(){
+				return restTemplate.postForObject(owner + "/rest/add/{word}", null, Boolean.class, word);
+			}
+		}, shardTimeoutMs);
+	}
+
+	/**
+	 * Remove uma palavra do shard dono dela.
+	 *
+	 * @param word palavra a ser removida
+	 * @return resultado do shard: true caso a palavra tenha sido removida, false caso ela não estivesse armazenada;
+	 * concluído com a falha da requisição caso o shard não responda dentro do prazo
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 */
+	public CompletableFuture<Boolean> removeWord(final String word) throws IllegalArgumentException{
+		final String owner = getOwner(word);
+		return request(new Callable<Boolean>(){
+			@Override
+			public Boolean call(){
+				return restTemplate.exchange(owner + "/rest/word/{word}", HttpMethod.DELETE, null, Boolean.class, word)
+						.getBody();
+			}
+		}, shardTimeoutMs);
+	}
+
+	/**
+	 * Armazena um lote de palavras, enviando a cada shard somente as palavras das quais ele é dono, em paralelo.
+	 *
+	 * @param words palavras a serem armazenadas
+	 * @return quantidade de palavras efetivamente armazenadas pelos shards que responderam
+	 * @throws IllegalArgumentException caso o lote ou alguma de suas palavras seja nulo
+	 */
+	public CompletableFuture<ShardedResult<Integer>> storeWords(List<String> words) throws IllegalArgumentException{
+		if(words == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		List<List<String>> partitions = new ArrayList<List<String>>();
+		for(int i = 0; i < nodes.size(); i++)
+			partitions.add(new ArrayList<String>());
+		for(String word : words){
+			if(word == null)
+				throw new IllegalArgumentException("O lote informado não pode conter palavras nulas.");
+			partitions.get(ownerIndex(word)).add(word);
+		}
+
+		List<String> targets = new ArrayList<String>();
+		long started = System.nanoTime();
+		List<CompletableFuture<Integer>> requests = new ArrayList<CompletableFuture<Integer>>();
+		for(int i = 0; i < nodes.size(); i++){
+			final String node = nodes.get(i);
+			final List<String> partition = partitions.get(i);
+			if(partition.isEmpty())
+				continue;
+			targets.add(node);
+			requests.add(request(new Callable<Integer>(){
+				@Override
+				public Integer call(){
+					return restTemplate.postForObject(node + "/rest/addAll", partition, Integer.class);
+				}
+			}, shardTimeoutMs));
+		}
+
+		return gather(targets, requests, started, new Function<List<Integer>, Integer>(){
+			@Override
+			public Integer apply(List<Integer> counts){
+				int total = 0;
+				for(Integer count : counts)
+					total += count;
+				return total;
+			}
+		});
+	}
+
+	/**
+	 * Busca as palavras similares à keyword em todos os shards, em paralelo.
+	 *
+	 * @param keyword palavra cujos similares deseja-se encontrar
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param timeoutMs prazo de cada shard em milissegundos, limitado a {@code word-similarity.shard.timeout-ms}, ou
+	 * zero para utilizar esse limite
+	 * @return palavras similares em ordem alfabética, encontradas pelos shards que responderam
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public CompletableFuture<ShardedResult<Set<String>>> listSimilarWords(final String keyword, final int threshold,
+			long timeoutMs) throws IllegalArgumentException{
+		if(threshold < 0){
+			throw new IllegalArgumentException("O threshold informado deve ser positivo.");
+		}else if(keyword == null){
+			throw new IllegalArgumentException("A keyword informada é inválida.");
+		}
+		final long timeout = shardTimeout(timeoutMs);
+
+		long started = System.nanoTime();
+		List<CompletableFuture<String[]>> requests = new ArrayList<CompletableFuture<String[]>>();
+		for(final String node : nodes){
+			requests.add(request(new Callable<String[]>(){
+				@Override
+				public String[] call(){
+					return restTemplate.getForObject(node + "/rest/listSimilar/{keyword}?threshold={threshold}"
+							+ "&timeoutMs={timeoutMs}", String[].class, keyword, threshold, timeout);
+				}
+			}, timeout));
+		}
+
+		return gather(nodes, requests, started, new Function<List<String[]>, Set<String>>(){
+			@Override
+			public Set<String> apply(List<String[]> responses){
+				Set<String> words = new TreeSet<String>();
+				for(String[] response : responses)
+					words.addAll(Arrays.asList(response));
+				return Collections.unmodifiableSet(words);
+			}
+		});
+	}
+
+	/**
+	 * Busca as "k" palavras mais próximas da keyword em todos os shards, em paralelo. Como as palavras de cada shard
+	 * são distintas, as "k" mais próximas do dicionário completo estão entre as "k" mais próximas de cada shard.
+	 *
+	 * @param keyword palavra cujas vizinhas deseja-se encontrar
+	 * @param k quantidade máxima de palavras retornadas
+	 * @param timeoutMs prazo de cada shard em milissegundos, limitado a {@code word-similarity.shard.timeout-ms}, ou
+	 * zero para utilizar esse limite
+	 * @return palavras mais próximas entre as dos shards que responderam, ordenadas pela distância
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public CompletableFuture<ShardedResult<List<WordDistance>>> listNearestWords(final String keyword, final int k,
+			long timeoutMs) throws IllegalArgumentException{
+		if(k <= 0){
+			throw new IllegalArgumentException("A quantidade de palavras informada deve ser positiva.");
+		}else if(keyword == null){
+			throw new IllegalArgumentException("A keyword informada é inválida.");
+		}
+		final long timeout = shardTimeout(timeoutMs);
+
+		long started = System.nanoTime();
+		List<CompletableFuture<JsonNode>> requests = new ArrayList<CompletableFuture<JsonNode>>();
+		for(final String node : nodes){
+			requests.add(request(new Callable<JsonNode>(){
+				@Override
+				public JsonNode call(){
+					return restTemplate.getForObject(node + "/rest/nearest/{keyword}?k={k}&timeoutMs={timeoutMs}",
+							JsonNode.class, keyword, k, timeout);
+				}
+			}, timeout));
+		}
+
+		return gather(nodes, requests, started, new Function<List<JsonNode>, List<WordDistance>>(){
+			@Override
+			public List<WordDistance> apply(List<JsonNode> responses){
+				List<WordDistance> nearest = new ArrayList<WordDistance>();
+				for(JsonNode response : responses){
+					for(JsonNode entry : response)
+						nearest.add(new WordDistance(entry.get("word").asText(), entry.get("distance").asInt()));
+				}
+				Collections.sort(nearest);
+				return Collections.unmodifiableList(new ArrayList<WordDistance>(
+						nearest.subList(0, Math.min(k, nearest.size()))));
+			}
+		});
+	}
+
+	/**
+	 * Shard dono da palavra: o hash da palavra é misturado antes do módulo para distribuir também palavras com hashes
+	 * próximos.
+	 */
+	private int ownerIndex(String word){
+		int hash = word.hashCode() * 0x9E3779B9;
+		return Math.floorMod(hash ^ (hash >>> 16), nodes.size());
+	}
+
+	/**
+	 * Prazo de cada shard em uma busca: o prazo informado, limitado ao prazo configurado.
+	 */
+	private long shardTimeout(long timeoutMs){
+		if(timeoutMs < 0)
+			throw new IllegalArgumentException("O prazo informado não pode ser negativo.");
+		return timeoutMs == 0 ? shardTimeoutMs : Math.min(timeoutMs, shardTimeoutMs);
+	}
+
+	/**
+	 * Submete uma requisição a um shard. Requisições rejeitadas por falta de capacidade são tratadas como falhas do
+	 * shard, sem interromper as requisições aos demais.
+	 */
+	private <T> CompletableFuture<T> request(Callable<T> request, long timeoutMs){
+		try{
+			return executor.submit(request, timeoutMs);
+		}catch(RejectedExecutionException e){
+			CompletableFuture<T> failed = new CompletableFuture<T>();
+			failed.completeExceptionally(e);
+			return failed;
+		}
+	}
+
+	/**
+	 * Aguarda a conclusão, com sucesso ou falha, das requisições aos shards informados e combina as respostas
+	 * recebidas, registrando a situação de cada shard e o tempo até a sua resposta, contado a partir do envio.
+	 */
+	private <T, R> CompletableFuture<ShardedResult<R>> gather(final List<String> targets,
+			List<CompletableFuture<T>> requests, final long started, final Function<List<T>, R> merge){
+		final long[] elapsed = new long[requests.size()];
+		final List<CompletableFuture<T>> completed = new ArrayList<CompletableFuture<T>>(requests.size());
+		for(int i = 0; i < requests.size(); i++){
+			final int shard = i;
+			// O tempo é registrado antes da conclusão do estágio, garantindo que esteja disponível ao combinar
+			completed.add(requests.get(i).whenComplete(new BiConsumer<T, Throwable>(){
+				@Override
+				public void accept(T value, Throwable error){
+					elapsed[shard] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+				}
+			}));
+		}
+
+		CompletableFuture<Void> all = CompletableFuture.allOf(completed.toArray(new CompletableFuture<?>[0]));
+		return all.handle(new BiFunction<Void, Throwable, ShardedResult<R>>(){
+			@Override
+			public ShardedResult<R> apply(Void ignored, Throwable failure){
+				List<T> responses = new ArrayList<T>();
+				List<ShardedResult.ShardStatus> statuses = new ArrayList<ShardedResult.ShardStatus>();
+				for(int i = 0; i < completed.size(); i++){
+					try{
+						responses.add(completed.get(i).join());
+						statuses.add(new ShardedResult.ShardStatus(targets.get(i), true, elapsed[i], null));
+					}catch(CompletionException | CancellationException e){
+						Throwable cause = e.getCause() != null ? e.getCause() : e;
+						logger.warn("O shard {} não respondeu: {}", targets.get(i), cause.toString());
+						statuses.add(new ShardedResult.ShardStatus(targets.get(i), false, elapsed[i],
+								cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName()));
+					}
+				}
+				return new ShardedResult<R>(merge.apply(responses), Collections.unmodifiableList(statuses));
+			}
+		});
+	}
+
+}
@@ -0,0 +1,37 @@
+package br.com.fleao.word_similarity.services;
+
+/**
+ * Posição de uma instância entre os shards de um cluster, configurada pelas propriedades
+ * {@code word-similarity.shard.index} e {@code word-similarity.shard.count}. O {@link ShardCoordinator} compara a
+ * posição informada por cada shard com a sua lista de shards na inicialização, já que uma lista diferente encaminharia
+ * as palavras a outros shards.
+ *
+ * @author felipe
+ *
+ */
+public final class ShardIdentity {
+
+	private final int index;
+	private final int count;
+
+	ShardIdentity(int index, int count){
+		this.index = index;
+		this.count = count;
+	}
+
+	/** @return posição da instância na lista de shards, a partir de zero */
+	public int getIndex(){
+		return index;
+	}
+
+	/** @return quantidade de shards do cluster, ou zero caso a posição não tenha sido configurada */
+	public int getCount(){
+		return count;
+	}
+
+	@Override
+	public String toString(){
+		return "ShardIdentity[index=" + index + ", count=" + count + "]";
+	}
+
+}
@@ -0,0 +1,94 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.List;
+
+/**
+ * Resultado de uma operação distribuída entre os shards pelo {@link ShardCoordinator}: o resultado combinado das
+ * respostas recebidas e a situação de cada shard consultado. Caso algum shard não responda dentro do prazo ou falhe,
+ * o resultado é parcial e contém somente as respostas dos demais shards.
+ *
+ * @author felipe
+ *
+ * @param <T> tipo do resultado combinado
+ */
+public final class ShardedResult<T> {
+
+	private final T result;
+	private final List<ShardStatus> shards;
+	private final boolean partial;
+
+	ShardedResult(T result, List<ShardStatus> shards){
+		this.result = result;
+		this.shards = shards;
+		boolean failed = false;
+		for(ShardStatus shard : shards)
+			failed |= !shard.isSucceeded();
+		this.partial = failed;
+	}
+
+	/** @return resultado combinado das respostas dos shards */
+	public T getResult(){
+		return result;
+	}
+
+	/** @return situação de cada shard consultado, na ordem de configuração */
+	public List<ShardStatus> getShards(){
+		return shards;
+	}
+
+	/** @return true caso algum shard consultado não tenha respondido */
+	public boolean isPartial(){
+		return partial;
+	}
+
+	@Override
+	public String toString(){
+		return "ShardedResult[result=" + result + ", partial=" + partial + ", shards=" + shards + "]";
+	}
+
+	/**
+	 * Situação de um shard em uma operação distribuída.
+	 */
+	public static final class ShardStatus {
+
+		private final String node;
+		private final boolean succeeded;
+		private final long elapsedMs;
+		private final String error;
+
+		ShardStatus(String node, boolean succeeded, long elapsedMs, String error){
+			this.node = node;
+			this.succeeded = succeeded;
+			this.elapsedMs = elapsedMs;
+			this.error = error;
+		}
+
+		/** @return endereço base do shard */
+		public String getNode(){
+			return node;
+		}
+
+		/** @return true caso o shard tenha respondido dentro do prazo */
+		public boolean isSucceeded(){
+			return succeeded;
+		}
+
+		/** @return tempo até a resposta do shard ou até a falha, em milissegundos */
+		public long getElapsedMs(){
+			return elapsedMs;
+		}
+
+		/** @return descrição da falha, ou null caso o shard tenha respondido */
+		public String getError(){
+			return error;
+		}
+
+		@Override
+		public String toString(){
+			return "ShardStatus[node=" + node + ", succeeded=" + succeeded + ", elapsedMs=" + elapsedMs + ", error="
+					+ error + "]";
+		}
+
+	}
+
+}
@@ -0,0 +1,296 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Cache limitado dos resultados de buscas por palavras similares, indexado pelo par (keyword, threshold).
+ * </p>
+ * <p>
+ * Cada resultado guarda a quantidade de palavras armazenadas visíveis no momento em que foi calculado. Como as palavras
+ * só são adicionadas ao final do store, um resultado calculado com menos palavras continua correto para elas: basta
+ * avaliar as palavras adicionadas desde então ({@link WordService} faz isso com a varredura por tamanho) e gravar o
+ * resultado atualizado, ao invés de descartar o cache inteiro a cada escrita. O resultado guarda também a quantidade
+ * de palavras removidas até o seu cálculo: caso palavras tenham sido removidas desde então, basta retirá-las do
+ * resultado. Resultados calculados antes de uma reconstrução das palavras armazenadas, que renumera as posições, são
+ * identificados pela época e tratados como ausentes.
+ * </p>
+ * <p>
+ * O cache é dividido em segmentos, cada um protegido pelo seu próprio lock, escolhidos pelo hash da chave. Cada
+ * segmento aplica a política LRU segmentada: resultados novos entram no segmento de experiência e só são promovidos ao
+ * segmento protegido quando consultados novamente, de forma que uma rajada de consultas únicas não expulsa os
+ * resultados consultados com frequência. O peso de um resultado é a quantidade de palavras que ele contém (mais um),
+ * e a capacidade é expressa nessa mesma unidade.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+final class SimilarityCache {
+	
+	// Fração da capacidade de cada segmento reservada aos resultados protegidos
+	private static final double PROTECTED_RATIO = 0.8;
+	
+	private final Segment[] segments;
+	private final long segmentCapacity;
+	
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder refreshes = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	
+	/**
+	 * @param maxWeight peso máximo total dos resultados armazenados
+	 * @param concurrency quantidade de segmentos (arredondada para a próxima potência de 2)
+	 * @throws IllegalArgumentException caso algum dos parâmetros seja inválido
+	 */
+	SimilarityCache(long maxWeight, int concurrency) throws IllegalArgumentException{
+		if(maxWeight <= 0 || concurrency <= 0)
+			throw new IllegalArgumentException("A capacidade e a quantidade de segmentos do cache devem ser positivas.");
+		int count = Integer.highestOneBit(Math.min(concurrency, 1 << 16) * 2 - 1);
+		segments = new Segment[count];
+		for(int i = 0; i < count; i++)
+			segments[i] = new Segment();
+		segmentCapacity = Math.max(1, maxWeight / count);
+	}
+	
+	/**
+	 * Busca o resultado armazenado para a consulta. O resultado pode ter sido calculado com menos palavras que as 
+	 * atualmente visíveis (ver {@link Result#getVisibleCount()}).
+	 * 
+	 * @return resultado armazenado, ou null caso não exista
+	 */
+	Result get(String keyword, int threshold){
+		Key key = new Key(keyword, threshold);
+		return segmentFor(key).get(key);
+	}
+	
+	/**
+	 * Armazena o resultado de uma consulta. Um resultado já armazenado calculado sobre uma versão mais recente das 
+	 * palavras armazenadas é mantido.
+	 */
+	void put(String keyword, int threshold, long epoch, int visibleCount, int removedCount, Set<String> words){
+		long weight = 1L + words.size();
+		if(weight > segmentCapacity)
+			return;
+		Key key = new Key(keyword, threshold);
+		segmentFor(key).put(key, new Result(epoch, visibleCount, removedCount, words, weight));
+	}
+	
+	/**
+	 * Remove todos os resultados armazenados.
+	 */
+	void clear(){
+		for(Segment segment : segments)
+			segment.clear();
+	}
+	
+	void recordHit(){
+		hits.increment();
+	}
+	
+	void recordMiss(){
+		misses.increment();
+	}
+	
+	void recordRefresh(){
+		refreshes.increment();
+	}
+	
+	/**
+	 * Retorna os contadores acumulados e a ocupação atual do cache.
+	 * 
+	 * @return estatísticas do cache
+	 */
+	CacheStatistics getStatistics(){
+		long entries = 0;
+		long weight = 0;
+		for(Segment segment : segments){
+			synchronized(segment){
+				entries += segment.probation.size() + segment.protectedEntries.size();
+				weight += segment.probationWeight + segment.protectedWeight;
+			}
+		}
+		return new CacheStatistics(hits.sum(), misses.sum(), refreshes.sum(), evictions.sum(), entries, weight, 
+				segmentCapacity * segments.length);
+	}
+	
+	private Segment segmentFor(Key key){
+		int hash = key.hashCode() * 0x9E3779B9;
+		return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+	}
+	
+	/**
+	 * Resultado armazenado de uma consulta. O conjunto de palavras nunca é alterado após armazenado.
+	 */
+	static final class Result {
+		private final long epoch;
+		private final int visibleCount;
+		private final int removedCount;
+		private final Set<String> words;
+		private final long weight;
+		
+		private Result(long epoch, int visibleCount, int removedCount, Set<String> words, long weight){
+			this.epoch = epoch;
+			this.visibleCount = visibleCount;
+			this.removedCount = removedCount;
+			this.words = words;
+			this.weight = weight;
+		}
+		
+		/** @return época das palavras armazenadas quando o resultado foi calculado */
+		long getEpoch(){
+			return epoch;
+		}
+		
+		/** @return quantidade de posições das palavras armazenadas visíveis quando o resultado foi calculado */
+		int getVisibleCount(){
+			return visibleCount;
+		}
+		
+		/** @return quantidade de posições removidas quando o resultado foi calculado */
+		int getRemovedCount(){
+			return removedCount;
+		}
+		
+		/**
+		 * Indica se o resultado foi calculado sobre uma versão das palavras armazenadas mais recente que a do 
+		 * resultado informado. Dentro de uma época as posições e as remoções só aumentam.
+		 */
+		private boolean isNewerThan(Result other){
+			if(epoch != other.epoch)
+				return epoch > other.epoch;
+			if(visibleCount != other.visibleCount)
+				return visibleCount > other.visibleCount;
+			return removedCount > other.removedCount;
+		}
+		
+		/** @return palavras similares encontradas */
+		Set<String> getWords(){
+			return words;
+		}
+	}
+	
+	private static final class Key {
+		private final String keyword;
+		private final int threshold;
+		
+		private Key(String keyword, int threshold){
+			this.keyword = keyword;
+			this.threshold = threshold;
+		}
+		
+		@Override
+		public boolean equals(Object other){
+			if(!(other instanceof Key))
+				return false;
+			Key key = (Key) other;
+			return threshold == key.threshold && keyword.equals(key.keyword);
+		}
+		
+		@Override
+		public int hashCode(){
+			return keyword.hashCode() * 31 + threshold;
+		}
+	}
+	
+	/**
+	 * Segmento do cache com a política LRU segmentada: mapas em ordem de acesso para os resultados em experiência e 
+	 * protegidos, com o mais antigo de cada um no início.
+	 */
+	private final class Segment {
+		private final Map<Key, Result> probation = new LinkedHashMap<Key, Result>(16, 0.75f, true);
+		private final Map<Key, Result> protectedEntries = new LinkedHashMap<Key, Result>(16, 0.75f, true);
+		private long probationWeight;
+		private long protectedWeight;
+		
+		private synchronized Result get(Key key){
+			Result result = protectedEntries.get(key);
+			if(result != null)
+				return result;
+			
+			// Segundo acesso: o resultado é promovido ao segmento protegido
+			result = probation.remove(key);
+			if(result == null)
+				return null;
+			probationWeight -= result.weight;
+			protectedEntries.put(key, result);
+			protectedWeight += result.weight;
+			demoteProtected();
+			return result;
+		}
+		
+		private synchronized void put(Key key, Result result){
+			boolean promoted = false;
+			Result existing = protectedEntries.remove(key);
+			if(existing != null){
+				protectedWeight -= existing.weight;
+				promoted = true;
+			}else{
+				existing = probation.remove(key);
+				if(existing != null)
+					probationWeight -= existing.weight;
+			}
+			// Gravações concorrentes: prevalece o resultado calculado sobre a versão mais recente das palavras
+			if(existing != null && existing.isNewerThan(result))
+				result = existing;
+			
+			if(promoted){
+				protectedEntries.put(key, result);
+				protectedWeight += result.weight;
+				demoteProtected();
+			}else{
+				probation.put(key, result);
+				probationWeight += result.weight;
+			}
+			evict();
+		}
+		
+		private synchronized void clear(){
+			probation.clear();
+			protectedEntries.clear();
+			probationWeight = 0;
+			protectedWeight = 0;
+		}
+		
+		/**
+		 * Move os resultados protegidos menos recentes de volta para o segmento de experiência.
+		 */
+		private void demoteProtected(){
+			long protectedCapacity = (long) (segmentCapacity * PROTECTED_RATIO);
+			Iterator<Map.Entry<Key, Result>> eldest = protectedEntries.entrySet().iterator();
+			while(protectedWeight > protectedCapacity && eldest.hasNext()){
+				Map.Entry<Key, Result> entry = eldest.next();
+				eldest.remove();
+				protectedWeight -= entry.getValue().weight;
+				probation.put(entry.getKey(), entry.getValue());
+				probationWeight += entry.getValue().weight;
+			}
+		}
+		
+		/**
+		 * Descarta os resultados menos recentes, primeiro os em experiência, até que o peso caiba na capacidade.
+		 */
+		private void evict(){
+			evict(probation.entrySet().iterator(), false);
+			evict(protectedEntries.entrySet().iterator(), true);
+		}
+		
+		private void evict(Iterator<Map.Entry<Key, Result>> eldest, boolean protectedSegment){
+			while(probationWeight + protectedWeight > segmentCapacity && eldest.hasNext()){
+				long weight = eldest.next().getValue().weight;
+				eldest.remove();
+				if(protectedSegment)
+					protectedWeight -= weight;
+				else
+					probationWeight -= weight;
+				evictions.increment();
+			}
+		}
+	}
+	
+}
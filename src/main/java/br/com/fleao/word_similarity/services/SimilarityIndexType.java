@@ -0,0 +1,55 @@
+package br.com.fleao.word_similarity.services;
+
+import br.com.fleao.word_similarity.util.BKTree;
+import br.com.fleao.word_similarity.util.SimilarityIndex;
+import br.com.fleao.word_similarity.util.WordArena;
+import br.com.fleao.word_similarity.util.WordTrie;
+
+/**
+ * Tipos de índice disponíveis para a busca de palavras similares, selecionados através da propriedade
+ * {@code word-similarity.index.type}.
+ *
+ * @author felipe
+ *
+ */
+public enum SimilarityIndexType {
+
+	/**
+	 * Árvore métrica (BK-tree), que descarta subárvores através da desigualdade triangular.
+	 */
+	BKTREE {
+		@Override
+		public SimilarityIndex create(WordArena arena){
+			return new BKTree(arena);
+		}
+	},
+
+	/**
+	 * Trie compactada, que compartilha o cálculo das linhas da matriz de distância entre palavras com prefixos comuns.
+	 */
+	TRIE {
+		@Override
+		public SimilarityIndex create(WordArena arena){
+			return new WordTrie();
+		}
+	};
+
+	/**
+	 * Cria uma nova instância vazia do índice, com suas próprias estruturas de armazenamento.
+	 *
+	 * @return índice vazio
+	 */
+	public SimilarityIndex create(){
+		return create(new WordArena());
+	}
+
+	/**
+	 * Cria uma nova instância vazia do índice que, quando possível, referencia as palavras da arena informada ao invés
+	 * de manter cópias. As palavras devem ser adicionadas à arena antes de serem adicionadas ao índice, na mesma ordem.
+	 *
+	 * @param arena arena das palavras, normalmente a de um {@link br.com.fleao.word_similarity.util.WordStore}
+	 * @return índice vazio
+	 */
+	public abstract SimilarityIndex create(WordArena arena);
+
+}
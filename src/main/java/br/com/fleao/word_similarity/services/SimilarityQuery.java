@@ -0,0 +1,45 @@
+package br.com.fleao.word_similarity.services;
+
+/**
+ * Consulta de palavras similares a uma keyword, utilizada nas buscas em lote. Caso nenhum threshold seja informado,
+ * será utilizado o valor default (3), o mesmo da busca individual.
+ * 
+ * @author felipe
+ *
+ */
+public class SimilarityQuery {
+	
+	private String keyword;
+	private int threshold = 3;
+	
+	public SimilarityQuery(){
+	}
+	
+	/**
+	 * @param keyword palavra cujos similares deseja-se encontrar
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 */
+	public SimilarityQuery(String keyword, int threshold){
+		this.keyword = keyword;
+		this.threshold = threshold;
+	}
+	
+	/** @return palavra cujos similares deseja-se encontrar */
+	public String getKeyword(){
+		return keyword;
+	}
+	
+	public void setKeyword(String keyword){
+		this.keyword = keyword;
+	}
+	
+	/** @return distância máxima para considerar duas palavras como similares */
+	public int getThreshold(){
+		return threshold;
+	}
+	
+	public void setThreshold(int threshold){
+		this.threshold = threshold;
+	}
+	
+}
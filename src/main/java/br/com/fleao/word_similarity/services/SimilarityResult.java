@@ -0,0 +1,43 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.Set;
+
+/**
+ * Resultado de uma {@link SimilarityQuery} em uma busca em lote: a consulta e as palavras similares encontradas.
+ * 
+ * @author felipe
+ *
+ */
+public class SimilarityResult {
+	
+	private final String keyword;
+	private final int threshold;
+	private final Set<String> words;
+	
+	/**
+	 * @param keyword palavra consultada
+	 * @param threshold distância máxima utilizada na consulta
+	 * @param words palavras similares encontradas
+	 */
+	public SimilarityResult(String keyword, int threshold, Set<String> words){
+		this.keyword = keyword;
+		this.threshold = threshold;
+		this.words = words;
+	}
+	
+	/** @return palavra consultada */
+	public String getKeyword(){
+		return keyword;
+	}
+	
+	/** @return distância máxima utilizada na consulta */
+	public int getThreshold(){
+		return threshold;
+	}
+	
+	/** @return palavras similares encontradas */
+	public Set<String> getWords(){
+		return words;
+	}
+	
+}
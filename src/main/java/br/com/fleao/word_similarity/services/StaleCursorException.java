@@ -0,0 +1,22 @@
+package br.com.fleao.word_similarity.services;
+
+/**
+ * Indica que o cursor de uma listagem paginada foi obtido em uma versão anterior do dicionário. As posições das
+ * palavras são renumeradas quando o dicionário é reconstruído, e continuar a navegação a partir do cursor repetiria ou
+ * omitiria palavras; a listagem deve ser reiniciada pela primeira página.
+ *
+ * @author felipe
+ *
+ */
+public class StaleCursorException extends IllegalArgumentException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * @param message mensagem de erro
+	 */
+	public StaleCursorException(String message){
+		super(message);
+	}
+
+}
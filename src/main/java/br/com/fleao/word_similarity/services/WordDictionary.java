@@ -0,0 +1,138 @@
+package br.com.fleao.word_similarity.services;
+
+import br.com.fleao.word_similarity.util.DeletionIndex;
+import br.com.fleao.word_similarity.util.LengthBucketIndex;
+import br.com.fleao.word_similarity.util.QGramIndex;
+import br.com.fleao.word_similarity.util.SimilarityIndex;
+import br.com.fleao.word_similarity.util.WordStore;
+
+/**
+ * <p>
+ * Palavras armazenadas em tempo de execução junto com todos os índices mantidos sobre elas, que compartilham as
+ * posições do {@link WordStore}. Agrupar as estruturas permite que o serviço substitua todas de uma só vez, através
+ * de uma única referência, quando o dicionário é reconstruído para liberar as posições das palavras removidas.
+ * </p>
+ * <p>
+ * As inserções e remoções devem ser serializadas pelo escritor; as buscas podem utilizar as estruturas de qualquer
+ * thread.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+final class WordDictionary {
+
+	// Entrada da arena, posição na tabela hash e na lista do tamanho e assinatura, sem contar os índices opcionais
+	private static final int BYTES_PER_WORD = 32;
+
+	// Versão do dicionário, incrementada a cada reconstrução, quando as posições das palavras são renumeradas
+	private final long epoch;
+	private final WordStore store;
+	private final SimilarityIndex similarityIndex;
+	private final DeletionIndex deletionIndex;
+	private final QGramIndex qgramIndex;
+	private final LengthBucketIndex lengthBuckets;
+	private final WordUsage usage;
+
+	/**
+	 * @param epoch versão do dicionário
+	 * @param store palavras armazenadas
+	 * @param similarityIndex índice de similaridade sobre a arena do store
+	 * @param deletionIndex índice de remoções, ou null
+	 * @param qgramIndex índice de q-gramas, ou null
+	 * @param lengthBuckets palavras agrupadas por tamanho sobre a arena do store
+	 * @param usage uso das palavras nos resultados das buscas
+	 */
+	WordDictionary(long epoch, WordStore store, SimilarityIndex similarityIndex, DeletionIndex deletionIndex,
+			QGramIndex qgramIndex, LengthBucketIndex lengthBuckets, WordUsage usage){
+		this.epoch = epoch;
+		this.store = store;
+		this.similarityIndex = similarityIndex;
+		this.deletionIndex = deletionIndex;
+		this.qgramIndex = qgramIndex;
+		this.lengthBuckets = lengthBuckets;
+		this.usage = usage;
+	}
+
+	/**
+	 * Prepara uma palavra para publicação, atualizando os índices antes que ela se torne visível às consultas.
+	 *
+	 * @return true caso a palavra tenha sido adicionada, false caso ela já estivesse armazenada
+	 */
+	boolean add(String word){
+		if(!store.append(word))
+			return false;
+		similarityIndex.add(word);
+		lengthBuckets.append(word);
+		if(deletionIndex != null)
+			deletionIndex.add(word);
+		if(qgramIndex != null)
+			qgramIndex.add(word);
+		usage.added(store.getArena().size() - 1);
+		return true;
+	}
+
+	/**
+	 * Remove uma palavra do store e, incrementalmente, de todos os índices. A palavra deixa de ser retornada pelos
+	 * índices imediatamente e deixa de fazer parte dos snapshots a partir da próxima publicação.
+	 *
+	 * @return true caso a palavra tenha sido removida, false caso ela não estivesse armazenada
+	 */
+	boolean remove(String word){
+		// Os índices localizam a palavra pela posição atual na arena, portanto são atualizados antes de qualquer
+		// nova inserção da mesma palavra
+		if(!store.remove(word))
+			return false;
+		similarityIndex.remove(word);
+		lengthBuckets.remove(word);
+		if(deletionIndex != null)
+			deletionIndex.remove(word);
+		if(qgramIndex != null)
+			qgramIndex.remove(word);
+		return true;
+	}
+
+	/**
+	 * Estimativa da memória ocupada pelas palavras não removidas: os caracteres em UTF-16 e uma entrada da arena, da
+	 * tabela hash e dos índices por palavra.
+	 */
+	long getEstimatedLiveBytes(){
+		return store.getCharCount() * 2 + (long) store.size() * BYTES_PER_WORD;
+	}
+
+	/**
+	 * Estimativa da memória ocupada por uma palavra adicionada, consistente com {@link #getEstimatedLiveBytes()}.
+	 */
+	static long estimateBytes(String word){
+		return (long) word.length() * 2 + BYTES_PER_WORD;
+	}
+
+	long getEpoch(){
+		return epoch;
+	}
+
+	WordStore getStore(){
+		return store;
+	}
+
+	SimilarityIndex getSimilarityIndex(){
+		return similarityIndex;
+	}
+
+	DeletionIndex getDeletionIndex(){
+		return deletionIndex;
+	}
+
+	QGramIndex getQGramIndex(){
+		return qgramIndex;
+	}
+
+	LengthBucketIndex getLengthBuckets(){
+		return lengthBuckets;
+	}
+
+	WordUsage getUsage(){
+		return usage;
+	}
+
+}
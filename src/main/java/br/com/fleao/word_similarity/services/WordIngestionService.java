@@ -0,0 +1,164 @@
+package br.com.fleao.word_similarity.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import br.com.fleao.word_similarity.util.WordLineReader;
+
+/**
+ * <p>
+ * Serviço spring responsável pela carga de palavras em lote, tanto a partir do corpo de requisições REST quanto de
+ * arquivos de dicionário lidos na inicialização da aplicação.
+ * </p>
+ * <p>
+ * As palavras são lidas de forma incremental, sem que o conteúdo completo seja mantido em memória, e acumuladas em
+ * lotes sem repetição. Cada lote é armazenado através de {@link WordService#storeWords(Collection)}, que adquire o
+ * lock de escrita, atualiza os índices e publica um novo snapshot uma única vez por lote ao invés de uma vez por
+ * palavra.
+ * </p>
+ * 
+ * @author felipe
+ *
+ */
+@Service
+public class WordIngestionService {
+	
+	private static final Logger logger = LoggerFactory.getLogger(WordIngestionService.class);
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+	
+	@Autowired
+	private WordService wordService;
+	
+	// Quantidade de palavras armazenadas por lote
+	@Value("${word-similarity.ingest.batch-size:10000}")
+	private int batchSize = 10000;
+	// Tamanho dos buffers de leitura, em bytes
+	@Value("${word-similarity.ingest.buffer-size:65536}")
+	private int bufferSize = 65536;
+	// Arquivos de dicionário carregados na inicialização, separados por vírgula
+	@Value("${word-similarity.loader.files:}")
+	private String loaderFiles = "";
+	
+	/**
+	 * Carrega os arquivos de dicionário configurados na propriedade {@code word-similarity.loader.files}.
+	 */
+	@PostConstruct
+	public void loadConfiguredFiles(){
+		List<Path> paths = new ArrayList<Path>();
+		for(String file : loaderFiles.split(",")){
+			if(!file.trim().isEmpty())
+				paths.add(Paths.get(file.trim()));
+		}
+		if(paths.isEmpty())
+			return;
+		
+		try{
+			int added = storeFiles(paths);
+			logger.info("Dicionários carregados: {} palavras adicionadas a partir de {} arquivo(s).", added, paths.size());
+		}catch(IOException e){
+			throw new IllegalStateException("Não foi possível carregar os dicionários configurados.", e);
+		}
+	}
+	
+	/**
+	 * Armazena as palavras de um ou mais arquivos de dicionário, com uma palavra por linha (UTF-8).
+	 * 
+	 * @param paths arquivos a serem carregados
+	 * @return quantidade de palavras efetivamente adicionadas
+	 * @throws IOException caso algum dos arquivos não possa ser lido
+	 */
+	public int storeFiles(Collection<Path> paths) throws IOException{
+		if(paths == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		
+		int added = 0;
+		for(Path path : paths){
+			try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+				added += storeLines(channel);
+			}
+		}
+		return added;
+	}
+	
+	/**
+	 * Armazena as palavras lidas de um canal, com uma palavra por linha (UTF-8). Linhas vazias são ignoradas.
+	 * 
+	 * @param channel canal de onde as palavras serão lidas
+	 * @return quantidade de palavras efetivamente adicionadas
+	 * @throws IOException caso ocorra um erro de leitura
+	 */
+	public int storeLines(ReadableByteChannel channel) throws IOException{
+		WordLineReader reader = new WordLineReader(channel, bufferSize);
+		Set<String> batch = new LinkedHashSet<String>();
+		int added = 0;
+		for(String word = reader.nextWord(); word != null; word = reader.nextWord()){
+			batch.add(word);
+			if(batch.size() >= batchSize)
+				added += flush(batch);
+		}
+		return added + flush(batch);
+	}
+	
+	/**
+	 * Armazena as palavras de um array JSON de strings, lido de forma incremental.
+	 * 
+	 * @param input conteúdo JSON
+	 * @return quantidade de palavras efetivamente adicionadas
+	 * @throws IOException caso ocorra um erro de leitura
+	 * @throws IllegalArgumentException caso o conteúdo não seja um array JSON de strings
+	 */
+	public int storeJsonArray(InputStream input) throws IOException, IllegalArgumentException{
+		if(input == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		
+		try(JsonParser parser = JSON_FACTORY.createParser(input)){
+			if(parser.nextToken() != JsonToken.START_ARRAY)
+				throw new IllegalArgumentException("O conteúdo informado deve ser um array JSON de palavras.");
+			
+			Set<String> batch = new LinkedHashSet<String>();
+			int added = 0;
+			for(JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()){
+				if(token != JsonToken.VALUE_STRING)
+					throw new IllegalArgumentException("O array JSON informado deve conter somente palavras.");
+				batch.add(parser.getText());
+				if(batch.size() >= batchSize)
+					added += flush(batch);
+			}
+			return added + flush(batch);
+		}
+	}
+	
+	/**
+	 * Armazena o lote acumulado e o esvazia.
+	 */
+	private int flush(Set<String> batch){
+		if(batch.isEmpty())
+			return 0;
+		int added = wordService.storeWords(batch);
+		batch.clear();
+		return added;
+	}
+	
+}
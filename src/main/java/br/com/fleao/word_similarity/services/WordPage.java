@@ -0,0 +1,36 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.List;
+
+/**
+ * Página da listagem das palavras armazenadas: as palavras da página, na ordem de inserção, e o cursor a ser informado
+ * para obter a página seguinte.
+ *
+ * @author felipe
+ *
+ */
+public class WordPage {
+
+	private final List<String> words;
+	private final String next;
+
+	/**
+	 * @param words palavras da página
+	 * @param next cursor da página seguinte, ou null caso esta seja a última página
+	 */
+	public WordPage(List<String> words, String next){
+		this.words = words;
+		this.next = next;
+	}
+
+	/** @return palavras da página, na ordem de inserção */
+	public List<String> getWords(){
+		return words;
+	}
+
+	/** @return cursor a ser informado no parâmetro "after" para obter a página seguinte, ou null caso não existam mais palavras */
+	public String getNext(){
+		return next;
+	}
+
+}
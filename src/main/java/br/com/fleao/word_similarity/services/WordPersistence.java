@@ -0,0 +1,217 @@
+package br.com.fleao.word_similarity.services;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+import br.com.fleao.word_similarity.util.WordLog;
+import br.com.fleao.word_similarity.util.WordSnapshotFile;
+
+/**
+ * <p>
+ * Persistência opcional das palavras armazenadas, composta por segmentos de log de escrita antecipada
+ * ({@link WordLog}) e snapshots binários ({@link WordSnapshotFile}) mantidos em um diretório.
+ * </p>
+ * <p>
+ * Os arquivos são nomeados pela sequência do log em que começam ({@code wal-<sequência>.log}) ou que cobrem
+ * ({@code snapshot-<sequência>.bin}). Um checkpoint troca o segmento atual por um novo, com o lock de escrita do
+ * serviço adquirido, e grava em seguida o snapshot com exatamente as palavras dos segmentos anteriores; somente
+ * após o snapshot estar no disco os segmentos e snapshots anteriores são removidos. A recuperação lê o snapshot mais
+ * recente e reaplica os segmentos posteriores a ele.
+ * </p>
+ * 
+ * @author felipe
+ *
+ */
+final class WordPersistence {
+	
+	private static final String LOG_PREFIX = "wal-";
+	private static final String LOG_SUFFIX = ".log";
+	private static final String SNAPSHOT_PREFIX = "snapshot-";
+	private static final String SNAPSHOT_SUFFIX = ".bin";
+	
+	private final Path directory;
+	private volatile WordLog log;
+	// Sequência coberta pelo snapshot mais recente
+	private volatile long snapshotSequence;
+	
+	/**
+	 * @param directory diretório dos arquivos de persistência, criado caso não exista
+	 * @throws IOException caso o diretório não possa ser criado
+	 */
+	WordPersistence(Path directory) throws IOException{
+		this.directory = directory;
+		Files.createDirectories(directory);
+	}
+	
+	/**
+	 * Recupera as palavras persistidas, a partir do snapshot mais recente e dos segmentos de log posteriores, e abre 
+	 * um novo segmento para as próximas palavras.
+	 * 
+	 * @param words coleção que receberá as palavras recuperadas, na ordem em que foram armazenadas, e da qual as 
+	 * palavras removidas serão retiradas
+	 * @throws IOException caso algum arquivo não possa ser lido ou esteja corrompido
+	 */
+	void recover(Collection<String> words) throws IOException{
+		TreeMap<Long, Path> snapshots = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+		TreeMap<Long, Path> logs = list(LOG_PREFIX, LOG_SUFFIX);
+		
+		long sequence = 0;
+		if(!snapshots.isEmpty()){
+			// As palavras só são entregues após a validação do CRC do snapshot
+			List<String> recovered = new ArrayList<String>();
+			sequence = WordSnapshotFile.read(snapshots.lastEntry().getValue(), recovered);
+			words.addAll(recovered);
+		}
+		snapshotSequence = sequence;
+		
+		for(Path file : logs.tailMap(sequence, true).values()){
+			long start = parseSequence(file.getFileName().toString(), LOG_PREFIX, LOG_SUFFIX);
+			if(start != sequence)
+				throw new IOException("Segmento de log ausente entre as sequências " + sequence + " e " + start + ".");
+			sequence = WordLog.recover(file, start, words);
+		}
+		
+		// Um segmento vazio no final é substituído pelo novo segmento, que começa na mesma sequência
+		Path last = logFile(sequence);
+		Files.deleteIfExists(last);
+		log = WordLog.create(last, sequence);
+	}
+	
+	/**
+	 * Registra uma palavra no segmento atual. Deve ser invocado com o lock de escrita do serviço adquirido.
+	 * 
+	 * @param word palavra armazenada
+	 * @return sequência do registro, a ser informada em {@link #awaitDurable(long)}
+	 */
+	long append(String word){
+		return log.append(word);
+	}
+	
+	/**
+	 * Registra a remoção de uma palavra no segmento atual. Deve ser invocado com o lock de escrita do serviço 
+	 * adquirido.
+	 * 
+	 * @param word palavra removida
+	 * @return sequência do registro, a ser informada em {@link #awaitDurable(long)}
+	 */
+	long appendRemoval(String word){
+		return log.appendRemoval(word);
+	}
+	
+	/**
+	 * Aguarda até que o registro com a sequência informada esteja sincronizado com o disco. Registros de segmentos 
+	 * anteriores ao atual já foram sincronizados na troca de segmento.
+	 * 
+	 * @param sequence sequência do registro
+	 * @throws IOException caso a gravação falhe
+	 */
+	void awaitDurable(long sequence) throws IOException{
+		WordLog current = log;
+		if(sequence > current.getStartSequence())
+			current.sync(sequence);
+	}
+	
+	/**
+	 * Sincroniza com o disco todos os registros do segmento atual.
+	 * 
+	 * @throws IOException caso a gravação falhe
+	 */
+	void sync() throws IOException{
+		WordLog current = log;
+		current.sync(current.getAppendedSequence());
+	}
+	
+	/**
+	 * Indica se existem registros posteriores ao snapshot mais recente.
+	 * 
+	 * @return true caso um novo snapshot seja necessário
+	 */
+	boolean hasChangesSinceSnapshot(){
+		return log.getAppendedSequence() > snapshotSequence;
+	}
+	
+	/**
+	 * Sincroniza e fecha o segmento atual e abre um novo. Deve ser invocado com o lock de escrita do serviço 
+	 * adquirido, junto com a captura do snapshot das palavras que será gravado em 
+	 * {@link #writeSnapshot(long, Collection)}. Um segmento atual sem registros é mantido, já que o novo segmento 
+	 * começaria na mesma sequência e no mesmo arquivo.
+	 * 
+	 * @return sequência coberta pelos segmentos fechados
+	 * @throws IOException caso a gravação falhe; o segmento atual continua sendo utilizado
+	 */
+	long rotate() throws IOException{
+		WordLog current = log;
+		long sequence = current.getAppendedSequence();
+		if(sequence == current.getStartSequence())
+			return sequence;
+		
+		// Os registros são sincronizados antes da troca, pois awaitDurable considera duráveis os registros anteriores 
+		// ao segmento atual; o novo segmento é criado antes de fechar o atual para que uma falha não deixe o log fechado
+		current.sync(sequence);
+		WordLog next = WordLog.create(logFile(sequence), sequence);
+		log = next;
+		current.close();
+		return sequence;
+	}
+	
+	/**
+	 * Grava o snapshot das palavras cobertas pela sequência informada e remove os arquivos que deixam de ser 
+	 * necessários para a recuperação. Não precisa do lock de escrita do serviço.
+	 * 
+	 * @param sequence sequência retornada por {@link #rotate()}
+	 * @param words palavras armazenadas no momento da troca de segmento
+	 * @throws IOException caso o snapshot não possa ser gravado
+	 */
+	void writeSnapshot(long sequence, Collection<String> words) throws IOException{
+		WordSnapshotFile.write(directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX)),
+				sequence, words);
+		snapshotSequence = sequence;
+		
+		for(Path file : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(sequence, false).values())
+			Files.deleteIfExists(file);
+		for(Path file : list(LOG_PREFIX, LOG_SUFFIX).headMap(sequence, false).values())
+			Files.deleteIfExists(file);
+	}
+	
+	/**
+	 * Fecha o segmento atual, sincronizando os registros pendentes.
+	 * 
+	 * @throws IOException caso a gravação falhe
+	 */
+	void close() throws IOException{
+		WordLog current = log;
+		if(current != null)
+			current.close();
+	}
+	
+	private Path logFile(long sequence){
+		return directory.resolve(String.format("%s%020d%s", LOG_PREFIX, sequence, LOG_SUFFIX));
+	}
+	
+	/**
+	 * Lista os arquivos do diretório com o prefixo e sufixo informados, ordenados pela sequência.
+	 */
+	private TreeMap<Long, Path> list(String prefix, String suffix) throws IOException{
+		TreeMap<Long, Path> files = new TreeMap<Long, Path>();
+		try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)){
+			for(Path file : stream)
+				files.put(parseSequence(file.getFileName().toString(), prefix, suffix), file);
+		}
+		return files;
+	}
+	
+	private static long parseSequence(String name, String prefix, String suffix) throws IOException{
+		try{
+			return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+		}catch(NumberFormatException e){
+			throw new IOException("Nome de arquivo de persistência inválido: " + name + ".", e);
+		}
+	}
+	
+}
@@ -1,13 +1,54 @@
 package br.com.fleao.word_similarity.services;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import br.com.fleao.word_similarity.util.BKTree;
+import br.com.fleao.word_similarity.util.DeletionIndex;
+import br.com.fleao.word_similarity.util.LatencyHistogram;
+import br.com.fleao.word_similarity.util.LengthBucketIndex;
 import br.com.fleao.word_similarity.util.LevenshteinDistanceAlgorithm;
+import br.com.fleao.word_similarity.util.MappedWordIndex;
+import br.com.fleao.word_similarity.util.QGramIndex;
+import br.com.fleao.word_similarity.util.ScanStatistics;
+import br.com.fleao.word_similarity.util.SearchCounters;
+import br.com.fleao.word_similarity.util.SimilarityIndex;
+import br.com.fleao.word_similarity.util.WordArena;
+import br.com.fleao.word_similarity.util.WordDistance;
+import br.com.fleao.word_similarity.util.WordSnapshot;
+import br.com.fleao.word_similarity.util.WordStore;
 
 /**
  * <p>
@@ -15,9 +56,21 @@ import br.com.fleao.word_similarity.util.LevenshteinDistanceAlgorithm;
  * as funções disponíveis se encontra a de invocação.
  * </p>
  * <p>
- * Nesta versão da aplicação, por não haver a necessidade de persistência das palavras recebidas pela aplicação, todas 
- * as palavras adicionadas via invocação do serviço REST são armazenadas em memória e disponíveis apenas em tempo de 
- * execução.
+ * Todas as palavras adicionadas via invocação do serviço REST são armazenadas em memória. Opcionalmente, elas podem 
+ * ser persistidas em disco através de um log de escrita antecipada e de snapshots periódicos ({@link WordPersistence}), 
+ * sendo recuperadas na inicialização da aplicação.
+ * </p>
+ * <p>
+ * As leituras nunca bloqueiam: consultas percorrem um snapshot imutável e versionado das palavras armazenadas
+ * ({@link WordSnapshot}), enquanto as escritas são serializadas entre si e publicam um novo snapshot ao final de
+ * cada lote de palavras.
+ * </p>
+ * <p>
+ * Palavras podem ser removidas explicitamente ou, caso uma capacidade máxima seja configurada, pela política de remoção
+ * ({@link EvictionPolicy}) a partir do uso das palavras nos resultados das buscas. Os índices são atualizados
+ * incrementalmente a cada remoção; as posições removidas são liberadas quando o dicionário é reconstruído, assim que
+ * passam a ser tão numerosas quanto as palavras restantes. A reconstrução ocorre em segundo plano, sem bloquear as
+ * escritas, e o novo dicionário substitui o anterior de uma só vez.
  * </p>
  * 
  * @author felipe
@@ -26,71 +79,1382 @@ import br.com.fleao.word_similarity.util.LevenshteinDistanceAlgorithm;
 @Service
 public class WordService {
 	
-	// Estrutura de dados para armazenar as palavras em tempo de execução. Por ser um "Set", não há duplicação.
-	private final Set<String> bagOfWords = new HashSet<String>();
-	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private static final Logger logger = LoggerFactory.getLogger(WordService.class);
+	
+	// Reconstruções só ocorrem após ao menos esta quantidade de remoções, mesmo com poucas palavras armazenadas
+	private static final int MIN_COMPACTION_REMOVED = 1024;
+	
+	// Índice mantido incrementalmente para acelerar a busca por palavras similares (BK-tree por padrão)
+	@Value("${word-similarity.index.type:BKTREE}")
+	private SimilarityIndexType similarityIndexType = SimilarityIndexType.BKTREE;
+	// Índice opcional de remoções (SymSpell), utilizado nas buscas com threshold pequeno
+	@Value("${word-similarity.deletion-index.enabled:false}")
+	private boolean deletionIndexEnabled = false;
+	@Value("${word-similarity.deletion-index.max-edit-distance:2}")
+	private int deletionIndexMaxEditDistance = 2;
+	// Índice opcional de q-gramas, utilizado quando o filtro de contagem é capaz de descartar palavras
+	@Value("${word-similarity.qgram-index.enabled:false}")
+	private boolean qgramIndexEnabled = false;
+	@Value("${word-similarity.qgram-index.q:2}")
+	private int qgramIndexQ = 2;
+	// Capacidade máxima das palavras armazenadas e política de remoção das excedentes (ver application.properties)
+	@Value("${word-similarity.store.max-words:0}")
+	private int storeMaxWords = 0;
+	@Value("${word-similarity.store.max-bytes:0}")
+	private long storeMaxBytes = 0;
+	@Value("${word-similarity.store.eviction-policy:LRU}")
+	private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+	@Value("${word-similarity.store.eviction-samples:8}")
+	private int evictionSamples = 8;
+	// Palavras removidas explicitamente e pela capacidade; alteradas somente com o lock de escrita
+	private volatile long removedWords;
+	private volatile long evictedWords;
+	
+	// Palavras armazenadas em tempo de execução, sem duplicação e com leituras não bloqueantes, junto com os índices
+	// mantidos sobre elas. Os caracteres ficam em uma arena compacta, compartilhada com a BK-tree e com a varredura por
+	// tamanho. Cada operação lê a referência uma única vez, já que ela é substituída quando o dicionário é reconstruído
+	private volatile WordDictionary dictionary = newDictionary(0, new ScanStatistics(), 0);
+	// Serializa somente as escritas; as leituras utilizam o snapshot publicado
+	private final Lock writeLock = new ReentrantLock();
+	
+	// Latências e contadores das buscas, sempre habilitados (ver QueryMetrics)
+	private final QueryMetrics metrics = new QueryMetrics();
+	private final LatencyHistogram writeLockWait = metrics.latency("store.writeLock.wait");
+	
+	// Configuração das varreduras e do modo de busca paralela (ver application.properties)
+	@Value("${word-similarity.parallel.min-words:100000}")
+	private int parallelMinWords = 100000;
+	@Value("${word-similarity.parallel.min-threshold-ratio:0.5}")
+	private double parallelMinThresholdRatio = 0.5;
+	@Value("${word-similarity.parallel.chunk-size:4096}")
+	private int parallelChunkSize = 4096;
+	@Value("${word-similarity.parallel.threads:0}")
+	private int parallelThreads = 0;
+	@Value("${word-similarity.scan.batched:true}")
+	private boolean scanBatched = true;
+	// Pool dedicado às buscas paralelas, dimensionado independentemente das threads do servlet container
+	private ForkJoinPool scanPool;
+	
+	// Execução assíncrona das buscas, com threads e fila limitadas e prazo por busca (ver application.properties)
+	@Value("${word-similarity.query.threads:0}")
+	private int queryThreads = 0;
+	@Value("${word-similarity.query.queue-capacity:64}")
+	private int queryQueueCapacity = 64;
+	@Value("${word-similarity.query.default-timeout-ms:0}")
+	private long queryDefaultTimeoutMs = 0;
+	private QueryExecutor queryExecutor;
+	
+	// Persistência opcional das palavras em disco (ver application.properties)
+	@Value("${word-similarity.persistence.enabled:false}")
+	private boolean persistenceEnabled = false;
+	@Value("${word-similarity.persistence.directory:data}")
+	private String persistenceDirectory = "data";
+	@Value("${word-similarity.persistence.sync-on-commit:true}")
+	private boolean persistenceSyncOnCommit = true;
+	@Value("${word-similarity.persistence.sync-interval-ms:1000}")
+	private long persistenceSyncIntervalMs = 1000;
+	@Value("${word-similarity.persistence.snapshot-interval-s:300}")
+	private long persistenceSnapshotIntervalSeconds = 300;
+	private volatile WordPersistence persistence;
+	
+	// Índice pré-construído mapeado em memória, consultado junto com as palavras armazenadas em tempo de execução
+	@Value("${word-similarity.mapped-index.file:}")
+	private String mappedIndexFile = "";
+	@Value("${word-similarity.mapped-index.verify-checksum:true}")
+	private boolean mappedIndexVerifyChecksum = true;
+	@Value("${word-similarity.mapped-index.export-file:}")
+	private String mappedIndexExportFile = "";
+	private volatile MappedWordIndex mappedIndex;
+	
+	// Cache dos resultados das buscas por palavras similares, atualizado incrementalmente a cada nova palavra
+	@Value("${word-similarity.cache.enabled:true}")
+	private boolean cacheEnabled = true;
+	@Value("${word-similarity.cache.max-weight:1000000}")
+	private long cacheMaxWeight = 1000000;
+	@Value("${word-similarity.cache.concurrency:16}")
+	private int cacheConcurrency = 16;
+	@Value("${word-similarity.cache.max-refresh-words:10000}")
+	private int cacheMaxRefreshWords = 10000;
+	private volatile SimilarityCache cache;
+	
+	// Posição desta instância entre os shards de um coordenador, conferida por ele na inicialização
+	@Value("${word-similarity.shard.index:0}")
+	private int shardIndex = 0;
+	@Value("${word-similarity.shard.count:0}")
+	private int shardCount = 0;
+	
+	// Maior quantidade de palavras retornada em uma página da listagem
+	@Value("${word-similarity.pagination.max-limit:10000}")
+	private int paginationMaxLimit = 10000;
+	
+	// Executa os snapshots periódicos e, sem sincronização por escrita, as sincronizações periódicas do log
+	private ScheduledExecutorService persistenceScheduler;
+	private final Object checkpointLock = new Object();
+	
+	// Reconstrói o dicionário em segundo plano; a reconstrução em andamento é mantida para que não seja repetida
+	private ExecutorService compactionExecutor;
+	private volatile Future<?> compaction;
+	
+	/**
+	 * Inicializa o índice configurado, os pools de threads utilizados pelas buscas assíncronas e paralelas, o índice 
+	 * pré-construído mapeado em memória, caso configurado, e, caso habilitada, a persistência, recuperando as palavras 
+	 * armazenadas em disco.
+	 */
+	@PostConstruct
+	public void initialize(){
+		if(storeMaxWords < 0 || storeMaxBytes < 0)
+			throw new IllegalArgumentException("A capacidade configurada para o armazenamento não pode ser negativa.");
+		if(evictionSamples <= 0)
+			throw new IllegalArgumentException("A amostra da política de remoção deve ser positiva.");
+		if(shardCount < 0 || shardCount > 0 && (shardIndex < 0 || shardIndex >= shardCount))
+			throw new IllegalArgumentException("A posição configurada para o shard é inválida.");
+		
+		lockForWrite();
+		try{
+			// Os índices só podem ser trocados enquanto nenhuma palavra foi armazenada
+			WordDictionary current = dictionary;
+			if(current.getStore().snapshot().isEmpty())
+				dictionary = newDictionary(current.getEpoch() + 1, current.getLengthBuckets().getStatistics(), 0);
+		}finally{
+			writeLock.unlock();
+		}
+		
+		if(cacheEnabled && cache == null)
+			cache = new SimilarityCache(cacheMaxWeight, cacheConcurrency);
+		
+		if(scanPool == null){
+			int threads = parallelThreads > 0 ? parallelThreads : Runtime.getRuntime().availableProcessors();
+			scanPool = new ForkJoinPool(threads);
+		}
+		
+		if(queryExecutor == null){
+			int threads = queryThreads > 0 ? queryThreads : Runtime.getRuntime().availableProcessors();
+			queryExecutor = new QueryExecutor(threads, queryQueueCapacity);
+		}
+		
+		if(compactionExecutor == null)
+			compactionExecutor = Executors.newSingleThreadExecutor();
+		
+		// O índice mapeado é aberto antes da recuperação para que as palavras já presentes nele não sejam duplicadas
+		if(!mappedIndexFile.isEmpty() && mappedIndex == null)
+			openMappedIndex();
+		
+		if(persistenceEnabled && persistence == null)
+			recoverPersistence();
+	}
+	
+	/**
+	 * Mapeia em memória o índice pré-construído configurado. Somente o cabeçalho é lido (além do conteúdo, caso a 
+	 * verificação do CRC esteja habilitada): as palavras e a estrutura de busca são consultadas diretamente no arquivo.
+	 */
+	private void openMappedIndex(){
+		Path file = Paths.get(mappedIndexFile);
+		try{
+			long start = System.nanoTime();
+			mappedIndex = MappedWordIndex.open(file, mappedIndexVerifyChecksum);
+			logger.info("Índice {} mapeado em {} ms: {} palavras.", file, 
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), mappedIndex.size());
+		}catch(IOException e){
+			throw new IllegalStateException("Não foi possível abrir o índice " + file + ".", e);
+		}
+	}
+	
+	/**
+	 * Recupera as palavras persistidas e agenda os snapshots periódicos.
+	 */
+	private void recoverPersistence(){
+		lockForWrite();
+		try{
+			WordPersistence recovered = new WordPersistence(Paths.get(persistenceDirectory));
+			// As palavras removidas são retiradas do conjunto durante a recuperação
+			Set<String> words = new LinkedHashSet<String>();
+			recovered.recover(words);
+			WordDictionary current = dictionary;
+			for(String word : words)
+				stage(current, word, recovered);
+			current.getStore().publish();
+			persistence = recovered;
+			compactIfNeeded();
+			logger.info("Persistência inicializada: {} palavras recuperadas de {}.", words.size(), persistenceDirectory);
+		}catch(IOException e){
+			throw new IllegalStateException("Não foi possível recuperar as palavras persistidas.", e);
+		}finally{
+			writeLock.unlock();
+		}
+		
+		persistenceScheduler = Executors.newSingleThreadScheduledExecutor();
+		if(persistenceSnapshotIntervalSeconds > 0){
+			persistenceScheduler.scheduleWithFixedDelay(new Runnable(){
+				@Override
+				public void run(){
+					try{
+						checkpoint();
+					}catch(RuntimeException e){
+						logger.error("Falha ao gravar o snapshot das palavras armazenadas.", e);
+					}
+				}
+			}, persistenceSnapshotIntervalSeconds, persistenceSnapshotIntervalSeconds, TimeUnit.SECONDS);
+		}
+		if(!persistenceSyncOnCommit){
+			persistenceScheduler.scheduleWithFixedDelay(new Runnable(){
+				@Override
+				public void run(){
+					try{
+						persistence.sync();
+					}catch(IOException e){
+						logger.error("Falha ao sincronizar o log de palavras armazenadas.", e);
+					}
+				}
+			}, persistenceSyncIntervalMs, persistenceSyncIntervalMs, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Encerra os pools de threads utilizados pelas buscas assíncronas e paralelas e fecha a persistência, 
+	 * sincronizando os registros pendentes.
+	 */
+	@PreDestroy
+	public void shutdown(){
+		if(queryExecutor != null)
+			queryExecutor.shutdown();
+		if(scanPool != null)
+			scanPool.shutdownNow();
+		if(persistenceScheduler != null)
+			persistenceScheduler.shutdownNow();
+		if(compactionExecutor != null)
+			compactionExecutor.shutdownNow();
+		WordPersistence current = persistence;
+		if(current != null){
+			try{
+				current.close();
+			}catch(IOException e){
+				logger.error("Falha ao fechar o log de palavras armazenadas.", e);
+			}
+		}
+	}
 	
 	/**
-	 * Retorna o conjunto com todas as palavras recebidas e armazenadas pela aplicação desde sua inicialização.
+	 * Retorna o conjunto com todas as palavras recebidas e armazenadas pela aplicação desde sua inicialização, 
+	 * incluindo as palavras do índice mapeado em memória e excluindo as removidas. O conjunto retornado é imutável e não 
+	 * é afetado por palavras adicionadas ou removidas posteriormente.
 	 * 
 	 * @return conjunto com todas as palavras armazenadas
 	 */
 	public Set<String> getAllStoredWords(){
-		lock.readLock().lock();
+		MappedWordIndex mapped = mappedIndex;
+		WordSnapshot snapshot = dictionary.getStore().snapshot();
+		if(mapped == null)
+			return snapshot;
+		return new MappedWordSet(mapped.asSet(), snapshot);
+	}
+	
+	/**
+	 * <p>
+	 * Retorna uma página das palavras armazenadas, incluindo as palavras do índice mapeado em memória, que ocupam as 
+	 * primeiras posições. As palavras seguem a ordem de inserção e cada uma mantém a sua posição enquanto a aplicação 
+	 * estiver em execução, já que novas palavras são sempre adicionadas ao final: o cursor de uma página é a posição 
+	 * da sua última palavra, e percorrer as páginas a partir dele nunca repete nem omite palavras, mesmo com escritas 
+	 * concorrentes. Palavras adicionadas durante a navegação aparecem nas últimas páginas.
+	 * </p>
+	 * <p>
+	 * As posições das palavras removidas são puladas, de forma que uma página pode cobrir mais posições do que a 
+	 * quantidade de palavras retornadas. As posições só são renumeradas quando o dicionário é reconstruído para liberar 
+	 * as posições removidas, ou quando as palavras são apagadas; por isso o cursor também carrega a versão do 
+	 * dicionário, no formato {@code <versão>-<posição>}, e um cursor de uma versão anterior é rejeitado em vez de 
+	 * repetir ou omitir palavras.
+	 * </p>
+	 * <p>
+	 * Somente as palavras da página são materializadas, independentemente da quantidade de palavras armazenadas.
+	 * </p>
+	 * 
+	 * @param after cursor retornado pela página anterior, ou null para obter a primeira página
+	 * @param limit quantidade máxima de palavras da página, limitada por {@code word-similarity.pagination.max-limit}
+	 * @return palavras da página e cursor da página seguinte
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 * @throws StaleCursorException caso o cursor tenha sido obtido antes da última reconstrução do dicionário
+	 */
+	public WordPage getStoredWordsPage(String after, int limit) throws IllegalArgumentException{
+		if(limit <= 0 || limit > paginationMaxLimit){
+			throw new IllegalArgumentException("A quantidade de palavras informada deve estar entre 1 e " 
+					+ paginationMaxLimit + ".");
+		}
+		
+		WordDictionary current = dictionary;
+		int lastPosition = cursorPosition(after, current.getEpoch());
+		MappedWordIndex mapped = mappedIndex;
+		int mappedSize = mapped == null ? 0 : mapped.size();
+		WordSnapshot snapshot = current.getStore().snapshot();
+		long total = (long) mappedSize + snapshot.getIdCount();
+		
+		List<String> words = new ArrayList<String>((int) Math.min(limit, Math.max(0, total - lastPosition - 1)));
+		int position = lastPosition + 1;
+		for(; position < total && words.size() < limit; position++){
+			// Posições removidas retornam null
+			String word = position < mappedSize ? mapped.getWord(position) : snapshot.get(position - mappedSize);
+			if(word != null)
+				words.add(word);
+		}
+		return new WordPage(words, position < total ? current.getEpoch() + "-" + (position - 1) : null);
+	}
+	
+	/**
+	 * Interpreta o cursor de uma página no formato {@code <versão>-<posição>}.
+	 * 
+	 * @param after cursor retornado pela página anterior, ou null para a primeira página
+	 * @param epoch versão atual do dicionário
+	 * @return posição da última palavra da página anterior, ou -1 para a primeira página
+	 * @throws IllegalArgumentException caso o cursor seja inválido
+	 * @throws StaleCursorException caso o cursor pertença a outra versão do dicionário
+	 */
+	private static int cursorPosition(String after, long epoch) throws IllegalArgumentException{
+		if(after == null)
+			return -1;
+		int separator = after.indexOf('-');
+		long cursorEpoch;
+		int position;
 		try{
-			return bagOfWords;
-		}finally{
-			lock.readLock().unlock();
+			if(separator <= 0)
+				throw new NumberFormatException();
+			cursorEpoch = Long.parseLong(after.substring(0, separator));
+			position = Integer.parseInt(after.substring(separator + 1));
+		}catch(NumberFormatException e){
+			throw new IllegalArgumentException("O cursor informado é inválido.");
 		}
+		if(cursorEpoch < 0 || position < 0)
+			throw new IllegalArgumentException("O cursor informado é inválido.");
+		if(cursorEpoch != epoch)
+			throw new StaleCursorException("O dicionário foi reconstruído após a obtenção do cursor informado; "
+					+ "a listagem deve ser reiniciada pela primeira página.");
+		return position;
 	}
 	
 	/**
 	 * Adiciona uma palavra ao conjunto de palavras armazenadas em memória. Caso a palavra informada já tenha 
-	 * sido armazenada anteriormente, ela não será duplicada.
+	 * sido armazenada anteriormente, ela não será duplicada. Com a persistência habilitada e sincronização por 
+	 * escrita, o método só retorna após a palavra estar gravada no disco.
 	 * 
 	 * @param word palavra a ser armazenada
+	 * @throws IllegalArgumentException caso a palavra seja nula ou exceda sozinha a capacidade configurada
+	 * @throws IllegalStateException caso a palavra não possa ser persistida
 	 */
 	public void storeWord(String word){
 		if(word == null)
 			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		validateCapacity(word);
+		
+		long sequence = 0;
+		lockForWrite();
+		try{
+			WordPersistence current = persistence;
+			WordDictionary target = dictionary;
+			if(stage(target, word, current) && current != null)
+				sequence = current.append(word);
+			target.getStore().publish();
+			compactIfNeeded();
+		}finally{
+			writeLock.unlock();
+		}
+		awaitDurable(sequence);
+	}
+	
+	/**
+	 * Adiciona um lote de palavras ao conjunto de palavras armazenadas em memória. Todas as palavras do lote são 
+	 * publicadas de uma única vez, em um único novo snapshot. Palavras já armazenadas ou repetidas no lote não são 
+	 * duplicadas. Caso o lote exceda a capacidade configurada, as primeiras palavras do lote podem ser removidas pela 
+	 * política de remoção antes mesmo de serem publicadas.
+	 * 
+	 * @param words palavras a serem armazenadas
+	 * @return quantidade de palavras efetivamente adicionadas
+	 * @throws IllegalArgumentException caso o lote contenha palavras nulas ou que excedam sozinhas a capacidade
+	 * configurada
+	 * @throws IllegalStateException caso as palavras não possam ser persistidas
+	 */
+	public int storeWords(Collection<String> words){
+		if(words == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		for(String word : words){
+			if(word == null)
+				throw new IllegalArgumentException("O lote informado não pode conter palavras nulas.");
+			validateCapacity(word);
+		}
+		
+		int added = 0;
+		long sequence = 0;
+		lockForWrite();
+		try{
+			WordPersistence current = persistence;
+			WordDictionary target = dictionary;
+			for(String word : words){
+				if(stage(target, word, current)){
+					added++;
+					if(current != null)
+						sequence = current.append(word);
+				}
+			}
+			target.getStore().publish();
+			compactIfNeeded();
+		}finally{
+			writeLock.unlock();
+		}
+		// Uma única sincronização para todo o lote, compartilhada com as escritas concorrentes
+		awaitDurable(sequence);
+		return added;
+	}
+	
+	/**
+	 * <p>
+	 * Remove uma palavra do conjunto de palavras armazenadas em memória. A palavra é retirada incrementalmente de todos 
+	 * os índices, sem reconstruí-los, e deixa de ser retornada pelas buscas e listagens. Resultados em cache que a 
+	 * contêm são filtrados na próxima consulta. Com a persistência habilitada, a remoção é registrada no log e o método 
+	 * só retorna após a gravação, como em {@link #storeWord(String)}.
+	 * </p>
+	 * <p>
+	 * As palavras do índice mapeado em memória são somente leitura e não podem ser removidas.
+	 * </p>
+	 * 
+	 * @param word palavra a ser removida
+	 * @return true caso a palavra tenha sido removida, false caso ela não estivesse armazenada ou pertença ao índice 
+	 * mapeado em memória
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 * @throws IllegalStateException caso a remoção não possa ser persistida
+	 */
+	public boolean removeWord(String word){
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		
+		boolean removed;
+		long sequence = 0;
+		lockForWrite();
+		try{
+			WordPersistence current = persistence;
+			WordDictionary target = dictionary;
+			removed = target.remove(word);
+			if(removed){
+				removedWords++;
+				if(current != null)
+					sequence = current.appendRemoval(word);
+				target.getStore().publish();
+				compactIfNeeded();
+			}
+		}finally{
+			writeLock.unlock();
+		}
+		awaitDurable(sequence);
+		return removed;
+	}
+	
+	/**
+	 * Grava um snapshot das palavras armazenadas e remove os segmentos de log cobertos por ele. A troca de segmento 
+	 * adquire o lock de escrita por um instante; a gravação do snapshot ocorre sem bloquear escritas nem consultas. 
+	 * Não faz nada caso a persistência não esteja habilitada ou nenhuma palavra tenha sido armazenada desde o último 
+	 * snapshot.
+	 * 
+	 * @throws IllegalStateException caso o snapshot não possa ser gravado
+	 */
+	public void checkpoint(){
+		WordPersistence current = persistence;
+		if(current == null)
+			return;
+		
+		synchronized(checkpointLock){
+			if(!current.hasChangesSinceSnapshot())
+				return;
+			try{
+				WordSnapshot snapshot;
+				long sequence;
+				lockForWrite();
+				try{
+					snapshot = dictionary.getStore().snapshot();
+					sequence = current.rotate();
+				}finally{
+					writeLock.unlock();
+				}
+				current.writeSnapshot(sequence, snapshot);
+			}catch(IOException e){
+				throw new IllegalStateException("Não foi possível gravar o snapshot das palavras armazenadas.", e);
+			}
+		}
+	}
+	
+	/**
+	 * Aguarda a gravação em disco do registro informado, caso a persistência esteja habilitada com sincronização por 
+	 * escrita. Deve ser invocado sem o lock de escrita, permitindo que escritas concorrentes sejam sincronizadas em 
+	 * grupo.
+	 */
+	private void awaitDurable(long sequence){
+		if(sequence == 0 || !persistenceSyncOnCommit)
+			return;
+		try{
+			persistence.awaitDurable(sequence);
+		}catch(IOException e){
+			throw new IllegalStateException("Não foi possível persistir as palavras informadas.", e);
+		}
+	}
+	
+	/**
+	 * Adquire o lock de escrita, registrando o tempo de espera. Sem disputa pelo lock nenhum tempo é medido.
+	 */
+	private void lockForWrite(){
+		if(writeLock.tryLock()){
+			writeLockWait.record(0);
+			return;
+		}
+		long start = System.nanoTime();
+		writeLock.lock();
+		writeLockWait.record(System.nanoTime() - start);
+	}
+	
+	/**
+	 * Prepara uma palavra para publicação, atualizando os índices antes que ela se torne visível às consultas. Caso o 
+	 * dicionário esteja na capacidade configurada, as palavras escolhidas pela política de remoção são removidas antes, 
+	 * com a remoção registrada no log informado. Deve ser invocado com o lock de escrita adquirido.
+	 */
+	private boolean stage(WordDictionary target, String word, WordPersistence log){
+		MappedWordIndex mapped = mappedIndex;
+		if(mapped != null && mapped.contains(word))
+			return false;
+		WordStore store = target.getStore();
+		int id = store.getArena().find(word);
+		if(id >= 0 && !store.isRemoved(id))
+			return false;
+		
+		while(store.size() > 0 && (storeMaxWords > 0 && store.size() >= storeMaxWords 
+				|| storeMaxBytes > 0 && target.getEstimatedLiveBytes() + WordDictionary.estimateBytes(word) > storeMaxBytes)){
+			String evicted = store.getArena().get(target.getUsage().selectVictim(store, evictionSamples));
+			target.remove(evicted);
+			evictedWords++;
+			if(log != null)
+				log.appendRemoval(evicted);
+		}
+		return target.add(word);
+	}
+	
+	/**
+	 * Agenda a reconstrução do dicionário somente com as palavras restantes quando as posições removidas passam a ser 
+	 * tão numerosas quanto elas, liberando a memória ocupada pelas palavras removidas em todos os índices. O custo da 
+	 * reconstrução é proporcional às palavras restantes e, portanto, amortizado pelas remoções que a provocaram. Deve 
+	 * ser invocado com o lock de escrita adquirido, após a publicação.
+	 */
+	private void compactIfNeeded(){
+		final WordDictionary current = dictionary;
+		WordStore store = current.getStore();
+		Future<?> running = compaction;
+		if(store.getRemovedCount() < Math.max(MIN_COMPACTION_REMOVED, store.size()) || compactionExecutor == null 
+				|| running != null && !running.isDone())
+			return;
+		
+		final WordSnapshot snapshot = store.snapshot();
+		try{
+			compaction = compactionExecutor.submit(new Runnable(){
+				@Override
+				public void run(){
+					try{
+						compact(current, snapshot);
+					}catch(RuntimeException e){
+						logger.error("Falha ao reconstruir o dicionário.", e);
+					}
+				}
+			});
+		}catch(RejectedExecutionException e){
+			// Serviço encerrado
+		}
+	}
+	
+	/**
+	 * Reconstrói o dicionário a partir do snapshot informado sem o lock de escrita, de forma que escritas e consultas 
+	 * prosseguem sobre o dicionário atual durante a reconstrução. Em seguida, com o lock de escrita, as remoções e 
+	 * inserções realizadas desde o snapshot são repetidas sobre o novo dicionário, que substitui o atual. O uso das 
+	 * palavras e as estatísticas das varreduras são preservados; a nova versão invalida os resultados em cache e os 
+	 * cursores da listagem paginada. A reconstrução é descartada caso o dicionário tenha sido substituído nesse meio 
+	 * tempo.
+	 */
+	private void compact(WordDictionary source, WordSnapshot snapshot){
+		long start = System.nanoTime();
+		WordUsage usage = source.getUsage();
+		WordDictionary compacted = newDictionary(source.getEpoch() + 1, source.getLengthBuckets().getStatistics(), 
+				usage.getClock());
+		WordUsage compactedUsage = compacted.getUsage();
+		int idCount = snapshot.getIdCount();
+		for(int id = 0; id < idCount; id++){
+			String word = snapshot.get(id);
+			if(word != null && compacted.add(word))
+				compactedUsage.set(compacted.getStore().getArena().size() - 1, usage.get(id));
+		}
+		long built = System.nanoTime();
 		
-		lock.writeLock().lock();
+		int replayed = 0;
+		lockForWrite();
 		try{
-			bagOfWords.add(word);
+			if(dictionary != source)
+				return;
+			// As remoções são repetidas antes das inserções, já que uma palavra removida pode ter sido adicionada 
+			// novamente em uma nova posição
+			WordSnapshot latest = source.getStore().snapshot();
+			for(int id = 0; id < idCount; id++){
+				String word = snapshot.get(id);
+				if(word != null && latest.get(id) == null){
+					compacted.remove(word);
+					replayed++;
+				}
+			}
+			for(int id = idCount; id < latest.getIdCount(); id++){
+				String word = latest.get(id);
+				if(word != null && compacted.add(word)){
+					compactedUsage.set(compacted.getStore().getArena().size() - 1, usage.get(id));
+					replayed++;
+				}
+			}
+			compacted.getStore().publish();
+			dictionary = compacted;
 		}finally{
-			lock.writeLock().unlock();
+			writeLock.unlock();
 		}
+		logger.info("Dicionário reconstruído em {} ms ({} ms repetindo as alterações): {} palavras, {} posições removidas "
+				+ "liberadas, {} alterações repetidas.", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), 
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - built), snapshot.size(), snapshot.getRemovedCount(), 
+				replayed);
+	}
+	
+	/**
+	 * Cria um dicionário vazio com os índices configurados.
+	 * 
+	 * @param epoch versão do dicionário
+	 * @param statistics estatísticas das varreduras, compartilhadas com o dicionário substituído
+	 * @param clock relógio lógico do uso das palavras
+	 */
+	private WordDictionary newDictionary(long epoch, ScanStatistics statistics, int clock){
+		WordStore store = new WordStore();
+		return new WordDictionary(epoch, store, similarityIndexType.create(store.getArena()), 
+				deletionIndexEnabled ? new DeletionIndex(deletionIndexMaxEditDistance) : null, 
+				qgramIndexEnabled ? new QGramIndex(qgramIndexQ) : null, 
+				new LengthBucketIndex(store.getArena(), statistics), new WordUsage(evictionPolicy, clock));
+	}
+	
+	/**
+	 * Indica se a capacidade das palavras armazenadas é limitada, caso em que o uso das palavras nos resultados das 
+	 * buscas é registrado.
+	 */
+	private boolean isBounded(){
+		return storeMaxWords > 0 || storeMaxBytes > 0;
+	}
+	
+	/**
+	 * Rejeita palavras que sozinhas excedem a capacidade configurada em bytes.
+	 */
+	private void validateCapacity(String word){
+		if(storeMaxBytes > 0 && WordDictionary.estimateBytes(word) > storeMaxBytes)
+			throw new IllegalArgumentException("A palavra informada excede a capacidade configurada para o armazenamento.");
+	}
+	
+	/**
+	 * Registra as palavras do resultado de uma busca no uso do dicionário, consultado pela política de remoção. As 
+	 * palavras do índice mapeado em memória não são encontradas na arena e são ignoradas.
+	 */
+	private void recordUsage(WordDictionary current, Collection<String> words){
+		if(!isBounded() || words.isEmpty())
+			return;
+		WordUsage usage = current.getUsage();
+		WordArena arena = current.getStore().getArena();
+		int tick = usage.tick();
+		for(String word : words)
+			usage.touch(arena.find(word), tick);
+	}
+	
+	/**
+	 * Indica se o resultado em cache reflete o snapshot informado, ou um mais recente, do dicionário informado.
+	 */
+	private static boolean isCurrent(SimilarityCache.Result cached, WordDictionary current, WordSnapshot snapshot){
+		return cached != null && cached.getEpoch() == current.getEpoch() 
+				&& cached.getVisibleCount() >= snapshot.getIdCount() 
+				&& cached.getRemovedCount() >= snapshot.getRemovedCount();
 	}
 
 	/**
+	 * <p>
 	 * Retorna um conjunto de palavras cuja distância de similaridade de acordo com o algoritmo de Distância de 
 	 * Levenshtein é igual ou inferior ao threshold informado. O conjunto de palavras retornado é um subconjunto 
 	 * das palavras atualmente armazenadas pela aplicação. Quanto menor o valor calculado da distância, mais 
 	 * similares são duas palavras.
+	 * </p>
+	 * <p>
+	 * A busca é realizada sobre o índice configurado ({@link SimilarityIndexType}): por padrão um índice métrico 
+	 * (BK-tree), que utiliza a desigualdade triangular para descartar subconjuntos inteiros de palavras sem calcular 
+	 * suas distâncias, ou uma trie compactada, que compartilha o cálculo entre palavras com prefixos comuns. O 
+	 * resultado é idêntico ao de uma comparação da keyword com cada uma das palavras armazenadas.
+	 * </p>
+	 * <p>
+	 * Quando o threshold é alto em relação ao tamanho da keyword, o índice deixa de descartar palavras e a busca é 
+	 * realizada através de uma varredura das palavras agrupadas por tamanho ({@link LengthBucketIndex}), que visita 
+	 * somente os tamanhos compatíveis com o threshold e descarta palavras pela assinatura de caracteres antes de 
+	 * calcular qualquer distância. Em dicionários grandes a varredura é dividida entre as threads de um pool fork-join 
+	 * dedicado.
+	 * </p>
+	 * <p>
+	 * Caso o índice de remoções esteja habilitado, buscas com threshold igual ou inferior à sua distância máxima podem 
+	 * ser respondidas por ele, com custo praticamente independente do tamanho do dicionário. Caso o índice de q-gramas 
+	 * esteja habilitado, ele pode ser utilizado como gerador de candidatos sempre que o filtro de contagem de q-gramas 
+	 * é capaz de descartar palavras do mesmo tamanho da keyword, o que ocorre principalmente com keywords longas.
+	 * </p>
+	 * <p>
+	 * A cada consulta, o planejador ({@link QueryPlanner}) estima o custo de cada uma dessas estratégias a partir das 
+	 * estatísticas do dicionário e escolhe a mais barata (ver {@link #explainSimilarStoredWords(String, int)}).
+	 * </p>
+	 * <p>
+	 * Caso um índice pré-construído esteja mapeado em memória ({@link MappedWordIndex}), suas palavras são buscadas 
+	 * diretamente no arquivo mapeado e somadas ao resultado.
+	 * </p>
+	 * <p>
+	 * Com o cache habilitado ({@link SimilarityCache}), consultas repetidas são respondidas sem nenhum cálculo. Caso 
+	 * palavras tenham sido armazenadas desde o cálculo do resultado, somente elas são avaliadas, desde que não sejam 
+	 * mais numerosas que {@code word-similarity.cache.max-refresh-words}; caso contrário a busca é refeita por completo. 
+	 * Caso palavras tenham sido removidas, elas são retiradas do resultado em cache; a reconstrução do dicionário 
+	 * invalida todos os resultados.
+	 * </p>
 	 * 
 	 * @param keyword palavra cujos similares deseja-se encontrar.
 	 * @param threshold distância máxima para considerar duas palavras como similares
-	 * @return conjunto de palavras com distância para a keyword igual ou inferior ao threshold
+	 * @return conjunto imutável de palavras com distância para a keyword igual ou inferior ao threshold
 	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
 	 */
 	public Set<String> listSimilarStoredWords(String keyword, int threshold) throws IllegalArgumentException{
-		// Validação dos parâmetros
+		validateSimilarityQuery(keyword, threshold);
+		
+		// A busca considera somente as palavras visíveis no snapshot atual
+		WordDictionary current = dictionary;
+		WordSnapshot snapshot = current.getStore().snapshot();
+		MappedWordIndex mapped = mappedIndex;
+		SimilarityCache currentCache = cache;
+		if(currentCache != null){
+			SimilarityCache.Result cached = currentCache.get(keyword, threshold);
+			if(isCurrent(cached, current, snapshot)){
+				currentCache.recordHit();
+				recordUsage(current, cached.getWords());
+				return cached.getWords();
+			}
+			
+			// Somente as palavras armazenadas após o cálculo do resultado são avaliadas, e as removidas são descartadas
+			if(cached != null && cached.getEpoch() == current.getEpoch() 
+					&& snapshot.getIdCount() - cached.getVisibleCount() <= cacheMaxRefreshWords){
+				Set<String> similarWords;
+				if(cached.getRemovedCount() == snapshot.getRemovedCount()){
+					similarWords = new HashSet<String>(cached.getWords());
+				}else{
+					similarWords = new HashSet<String>();
+					for(String word : cached.getWords()){
+						if(snapshot.contains(word) || mapped != null && mapped.contains(word))
+							similarWords.add(word);
+					}
+				}
+				current.getLengthBuckets().searchRange(keyword, threshold, cached.getVisibleCount(), 
+						snapshot.getIdCount(), similarWords);
+				similarWords = Collections.unmodifiableSet(similarWords);
+				currentCache.put(keyword, threshold, current.getEpoch(), snapshot.getIdCount(), 
+						snapshot.getRemovedCount(), similarWords);
+				currentCache.recordRefresh();
+				recordUsage(current, similarWords);
+				return similarWords;
+			}
+			currentCache.recordMiss();
+		}
+		
+		// Cálculo das palavras similares compatíveis com o threshold
+		Set<String> similarWords = new HashSet<String>();
+		searchStoredWords(keyword, threshold, current, snapshot, true, similarWords, null, null);
+		if(mapped != null)
+			mapped.search(keyword, threshold, similarWords);
+		similarWords = Collections.unmodifiableSet(similarWords);
+		if(currentCache != null)
+			currentCache.put(keyword, threshold, current.getEpoch(), snapshot.getIdCount(), snapshot.getRemovedCount(), 
+					similarWords);
+		recordUsage(current, similarWords);
+		return similarWords;
+	}
+	
+	/**
+	 * <p>
+	 * Variante de {@link #listSimilarStoredWords(String, int)} que entrega as palavras similares à coleção informada à 
+	 * medida que são encontradas, ao invés de acumulá-las em um conjunto, permitindo que o resultado seja enviado ao 
+	 * cliente enquanto a busca ainda está em andamento e com uso de memória independente da quantidade de palavras 
+	 * encontradas. Cada palavra é entregue uma única vez.
+	 * </p>
+	 * <p>
+	 * Resultados presentes no cache são atualizados e entregues a partir dele. Os demais não são armazenados no cache 
+	 * e a varredura, quando utilizada, é sempre sequencial, já que a coleção recebe as palavras de uma única thread. 
+	 * Uma exceção lançada pela coleção interrompe a busca.
+	 * </p>
+	 * 
+	 * @param keyword palavra cujos similares deseja-se encontrar.
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param result coleção que recebe as palavras similares
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public void listSimilarStoredWords(String keyword, int threshold, Collection<String> result) 
+			throws IllegalArgumentException{
+		validateSimilarityQuery(keyword, threshold);
+		if(result == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		
+		// Um resultado em cache já está em memória: basta atualizá-lo e entregá-lo
+		SimilarityCache currentCache = cache;
+		if(currentCache != null && currentCache.get(keyword, threshold) != null){
+			result.addAll(listSimilarStoredWords(keyword, threshold));
+			return;
+		}
+		
+		WordDictionary current = dictionary;
+		Collection<String> target = isBounded() ? new UsageRecordingCollection(result, current) : result;
+		searchStoredWords(keyword, threshold, current, current.getStore().snapshot(), false, target, null, null);
+		MappedWordIndex mapped = mappedIndex;
+		if(mapped != null)
+			mapped.search(keyword, threshold, result);
+	}
+	
+	/**
+	 * <p>
+	 * Executa uma busca por palavras similares, como {@link #listSimilarStoredWords(String, int)}, e retorna a 
+	 * explicação da sua execução ao invés das palavras encontradas: a estratégia escolhida pelo planejador 
+	 * ({@link QueryPlanner}), o custo estimado de cada estratégia disponível, as palavras examinadas, as distâncias 
+	 * calculadas e o tempo gasto.
+	 * </p>
+	 * <p>
+	 * A busca é sempre executada por completo, sem consultar nem atualizar o cache de resultados; o plano informa 
+	 * apenas se uma consulta normal seria respondida pelo cache.
+	 * </p>
+	 * 
+	 * @param keyword palavra cujos similares deseja-se encontrar.
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @return explicação da execução da busca
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public QueryPlan explainSimilarStoredWords(String keyword, int threshold) throws IllegalArgumentException{
+		validateSimilarityQuery(keyword, threshold);
+		
+		WordDictionary current = dictionary;
+		WordSnapshot snapshot = current.getStore().snapshot();
+		SimilarityCache currentCache = cache;
+		SimilarityCache.Result cached = currentCache == null ? null : currentCache.get(keyword, threshold);
+		
+		Map<SearchStrategy, Double> costs = new EnumMap<SearchStrategy, Double>(SearchStrategy.class);
+		SearchCounters counters = new SearchCounters();
+		Set<String> similarWords = new HashSet<String>();
+		long start = System.nanoTime();
+		SearchStrategy strategy = searchStoredWords(keyword, threshold, current, snapshot, true, similarWords, counters, 
+				costs);
+		MappedWordIndex mapped = mappedIndex;
+		if(mapped != null)
+			mapped.search(keyword, threshold, similarWords);
+		long elapsed = System.nanoTime() - start;
+		
+		int window = current.getLengthBuckets().countWords(keyword.length() - threshold, keyword.length() + threshold, 
+				snapshot.getIdCount());
+		return new QueryPlan(keyword, threshold, strategy, costs, isCurrent(cached, current, snapshot), snapshot.size(), 
+				window, 
+				counters.getExamined(), counters.getVerified(), counters.getCells(), similarWords.size(), 
+				TimeUnit.NANOSECONDS.toMicros(elapsed));
+	}
+	
+	/**
+	 * Busca as palavras similares entre as palavras armazenadas em tempo de execução visíveis no snapshot informado, 
+	 * utilizando a estratégia de menor custo estimado pelo planejador, e as adiciona à coleção informada. A varredura 
+	 * só é dividida entre as threads do pool quando {@code parallel} é verdadeiro.
+	 * 
+	 * @return estratégia utilizada
+	 */
+	private SearchStrategy searchStoredWords(String keyword, int threshold, WordDictionary current, WordSnapshot snapshot, 
+			boolean parallel, Collection<String> result, SearchCounters counters, Map<SearchStrategy, Double> costs){
+		DeletionIndex deletions = current.getDeletionIndex();
+		QGramIndex qgrams = current.getQGramIndex();
+		LengthBucketIndex lengthBuckets = current.getLengthBuckets();
+		// As posições removidas continuam contadas entre as visíveis e são descartadas pelos próprios índices
+		int visibleCount = snapshot.getIdCount();
+		// O planejador é criado a cada consulta, refletindo a configuração corrente
+		QueryPlanner planner = new QueryPlanner(scanPool == null ? 0 : scanPool.getParallelism(), parallelMinWords, 
+				parallelMinThresholdRatio);
+		SearchStrategy strategy = planner.plan(keyword, threshold, visibleCount, lengthBuckets, deletions, qgrams, 
+				parallel, costs);
+		
+		// O trabalho de toda busca é contabilizado nas métricas, mesmo quando nenhum contador é informado
+		SearchCounters searchCounters = counters != null ? counters : new SearchCounters();
+		long start = System.nanoTime();
+		long cells = LevenshteinDistanceAlgorithm.getComputedCells();
+		switch(strategy){
+		case DELETION_INDEX:
+			deletions.search(keyword, threshold, visibleCount, result, searchCounters);
+			break;
+		case QGRAM_INDEX:
+			qgrams.search(keyword, threshold, visibleCount, result, searchCounters);
+			break;
+		case SIMILARITY_INDEX:
+			current.getSimilarityIndex().search(keyword, threshold, visibleCount, result, searchCounters);
+			break;
+		case PARALLEL_SCAN:
+			LengthBucketIndex.Query parallelQuery = lengthBuckets.prepare(keyword, threshold, visibleCount, scanBatched);
+			result.addAll(scanPool.invoke(new ParallelScanTask(lengthBuckets, parallelQuery, 0, 
+					parallelQuery.getCandidateCount(), parallelChunkSize, Thread.currentThread(), searchCounters)));
+			break;
+		default:
+			LengthBucketIndex.Query query = lengthBuckets.prepare(keyword, threshold, visibleCount, scanBatched);
+			lengthBuckets.scan(query, 0, query.getCandidateCount(), result, searchCounters);
+		}
+		// Na varredura paralela cada bloco contabiliza as células calculadas pela sua própria thread
+		if(strategy != SearchStrategy.PARALLEL_SCAN)
+			searchCounters.addCells(LevenshteinDistanceAlgorithm.getComputedCells() - cells);
+		metrics.recordSearch(strategy, searchCounters, System.nanoTime() - start);
+		return strategy;
+	}
+	
+	/**
+	 * <p>
+	 * Executa várias buscas por palavras similares em conjunto, retornando um resultado por consulta, na mesma ordem 
+	 * das consultas informadas. Todas as consultas consideram o mesmo snapshot das palavras armazenadas.
+	 * </p>
+	 * <p>
+	 * Consultas com threshold suportado pelo índice de remoções (quando habilitado) são respondidas individualmente 
+	 * por ele, cujo custo independe do tamanho do dicionário. As demais são avaliadas juntas em uma única varredura 
+	 * das palavras agrupadas por tamanho ({@link LengthBucketIndex#searchBatch(List, List, int, List)}): cada palavra 
+	 * armazenada é lida uma única vez e comparada com todas as keywords compatíveis com o seu tamanho, de forma que o 
+	 * custo da varredura é dividido entre todas as consultas do lote.
+	 * </p>
+	 * 
+	 * @param queries consultas a serem executadas
+	 * @return resultado de cada consulta, na mesma ordem
+	 * @throws IllegalArgumentException caso alguma das consultas informadas seja inválida
+	 */
+	public List<SimilarityResult> listSimilarStoredWordsBatch(List<SimilarityQuery> queries) throws IllegalArgumentException{
+		validateSimilarityQueries(queries);
+		
+		WordDictionary current = dictionary;
+		int visibleCount = current.getStore().snapshot().getIdCount();
+		DeletionIndex deletions = current.getDeletionIndex();
+		List<SimilarityResult> results = new ArrayList<SimilarityResult>(queries.size());
+		List<String> batchKeywords = new ArrayList<String>();
+		List<Integer> batchThresholds = new ArrayList<Integer>();
+		List<Set<String>> batchResults = new ArrayList<Set<String>>();
+		for(SimilarityQuery query : queries){
+			Set<String> similarWords = new HashSet<String>();
+			if(deletions != null && deletions.supports(query.getThreshold())){
+				deletions.search(query.getKeyword(), query.getThreshold(), visibleCount, similarWords);
+			}else{
+				batchKeywords.add(query.getKeyword());
+				batchThresholds.add(query.getThreshold());
+				batchResults.add(similarWords);
+			}
+			results.add(new SimilarityResult(query.getKeyword(), query.getThreshold(), similarWords));
+		}
+		
+		if(!batchKeywords.isEmpty())
+			current.getLengthBuckets().searchBatch(batchKeywords, batchThresholds, visibleCount, batchResults);
+		for(SimilarityResult result : results)
+			recordUsage(current, result.getWords());
+		
+		MappedWordIndex mapped = mappedIndex;
+		if(mapped != null){
+			for(SimilarityResult result : results)
+				mapped.search(result.getKeyword(), result.getThreshold(), result.getWords());
+		}
+		return results;
+	}
+	
+	/**
+	 * <p>
+	 * Retorna as "k" palavras armazenadas mais próximas da keyword de acordo com a Distância de Levenshtein, ordenadas
+	 * da mais próxima para a mais distante e acompanhadas de suas distâncias. Palavras com a mesma distância são 
+	 * ordenadas alfabeticamente.
+	 * </p>
+	 * <p>
+	 * Ao invés de repetir buscas com thresholds crescentes, a busca mantém um heap com as "k" melhores palavras já 
+	 * encontradas e utiliza a distância da pior delas como threshold, que diminui ao longo da busca: na BK-tree ele 
+	 * limita os filhos visitados e, nos demais índices, a varredura por tamanho ({@link LengthBucketIndex}) o utiliza 
+	 * para descartar tamanhos e assinaturas incompatíveis. Em ambos os casos o cálculo da distância é interrompido 
+	 * assim que ultrapassa o threshold corrente.
+	 * </p>
+	 * 
+	 * @param keyword palavra cujas vizinhas deseja-se encontrar
+	 * @param k quantidade máxima de palavras retornadas
+	 * @return palavras mais próximas com suas distâncias
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public List<WordDistance> listNearestStoredWords(String keyword, int k) throws IllegalArgumentException{
+		validateNearestQuery(keyword, k);
+		
+		WordDictionary current = dictionary;
+		int visibleCount = current.getStore().snapshot().getIdCount();
+		SimilarityIndex index = current.getSimilarityIndex();
+		List<WordDistance> nearest;
+		if(index instanceof BKTree)
+			nearest = ((BKTree) index).nearest(keyword, k, visibleCount);
+		else
+			nearest = current.getLengthBuckets().nearest(keyword, k, visibleCount);
+		if(isBounded() && !nearest.isEmpty()){
+			List<String> words = new ArrayList<String>(nearest.size());
+			for(WordDistance distance : nearest)
+				words.add(distance.getWord());
+			recordUsage(current, words);
+		}
+		
+		// As palavras do índice mapeado e as armazenadas em tempo de execução são disjuntas: basta unir os dois resultados
+		MappedWordIndex mapped = mappedIndex;
+		if(mapped == null)
+			return nearest;
+		List<WordDistance> merged = new ArrayList<WordDistance>(nearest);
+		merged.addAll(mapped.nearest(keyword, k));
+		Collections.sort(merged);
+		return merged.size() > k ? new ArrayList<WordDistance>(merged.subList(0, k)) : merged;
+	}
+	
+	/**
+	 * <p>
+	 * Executa {@link #listSimilarStoredWords(String, int)} de forma assíncrona, no executor dedicado às buscas, 
+	 * liberando a thread que a invocou.
+	 * </p>
+	 * <p>
+	 * As threads e a fila do executor são limitadas ({@code word-similarity.query.threads} e 
+	 * {@code word-similarity.query.queue-capacity}): quando ambas estão ocupadas a busca é rejeitada imediatamente. 
+	 * Caso o prazo expire antes da conclusão, o resultado é concluído com uma 
+	 * {@link java.util.concurrent.TimeoutException} e a busca é interrompida no próximo ponto de verificação; o 
+	 * cancelamento do resultado também interrompe a busca.
+	 * </p>
+	 * 
+	 * @param keyword palavra cujos similares deseja-se encontrar.
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param timeoutMs prazo da busca em milissegundos, contado a partir da submissão, ou zero para utilizar o prazo 
+	 * padrão ({@code word-similarity.query.default-timeout-ms})
+	 * @return resultado da busca
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 * @throws RejectedExecutionException caso o executor de buscas esteja sobrecarregado
+	 */
+	public CompletableFuture<Set<String>> listSimilarStoredWordsAsync(final String keyword, final int threshold, 
+			long timeoutMs) throws IllegalArgumentException, RejectedExecutionException{
+		validateSimilarityQuery(keyword, threshold);
+		return submitQuery("listSimilar", new Callable<Set<String>>(){
+			@Override
+			public Set<String> call(){
+				return listSimilarStoredWords(keyword, threshold);
+			}
+		}, timeoutMs);
+	}
+	
+	/**
+	 * Executa {@link #listSimilarStoredWords(String, int, Collection)} de forma assíncrona, com o mesmo comportamento de 
+	 * {@link #listSimilarStoredWordsAsync(String, int, long)}. A busca é admitida, ou rejeitada, pelo executor antes que 
+	 * a coleção que recebe as palavras esteja disponível, e aguarda por ela já ocupando uma thread do executor; dessa 
+	 * forma uma resposta em streaming só é iniciada após a busca ser aceita. O prazo também se aplica à espera pela 
+	 * coleção.
+	 * 
+	 * @param keyword palavra cujos similares deseja-se encontrar.
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param result coleção que recebe as palavras similares, concluída quando ela estiver disponível
+	 * @param timeoutMs prazo da busca em milissegundos, ou zero para utilizar o prazo padrão
+	 * @return conclusão da busca
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 * @throws RejectedExecutionException caso o executor de buscas esteja sobrecarregado
+	 */
+	public CompletableFuture<Void> listSimilarStoredWordsAsync(final String keyword, final int threshold, 
+			final Future<? extends Collection<String>> result, long timeoutMs) 
+			throws IllegalArgumentException, RejectedExecutionException{
+		validateSimilarityQuery(keyword, threshold);
+		if(result == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		return submitQuery("listSimilarStream", new Callable<Void>(){
+			@Override
+			public Void call() throws Exception{
+				listSimilarStoredWords(keyword, threshold, result.get());
+				return null;
+			}
+		}, timeoutMs);
+	}
+	
+	/**
+	 * Executa {@link #explainSimilarStoredWords(String, int)} de forma assíncrona, com o mesmo comportamento de 
+	 * {@link #listSimilarStoredWordsAsync(String, int, long)}.
+	 * 
+	 * @param keyword palavra cujos similares deseja-se encontrar.
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param timeoutMs prazo da busca em milissegundos, ou zero para utilizar o prazo padrão
+	 * @return explicação da execução da busca
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 * @throws RejectedExecutionException caso o executor de buscas esteja sobrecarregado
+	 */
+	public CompletableFuture<QueryPlan> explainSimilarStoredWordsAsync(final String keyword, final int threshold, 
+			long timeoutMs) throws IllegalArgumentException, RejectedExecutionException{
+		validateSimilarityQuery(keyword, threshold);
+		return submitQuery("explain", new Callable<QueryPlan>(){
+			@Override
+			public QueryPlan call(){
+				return explainSimilarStoredWords(keyword, threshold);
+			}
+		}, timeoutMs);
+	}
+	
+	/**
+	 * Executa {@link #listSimilarStoredWordsBatch(List)} de forma assíncrona, com o mesmo comportamento de 
+	 * {@link #listSimilarStoredWordsAsync(String, int, long)}. O prazo se aplica ao lote inteiro.
+	 * 
+	 * @param queries consultas a serem executadas
+	 * @param timeoutMs prazo do lote em milissegundos, ou zero para utilizar o prazo padrão
+	 * @return resultado de cada consulta, na mesma ordem
+	 * @throws IllegalArgumentException caso alguma das consultas informadas seja inválida
+	 * @throws RejectedExecutionException caso o executor de buscas esteja sobrecarregado
+	 */
+	public CompletableFuture<List<SimilarityResult>> listSimilarStoredWordsBatchAsync(final List<SimilarityQuery> queries, 
+			long timeoutMs) throws IllegalArgumentException, RejectedExecutionException{
+		validateSimilarityQueries(queries);
+		return submitQuery("listSimilarBatch", new Callable<List<SimilarityResult>>(){
+			@Override
+			public List<SimilarityResult> call(){
+				return listSimilarStoredWordsBatch(queries);
+			}
+		}, timeoutMs);
+	}
+	
+	/**
+	 * Executa {@link #listNearestStoredWords(String, int)} de forma assíncrona, com o mesmo comportamento de 
+	 * {@link #listSimilarStoredWordsAsync(String, int, long)}.
+	 * 
+	 * @param keyword palavra cujas vizinhas deseja-se encontrar
+	 * @param k quantidade máxima de palavras retornadas
+	 * @param timeoutMs prazo da busca em milissegundos, ou zero para utilizar o prazo padrão
+	 * @return palavras mais próximas com suas distâncias
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 * @throws RejectedExecutionException caso o executor de buscas esteja sobrecarregado
+	 */
+	public CompletableFuture<List<WordDistance>> listNearestStoredWordsAsync(final String keyword, final int k, 
+			long timeoutMs) throws IllegalArgumentException, RejectedExecutionException{
+		validateNearestQuery(keyword, k);
+		return submitQuery("nearest", new Callable<List<WordDistance>>(){
+			@Override
+			public List<WordDistance> call(){
+				return listNearestStoredWords(keyword, k);
+			}
+		}, timeoutMs);
+	}
+	
+	/**
+	 * Submete uma busca ao executor dedicado, aplicando o prazo padrão quando nenhum prazo é informado, e registra a 
+	 * espera na fila e a execução nos histogramas do tipo de busca informado.
+	 */
+	private <T> CompletableFuture<T> submitQuery(String type, Callable<T> query, long timeoutMs){
+		if(timeoutMs < 0)
+			throw new IllegalArgumentException("O prazo informado não pode ser negativo.");
+		return queryExecutor.submit(query, timeoutMs > 0 ? timeoutMs : queryDefaultTimeoutMs, 
+				metrics.latency("query." + type + ".queue"), metrics.latency("query." + type + ".execution"));
+	}
+	
+	/**
+	 * Exporta todas as palavras armazenadas, incluindo as do índice mapeado em memória, para um arquivo de índice 
+	 * pré-construído ({@link MappedWordIndex}), que pode ser mapeado na inicialização da aplicação através da 
+	 * propriedade {@code word-similarity.mapped-index.file}.
+	 * 
+	 * @param file arquivo de destino
+	 * @return quantidade de palavras exportadas
+	 * @throws IllegalArgumentException caso o arquivo informado seja nulo
+	 * @throws IllegalStateException caso o arquivo não possa ser gravado
+	 */
+	public int exportIndex(Path file){
+		if(file == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		
+		List<String> words = new ArrayList<String>(getAllStoredWords());
+		try{
+			MappedWordIndex.write(file, words);
+		}catch(IOException e){
+			throw new IllegalStateException("Não foi possível exportar o índice para " + file + ".", e);
+		}
+		logger.info("Índice exportado para {}: {} palavras.", file, words.size());
+		return words.size();
+	}
+	
+	/**
+	 * Exporta todas as palavras armazenadas para o arquivo configurado na propriedade 
+	 * {@code word-similarity.mapped-index.export-file}.
+	 * 
+	 * @return quantidade de palavras exportadas
+	 * @throws IllegalStateException caso a exportação não esteja configurada ou o arquivo não possa ser gravado
+	 */
+	public int exportIndex(){
+		if(mappedIndexExportFile.isEmpty())
+			throw new IllegalStateException("O arquivo de exportação do índice não está configurado.");
+		return exportIndex(Paths.get(mappedIndexExportFile));
+	}
+	
+	/**
+	 * Retorna o relatório de ocupação de memória do índice de remoções.
+	 * 
+	 * @return relatório de memória, ou null caso o índice não esteja habilitado
+	 */
+	public DeletionIndex.MemoryReport getDeletionIndexReport(){
+		DeletionIndex deletions = dictionary.getDeletionIndex();
+		return deletions == null ? null : deletions.getMemoryReport();
+	}
+	
+	/**
+	 * Retorna os contadores e a ocupação do cache de resultados.
+	 * 
+	 * @return estatísticas do cache, ou null caso ele não esteja habilitado
+	 */
+	public CacheStatistics getCacheStatistics(){
+		SimilarityCache currentCache = cache;
+		return currentCache == null ? null : currentCache.getStatistics();
+	}
+	
+	/**
+	 * Retorna os contadores das varreduras, com a quantidade de palavras descartadas por cada filtro.
+	 * 
+	 * @return estatísticas das varreduras
+	 */
+	public ScanStatistics getScanStatistics(){
+		return dictionary.getLengthBuckets().getStatistics();
+	}
+	
+	/**
+	 * Retorna as métricas das buscas, que também podem ser utilizadas para registrar latências medidas fora do 
+	 * serviço, como o tempo total das requisições.
+	 * 
+	 * @return métricas das buscas
+	 */
+	public QueryMetrics getQueryMetrics(){
+		return metrics;
+	}
+	
+	/**
+	 * Retorna a posição desta instância entre os shards, conforme configurada.
+	 * 
+	 * @return posição do shard, com quantidade zero caso não tenha sido configurada
+	 */
+	public ShardIdentity getShardIdentity(){
+		return new ShardIdentity(shardCount == 0 ? 0 : shardIndex, shardCount);
+	}
+	
+	/**
+	 * Retorna o relatório das métricas da aplicação: ocupação das palavras armazenadas e da memória, estado do 
+	 * executor de buscas, latências e contadores das buscas.
+	 * 
+	 * @return relatório das métricas
+	 */
+	public MetricsReport getMetricsReport(){
+		MappedWordIndex mapped = mappedIndex;
+		WordDictionary current = dictionary;
+		DeletionIndex deletions = current.getDeletionIndex();
+		SimilarityCache currentCache = cache;
+		QueryExecutor executor = queryExecutor;
+		Runtime runtime = Runtime.getRuntime();
+		return new MetricsReport(current.getStore().snapshot().size(), mapped == null ? 0 : mapped.size(), 
+				current.getStore().getArena().getEstimatedBytes(), removedWords, evictedWords, 
+				deletions == null ? null : deletions.getMemoryReport().getEstimatedBytes(), 
+				currentCache == null ? null : currentCache.getStatistics().getWeight(), 
+				runtime.totalMemory() - runtime.freeMemory(), runtime.maxMemory(), 
+				executor == null ? 0 : executor.getQueuedCount(), executor == null ? 0 : executor.getRejectedCount(), 
+				executor == null ? 0 : executor.getTimedOutCount(), metrics.getLatencies(), metrics.getSearches());
+	}
+	
+	/**
+	 * Valida os parâmetros de uma busca por palavras similares.
+	 */
+	private static void validateSimilarityQuery(String keyword, int threshold){
 		if(threshold < 0){
 			throw new IllegalArgumentException("O threshold informado deve ser positivo.");
 		}else if(keyword == null){
 			throw new IllegalArgumentException("A keyword informada é inválida.");
 		}
+	}
+	
+	/**
+	 * Valida as consultas de uma busca em lote.
+	 */
+	private static void validateSimilarityQueries(List<SimilarityQuery> queries){
+		if(queries == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		for(SimilarityQuery query : queries){
+			if(query == null)
+				throw new IllegalArgumentException("O lote informado não pode conter consultas nulas.");
+			validateSimilarityQuery(query.getKeyword(), query.getThreshold());
+		}
+	}
+	
+	/**
+	 * Valida os parâmetros de uma busca pelas palavras mais próximas.
+	 */
+	private static void validateNearestQuery(String keyword, int k){
+		if(k <= 0){
+			throw new IllegalArgumentException("A quantidade de palavras informada deve ser positiva.");
+		}else if(keyword == null){
+			throw new IllegalArgumentException("A keyword informada é inválida.");
+		}
+	}
+	
+	/**
+	 * Coleção que repassa as palavras encontradas por uma busca em streaming à coleção do cliente, registrando cada uma 
+	 * no uso do dicionário à medida que é entregue.
+	 */
+	private static final class UsageRecordingCollection extends AbstractCollection<String> {
+		private final Collection<String> target;
+		private final WordUsage usage;
+		private final WordArena arena;
+		private final int tick;
 		
-		// Cálculo das palavras similares compatíveis com o threshold
-		Set<String> similarWords = new HashSet<String>();
-		for(String storedWord : getAllStoredWords()){
-			if(LevenshteinDistanceAlgorithm.getDistanceEfficiently(keyword, storedWord) <= threshold){
-				similarWords.add(storedWord);
-			}
+		private UsageRecordingCollection(Collection<String> target, WordDictionary current){
+			this.target = target;
+			this.usage = current.getUsage();
+			this.arena = current.getStore().getArena();
+			this.tick = usage.tick();
+		}
+		
+		@Override
+		public boolean add(String word){
+			usage.touch(arena.find(word), tick);
+			return target.add(word);
+		}
+		
+		@Override
+		public Iterator<String> iterator(){
+			return target.iterator();
+		}
+		
+		@Override
+		public int size(){
+			return target.size();
 		}
-
-		return similarWords;
 	}
 	
+	/**
+	 * União imutável das palavras do índice mapeado com um snapshot das palavras armazenadas em tempo de execução. 
+	 * Os dois conjuntos são disjuntos, já que palavras presentes no índice mapeado nunca são armazenadas novamente.
+	 */
+	private static final class MappedWordSet extends AbstractSet<String> {
+		private final Set<String> mapped;
+		private final Set<String> stored;
+		
+		private MappedWordSet(Set<String> mapped, Set<String> stored){
+			this.mapped = mapped;
+			this.stored = stored;
+		}
+		
+		@Override
+		public boolean contains(Object word){
+			return stored.contains(word) || mapped.contains(word);
+		}
+		
+		@Override
+		public Iterator<String> iterator(){
+			final Iterator<String> first = mapped.iterator();
+			final Iterator<String> second = stored.iterator();
+			return new Iterator<String>(){
+				@Override
+				public boolean hasNext(){
+					return first.hasNext() || second.hasNext();
+				}
+				
+				@Override
+				public String next(){
+					return first.hasNext() ? first.next() : second.next();
+				}
+			};
+		}
+		
+		@Override
+		public int size(){
+			return mapped.size() + stored.size();
+		}
+	}
 	
 }
@@ -0,0 +1,167 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import br.com.fleao.word_similarity.util.LatencyHistogram;
+
+/**
+ * <p>
+ * Exposição das métricas do {@link WordService} via JMX, registrada automaticamente pelo Spring Boot enquanto a
+ * propriedade {@code spring.jmx.enabled} estiver habilitada (padrão). As mesmas métricas estão disponíveis no endpoint
+ * REST {@code /rest/metrics/report}.
+ * </p>
+ * <p>
+ * Os histogramas e os contadores por estratégia são expostos como mapas de valores numéricos, com chaves no formato
+ * {@code nome.métrica}, legíveis por qualquer cliente JMX sem classes da aplicação.
+ * </p>
+ * <p>
+ * Como os clientes JMX leem cada atributo separadamente, o relatório e os mapas são calculados uma única vez e 
+ * reutilizados por todas as leituras durante {@value #READING_MAX_AGE_MILLIS} milissegundos, evitando percorrer os 
+ * histogramas a cada atributo.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+@Component
+@ManagedResource(objectName = "br.com.fleao.word_similarity:type=Metrics,name=WordSimilarity",
+		description = "Métricas das buscas por palavras similares")
+public class WordSimilarityMetrics {
+
+	// Idade máxima dos valores reutilizados entre leituras de atributos
+	static final long READING_MAX_AGE_MILLIS = 1000;
+
+	@Autowired
+	private WordService wordService;
+
+	private volatile Reading reading;
+
+	@ManagedAttribute(description = "Palavras armazenadas em tempo de execução")
+	public int getStoredWords(){
+		return read().report.getStoredWords();
+	}
+
+	@ManagedAttribute(description = "Palavras do índice mapeado em memória")
+	public int getMappedWords(){
+		return read().report.getMappedWords();
+	}
+
+	@ManagedAttribute(description = "Memória estimada da arena de palavras armazenadas, em bytes")
+	public long getStoreEstimatedBytes(){
+		return read().report.getStoreEstimatedBytes();
+	}
+
+	@ManagedAttribute(description = "Palavras removidas explicitamente desde a inicialização")
+	public long getRemovedWords(){
+		return read().report.getRemovedWords();
+	}
+
+	@ManagedAttribute(description = "Palavras removidas por exceder a capacidade do armazenamento")
+	public long getEvictedWords(){
+		return read().report.getEvictedWords();
+	}
+
+	@ManagedAttribute(description = "Memória heap ocupada, em bytes")
+	public long getHeapUsedBytes(){
+		return read().report.getHeapUsedBytes();
+	}
+
+	@ManagedAttribute(description = "Buscas aguardando uma thread livre do executor")
+	public int getQueuedQueries(){
+		return read().report.getQueuedQueries();
+	}
+
+	@ManagedAttribute(description = "Buscas rejeitadas por falta de capacidade do executor")
+	public long getRejectedQueries(){
+		return read().report.getRejectedQueries();
+	}
+
+	@ManagedAttribute(description = "Buscas cujo prazo expirou")
+	public long getTimedOutQueries(){
+		return read().report.getTimedOutQueries();
+	}
+
+	@ManagedAttribute(description = "Tempo total de espera pelo lock de escrita, em microssegundos")
+	public long getWriteLockWaitMicros(){
+		return read().writeLockWaitMicros;
+	}
+
+	@ManagedAttribute(description = "Contagem, média e percentis (microssegundos) de cada histograma de latência")
+	public Map<String, Long> getLatencies(){
+		return read().latencies;
+	}
+
+	@ManagedAttribute(description = "Buscas, palavras examinadas, descartadas e verificadas e células calculadas "
+			+ "por estratégia")
+	public Map<String, Long> getSearches(){
+		return read().searches;
+	}
+
+	/**
+	 * Retorna os valores calculados há menos de {@link #READING_MAX_AGE_MILLIS}, calculando-os novamente caso tenham
+	 * expirado. Leituras concorrentes podem calcular os valores mais de uma vez, sem prejuízo.
+	 */
+	private Reading read(){
+		Reading current = reading;
+		long now = System.nanoTime();
+		if(current == null || now - current.createdAt > TimeUnit.MILLISECONDS.toNanos(READING_MAX_AGE_MILLIS)){
+			current = new Reading(wordService.getMetricsReport(), now);
+			reading = current;
+		}
+		return current;
+	}
+
+	/**
+	 * Valores de todos os atributos, calculados a partir de um mesmo relatório.
+	 */
+	private static final class Reading {
+
+		private final MetricsReport report;
+		private final long createdAt;
+		private final long writeLockWaitMicros;
+		private final Map<String, Long> latencies;
+		private final Map<String, Long> searches;
+
+		Reading(MetricsReport report, long createdAt){
+			this.report = report;
+			this.createdAt = createdAt;
+			LatencyHistogram writeLockWait = report.getLatencies().get("store.writeLock.wait");
+			this.writeLockWaitMicros = writeLockWait == null ? 0 : writeLockWait.getTotalMicros();
+			Map<String, Long> latencies = new TreeMap<String, Long>();
+			for(Map.Entry<String, LatencyHistogram> entry : report.getLatencies().entrySet())
+				putLatency(latencies, entry.getKey(), entry.getValue());
+			Map<String, Long> searches = new TreeMap<String, Long>();
+			for(Map.Entry<SearchStrategy, QueryMetrics.SearchMetrics> entry : report.getSearches().entrySet()){
+				String name = entry.getKey().name();
+				QueryMetrics.SearchMetrics metrics = entry.getValue();
+				searches.put(name + ".searches", metrics.getSearches());
+				searches.put(name + ".examined", metrics.getExamined());
+				searches.put(name + ".pruned", metrics.getPruned());
+				searches.put(name + ".verified", metrics.getVerified());
+				searches.put(name + ".cells", metrics.getCells());
+				putLatency(searches, name + ".latency", metrics.getLatency());
+			}
+			this.latencies = Collections.unmodifiableMap(latencies);
+			this.searches = Collections.unmodifiableMap(searches);
+		}
+
+	}
+
+	private static void putLatency(Map<String, Long> values, String name, LatencyHistogram histogram){
+		values.put(name + ".count", histogram.getCount());
+		values.put(name + ".meanMicros", Math.round(histogram.getMeanMicros()));
+		values.put(name + ".p50Micros", histogram.getP50Micros());
+		values.put(name + ".p99Micros", histogram.getP99Micros());
+		values.put(name + ".p999Micros", histogram.getP999Micros());
+		values.put(name + ".maxMicros", histogram.getMaxMicros());
+	}
+
+}
@@ -0,0 +1,182 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import br.com.fleao.word_similarity.util.WordStore;
+
+/**
+ * <p>
+ * Uso das palavras armazenadas nos resultados das buscas, utilizado para escolher as palavras removidas quando o
+ * armazenamento atinge a capacidade configurada, de acordo com a {@link EvictionPolicy}.
+ * </p>
+ * <p>
+ * O uso de cada palavra é um {@code int} em um array indexado pela sua posição no {@link WordStore}, sem nenhum objeto
+ * por palavra. As buscas registram as palavras retornadas de qualquer thread, sem sincronização: registros concorrentes
+ * da mesma palavra podem se perder, o que só torna a escolha aproximada. A inserção de palavras e a escolha das
+ * palavras removidas devem ser serializadas pelo escritor do store.
+ * </p>
+ * <p>
+ * A palavra removida é a de menor uso entre uma amostra aleatória de palavras armazenadas (ou entre todas, quando não
+ * há mais palavras que o tamanho da amostra), evitando manter uma fila ordenada atualizada a cada busca.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+final class WordUsage {
+
+	// Quantidade mínima de buscas entre duas reduções dos contadores LFU
+	private static final int MIN_AGING_INTERVAL = 1024;
+	// Maior quantidade de posições percorridas por completo quando há menos palavras que o tamanho da amostra. As
+	// reconstruções mantêm as posições abaixo desse limite, que só é ultrapassado enquanto uma reconstrução está pendente
+	private static final int MAX_SCANNED_IDS = 4096;
+
+	private final EvictionPolicy policy;
+	// Relógio lógico, incrementado a cada busca registrada
+	private final AtomicInteger clock;
+	private volatile int[] usage = new int[16];
+	// Marca do relógio da última redução dos contadores LFU
+	private int agedAt;
+	// Posição a partir da qual a próxima escolha sem amostras procura uma posição não removida
+	private int nextScan;
+
+	/**
+	 * @param policy política de escolha das palavras removidas
+	 * @param clock valor inicial do relógio lógico, preservado quando as posições são renumeradas
+	 */
+	WordUsage(EvictionPolicy policy, int clock){
+		this.policy = policy;
+		this.clock = new AtomicInteger(clock);
+		this.agedAt = clock;
+	}
+
+	EvictionPolicy getPolicy(){
+		return policy;
+	}
+
+	int getClock(){
+		return clock.get();
+	}
+
+	/**
+	 * Inicia o registro de uma busca, retornando a marca do relógio a ser informada em {@link #touch(int, int)}.
+	 */
+	int tick(){
+		return clock.incrementAndGet();
+	}
+
+	/**
+	 * Registra que a palavra da posição informada apareceu no resultado da busca da marca informada.
+	 */
+	void touch(int id, int tick){
+		int[] current = usage;
+		if(id >= 0 && id < current.length)
+			current[id] = policy.touch(current[id], tick);
+	}
+
+	/**
+	 * Inicializa o uso de uma palavra recém-inserida. Deve ser invocado somente pelo escritor.
+	 */
+	void added(int id){
+		set(id, policy.initialUsage(clock.get()));
+	}
+
+	/**
+	 * Uso da palavra da posição informada.
+	 */
+	int get(int id){
+		int[] current = usage;
+		return id < current.length ? current[id] : 0;
+	}
+
+	/**
+	 * Define o uso da palavra da posição informada, utilizado para preservar o uso quando as posições são renumeradas.
+	 * Deve ser invocado somente pelo escritor.
+	 */
+	void set(int id, int value){
+		int[] current = usage;
+		if(id >= current.length)
+			current = Arrays.copyOf(current, Math.max(id + 1, current.length * 2));
+		current[id] = value;
+		usage = current;
+	}
+
+	/**
+	 * <p>
+	 * Escolhe a palavra armazenada de menor uso entre uma amostra aleatória de posições não removidas. Em caso de
+	 * empate é escolhida a palavra inserida há mais tempo. Deve ser invocado somente pelo escritor.
+	 * </p>
+	 * <p>
+	 * As posições removidas normalmente não passam de metade, mas podem ser a maioria enquanto a reconstrução do
+	 * dicionário ocorre em segundo plano. Por isso as tentativas de amostragem são limitadas e, caso nenhuma posição não
+	 * removida seja sorteada, a escolhida é a primeira posição não removida a partir de onde a escolha anterior parou,
+	 * de forma que cada posição removida é percorrida no máximo uma vez por volta, e não a cada escolha.
+	 * </p>
+	 *
+	 * @param store palavras armazenadas, incluindo as preparadas e ainda não publicadas
+	 * @param samples tamanho da amostra
+	 * @return posição da palavra escolhida, ou -1 caso não exista nenhuma palavra armazenada
+	 */
+	int selectVictim(WordStore store, int samples){
+		int ids = store.getArena().size();
+		int live = store.size();
+		if(live == 0)
+			return -1;
+		age(ids);
+
+		int victim = -1;
+		if(live <= samples && ids <= MAX_SCANNED_IDS){
+			for(int id = 0; id < ids; id++){
+				if(!store.isRemoved(id) && isLessUsed(id, victim))
+					victim = id;
+			}
+			return victim;
+		}
+
+		Random random = ThreadLocalRandom.current();
+		for(int sampled = 0, attempts = samples * 8; sampled < samples && attempts > 0; attempts--){
+			int id = random.nextInt(ids);
+			if(store.isRemoved(id))
+				continue;
+			sampled++;
+			if(isLessUsed(id, victim))
+				victim = id;
+		}
+		for(int id = nextScan % ids; victim < 0; id = id + 1 < ids ? id + 1 : 0){
+			if(!store.isRemoved(id))
+				victim = id;
+		}
+		nextScan = victim + 1;
+		return victim;
+	}
+
+	/**
+	 * Compara o uso das palavras como marcas de um relógio que pode dar a volta, o que também vale para os contadores
+	 * LFU, sempre pequenos e positivos.
+	 */
+	private boolean isLessUsed(int id, int victim){
+		if(victim < 0)
+			return true;
+		int difference = get(id) - get(victim);
+		return difference < 0 || difference == 0 && id < victim;
+	}
+
+	/**
+	 * Reduz os contadores LFU à metade a cada intervalo de buscas proporcional à quantidade de posições.
+	 */
+	private void age(int ids){
+		if(policy != EvictionPolicy.LFU)
+			return;
+		int now = clock.get();
+		if(now - agedAt < Math.max(MIN_AGING_INTERVAL, ids * 2))
+			return;
+		int[] current = usage;
+		for(int id = 0; id < Math.min(ids, current.length); id++)
+			current[id] = Math.max(1, current[id] >>> 1);
+		agedAt = now;
+	}
+
+}
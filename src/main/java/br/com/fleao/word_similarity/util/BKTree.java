@@ -0,0 +1,411 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>
+ * Implementação de uma BK-tree (Burkhard-Keller tree), árvore métrica utilizada para indexar as palavras
+ * armazenadas de acordo com a distância de Levenshtein entre elas.
+ * </p>
+ * <p>
+ * Cada nó da árvore guarda uma palavra e seus filhos são organizados de acordo com a distância entre a palavra
+ * do filho e a palavra do nó pai. Durante uma busca por palavras com distância igual ou inferior a um threshold
+ * "t", ao calcular a distância "d" entre a keyword e a palavra de um nó, a desigualdade triangular garante que
+ * somente os filhos cuja distância para o nó está no intervalo [d-t, d+t] podem conter palavras similares. Todas
+ * as demais subárvores são descartadas sem que nenhuma distância precise ser calculada.
+ * </p>
+ * <p>
+ * A árvore é atualizada de forma incremental, ou seja, cada nova palavra é inserida sem a necessidade de
+ * reconstrução da estrutura. As distâncias são calculadas com o algoritmo bit-paralelo de
+ * {@link LevenshteinPattern}.
+ * </p>
+ * <p>
+ * A árvore admite um único escritor concorrente com qualquer quantidade de leitores: os filhos de cada nó são
+ * substituídos por cópia (copy-on-write) e publicados através de referências voláteis, de forma que as buscas nunca
+ * bloqueiam nem observam um nó parcialmente construído. As inserções devem ser serializadas por quem utiliza a classe.
+ * Cada nó guarda a ordem em que foi inserido, permitindo restringir uma busca às palavras visíveis em um
+ * {@link WordSnapshot}.
+ * </p>
+ * <p>
+ * Os nós não guardam as palavras: a ordem de cada nó é o identificador da palavra em uma {@link WordArena}, que pode
+ * ser compartilhada com o {@link WordStore}, e as distâncias são calculadas diretamente sobre os caracteres da arena.
+ * Strings são criadas somente para as palavras devolvidas pelas buscas.
+ * </p>
+ * <p>
+ * A remoção de uma palavra ({@link #remove(String)}) não altera a estrutura da árvore, já que o nó é necessário para
+ * orientar as buscas pelos seus descendentes: o nó apenas deixa de referenciar uma palavra e continua sendo percorrido
+ * sem ser incluído nos resultados. Caso a palavra seja adicionada novamente, o mesmo nó passa a referenciar o seu novo
+ * identificador na arena.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public class BKTree implements SimilarityIndex {
+
+	// Caracteres das palavras, cujos identificadores coincidem com a ordem de inserção na árvore
+	private final WordArena arena;
+	// Raiz da árvore, nula enquanto nenhuma palavra for inserida
+	private volatile Node root;
+	// Quantidade de ordens atribuídas, incluindo as das palavras removidas
+	private volatile int size;
+	private volatile int removed;
+
+	/**
+	 * Cria uma árvore com uma arena própria para os caracteres das palavras.
+	 */
+	public BKTree(){
+		this(new WordArena());
+	}
+
+	/**
+	 * Cria uma árvore que lê os caracteres das palavras da arena informada, normalmente a arena de um
+	 * {@link WordStore}. Cada palavra deve ser adicionada à arena antes de ser adicionada à árvore, na mesma ordem.
+	 *
+	 * @param arena arena das palavras
+	 * @throws IllegalArgumentException caso a arena informada seja nula
+	 */
+	public BKTree(WordArena arena) throws IllegalArgumentException{
+		if(arena == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		this.arena = arena;
+	}
+
+	/**
+	 * Adiciona uma palavra à árvore. Caso a palavra já esteja presente ela não será duplicada.
+	 *
+	 * @param word palavra a ser adicionada
+	 * @return true caso a palavra tenha sido adicionada, false caso ela já estivesse presente na árvore
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 */
+	@Override
+	public boolean add(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		if(root == null){
+			root = new Node(register(word));
+			size++;
+			return true;
+		}
+
+		// Desce pela árvore seguindo a aresta correspondente à distância até encontrar uma posição livre
+		LevenshteinPattern pattern = new LevenshteinPattern(word);
+		long[] entries = arena.entries();
+		char[][] pages = arena.pages();
+		Node current = root;
+		while(true){
+			long entry = entries[current.order];
+			int distance = pattern.distance(WordArena.page(pages, entry), WordArena.offset(entry),
+					WordArena.length(entry));
+			if(distance == 0){
+				if(current.word >= 0)
+					return false;
+				// Palavra removida e adicionada novamente: o nó passa a referenciar a nova ocorrência da palavra
+				current.word = register(word);
+				size++;
+				return true;
+			}
+
+			Node child = current.getChild(distance);
+			if(child == null){
+				current.setChild(distance, new Node(register(word)));
+				size++;
+				return true;
+			}
+			current = child;
+		}
+	}
+
+	/**
+	 * Remove uma palavra da árvore, mantendo o seu nó para orientar as buscas pelos descendentes.
+	 *
+	 * @param word palavra a ser removida
+	 * @return true caso a palavra tenha sido removida, false caso ela não estivesse presente na árvore
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 */
+	@Override
+	public boolean remove(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		LevenshteinPattern pattern = new LevenshteinPattern(word);
+		long[] entries = arena.entries();
+		char[][] pages = arena.pages();
+		Node current = root;
+		while(current != null){
+			long entry = entries[current.order];
+			int distance = pattern.distance(WordArena.page(pages, entry), WordArena.offset(entry),
+					WordArena.length(entry));
+			if(distance == 0){
+				if(current.word < 0)
+					return false;
+				current.word = -1;
+				removed++;
+				return true;
+			}
+			current = current.getChild(distance);
+		}
+		return false;
+	}
+
+	/**
+	 * Obtém o identificador da palavra na arena, adicionando-a caso ainda não tenha sido adicionada por quem
+	 * compartilha a arena (sempre, com uma arena própria, inclusive quando a palavra volta a ser adicionada após uma
+	 * remoção). O identificador deve coincidir com a ordem de inserção do novo nó.
+	 */
+	private int register(String word){
+		int id = arena.size() == size ? arena.append(word) : arena.find(word);
+		if(id != size)
+			throw new IllegalArgumentException("A palavra informada não corresponde à próxima posição da arena: " + word);
+		return id;
+	}
+
+	/**
+	 * Busca todas as palavras da árvore cuja distância de Levenshtein para a keyword é igual ou inferior ao
+	 * threshold informado, adicionando-as à coleção de resultados.
+	 *
+	 * @param keyword palavra cujos similares deseja-se encontrar
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param result coleção que receberá as palavras encontradas
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public void search(String keyword, int threshold, Collection<String> result) throws IllegalArgumentException{
+		search(keyword, threshold, Integer.MAX_VALUE, result);
+	}
+
+	/**
+	 * Busca as palavras similares à keyword considerando somente as primeiras palavras inseridas na árvore. Como
+	 * um nó é sempre inserido depois de seus ancestrais, as subárvores de nós não visíveis são descartadas por inteiro.
+	 *
+	 * @param keyword palavra cujos similares deseja-se encontrar
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param visibleCount quantidade de palavras, em ordem de inserção, consideradas na busca
+	 * @param result coleção que receberá as palavras encontradas
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	@Override
+	public void search(String keyword, int threshold, int visibleCount, Collection<String> result)
+			throws IllegalArgumentException{
+		search(keyword, threshold, visibleCount, result, null);
+	}
+
+	@Override
+	public void search(String keyword, int threshold, int visibleCount, final Collection<String> result,
+			SearchCounters counters) throws IllegalArgumentException{
+		if(keyword == null || result == null)
+			throw new IllegalArgumentException("Os parâmetros fornecidos não podem ser nulos.");
+		if(threshold < 0)
+			throw new IllegalArgumentException("O threshold informado deve ser positivo.");
+
+		// As Strings são criadas a partir da arena somente para as palavras similares
+		search(keyword, threshold, visibleCount, new IntConsumer(){
+			@Override
+			public void accept(int id){
+				result.add(arena.get(id));
+			}
+		}, counters);
+	}
+
+	/**
+	 * Busca as palavras similares à keyword, informando somente os identificadores das palavras encontradas na arena,
+	 * sem criar nenhuma String.
+	 */
+	void search(String keyword, int threshold, int visibleCount, IntConsumer matches){
+		search(keyword, threshold, visibleCount, matches, null);
+	}
+
+	private void search(String keyword, int threshold, int visibleCount, IntConsumer matches, SearchCounters counters){
+		// A keyword é pré-processada uma única vez para todas as comparações da busca
+		LevenshteinPattern pattern = new LevenshteinPattern(keyword);
+
+		// A quantidade é lida antes da arena, garantindo que as palavras de todos os nós visíveis estejam completas
+		int visible = Math.min(visibleCount, size);
+		long[] entries = arena.entries();
+		char[][] pages = arena.pages();
+		Node start = root;
+		if(start == null || start.order >= visible)
+			return;
+
+		// Percurso iterativo para evitar estouro de pilha em árvores profundas
+		Deque<Node> pending = new ArrayDeque<Node>();
+		pending.push(start);
+		int visited = 0;
+		while(!pending.isEmpty()){
+			QueryCancellation.check(visited++);
+			Node node = pending.pop();
+			Node[] children = node.children;
+
+			/*
+			 * Só é necessário conhecer a distância exata até o limite "t + maior aresta do nó": acima dele o nó não é
+			 * similar e nenhum filho está no intervalo [d-t, d+t], permitindo o uso do cálculo limitado.
+			 */
+			long entry = entries[node.order];
+			int bound = threshold + Math.max(0, children.length - 1);
+			int distance = pattern.boundedDistance(WordArena.page(pages, entry), WordArena.offset(entry),
+					WordArena.length(entry), bound);
+			int id = node.word;
+			if(distance <= threshold && id >= 0 && id < visible)
+				matches.accept(id);
+
+			// Desigualdade triangular: somente filhos com aresta em [d-t, d+t] podem conter palavras similares
+			int lower = Math.max(1, distance - threshold);
+			int upper = Math.min(children.length - 1, distance + threshold);
+			for(int edge = lower; edge <= upper; edge++){
+				Node child = children[edge];
+				if(child != null && child.order < visible)
+					pending.push(child);
+			}
+		}
+		// Cada nó visitado corresponde a um cálculo de distância
+		if(counters != null)
+			counters.add(visited, visited);
+	}
+
+	/**
+	 * <p>
+	 * Busca as "k" palavras mais próximas da keyword considerando somente as primeiras palavras inseridas na árvore.
+	 * </p>
+	 * <p>
+	 * A busca funciona como uma busca por threshold cujo threshold é a distância da pior palavra entre as "k" melhores
+	 * já encontradas: à medida que palavras mais próximas são encontradas o raio diminui, limitando o cálculo das
+	 * distâncias e o intervalo de filhos visitado. Os filhos com aresta mais próxima da distância do nó são visitados
+	 * primeiro, reduzindo o raio o quanto antes.
+	 * </p>
+	 *
+	 * @param keyword palavra cujas vizinhas deseja-se encontrar
+	 * @param k quantidade máxima de palavras retornadas
+	 * @param visibleCount quantidade de palavras, em ordem de inserção, consideradas na busca
+	 * @return palavras mais próximas, ordenadas pela distância e, em caso de empate, alfabeticamente
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public List<WordDistance> nearest(String keyword, int k, int visibleCount) throws IllegalArgumentException{
+		if(keyword == null)
+			throw new IllegalArgumentException("A keyword informada é inválida.");
+		if(k <= 0)
+			throw new IllegalArgumentException("A quantidade de palavras informada deve ser positiva.");
+
+		LevenshteinPattern pattern = new LevenshteinPattern(keyword);
+		NearestWords nearest = new NearestWords(k);
+
+		int visible = Math.min(visibleCount, size);
+		long[] entries = arena.entries();
+		char[][] pages = arena.pages();
+		Node start = root;
+		if(start == null || start.order >= visible)
+			return nearest.toList();
+
+		// Nós pendentes e o limite inferior da distância de cada um deles, obtido pela desigualdade triangular
+		Node[] pendingNodes = new Node[16];
+		int[] pendingBounds = new int[16];
+		int pending = 0;
+		pendingNodes[pending++] = start;
+		int visited = 0;
+		while(pending > 0){
+			QueryCancellation.check(visited++);
+			Node node = pendingNodes[--pending];
+			int radius = nearest.radius();
+			// Nós cujo limite inferior já ultrapassa o raio atual são descartados sem nenhum cálculo
+			if(pendingBounds[pending] > radius)
+				continue;
+
+			Node[] children = node.children;
+			long entry = entries[node.order];
+			char[] page = WordArena.page(pages, entry);
+			int offset = WordArena.offset(entry);
+			int length = WordArena.length(entry);
+			// A distância nunca é maior que o tamanho da maior palavra, o que também evita estouro no limite
+			int longest = Math.max(keyword.length(), length);
+			int bound = (int) Math.min((long) radius + Math.max(0, children.length - 1), longest);
+			int distance = pattern.boundedDistance(page, offset, length, bound);
+			int id = node.word;
+			if(distance <= radius && id >= 0 && id < visible){
+				nearest.offer(new String(page, offset, length), distance);
+				radius = nearest.radius();
+			}
+
+			// Acima do limite nenhum filho está a menos de "raio" da distância do nó
+			if(distance > bound)
+				continue;
+
+			// Empilha os filhos do mais distante para o mais próximo da aresta "d", que será visitado primeiro
+			int maxOffset = Math.min(radius, Math.max(distance - 1, children.length - 1 - distance));
+			if(pending + 2 * (maxOffset + 1) > pendingNodes.length){
+				int capacity = Math.max(pending + 2 * (maxOffset + 1), pendingNodes.length * 2);
+				pendingNodes = Arrays.copyOf(pendingNodes, capacity);
+				pendingBounds = Arrays.copyOf(pendingBounds, capacity);
+			}
+			for(int edgeOffset = maxOffset; edgeOffset >= 0; edgeOffset--){
+				pending = pushChild(children, distance + edgeOffset, edgeOffset, visible, pendingNodes, pendingBounds,
+						pending);
+				if(edgeOffset > 0)
+					pending = pushChild(children, distance - edgeOffset, edgeOffset, visible, pendingNodes, pendingBounds,
+							pending);
+			}
+		}
+		return nearest.toList();
+	}
+
+	/**
+	 * Empilha o filho da aresta informada, caso exista e seja visível, retornando a nova quantidade de nós pendentes.
+	 */
+	private static int pushChild(Node[] children, int edge, int lowerBound, int visibleCount, Node[] pendingNodes,
+			int[] pendingBounds, int pending){
+		if(edge < 1 || edge >= children.length)
+			return pending;
+		Node child = children[edge];
+		if(child == null || child.order >= visibleCount)
+			return pending;
+		pendingNodes[pending] = child;
+		pendingBounds[pending] = lowerBound;
+		return pending + 1;
+	}
+
+	/**
+	 * Retorna a quantidade de palavras armazenadas na árvore, descontando as removidas.
+	 *
+	 * @return quantidade de palavras
+	 */
+	@Override
+	public int size(){
+		return size - removed;
+	}
+
+	/**
+	 * Nó da árvore. Os filhos são indexados diretamente pela distância até o nó pai, o que torna tanto a
+	 * inserção quanto a seleção do intervalo de filhos a ser visitado operações de acesso direto a um array. O
+	 * array de filhos nunca é alterado após publicado: cada inserção publica uma cópia.
+	 */
+	private static final class Node {
+		private static final Node[] NO_CHILDREN = new Node[0];
+
+		// Ordem de inserção do nó na árvore e identificador da palavra na arena quando o nó foi criado
+		private final int order;
+		// Identificador atual da palavra na arena, ou -1 caso ela tenha sido removida
+		private volatile int word;
+		private volatile Node[] children = NO_CHILDREN;
+
+		private Node(int order){
+			this.order = order;
+			this.word = order;
+		}
+
+		private Node getChild(int distance){
+			return distance < children.length ? children[distance] : null;
+		}
+
+		private void setChild(int distance, Node child){
+			Node[] current = children;
+			Node[] updated = new Node[Math.max(distance + 1, current.length)];
+			System.arraycopy(current, 0, updated, 0, current.length);
+			updated[distance] = child;
+			children = updated;
+		}
+	}
+
+}
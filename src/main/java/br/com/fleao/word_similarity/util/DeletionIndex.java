@@ -0,0 +1,312 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Índice de vizinhança por remoções (algoritmo SymSpell) para buscas com thresholds pequenos.
+ * </p>
+ * <p>
+ * Se a distância de Levenshtein entre duas palavras é no máximo "k", então existe uma palavra que pode ser obtida
+ * removendo no máximo "k" caracteres de cada uma delas. Ao armazenar uma palavra o índice registra todas as palavras
+ * obtidas com até {@code maxEditDistance} remoções; na busca são geradas as remoções da keyword e cada uma é
+ * consultada em um mapa hash, resultando em um conjunto pequeno de candidatos que é verificado com o cálculo exato da
+ * distância. O custo da busca depende do tamanho da keyword e do threshold, e não do tamanho do dicionário.
+ * </p>
+ * <p>
+ * Em troca, o índice ocupa bastante memória (ver {@link #getMemoryReport()}) e só responde buscas com threshold igual
+ * ou inferior à distância máxima configurada; buscas com thresholds maiores são rejeitadas e devem ser atendidas por
+ * outro índice. Assim como os demais índices, admite um único escritor concorrente com qualquer quantidade de
+ * leitores.
+ * </p>
+ * <p>
+ * A remoção de uma palavra gera novamente as suas remoções e marca a sua ordem em cada lista
+ * ({@link IntPostingList#remove(int)}); as listas sem nenhuma ordem restante são retiradas do mapa.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public class DeletionIndex implements SimilarityIndex {
+
+	// Estimativas de ocupação de memória utilizadas no relatório (JVM 64 bits com compressed oops)
+	private static final int ENTRY_OVERHEAD_BYTES = 32 + 16 + 24 + 16;
+	private static final int STRING_OVERHEAD_BYTES = 24 + 16;
+
+	private final int maxEditDistance;
+	// Remoção -> ordens das palavras que a geram
+	private final Map<String, IntPostingList> deletions = new ConcurrentHashMap<String, IntPostingList>();
+	// Palavras indexadas pela ordem de inserção; as posições das palavras removidas são nulas
+	private volatile String[] words = new String[16];
+	// Quantidade de ordens atribuídas, incluindo as das palavras removidas
+	private volatile int size;
+	private volatile int removed;
+
+	// Contadores utilizados no relatório de memória, atualizados somente pelo escritor
+	private volatile long postingCount;
+	private volatile long deletionChars;
+
+	/**
+	 * @param maxEditDistance maior threshold que o índice será capaz de responder
+	 * @throws IllegalArgumentException caso a distância informada seja negativa
+	 */
+	public DeletionIndex(int maxEditDistance) throws IllegalArgumentException{
+		if(maxEditDistance < 0)
+			throw new IllegalArgumentException("A distância máxima informada deve ser positiva.");
+		this.maxEditDistance = maxEditDistance;
+	}
+
+	/**
+	 * Retorna a maior distância de edição suportada pelas buscas.
+	 *
+	 * @return distância máxima configurada
+	 */
+	public int getMaxEditDistance(){
+		return maxEditDistance;
+	}
+
+	/**
+	 * Indica se o índice é capaz de responder buscas com o threshold informado.
+	 *
+	 * @param threshold threshold da busca
+	 * @return true caso o threshold seja igual ou inferior à distância máxima configurada
+	 */
+	public boolean supports(int threshold){
+		return threshold >= 0 && threshold <= maxEditDistance;
+	}
+
+	@Override
+	public boolean add(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		// A palavra original é registrada como a remoção de zero caracteres
+		IntPostingList own = deletions.get(word);
+		int order = size;
+		if(own != null && findWord(own, word) >= 0)
+			return false;
+
+		String[] current = words;
+		if(order == current.length){
+			current = Arrays.copyOf(current, current.length * 2);
+		}
+		current[order] = word;
+		words = current;
+
+		for(String deletion : generateDeletions(word, maxEditDistance)){
+			IntPostingList postings = deletions.get(deletion);
+			if(postings == null){
+				postings = new IntPostingList();
+				deletions.put(deletion, postings);
+				deletionChars += deletion.length();
+			}
+			postings.add(order);
+			postingCount++;
+		}
+
+		size = order + 1;
+		return true;
+	}
+
+	@Override
+	public boolean remove(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		IntPostingList own = deletions.get(word);
+		int order = own == null ? -1 : findWord(own, word);
+		if(order < 0)
+			return false;
+
+		for(String deletion : generateDeletions(word, maxEditDistance)){
+			IntPostingList postings = deletions.get(deletion);
+			// Sem nenhuma palavra restante a lista inteira é liberada; as demais mantêm a posição marcada
+			if(postings != null && postings.remove(order) && postings.removedCount() == postings.size()){
+				deletions.remove(deletion);
+				deletionChars -= deletion.length();
+				postingCount -= postings.size();
+			}
+		}
+		words[order] = null;
+		removed++;
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalArgumentException também quando o threshold é maior que a distância máxima configurada
+	 */
+	@Override
+	public void search(String keyword, int threshold, int visibleCount, Collection<String> result)
+			throws IllegalArgumentException{
+		search(keyword, threshold, visibleCount, result, null);
+	}
+
+	@Override
+	public void search(String keyword, int threshold, int visibleCount, Collection<String> result,
+			SearchCounters counters) throws IllegalArgumentException{
+		if(keyword == null || result == null)
+			throw new IllegalArgumentException("Os parâmetros fornecidos não podem ser nulos.");
+		if(threshold < 0)
+			throw new IllegalArgumentException("O threshold informado deve ser positivo.");
+		if(!supports(threshold))
+			throw new IllegalArgumentException("O threshold informado é maior que a distância máxima do índice ("
+					+ maxEditDistance + ").");
+
+		// Reúne as ordens das palavras candidatas de todas as remoções da keyword
+		int[] candidates = new int[16];
+		int candidateCount = 0;
+		for(String deletion : generateDeletions(keyword, threshold)){
+			IntPostingList postings = deletions.get(deletion);
+			if(postings == null)
+				continue;
+
+			// A quantidade é lida antes do array, garantindo que todas as posições lidas estejam preenchidas
+			int count = postings.size();
+			int[] ids = postings.values();
+			if(candidateCount + count > candidates.length)
+				candidates = Arrays.copyOf(candidates, Math.max(candidateCount + count, candidates.length * 2));
+			for(int i = 0; i < count; i++){
+				// Ordens removidas são negativas
+				if(ids[i] >= 0 && ids[i] < visibleCount)
+					candidates[candidateCount++] = ids[i];
+			}
+		}
+
+		// Elimina candidatos repetidos e verifica cada um com o cálculo exato da distância
+		Arrays.sort(candidates, 0, candidateCount);
+		String[] stored = words;
+		LevenshteinPattern pattern = new LevenshteinPattern(keyword);
+		int verified = 0;
+		for(int i = 0; i < candidateCount; i++){
+			QueryCancellation.check(i);
+			if(i > 0 && candidates[i] == candidates[i - 1])
+				continue;
+			String word = stored[candidates[i]];
+			// Palavra removida depois da leitura da lista
+			if(word == null)
+				continue;
+			verified++;
+			if(pattern.boundedDistance(word, threshold) <= threshold)
+				result.add(word);
+		}
+		if(counters != null)
+			counters.add(candidateCount, verified);
+	}
+
+	@Override
+	public int size(){
+		return size - removed;
+	}
+
+	/**
+	 * Retorna um relatório com a ocupação estimada de memória do índice.
+	 *
+	 * @return relatório de memória
+	 */
+	public MemoryReport getMemoryReport(){
+		long keys = deletions.size();
+		long postings = postingCount;
+		// Entrada do mapa + String da remoção (cabeçalhos e caracteres) + lista de ordens (com folga de crescimento)
+		long estimatedBytes = keys * (ENTRY_OVERHEAD_BYTES + STRING_OVERHEAD_BYTES) + deletionChars * 2
+				+ postings * 4 * 3 / 2;
+		return new MemoryReport(maxEditDistance, size(), keys, postings, estimatedBytes);
+	}
+
+	/**
+	 * Procura a palavra entre as palavras não removidas referenciadas pela lista.
+	 *
+	 * @return ordem da palavra, ou -1 caso ela não esteja presente
+	 */
+	private int findWord(IntPostingList postings, String word){
+		int count = postings.size();
+		int[] ids = postings.values();
+		String[] stored = words;
+		for(int i = 0; i < count; i++){
+			if(ids[i] >= 0 && word.equals(stored[ids[i]]))
+				return ids[i];
+		}
+		return -1;
+	}
+
+	/**
+	 * Gera todas as palavras obtidas com até {@code maxDeletions} remoções de caracteres, incluindo a própria palavra.
+	 */
+	static Set<String> generateDeletions(String word, int maxDeletions){
+		Set<String> result = new HashSet<String>();
+		result.add(word);
+		Set<String> frontier = result;
+		for(int level = 0; level < maxDeletions; level++){
+			Set<String> next = new HashSet<String>();
+			for(String candidate : frontier){
+				for(int i = 0; i < candidate.length(); i++){
+					String deletion = candidate.substring(0, i).concat(candidate.substring(i + 1));
+					if(!result.contains(deletion))
+						next.add(deletion);
+				}
+			}
+			if(next.isEmpty())
+				break;
+			result.addAll(next);
+			frontier = next;
+		}
+		return result;
+	}
+
+	/**
+	 * Relatório de ocupação de memória do índice.
+	 */
+	public static final class MemoryReport {
+		private final int maxEditDistance;
+		private final int words;
+		private final long deletionKeys;
+		private final long postings;
+		private final long estimatedBytes;
+
+		private MemoryReport(int maxEditDistance, int words, long deletionKeys, long postings, long estimatedBytes){
+			this.maxEditDistance = maxEditDistance;
+			this.words = words;
+			this.deletionKeys = deletionKeys;
+			this.postings = postings;
+			this.estimatedBytes = estimatedBytes;
+		}
+
+		/** @return distância máxima configurada */
+		public int getMaxEditDistance(){
+			return maxEditDistance;
+		}
+
+		/** @return quantidade de palavras indexadas */
+		public int getWords(){
+			return words;
+		}
+
+		/** @return quantidade de remoções distintas armazenadas */
+		public long getDeletionKeys(){
+			return deletionKeys;
+		}
+
+		/** @return quantidade total de referências de remoções para palavras, incluindo as marcadas como removidas */
+		public long getPostings(){
+			return postings;
+		}
+
+		/** @return estimativa da memória ocupada pelo índice, em bytes */
+		public long getEstimatedBytes(){
+			return estimatedBytes;
+		}
+
+		@Override
+		public String toString(){
+			return "DeletionIndex[maxEditDistance=" + maxEditDistance + ", words=" + words + ", deletionKeys="
+					+ deletionKeys + ", postings=" + postings + ", estimatedBytes=" + estimatedBytes + "]";
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+package br.com.fleao.word_similarity.util;
+
+/**
+ * <p>
+ * Áreas de trabalho reutilizáveis para o cálculo de distâncias. Cada thread possui sua própria instância, obtida
+ * através de {@link #forCurrentThread()}, de forma que os algoritmos de distância não precisam alocar arrays a cada
+ * comparação. Os arrays só são realocados quando uma palavra maior do que todas as anteriores é processada.
+ * </p>
+ * <p>
+ * Os arrays retornados podem conter lixo de cálculos anteriores; cabe ao algoritmo inicializar as posições que
+ * utilizar. Um mesmo array não deve ser utilizado por dois cálculos simultâneos na mesma thread.
+ * </p>
+ * <p>
+ * A área de trabalho também acumula a quantidade de células da matriz de distância calculadas pela thread
+ * ({@link LevenshteinDistanceAlgorithm#getComputedCells()}). Como a instância nunca é compartilhada, o contador é um
+ * campo comum, sem nenhuma sincronização.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+final class DistanceScratch {
+
+	private static final ThreadLocal<DistanceScratch> SCRATCH = new ThreadLocal<DistanceScratch>(){
+		@Override
+		protected DistanceScratch initialValue(){
+			return new DistanceScratch();
+		}
+	};
+
+	private int[] previousRow = new int[32];
+	private int[] currentRow = new int[32];
+	private long[] positiveVertical = new long[4];
+	private long[] negativeVertical = new long[4];
+	private char[] leftChars = new char[32];
+	private char[] rightChars = new char[32];
+	// Células da matriz de distância calculadas pela thread desde a sua criação
+	long cells;
+
+	private DistanceScratch(){}
+
+	/**
+	 * Retorna a área de trabalho da thread atual.
+	 *
+	 * @return área de trabalho exclusiva da thread
+	 */
+	static DistanceScratch forCurrentThread(){
+		return SCRATCH.get();
+	}
+
+	int[] previousRow(int size){
+		if(previousRow.length < size)
+			previousRow = new int[grow(size)];
+		return previousRow;
+	}
+
+	int[] currentRow(int size){
+		if(currentRow.length < size)
+			currentRow = new int[grow(size)];
+		return currentRow;
+	}
+
+	long[] positiveVertical(int blocks){
+		if(positiveVertical.length < blocks)
+			positiveVertical = new long[grow(blocks)];
+		return positiveVertical;
+	}
+
+	long[] negativeVertical(int blocks){
+		if(negativeVertical.length < blocks)
+			negativeVertical = new long[grow(blocks)];
+		return negativeVertical;
+	}
+
+	/**
+	 * Copia a palavra para o buffer de caracteres da esquerda, evitando o uso de {@link String#charAt(int)} nos laços.
+	 */
+	char[] leftChars(String word){
+		if(leftChars.length < word.length())
+			leftChars = new char[grow(word.length())];
+		word.getChars(0, word.length(), leftChars, 0);
+		return leftChars;
+	}
+
+	/**
+	 * Copia a palavra para o buffer de caracteres da direita, evitando o uso de {@link String#charAt(int)} nos laços.
+	 */
+	char[] rightChars(String word){
+		if(rightChars.length < word.length())
+			rightChars = new char[grow(word.length())];
+		word.getChars(0, word.length(), rightChars, 0);
+		return rightChars;
+	}
+
+	private static int grow(int size){
+		return Math.max(size, size + (size >>> 1));
+	}
+
+}
@@ -0,0 +1,110 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Lista de inteiros (ordens de palavras) com inserção somente ao final, utilizada nas listas invertidas dos índices.
+ * Os valores são armazenados em um array primitivo, sem boxing.
+ * </p>
+ * <p>
+ * Como os índices adicionam as ordens em ordem crescente, um valor pode ser removido sem deslocar os demais: ele é
+ * localizado por busca binária e marcado na própria posição com o seu complemento ({@code ~valor}), negativo. Leitores
+ * devem ignorar os valores negativos; a posição ocupada só é liberada quando o índice inteiro é reconstruído.
+ * </p>
+ * <p>
+ * Admite um único escritor concorrente com qualquer quantidade de leitores: o escritor preenche a posição e só então
+ * publica a nova quantidade; leitores devem ler a quantidade ({@link #size()}) antes do array ({@link #values()}),
+ * garantindo que todas as posições lidas estejam preenchidas.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+final class IntPostingList {
+
+	private volatile int[] values = new int[2];
+	private volatile int size;
+	private int removed;
+
+	/**
+	 * Adiciona um valor ao final da lista. Deve ser invocado somente pelo escritor.
+	 */
+	void add(int value){
+		int[] current = values;
+		int count = size;
+		if(count == current.length)
+			current = Arrays.copyOf(current, current.length * 2);
+		current[count] = value;
+		values = current;
+		size = count + 1;
+	}
+
+	/**
+	 * Marca como removido um valor da lista, cujos valores devem ser crescentes. Deve ser invocado somente pelo
+	 * escritor.
+	 *
+	 * @return true caso o valor tenha sido encontrado e marcado, false caso ele não esteja presente ou já tenha sido
+	 * removido
+	 */
+	boolean remove(int value){
+		int count = size;
+		int[] current = values;
+		int low = 0;
+		int high = count - 1;
+		while(low <= high){
+			int middle = (low + high) >>> 1;
+			int decoded = decode(current[middle]);
+			if(decoded < value){
+				low = middle + 1;
+			}else if(decoded > value){
+				high = middle - 1;
+			}else{
+				// Valores repetidos (uma entrada por ocorrência) são consecutivos e todos marcados
+				int first = middle;
+				while(first > 0 && decode(current[first - 1]) == value)
+					first--;
+				boolean marked = false;
+				for(int i = first; i < count && decode(current[i]) == value; i++){
+					if(current[i] >= 0){
+						current[i] = ~value;
+						removed++;
+						marked = true;
+					}
+				}
+				return marked;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Quantidade de valores removidos, ainda ocupando posições da lista. Deve ser invocado somente pelo escritor.
+	 */
+	int removedCount(){
+		return removed;
+	}
+
+	/**
+	 * Valor armazenado em uma posição, removido ou não.
+	 */
+	static int decode(int stored){
+		return stored < 0 ? ~stored : stored;
+	}
+
+	/**
+	 * Quantidade de valores publicados. Deve ser lida antes de {@link #values()}.
+	 */
+	int size(){
+		return size;
+	}
+
+	/**
+	 * Array com os valores publicados nas primeiras {@link #size()} posições, com os removidos marcados por valores
+	 * negativos.
+	 */
+	int[] values(){
+		return values;
+	}
+
+}
@@ -0,0 +1,166 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Histograma de latências com buckets log-lineares, no mesmo formato do HdrHistogram: os valores até
+ * {@link #SUB_BUCKETS} nanossegundos têm um bucket cada, e cada potência de 2 seguinte é dividida em
+ * {@code SUB_BUCKETS / 2} buckets de mesmo tamanho. O erro relativo de qualquer percentil é portanto inferior a
+ * {@code 2 / SUB_BUCKETS} (cerca de 3%), para qualquer ordem de grandeza, de nanossegundos a horas.
+ * </p>
+ * <p>
+ * Os buckets ocupam um único array de tamanho fixo, alocado na criação: registrar um valor não aloca memória nem
+ * adquire locks, e pode ser feito por qualquer quantidade de threads. Os valores lidos são aproximados enquanto houver
+ * registros concorrentes. Os getters são expostos em microssegundos, de forma que o histograma pode ser serializado
+ * diretamente como JSON.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	/**
+	 * Quantidade de buckets lineares da primeira faixa de valores; define a precisão do histograma.
+	 */
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+	// Índice do bucket de Long.MAX_VALUE, o maior valor registrável
+	private static final int BUCKETS = bucketIndex(Long.MAX_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Registra uma latência. Valores negativos são registrados como zero.
+	 *
+	 * @param nanos latência em nanossegundos
+	 */
+	public void record(long nanos){
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(bucketIndex(value));
+		count.increment();
+		total.add(value);
+		long currentMax = max.get();
+		while(value > currentMax && !max.compareAndSet(currentMax, value))
+			currentMax = max.get();
+	}
+
+	/** @return quantidade de latências registradas */
+	public long getCount(){
+		return count.sum();
+	}
+
+	/** @return soma das latências registradas, em microssegundos */
+	public long getTotalMicros(){
+		return TimeUnit.NANOSECONDS.toMicros(total.sum());
+	}
+
+	/** @return média das latências registradas, em microssegundos, ou zero caso nenhuma tenha sido registrada */
+	public double getMeanMicros(){
+		long samples = count.sum();
+		return samples == 0 ? 0 : total.sum() / 1000.0 / samples;
+	}
+
+	/** @return maior latência registrada, em microssegundos */
+	public long getMaxMicros(){
+		return TimeUnit.NANOSECONDS.toMicros(max.get());
+	}
+
+	/** @return mediana das latências, em microssegundos */
+	public long getP50Micros(){
+		return getPercentileMicros(50);
+	}
+
+	/** @return percentil 90 das latências, em microssegundos */
+	public long getP90Micros(){
+		return getPercentileMicros(90);
+	}
+
+	/** @return percentil 99 das latências, em microssegundos */
+	public long getP99Micros(){
+		return getPercentileMicros(99);
+	}
+
+	/** @return percentil 99,9 das latências, em microssegundos */
+	public long getP999Micros(){
+		return getPercentileMicros(99.9);
+	}
+
+	/**
+	 * Retorna o percentil informado das latências registradas, em microssegundos. O valor retornado é o limite superior
+	 * do bucket que contém o percentil, limitado à maior latência registrada.
+	 *
+	 * @param percentile percentil entre 0 e 100
+	 * @return latência do percentil, ou zero caso nenhuma latência tenha sido registrada
+	 * @throws IllegalArgumentException caso o percentil esteja fora do intervalo
+	 */
+	public long getPercentileMicros(double percentile) throws IllegalArgumentException{
+		return TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(percentile));
+	}
+
+	/**
+	 * Retorna o percentil informado das latências registradas, em nanossegundos.
+	 *
+	 * @param percentile percentil entre 0 e 100
+	 * @return latência do percentil, ou zero caso nenhuma latência tenha sido registrada
+	 * @throws IllegalArgumentException caso o percentil esteja fora do intervalo
+	 * @see #getPercentileMicros(double)
+	 */
+	public long getPercentileNanos(double percentile) throws IllegalArgumentException{
+		if(percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException("O percentil informado deve estar entre 0 e 100.");
+
+		// Os buckets são somados ao invés de utilizar o contador total, que pode estar à frente deles
+		long samples = 0;
+		for(int i = 0; i < BUCKETS; i++)
+			samples += counts.get(i);
+		if(samples == 0)
+			return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * samples));
+		long accumulated = 0;
+		for(int i = 0; i < BUCKETS; i++){
+			accumulated += counts.get(i);
+			if(accumulated >= rank)
+				return Math.min(bucketUpperBound(i), max.get());
+		}
+		return max.get();
+	}
+
+	@Override
+	public String toString(){
+		return "LatencyHistogram[count=" + getCount() + ", meanMicros=" + getMeanMicros() + ", p50Micros="
+				+ getP50Micros() + ", p99Micros=" + getP99Micros() + ", maxMicros=" + getMaxMicros() + "]";
+	}
+
+	/**
+	 * Índice do bucket de um valor não negativo: os valores menores que {@link #SUB_BUCKETS} ocupam os primeiros
+	 * buckets; os demais são deslocados até restarem {@link #SUB_BUCKET_BITS} bits significativos.
+	 */
+	static int bucketIndex(long value){
+		if(value < SUB_BUCKETS)
+			return (int) value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+		return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+	}
+
+	/**
+	 * Maior valor contido no bucket informado.
+	 */
+	static long bucketUpperBound(int index){
+		if(index < SUB_BUCKETS)
+			return index;
+		int shift = index / HALF_SUB_BUCKETS - 1;
+		long subBucket = index - shift * HALF_SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+}
@@ -0,0 +1,738 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * Organização das palavras armazenadas para varreduras completas com filtros baratos aplicados antes do cálculo da
+ * distância.
+ * </p>
+ * <p>
+ * As palavras são agrupadas por tamanho e somente os grupos com tamanho entre {@code |keyword| - threshold} e
+ * {@code |keyword| + threshold} são visitados, já que a diferença de tamanho é um limite inferior da distância. Cada
+ * palavra possui ainda uma assinatura de caracteres de 64 bits ({@link WordSignature}) que descarta, com poucas
+ * instruções, palavras cujo conjunto de caracteres é incompatível com o threshold. Somente as palavras restantes têm
+ * sua distância calculada. A quantidade de palavras descartadas por cada filtro é acumulada em
+ * {@link #getStatistics()}.
+ * </p>
+ * <p>
+ * Como os candidatos de uma varredura são visitados grupo a grupo, palavras de mesmo tamanho são consecutivas e as
+ * que passam pelo filtro de assinatura são comparadas em lotes ({@link LevenshteinBatch}), várias palavras por
+ * operação. Keywords e tamanhos não suportados pelo lote utilizam o cálculo escalar, com resultado idêntico.
+ * </p>
+ * <p>
+ * Os caracteres das palavras são lidos de uma {@link WordArena}, que pode ser compartilhada com o {@link WordStore}:
+ * nesse caso a estrutura guarda apenas a assinatura e o grupo de cada palavra, e os cálculos de distância leem os
+ * caracteres diretamente da arena, criando Strings somente para as palavras similares encontradas. Diferente dos
+ * índices de {@link SimilarityIndex}, esta estrutura não aceita duplicações: as palavras devem ser adicionadas somente
+ * após serem aceitas por um {@link WordStore}. Admite um único escritor concorrente com qualquer quantidade de
+ * leitores.
+ * </p>
+ * <p>
+ * Palavras removidas do store são marcadas na lista do seu tamanho ({@link #remove(String)}) e ignoradas pelas
+ * varreduras, sem que nenhuma lista seja copiada.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public class LengthBucketIndex {
+
+	// Tamanho da palavra -> ordens das palavras com aquele tamanho
+	private volatile IntPostingList[] buckets = new IntPostingList[16];
+	// Caracteres das palavras, cujos identificadores coincidem com a ordem de inserção na estrutura
+	private final WordArena arena;
+	// Assinaturas indexadas pela ordem de inserção
+	private volatile long[] signatures = new long[16];
+	// Quantidade de ordens atribuídas, incluindo as das palavras removidas
+	private volatile int size;
+	private volatile int removed;
+
+	private final ScanStatistics statistics;
+
+	/**
+	 * Cria uma estrutura com uma arena própria para os caracteres das palavras.
+	 */
+	public LengthBucketIndex(){
+		this(new WordArena());
+	}
+
+	/**
+	 * Cria uma estrutura que lê os caracteres das palavras da arena informada, normalmente a arena de um
+	 * {@link WordStore}. Cada palavra deve ser adicionada à arena antes de ser adicionada à estrutura, na mesma ordem.
+	 *
+	 * @param arena arena das palavras
+	 * @throws IllegalArgumentException caso a arena informada seja nula
+	 */
+	public LengthBucketIndex(WordArena arena) throws IllegalArgumentException{
+		this(arena, new ScanStatistics());
+	}
+
+	/**
+	 * Cria uma estrutura que lê os caracteres das palavras da arena informada e acumula os contadores das varreduras
+	 * nas estatísticas informadas, que podem ser compartilhadas com uma estrutura substituída por esta.
+	 *
+	 * @param arena arena das palavras
+	 * @param statistics estatísticas das varreduras
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja nulo
+	 */
+	public LengthBucketIndex(WordArena arena, ScanStatistics statistics) throws IllegalArgumentException{
+		if(arena == null || statistics == null)
+			throw new IllegalArgumentException("Os parâmetros fornecidos não podem ser nulos.");
+		this.arena = arena;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Adiciona uma palavra ao final da estrutura, incluindo-a na arena caso ela ainda não esteja presente. Deve ser
+	 * invocado somente pelo escritor.
+	 *
+	 * @param word palavra a ser adicionada, ainda não presente na estrutura
+	 * @throws IllegalArgumentException caso a palavra informada seja nula ou já esteja presente na estrutura
+	 */
+	public void append(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		int order = size;
+		int id = arena.find(word);
+		if(id < 0)
+			id = arena.add(word);
+		else if(id < order && isRemoved(id, word.length()))
+			// Com uma arena própria, a palavra removida recebe uma nova posição ao ser adicionada novamente
+			id = arena.append(word);
+		if(id != order)
+			throw new IllegalArgumentException("A palavra informada já está presente na estrutura: " + word);
+
+		long[] currentSignatures = signatures;
+		if(order == currentSignatures.length)
+			currentSignatures = Arrays.copyOf(currentSignatures, currentSignatures.length * 2);
+		currentSignatures[order] = WordSignature.of(word);
+		signatures = currentSignatures;
+
+		IntPostingList[] currentBuckets = buckets;
+		if(word.length() >= currentBuckets.length)
+			currentBuckets = Arrays.copyOf(currentBuckets, Math.max(word.length() + 1, currentBuckets.length * 2));
+		if(currentBuckets[word.length()] == null)
+			currentBuckets[word.length()] = new IntPostingList();
+		currentBuckets[word.length()].add(order);
+		buckets = currentBuckets;
+
+		size = order + 1;
+	}
+
+	/**
+	 * Marca como removida a ocorrência atual da palavra na arena. Deve ser invocado somente pelo escritor, antes que a
+	 * palavra seja adicionada novamente à arena.
+	 *
+	 * @param word palavra a ser removida
+	 * @return true caso a palavra tenha sido removida, false caso ela não estivesse presente na estrutura
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 */
+	public boolean remove(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		int id = arena.find(word);
+		IntPostingList[] currentBuckets = buckets;
+		if(id < 0 || id >= size || word.length() >= currentBuckets.length || currentBuckets[word.length()] == null)
+			return false;
+		if(!currentBuckets[word.length()].remove(id))
+			return false;
+		removed++;
+		return true;
+	}
+
+	/**
+	 * Retorna a quantidade de palavras armazenadas, descontando as removidas.
+	 *
+	 * @return quantidade de palavras
+	 */
+	public int size(){
+		return size - removed;
+	}
+
+	/**
+	 * Retorna os contadores acumulados das varreduras.
+	 *
+	 * @return estatísticas das varreduras
+	 */
+	public ScanStatistics getStatistics(){
+		return statistics;
+	}
+
+	/**
+	 * Prepara uma consulta, selecionando os grupos de tamanho compatíveis com a keyword e o threshold. As palavras dos
+	 * grupos selecionados recebem posições contíguas, de 0 a {@link Query#getCandidateCount()}, que podem ser
+	 * varridas em um único bloco ou divididas entre várias threads com {@link #scan(Query, int, int, Collection)}.
+	 *
+	 * @param keyword palavra cujos similares deseja-se encontrar
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param visibleCount quantidade de palavras, em ordem de inserção, consideradas na consulta
+	 * @return consulta preparada
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public Query prepare(String keyword, int threshold, int visibleCount) throws IllegalArgumentException{
+		return prepare(keyword, threshold, visibleCount, true);
+	}
+
+	/**
+	 * Prepara uma consulta como {@link #prepare(String, int, int)}, definindo se a varredura compara as palavras em
+	 * lotes ({@link LevenshteinBatch}) ou uma a uma.
+	 *
+	 * @param keyword palavra cujos similares deseja-se encontrar
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param visibleCount quantidade de palavras, em ordem de inserção, consideradas na consulta
+	 * @param batched true para utilizar o cálculo em lote sempre que a keyword e o tamanho das palavras o suportarem
+	 * @return consulta preparada
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public Query prepare(String keyword, int threshold, int visibleCount, boolean batched)
+			throws IllegalArgumentException{
+		if(keyword == null)
+			throw new IllegalArgumentException("A keyword informada é inválida.");
+		if(threshold < 0)
+			throw new IllegalArgumentException("O threshold informado deve ser positivo.");
+
+		// A quantidade é lida antes dos arrays, garantindo que todas as palavras visíveis estejam preenchidas
+		int visible = Math.min(visibleCount, size);
+		IntPostingList[] currentBuckets = buckets;
+		int minLength = Math.max(0, keyword.length() - threshold);
+		int maxLength = (int) Math.min((long) keyword.length() + threshold, currentBuckets.length - 1);
+
+		int bucketCount = Math.max(0, maxLength - minLength + 1);
+		int[][] ids = new int[bucketCount][];
+		int[] offsets = new int[bucketCount + 1];
+		for(int i = 0; i < bucketCount; i++){
+			IntPostingList bucket = currentBuckets[minLength + i];
+			int count = 0;
+			if(bucket != null){
+				count = visiblePrefix(bucket, visible);
+				ids[i] = bucket.values();
+			}
+			offsets[i + 1] = offsets[i] + count;
+		}
+
+		statistics.recordQuery(visible - offsets[bucketCount]);
+		long[] entries = arena.entries();
+		boolean batchable = batched && keyword.length() > 0 && keyword.length() <= LevenshteinBatch.MAX_PATTERN_LENGTH;
+		return new Query(new LevenshteinPattern(keyword), WordSignature.of(keyword), threshold, entries, arena.pages(),
+				signatures, ids, offsets, minLength, batchable);
+	}
+
+	/**
+	 * Varre as palavras entre as posições informadas de uma consulta preparada, aplicando o filtro de assinatura antes
+	 * do cálculo da distância.
+	 *
+	 * @param query consulta preparada por {@link #prepare(String, int, int)}
+	 * @param from primeira posição (inclusive)
+	 * @param to última posição (exclusive)
+	 * @param result coleção que receberá as palavras similares encontradas
+	 */
+	public void scan(Query query, int from, int to, Collection<String> result){
+		scan(query, from, to, result, null);
+	}
+
+	/**
+	 * Varre as palavras entre as posições informadas como {@link #scan(Query, int, int, Collection)}, somando aos
+	 * contadores informados as palavras varridas e as distâncias calculadas. Os resultados são adicionados na ordem
+	 * das posições, com ou sem o cálculo em lote.
+	 *
+	 * @param query consulta preparada por {@link #prepare(String, int, int)}
+	 * @param from primeira posição (inclusive)
+	 * @param to última posição (exclusive)
+	 * @param result coleção que receberá as palavras similares encontradas
+	 * @param counters contadores da busca, ou null
+	 */
+	public void scan(Query query, int from, int to, Collection<String> result, SearchCounters counters){
+		int threshold = query.threshold;
+		long keywordSignature = query.signature;
+		long[] entries = query.entries;
+		char[][] pages = query.pages;
+		long[] storedSignatures = query.signatures;
+
+		// Lote criado por varredura, já que cada bloco de uma varredura paralela é processado por uma thread diferente
+		LevenshteinBatch batch = query.batched ? new LevenshteinBatch(query.pattern) : null;
+		long[] batchEntries = batch == null ? null : new long[batch.getLanes()];
+		int[] distances = batch == null ? null : new int[batch.getLanes()];
+
+		int signatureRejections = 0;
+		int removedSkips = 0;
+		int matches = 0;
+		int bucket = findBucket(query.offsets, from);
+		boolean batching = startBatch(query, bucket, batch);
+		for(int position = from; position < to; position++){
+			QueryCancellation.check(position - from);
+			if(position >= query.offsets[bucket + 1]){
+				// As palavras do lote pertencem ao grupo anterior e são comparadas antes da troca de tamanho
+				if(batching)
+					matches += flush(batch, batchEntries, distances, pages, threshold, result);
+				do{
+					bucket++;
+				}while(position >= query.offsets[bucket + 1]);
+				batching = startBatch(query, bucket, batch);
+			}
+			int id = query.ids[bucket][position - query.offsets[bucket]];
+			// Palavras removidas são negativas e não são contabilizadas como varridas
+			if(id < 0){
+				removedSkips++;
+				continue;
+			}
+			if(WordSignature.lowerBound(keywordSignature, storedSignatures[id]) > threshold){
+				signatureRejections++;
+				continue;
+			}
+			long entry = entries[id];
+			if(batching){
+				batchEntries[batch.size()] = entry;
+				batch.add(WordArena.page(pages, entry), WordArena.offset(entry));
+				if(batch.isFull())
+					matches += flush(batch, batchEntries, distances, pages, threshold, result);
+				continue;
+			}
+			if(query.pattern.boundedDistance(WordArena.page(pages, entry), WordArena.offset(entry),
+					WordArena.length(entry), threshold) <= threshold){
+				result.add(WordArena.toString(pages, entry));
+				matches++;
+			}
+		}
+		if(batching)
+			matches += flush(batch, batchEntries, distances, pages, threshold, result);
+
+		int scanned = Math.max(0, to - from) - removedSkips;
+		statistics.recordScan(scanned, signatureRejections, scanned - signatureRejections, matches);
+		if(counters != null)
+			counters.add(scanned, scanned - signatureRejections);
+	}
+
+	/**
+	 * Prepara o lote para as palavras do grupo informado, caso o cálculo em lote suporte o seu tamanho.
+	 *
+	 * @return true caso as palavras do grupo devam ser comparadas em lote
+	 */
+	private static boolean startBatch(Query query, int bucket, LevenshteinBatch batch){
+		int length = query.minLength + bucket;
+		if(batch == null || !LevenshteinBatch.supports(query.pattern.length(), length))
+			return false;
+		batch.reset(length);
+		return true;
+	}
+
+	/**
+	 * Calcula as distâncias das palavras do lote, adicionando as similares ao resultado na ordem em que foram
+	 * adicionadas ao lote.
+	 *
+	 * @return quantidade de palavras similares
+	 */
+	private static int flush(LevenshteinBatch batch, long[] batchEntries, int[] distances, char[][] pages,
+			int threshold, Collection<String> result){
+		int count = batch.computeDistances(distances);
+		int matches = 0;
+		for(int i = 0; i < count; i++){
+			if(distances[i] <= threshold){
+				result.add(WordArena.toString(pages, batchEntries[i]));
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Busca as palavras similares à keyword entre as primeiras palavras inseridas, em uma única thread.
+	 *
+	 * @param keyword palavra cujos similares deseja-se encontrar
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param visibleCount quantidade de palavras, em ordem de inserção, consideradas na busca
+	 * @param result coleção que receberá as palavras encontradas
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public void search(String keyword, int threshold, int visibleCount, Collection<String> result)
+			throws IllegalArgumentException{
+		if(result == null)
+			throw new IllegalArgumentException("Os parâmetros fornecidos não podem ser nulos.");
+		Query query = prepare(keyword, threshold, visibleCount);
+		scan(query, 0, query.getCandidateCount(), result);
+	}
+
+	/**
+	 * Busca as palavras similares à keyword somente entre as palavras com ordem de inserção no intervalo informado.
+	 * Utilizado para avaliar apenas as palavras adicionadas desde um resultado anterior: em cada tamanho compatível
+	 * com o threshold, o intervalo é localizado por busca binária na lista de ordens, que é crescente.
+	 *
+	 * @param keyword palavra cujos similares deseja-se encontrar
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param from ordem da primeira palavra (inclusive)
+	 * @param to ordem da última palavra (exclusive), limitada às palavras visíveis
+	 * @param result coleção que receberá as palavras encontradas
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public void searchRange(String keyword, int threshold, int from, int to, Collection<String> result)
+			throws IllegalArgumentException{
+		if(keyword == null || result == null)
+			throw new IllegalArgumentException("Os parâmetros fornecidos não podem ser nulos.");
+		if(threshold < 0)
+			throw new IllegalArgumentException("O threshold informado deve ser positivo.");
+
+		int end = Math.min(to, size);
+		IntPostingList[] currentBuckets = buckets;
+		long[] entries = arena.entries();
+		char[][] pages = arena.pages();
+		long[] storedSignatures = signatures;
+		LevenshteinPattern pattern = new LevenshteinPattern(keyword);
+		long keywordSignature = WordSignature.of(keyword);
+
+		int scanned = 0;
+		int signatureRejections = 0;
+		int matches = 0;
+		int minLength = Math.max(0, keyword.length() - threshold);
+		int maxLength = (int) Math.min((long) keyword.length() + threshold, currentBuckets.length - 1);
+		for(int length = minLength; length <= maxLength; length++){
+			IntPostingList bucket = currentBuckets[length];
+			if(bucket == null)
+				continue;
+			int last = visiblePrefix(bucket, end);
+			int[] ids = bucket.values();
+			for(int i = visiblePrefix(bucket, from); i < last; i++){
+				QueryCancellation.check(i);
+				int id = ids[i];
+				if(id < 0)
+					continue;
+				scanned++;
+				if(WordSignature.lowerBound(keywordSignature, storedSignatures[id]) > threshold){
+					signatureRejections++;
+					continue;
+				}
+				long entry = entries[id];
+				if(pattern.boundedDistance(WordArena.page(pages, entry), WordArena.offset(entry), length,
+						threshold) <= threshold){
+					result.add(WordArena.toString(pages, entry));
+					matches++;
+				}
+			}
+		}
+
+		statistics.recordQuery(Math.max(0, end - Math.max(0, from) - scanned));
+		statistics.recordScan(scanned, signatureRejections, scanned - signatureRejections, matches);
+	}
+
+	/**
+	 * <p>
+	 * Busca as palavras similares a várias keywords em uma única varredura, entre as primeiras palavras inseridas.
+	 * </p>
+	 * <p>
+	 * Cada tamanho visitado é percorrido uma única vez e cada palavra é comparada, enquanto está em cache, com todas as
+	 * keywords cujo intervalo de tamanhos inclui o seu. Keywords repetidas com thresholds diferentes são pré-processadas
+	 * e comparadas uma única vez, utilizando o maior dos thresholds.
+	 * </p>
+	 *
+	 * @param keywords palavras cujos similares deseja-se encontrar
+	 * @param thresholds distância máxima de cada keyword, na mesma ordem
+	 * @param visibleCount quantidade de palavras, em ordem de inserção, consideradas na busca
+	 * @param results coleções que receberão as palavras encontradas para cada keyword, na mesma ordem
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public void searchBatch(List<String> keywords, List<Integer> thresholds, int visibleCount,
+			List<? extends Collection<String>> results) throws IllegalArgumentException{
+		if(keywords == null || thresholds == null || results == null)
+			throw new IllegalArgumentException("Os parâmetros fornecidos não podem ser nulos.");
+		if(keywords.size() != thresholds.size() || keywords.size() != results.size())
+			throw new IllegalArgumentException("As listas informadas devem possuir o mesmo tamanho.");
+
+		// Agrupa as consultas por keyword distinta, com o maior threshold de cada uma
+		Map<String, Integer> distinctIds = new HashMap<String, Integer>();
+		int[] distinctOf = new int[keywords.size()];
+		int[] maxThresholds = new int[keywords.size()];
+		// Cópia dos thresholds, evitando o unboxing na varredura
+		int[] queryThresholds = new int[keywords.size()];
+		String[] distinctKeywords = new String[keywords.size()];
+		int distinctCount = 0;
+		for(int i = 0; i < keywords.size(); i++){
+			String keyword = keywords.get(i);
+			Integer threshold = thresholds.get(i);
+			if(keyword == null || threshold == null || results.get(i) == null)
+				throw new IllegalArgumentException("Os parâmetros fornecidos não podem ser nulos.");
+			if(threshold < 0)
+				throw new IllegalArgumentException("O threshold informado deve ser positivo.");
+
+			Integer id = distinctIds.get(keyword);
+			if(id == null){
+				id = distinctCount++;
+				distinctIds.put(keyword, id);
+				distinctKeywords[id] = keyword;
+			}
+			distinctOf[i] = id;
+			queryThresholds[i] = threshold;
+			maxThresholds[id] = Math.max(maxThresholds[id], threshold);
+		}
+
+		// Pré-processamento compartilhado por todas as consultas de cada keyword distinta
+		LevenshteinPattern[] patterns = new LevenshteinPattern[distinctCount];
+		long[] keywordSignatures = new long[distinctCount];
+		int[][] queriesOf = new int[distinctCount][];
+		int[] queryCounts = new int[distinctCount];
+		for(int i = 0; i < keywords.size(); i++)
+			queryCounts[distinctOf[i]]++;
+		for(int id = 0; id < distinctCount; id++){
+			patterns[id] = new LevenshteinPattern(distinctKeywords[id]);
+			keywordSignatures[id] = WordSignature.of(distinctKeywords[id]);
+			queriesOf[id] = new int[queryCounts[id]];
+			queryCounts[id] = 0;
+		}
+		for(int i = 0; i < keywords.size(); i++)
+			queriesOf[distinctOf[i]][queryCounts[distinctOf[i]]++] = i;
+
+		int visible = Math.min(visibleCount, size);
+		IntPostingList[] currentBuckets = buckets;
+		long[] entries = arena.entries();
+		char[][] pages = arena.pages();
+		long[] storedSignatures = signatures;
+
+		long pairs = 0;
+		long signatureRejections = 0;
+		long matches = 0;
+		long lengthRejections = (long) visible * keywords.size();
+		int[] applicable = new int[distinctCount];
+		for(int length = 0; length < currentBuckets.length; length++){
+			IntPostingList bucket = currentBuckets[length];
+			if(bucket == null)
+				continue;
+
+			// Keywords distintas cujo intervalo de tamanhos inclui o tamanho atual
+			int applicableCount = 0;
+			for(int id = 0; id < distinctCount; id++){
+				if(Math.abs(distinctKeywords[id].length() - length) <= maxThresholds[id])
+					applicable[applicableCount++] = id;
+			}
+			if(applicableCount == 0)
+				continue;
+
+			int count = visiblePrefix(bucket, visible);
+			int[] ids = bucket.values();
+			for(int a = 0; a < applicableCount; a++){
+				int difference = Math.abs(distinctKeywords[applicable[a]].length() - length);
+				for(int query : queriesOf[applicable[a]]){
+					if(difference <= queryThresholds[query])
+						lengthRejections -= count;
+				}
+			}
+
+			for(int i = 0; i < count; i++){
+				QueryCancellation.check(i);
+				// Palavras removidas são negativas
+				if(ids[i] < 0)
+					continue;
+				long entry = entries[ids[i]];
+				char[] page = WordArena.page(pages, entry);
+				int offset = WordArena.offset(entry);
+				long signature = storedSignatures[ids[i]];
+				// A String só é criada na primeira keyword para a qual a palavra é similar
+				String word = null;
+				for(int a = 0; a < applicableCount; a++){
+					int id = applicable[a];
+					int maxThreshold = maxThresholds[id];
+					pairs++;
+					if(WordSignature.lowerBound(keywordSignatures[id], signature) > maxThreshold){
+						signatureRejections++;
+						continue;
+					}
+					int distance = patterns[id].boundedDistance(page, offset, length, maxThreshold);
+					if(distance > maxThreshold)
+						continue;
+					for(int query : queriesOf[id]){
+						if(distance <= queryThresholds[query]){
+							if(word == null)
+								word = new String(page, offset, length);
+							results.get(query).add(word);
+							matches++;
+						}
+					}
+				}
+			}
+		}
+
+		statistics.recordQueries(keywords.size(), lengthRejections);
+		statistics.recordScan(pairs, signatureRejections, pairs - signatureRejections, matches);
+	}
+
+	/**
+	 * Busca as "k" palavras mais próximas da keyword entre as primeiras palavras inseridas. Os tamanhos são visitados
+	 * em ordem crescente de diferença para o tamanho da keyword e a distância da pior palavra entre as "k" melhores já
+	 * encontradas é utilizada como threshold dos filtros e do cálculo limitado da distância, interrompendo a busca
+	 * assim que a diferença de tamanho ultrapassa esse raio.
+	 *
+	 * @param keyword palavra cujas vizinhas deseja-se encontrar
+	 * @param k quantidade máxima de palavras retornadas
+	 * @param visibleCount quantidade de palavras, em ordem de inserção, consideradas na busca
+	 * @return palavras mais próximas, ordenadas pela distância e, em caso de empate, alfabeticamente
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public List<WordDistance> nearest(String keyword, int k, int visibleCount) throws IllegalArgumentException{
+		if(keyword == null)
+			throw new IllegalArgumentException("A keyword informada é inválida.");
+		if(k <= 0)
+			throw new IllegalArgumentException("A quantidade de palavras informada deve ser positiva.");
+
+		int visible = Math.min(visibleCount, size);
+		IntPostingList[] currentBuckets = buckets;
+		long[] entries = arena.entries();
+		char[][] pages = arena.pages();
+		long[] storedSignatures = signatures;
+		LevenshteinPattern pattern = new LevenshteinPattern(keyword);
+		long keywordSignature = WordSignature.of(keyword);
+		NearestWords nearest = new NearestWords(k);
+
+		int length = keyword.length();
+		int scanned = 0;
+		int signatureRejections = 0;
+		for(int offset = 0; offset <= nearest.radius(); offset++){
+			if(length - offset < 0 && length + offset >= currentBuckets.length)
+				break;
+			// Tamanhos "|keyword| - offset" e "|keyword| + offset", que coincidem quando offset = 0
+			for(int side = offset == 0 ? 1 : 0; side < 2; side++){
+				int bucketLength = side == 0 ? length - offset : length + offset;
+				if(bucketLength < 0 || bucketLength >= currentBuckets.length || currentBuckets[bucketLength] == null)
+					continue;
+				IntPostingList bucket = currentBuckets[bucketLength];
+				int count = visiblePrefix(bucket, visible);
+				int[] ids = bucket.values();
+				scanned += count;
+				// A distância nunca é maior que o tamanho da maior palavra
+				int longest = Math.max(length, bucketLength);
+				for(int i = 0; i < count; i++){
+					QueryCancellation.check(i);
+					// Palavras removidas são negativas
+					if(ids[i] < 0)
+						continue;
+					int radius = Math.min(nearest.radius(), longest);
+					if(WordSignature.lowerBound(keywordSignature, storedSignatures[ids[i]]) > radius){
+						signatureRejections++;
+						continue;
+					}
+					long entry = entries[ids[i]];
+					int distance = pattern.boundedDistance(WordArena.page(pages, entry), WordArena.offset(entry),
+							bucketLength, radius);
+					if(distance <= radius)
+						nearest.offer(WordArena.toString(pages, entry), distance);
+				}
+			}
+		}
+
+		List<WordDistance> result = nearest.toList();
+		statistics.recordQuery(visible - scanned);
+		statistics.recordScan(scanned, signatureRejections, scanned - signatureRejections, result.size());
+		return result;
+	}
+
+	/**
+	 * Conta as palavras visíveis com tamanho no intervalo informado, consultando somente o histograma de tamanhos,
+	 * sem percorrer nenhuma palavra.
+	 *
+	 * @param minLength menor tamanho (inclusive)
+	 * @param maxLength maior tamanho (inclusive)
+	 * @param visibleCount quantidade de palavras, em ordem de inserção, consideradas na contagem
+	 * @return quantidade de palavras com tamanho no intervalo
+	 */
+	public int countWords(int minLength, int maxLength, int visibleCount){
+		int visible = Math.min(visibleCount, size);
+		IntPostingList[] currentBuckets = buckets;
+		int count = 0;
+		for(int length = Math.max(0, minLength); length <= maxLength && length < currentBuckets.length; length++){
+			if(currentBuckets[length] != null)
+				count += visiblePrefix(currentBuckets[length], visible);
+		}
+		return count;
+	}
+
+	/**
+	 * Indica se a ordem informada foi marcada como removida na lista do tamanho informado.
+	 */
+	private boolean isRemoved(int id, int length){
+		IntPostingList[] currentBuckets = buckets;
+		if(length >= currentBuckets.length || currentBuckets[length] == null)
+			return false;
+		IntPostingList bucket = currentBuckets[length];
+		int position = visiblePrefix(bucket, id);
+		return position < bucket.size() && bucket.values()[position] == ~id;
+	}
+
+	/**
+	 * Quantidade de ordens da lista inferiores a quantidade de palavras visíveis, incluindo as removidas. As ordens são
+	 * crescentes.
+	 */
+	private static int visiblePrefix(IntPostingList bucket, int visible){
+		int count = bucket.size();
+		int[] ids = bucket.values();
+		int low = 0;
+		int high = count;
+		while(low < high){
+			int middle = (low + high) >>> 1;
+			if(IntPostingList.decode(ids[middle]) < visible)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	/**
+	 * Grupo que contém a posição informada.
+	 */
+	private static int findBucket(int[] offsets, int position){
+		int low = 0;
+		int high = offsets.length - 2;
+		while(low < high){
+			int middle = (low + high + 1) >>> 1;
+			if(offsets[middle] <= position)
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		return low;
+	}
+
+	/**
+	 * Consulta preparada: keyword pré-processada e grupos de tamanho selecionados, imutáveis durante a varredura.
+	 */
+	public static final class Query {
+		private final LevenshteinPattern pattern;
+		private final long signature;
+		private final int threshold;
+		private final long[] entries;
+		private final char[][] pages;
+		private final long[] signatures;
+		private final int[][] ids;
+		// Posição inicial de cada grupo selecionado; a última posição é a quantidade total de candidatos
+		private final int[] offsets;
+		// Tamanho das palavras do primeiro grupo selecionado; os demais grupos seguem em ordem crescente de tamanho
+		private final int minLength;
+		private final boolean batched;
+
+		private Query(LevenshteinPattern pattern, long signature, int threshold, long[] entries, char[][] pages,
+				long[] signatures, int[][] ids, int[] offsets, int minLength, boolean batched){
+			this.pattern = pattern;
+			this.signature = signature;
+			this.threshold = threshold;
+			this.entries = entries;
+			this.pages = pages;
+			this.signatures = signatures;
+			this.ids = ids;
+			this.offsets = offsets;
+			this.minLength = minLength;
+			this.batched = batched;
+		}
+
+		/**
+		 * Retorna a quantidade de palavras nos grupos de tamanho selecionados.
+		 *
+		 * @return quantidade de candidatos a serem varridos
+		 */
+		public int getCandidateCount(){
+			return offsets[offsets.length - 1];
+		}
+	}
+
+}
@@ -0,0 +1,205 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Cálculo em lote da distância de Levenshtein entre uma palavra pré-processada ({@link LevenshteinPattern}) e várias
+ * palavras de mesmo tamanho, com o algoritmo bit-paralelo de Myers executado simultaneamente para todas elas (SWAR,
+ * "SIMD within a register").
+ * </p>
+ * <p>
+ * Enquanto {@link LevenshteinPattern} utiliza os 64 bits de um {@code long} para as linhas da matriz de uma única
+ * comparação, o lote divide o {@code long} em faixas de {@code m + 1} bits, aonde "m" é o tamanho da keyword: cada
+ * faixa contém as linhas da matriz de uma palavra diferente e o bit excedente separa as faixas, absorvendo o "carry"
+ * da soma e o deslocamento de cada faixa sem que eles alcancem a faixa seguinte. Uma mesma sequência de operações
+ * calcula então uma coluna da matriz de até {@code 64 / (m + 1)} palavras; para palavras de 5 a 12 caracteres são
+ * de 4 a 10 comparações por operação. As distâncias são acumuladas em contadores empacotados da mesma forma, sem
+ * nenhum desvio por palavra.
+ * </p>
+ * <p>
+ * As palavras são transpostas para um layout estrutura-de-arrays na medida em que são adicionadas: a posição "j"
+ * guarda as máscaras de ocorrência do caractere "j" de todas as palavras do lote, cada uma já deslocada para a sua
+ * faixa, de forma que cada coluna da matriz lê um único {@code long}. O resultado é idêntico ao de
+ * {@link LevenshteinPattern#distance(char[], int, int)}, que permanece como cálculo escalar para as keywords e
+ * palavras não suportadas pelo lote ({@link #supports(int, int)}).
+ * </p>
+ * <p>
+ * As instâncias são mutáveis e não devem ser compartilhadas entre threads; cada varredura cria o seu próprio lote.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class LevenshteinBatch {
+
+	/**
+	 * Maior tamanho de keyword suportado: acima dele não cabem duas faixas em um {@code long}.
+	 */
+	public static final int MAX_PATTERN_LENGTH = 31;
+
+	private final LevenshteinPattern pattern;
+	private final int patternLength;
+	private final int laneWidth;
+	private final int lanes;
+	// Bit inferior, todos os bits da keyword e bit do último caractere de cada faixa
+	private final long lowBits;
+	private final long laneBits;
+	private final long lastBits;
+	private final long counterMask;
+
+	// Máscaras de ocorrência do caractere "j" de cada palavra do lote, deslocadas para as faixas e unidas na posição "j"
+	private long[] columns = new long[16];
+	private int textLength;
+	private int size;
+
+	/**
+	 * Cria um lote para a keyword pré-processada informada.
+	 *
+	 * @param pattern keyword pré-processada
+	 * @throws IllegalArgumentException caso a keyword seja nula, vazia ou maior que {@link #MAX_PATTERN_LENGTH}
+	 */
+	public LevenshteinBatch(LevenshteinPattern pattern) throws IllegalArgumentException{
+		if(pattern == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		if(pattern.length() == 0 || pattern.length() > MAX_PATTERN_LENGTH)
+			throw new IllegalArgumentException("O tamanho da keyword deve estar entre 1 e " + MAX_PATTERN_LENGTH
+					+ " caracteres.");
+
+		this.pattern = pattern;
+		this.patternLength = pattern.length();
+		this.laneWidth = patternLength + 1;
+		this.lanes = Long.SIZE / laneWidth;
+		long low = 0L;
+		for(int lane = 0; lane < lanes; lane++)
+			low |= 1L << (lane * laneWidth);
+		this.lowBits = low;
+		this.laneBits = low * ((1L << patternLength) - 1);
+		this.lastBits = low << (patternLength - 1);
+		this.counterMask = (1L << laneWidth) - 1;
+	}
+
+	/**
+	 * Verifica se o lote suporta uma keyword e palavras com os tamanhos informados: a keyword deve ter entre 1 e
+	 * {@link #MAX_PATTERN_LENGTH} caracteres e a quantidade de colunas da matriz deve caber no contador de cada faixa.
+	 *
+	 * @param patternLength tamanho da keyword
+	 * @param textLength tamanho das palavras comparadas
+	 * @return true caso o cálculo em lote possa ser utilizado
+	 */
+	public static boolean supports(int patternLength, int textLength){
+		return patternLength > 0 && patternLength <= MAX_PATTERN_LENGTH && textLength > 0
+				&& textLength < 1L << (patternLength + 1);
+	}
+
+	/**
+	 * Retorna a quantidade de palavras comparadas simultaneamente.
+	 *
+	 * @return quantidade de faixas do lote
+	 */
+	public int getLanes(){
+		return lanes;
+	}
+
+	/**
+	 * Retorna a quantidade de palavras adicionadas ao lote desde o último cálculo.
+	 *
+	 * @return quantidade de palavras do lote
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Verifica se todas as faixas do lote estão ocupadas.
+	 *
+	 * @return true caso o lote esteja cheio
+	 */
+	public boolean isFull(){
+		return size == lanes;
+	}
+
+	/**
+	 * Esvazia o lote e define o tamanho das próximas palavras adicionadas.
+	 *
+	 * @param textLength tamanho das palavras
+	 * @throws IllegalArgumentException caso o tamanho não seja suportado ({@link #supports(int, int)})
+	 */
+	public void reset(int textLength) throws IllegalArgumentException{
+		if(!supports(patternLength, textLength))
+			throw new IllegalArgumentException("O tamanho de palavra informado não é suportado pelo lote: "
+					+ textLength);
+		if(columns.length < textLength)
+			columns = new long[textLength];
+		else
+			Arrays.fill(columns, 0, this.textLength, 0L);
+		this.textLength = textLength;
+		this.size = 0;
+	}
+
+	/**
+	 * Adiciona ao lote a palavra contida no trecho informado de um array de caracteres, com o tamanho definido em
+	 * {@link #reset(int)}.
+	 *
+	 * @param text array contendo a palavra
+	 * @param offset posição do primeiro caractere da palavra
+	 * @throws IllegalStateException caso o lote esteja cheio ou não tenha sido inicializado
+	 */
+	public void add(char[] text, int offset) throws IllegalStateException{
+		if(size == lanes || textLength == 0)
+			throw new IllegalStateException("O lote está cheio ou não foi inicializado.");
+		int shift = size * laneWidth;
+		for(int j = 0; j < textLength; j++)
+			columns[j] |= pattern.mask(text[offset + j], 0) << shift;
+		size++;
+	}
+
+	/**
+	 * Calcula a distância entre a keyword e cada palavra do lote e esvazia o lote, mantendo o tamanho das palavras.
+	 * Nenhuma memória é alocada durante o cálculo.
+	 *
+	 * @param distances array que receberá as distâncias, na ordem em que as palavras foram adicionadas
+	 * @return quantidade de distâncias calculadas
+	 */
+	public int computeDistances(int[] distances){
+		int count = size;
+		if(count == 0)
+			return 0;
+
+		long positiveVertical = laneBits;
+		long negativeVertical = 0L;
+		long increments = 0L;
+		long decrements = 0L;
+
+		for(int j = 0; j < textLength; j++){
+			long equal = columns[j];
+			columns[j] = 0L;
+
+			// As mesmas operações de LevenshteinPattern, com o bit excedente de cada faixa descartado pela máscara
+			long verticalChange = equal | negativeVertical;
+			long horizontalChange = ((((equal & positiveVertical) + positiveVertical) ^ positiveVertical) | equal)
+					& laneBits;
+			long positiveHorizontal = (negativeVertical | ~(horizontalChange | positiveVertical)) & laneBits;
+			long negativeHorizontal = positiveVertical & horizontalChange;
+
+			// Cada faixa acumula as variações da última linha da sua matriz no seu próprio contador
+			increments += (positiveHorizontal & lastBits) >>> (patternLength - 1);
+			decrements += (negativeHorizontal & lastBits) >>> (patternLength - 1);
+
+			positiveHorizontal = ((positiveHorizontal << 1) | lowBits) & laneBits;
+			negativeHorizontal = (negativeHorizontal << 1) & laneBits;
+			positiveVertical = (negativeHorizontal | ~(verticalChange | positiveHorizontal)) & laneBits;
+			negativeVertical = positiveHorizontal & verticalChange;
+		}
+
+		for(int lane = 0, shift = 0; lane < count; lane++, shift += laneWidth)
+			distances[lane] = patternLength + (int) ((increments >>> shift) & counterMask)
+					- (int) ((decrements >>> shift) & counterMask);
+
+		// O lote equivale ao preenchimento da matriz inteira de cada palavra
+		DistanceScratch.forCurrentThread().cells += (long) patternLength * textLength * count;
+		size = 0;
+		return count;
+	}
+
+}
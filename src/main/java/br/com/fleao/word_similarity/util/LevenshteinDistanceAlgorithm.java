@@ -7,12 +7,20 @@ package br.com.fleao.word_similarity.util;
  * ser aplicadas a uma palavra para que ela se transforme na outra palavra.
  * </p>
  * <p>
- * A classe disponibiliza duas formas de cálculo da distância:
+ * A classe disponibiliza três formas de cálculo da distância:
  * </p>
  * <ol>
  *   <li>Cálculo padrão, armazenando todos os valores calculados durante a execução do método.</li>
  *   <li>Cálculo com uso eficiente de memória, armazenando somente as duas últimas linhas da matriz de distância.</li>
+ *   <li>Cálculo bit-paralelo (algoritmo de Myers), processando até 64 células da matriz por operação. É a forma
+ *   utilizada pelo serviço; as duas primeiras são mantidas como implementações de referência.</li>
  * </ol>
+ * <p>
+ * Para os casos em que só interessa saber se a distância entre duas palavras é igual ou inferior a um limite, a classe
+ * disponibiliza ainda o cálculo limitado ({@link #boundedDistance(String, String, int)} e
+ * {@link #withinDistance(String, String, int)}), que calcula somente a faixa diagonal da matriz que pode conter valores
+ * dentro do limite e é interrompido assim que o limite é ultrapassado.
+ * </p>
  * 
  * @author felipe
  *
@@ -93,8 +101,8 @@ public final class LevenshteinDistanceAlgorithm {
 	 * <p>
 	 * Ao invés de armazenar uma matriz de tamanho "M*N", aonde M e N são respectivamente os tamanhos das strings submetidas, o
 	 * método armazena apenas dois arrays unidimensionais de tamanho M. O algoritmo otimiza o uso de memória pois armazena somente
-	 * o array atualmente sendo calculado e o array calculado na iteração anterior. Como os valores vão sendo sobreescritos, não
-	 * há redução de tempo de alocação de espaço em memória.
+	 * o array atualmente sendo calculado e o array calculado na iteração anterior, alternando os papéis dos dois arrays a cada
+	 * linha ao invés de alocar um novo array.
 	 * </p>
 	 * 
 	 * @param left  primeira palavra
@@ -145,11 +153,177 @@ public final class LevenshteinDistanceAlgorithm {
 				);
 			}
 			
-			// Sobreescrever o array mais antigo com os dados do array recém calculado
-			previousRow = currentRow.clone();
+			// O array recém calculado passa a ser o anterior e o mais antigo é reaproveitado na próxima iteração
+			int[] swap = previousRow;
+			previousRow = currentRow;
+			currentRow = swap;
 		}
 
-		return currentRow[left.length()];
+		return previousRow[left.length()];
+	}
+	
+	/**
+	 * <p>
+	 * Calcula a distância de Levenshtein entre duas palavras utilizando o algoritmo bit-paralelo de Myers. Cada coluna
+	 * da matriz de distância é calculada com poucas operações sobre vetores de bits, resultando em complexidade
+	 * O(n * ceil(m/64)), aonde "m" é o tamanho da primeira palavra e "n" o tamanho da segunda.
+	 * </p>
+	 * <p>
+	 * Quando uma mesma palavra precisa ser comparada com diversas outras, prefira pré-processá-la uma única vez através
+	 * da classe {@link LevenshteinPattern}.
+	 * </p>
+	 * 
+	 * @param left  primeira palavra
+	 * @param right segunda palavra
+	 * 
+	 * @return Distância de Levenshtein entre as palavras
+	 */
+	public static int getDistanceBitParallel(String left, String right) {
+		// Validação dos parâmetros
+		if (left == null || right == null)
+			throw new IllegalArgumentException("Os parâmetros fornecidos não podem ser nulos.");
+
+		return new LevenshteinPattern(left).distance(right);
+	}
+	
+	/**
+	 * <p>
+	 * Calcula a distância de Levenshtein entre duas palavras limitada ao valor máximo informado. Caso a distância seja 
+	 * igual ou inferior ao limite, o valor exato é retornado; caso contrário é retornado {@code maxDistance + 1}.
+	 * </p>
+	 * <p>
+	 * O cálculo utiliza três otimizações possíveis apenas quando há um limite conhecido:
+	 * </p>
+	 * <ol>
+	 *   <li>Se a diferença entre os tamanhos das palavras for maior que o limite, o método retorna imediatamente.</li>
+	 *   <li>Somente a faixa diagonal de largura 2k+1 da matriz é calculada (Ukkonen), já que qualquer célula fora dela 
+	 *   possui valor superior ao limite "k".</li>
+	 *   <li>Como os valores da matriz nunca diminuem ao longo de uma diagonal, o cálculo é interrompido assim que todos os 
+	 *   valores da linha atual ultrapassam o limite.</li>
+	 * </ol>
+	 * <p>
+	 * Dessa forma a complexidade é reduzida de O(mn) para O(k * min(m,n)).
+	 * </p>
+	 * 
+	 * @param left  primeira palavra
+	 * @param right segunda palavra
+	 * @param maxDistance maior distância de interesse
+	 * 
+	 * @return Distância de Levenshtein entre as palavras, ou {@code maxDistance + 1} caso ela ultrapasse o limite
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public static int boundedDistance(String left, String right, int maxDistance) throws IllegalArgumentException{
+		// Validação dos parâmetros
+		if (left == null || right == null)
+			throw new IllegalArgumentException("Os parâmetros fornecidos não podem ser nulos.");
+		if (maxDistance < 0)
+			throw new IllegalArgumentException("A distância máxima informada deve ser positiva.");
+		
+		DistanceScratch scratch = DistanceScratch.forCurrentThread();
+		return boundedDistance(scratch.leftChars(left), 0, left.length(), 
+				scratch.rightChars(right), 0, right.length(), maxDistance, scratch);
+	}
+	
+	/**
+	 * Implementação do cálculo limitado sobre arrays de caracteres, sem nenhuma alocação de memória: as linhas da matriz 
+	 * são obtidas da área de trabalho informada.
+	 * 
+	 * @see #boundedDistance(String, String, int)
+	 */
+	static int boundedDistance(char[] left, int leftOffset, int leftLength, 
+			char[] right, int rightOffset, int rightLength, int maxDistance, DistanceScratch scratch) {
+		// Valor utilizado para representar qualquer distância acima do limite
+		int outOfBounds = maxDistance + 1;
+		
+		// A distância é no mínimo a diferença entre os tamanhos das palavras
+		if (Math.abs(leftLength - rightLength) > maxDistance)
+			return outOfBounds;
+		if (leftLength == 0)
+			return rightLength;
+		if (rightLength == 0)
+			return leftLength;
+		
+		int[] previousRow = scratch.previousRow(rightLength + 1);
+		int[] currentRow = scratch.currentRow(rightLength + 1);
+		
+		// Primeira linha da matriz, limitada ao valor máximo
+		for (int j = 0; j <= rightLength; j++) {
+			previousRow[j] = Math.min(j, outOfBounds);
+		}
+		
+		for (int i = 1; i <= leftLength; i++) {
+			// Faixa diagonal da linha: colunas [i-k, i+k]
+			int from = Math.max(1, i - maxDistance);
+			int to = Math.min(rightLength, i + maxDistance);
+			char leftChar = left[leftOffset + i - 1];
+			
+			scratch.cells += to - from + 1;
+			
+			// Célula imediatamente à esquerda da faixa: primeira coluna da matriz ou valor fora do limite
+			currentRow[from - 1] = from == 1 ? Math.min(i, outOfBounds) : outOfBounds;
+			int rowMinimum = currentRow[from - 1];
+			
+			for (int j = from; j <= to; j++) {
+				int value = minimum( //
+						currentRow[j - 1] + 1, //
+						previousRow[j] + 1, //
+						previousRow[j - 1] + ((leftChar == right[rightOffset + j - 1]) ? 0 : 1));
+				
+				if (value > outOfBounds)
+					value = outOfBounds;
+				currentRow[j] = value;
+				if (value < rowMinimum)
+					rowMinimum = value;
+			}
+			
+			// A célula à direita da faixa será lida pela próxima linha e deve representar um valor fora do limite
+			if (to < rightLength)
+				currentRow[to + 1] = outOfBounds;
+			
+			// Todos os valores da linha ultrapassaram o limite: a distância final também o ultrapassará
+			if (rowMinimum > maxDistance)
+				return outOfBounds;
+			
+			int[] swap = previousRow;
+			previousRow = currentRow;
+			currentRow = swap;
+		}
+		
+		return previousRow[rightLength];
+	}
+	
+	/**
+	 * <p>
+	 * Retorna a quantidade de células da matriz de distância calculadas pela thread atual desde a sua criação, 
+	 * utilizada para medir o trabalho realizado por uma busca: basta subtrair o valor lido antes da busca do valor 
+	 * lido após a busca, na mesma thread.
+	 * </p>
+	 * <p>
+	 * São contabilizados os cálculos utilizados nas buscas: {@link LevenshteinPattern}, que conta a matriz inteira 
+	 * mesmo calculando 64 linhas por operação, {@link #boundedDistance(String, String, int)}, que conta somente a 
+	 * faixa diagonal efetivamente calculada, e as linhas calculadas pela {@link WordTrie}. Os métodos 
+	 * {@link #getDistance(String, String)} e {@link #getDistanceEfficiently(String, String)} não são contabilizados.
+	 * </p>
+	 * 
+	 * @return quantidade de células calculadas pela thread atual
+	 */
+	public static long getComputedCells(){
+		return DistanceScratch.forCurrentThread().cells;
+	}
+	
+	/**
+	 * Verifica se a distância de Levenshtein entre duas palavras é igual ou inferior ao valor máximo informado. O cálculo 
+	 * é realizado através do método {@link #boundedDistance(String, String, int)}.
+	 * 
+	 * @param left  primeira palavra
+	 * @param right segunda palavra
+	 * @param maxDistance maior distância aceita
+	 * 
+	 * @return true caso a distância entre as palavras seja igual ou inferior ao limite
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public static boolean withinDistance(String left, String right, int maxDistance) throws IllegalArgumentException{
+		return boundedDistance(left, right, maxDistance) <= maxDistance;
 	}
 	
 	/**
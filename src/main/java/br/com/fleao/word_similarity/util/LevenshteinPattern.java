@@ -0,0 +1,292 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Palavra pré-processada para o cálculo da distância de Levenshtein através do algoritmo bit-paralelo de Myers,
+ * na formulação de Hyyrö para distância de edição global.
+ * </p>
+ * <p>
+ * Ao invés de calcular a matriz de distância célula por célula, o algoritmo representa cada coluna da matriz como
+ * dois vetores de bits (diferenças verticais positivas e negativas) e calcula uma coluna inteira com poucas operações
+ * aritméticas e lógicas sobre um {@code long}. Palavras de até 64 caracteres são processadas com uma única palavra de
+ * máquina; palavras maiores são divididas em blocos de 64 caracteres, propagando o "carry" horizontal entre blocos.
+ * </p>
+ * <p>
+ * O pré-processamento (máscaras de ocorrência de cada caractere) é realizado uma única vez na construção do objeto,
+ * de forma que uma mesma instância pode ser utilizada para calcular a distância até diversas outras palavras. As
+ * instâncias são imutáveis e podem ser compartilhadas entre threads. Os vetores de trabalho necessários ao cálculo
+ * são reaproveitados por thread ({@link DistanceScratch}), de forma que nenhuma comparação aloca memória.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class LevenshteinPattern {
+
+	// Quantidade de caracteres representados diretamente na tabela de máscaras (Latin-1)
+	private static final int DIRECT_TABLE_SIZE = 256;
+	private static final char[] NO_CHARS = new char[0];
+
+	private final String pattern;
+	// Caracteres da palavra decodificados uma única vez, evitando String.charAt nos laços de cálculo
+	private final char[] chars;
+	private final int length;
+	private final int blocks;
+	// Bit do último caractere da palavra dentro do último bloco
+	private final long lastBit;
+
+	// Máscaras de ocorrência para caracteres < 256, indexadas por (caractere * blocos + bloco)
+	private final long[] directMasks;
+	// Máscaras para os demais caracteres, indexadas pela posição do caractere no array ordenado
+	private final char[] extraChars;
+	private final long[] extraMasks;
+
+	/**
+	 * Pré-processa a palavra informada para o cálculo de distâncias.
+	 *
+	 * @param pattern palavra a ser pré-processada
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 */
+	public LevenshteinPattern(String pattern) throws IllegalArgumentException{
+		if(pattern == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		this.pattern = pattern;
+		this.chars = pattern.toCharArray();
+		this.length = chars.length;
+		this.blocks = Math.max(1, (length + 63) >>> 6);
+		this.lastBit = length == 0 ? 0L : 1L << ((length - 1) & 63);
+		this.directMasks = new long[DIRECT_TABLE_SIZE * blocks];
+
+		// Identifica os caracteres fora da tabela direta para montar o array ordenado de caracteres extras
+		char[] extras = NO_CHARS;
+		int extraCount = 0;
+		for(int i = 0; i < length; i++){
+			char c = chars[i];
+			if(c < DIRECT_TABLE_SIZE){
+				directMasks[c * blocks + (i >>> 6)] |= 1L << (i & 63);
+			}else{
+				if(extraCount == extras.length)
+					extras = Arrays.copyOf(extras, Math.max(4, extraCount * 2));
+				extras[extraCount++] = c;
+			}
+		}
+
+		extras = Arrays.copyOf(extras, extraCount);
+		Arrays.sort(extras);
+		int distinct = 0;
+		for(int i = 0; i < extras.length; i++){
+			if(distinct == 0 || extras[distinct - 1] != extras[i])
+				extras[distinct++] = extras[i];
+		}
+		this.extraChars = Arrays.copyOf(extras, distinct);
+		this.extraMasks = new long[distinct * blocks];
+		for(int i = 0; i < length; i++){
+			char c = chars[i];
+			if(c >= DIRECT_TABLE_SIZE)
+				extraMasks[Arrays.binarySearch(extraChars, c) * blocks + (i >>> 6)] |= 1L << (i & 63);
+		}
+	}
+
+	/**
+	 * Retorna a palavra pré-processada.
+	 *
+	 * @return a palavra original
+	 */
+	public String getPattern(){
+		return pattern;
+	}
+
+	/**
+	 * Quantidade de caracteres da palavra pré-processada.
+	 */
+	int length(){
+		return length;
+	}
+
+	/**
+	 * Calcula a distância de Levenshtein entre a palavra pré-processada e a palavra informada.
+	 *
+	 * @param text palavra a ser comparada
+	 * @return distância entre as palavras
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 */
+	public int distance(String text) throws IllegalArgumentException{
+		if(text == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		DistanceScratch scratch = DistanceScratch.forCurrentThread();
+		return distance(scratch.rightChars(text), 0, text.length(), scratch);
+	}
+
+	/**
+	 * Calcula a distância de Levenshtein entre a palavra pré-processada e a palavra contida no trecho informado de um
+	 * array de caracteres. Nenhuma memória é alocada durante o cálculo.
+	 *
+	 * @param text array contendo a palavra a ser comparada
+	 * @param offset posição do primeiro caractere da palavra
+	 * @param textLength quantidade de caracteres da palavra
+	 * @return distância entre as palavras
+	 */
+	public int distance(char[] text, int offset, int textLength){
+		return distance(text, offset, textLength, DistanceScratch.forCurrentThread());
+	}
+
+	private int distance(char[] text, int offset, int textLength, DistanceScratch scratch){
+		// Se o tamanho de uma palavra for zero, a distância equivale ao tamanho da outra palavra
+		if(length == 0)
+			return textLength;
+		if(textLength == 0)
+			return length;
+
+		// O cálculo bit-paralelo equivale ao preenchimento da matriz inteira
+		scratch.cells += (long) length * textLength;
+		return blocks == 1 ? singleWordDistance(text, offset, textLength) : multiWordDistance(text, offset, textLength, scratch);
+	}
+
+	/**
+	 * <p>
+	 * Calcula a distância de Levenshtein entre a palavra pré-processada e a palavra informada, limitada ao valor máximo
+	 * informado. Caso a distância ultrapasse o limite é retornado {@code maxDistance + 1}.
+	 * </p>
+	 * <p>
+	 * Palavras cujos tamanhos diferem em mais que o limite são descartadas sem nenhum cálculo. Para palavras de até 64
+	 * caracteres o cálculo bit-paralelo já é linear no tamanho da palavra comparada e é sempre utilizado; para palavras
+	 * maiores, quando a faixa diagonal 2k+1 é mais estreita que a palavra, o cálculo limitado de
+	 * {@link LevenshteinDistanceAlgorithm#boundedDistance(String, String, int)} é utilizado.
+	 * </p>
+	 *
+	 * @param text palavra a ser comparada
+	 * @param maxDistance maior distância de interesse
+	 * @return distância entre as palavras, ou {@code maxDistance + 1} caso ela ultrapasse o limite
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public int boundedDistance(String text, int maxDistance) throws IllegalArgumentException{
+		if(text == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		DistanceScratch scratch = DistanceScratch.forCurrentThread();
+		return boundedDistance(scratch.rightChars(text), 0, text.length(), maxDistance, scratch);
+	}
+
+	/**
+	 * Calcula a distância limitada entre a palavra pré-processada e a palavra contida no trecho informado de um array de
+	 * caracteres. Nenhuma memória é alocada durante o cálculo.
+	 *
+	 * @param text array contendo a palavra a ser comparada
+	 * @param offset posição do primeiro caractere da palavra
+	 * @param textLength quantidade de caracteres da palavra
+	 * @param maxDistance maior distância de interesse
+	 * @return distância entre as palavras, ou {@code maxDistance + 1} caso ela ultrapasse o limite
+	 * @throws IllegalArgumentException caso a distância máxima seja negativa
+	 * @see #boundedDistance(String, int)
+	 */
+	public int boundedDistance(char[] text, int offset, int textLength, int maxDistance) throws IllegalArgumentException{
+		return boundedDistance(text, offset, textLength, maxDistance, DistanceScratch.forCurrentThread());
+	}
+
+	private int boundedDistance(char[] text, int offset, int textLength, int maxDistance, DistanceScratch scratch){
+		if(maxDistance < 0)
+			throw new IllegalArgumentException("A distância máxima informada deve ser positiva.");
+
+		if(Math.abs(length - textLength) > maxDistance)
+			return maxDistance + 1;
+		if(blocks > 1 && 2 * maxDistance + 1 < Math.min(length, textLength))
+			return LevenshteinDistanceAlgorithm.boundedDistance(chars, 0, length, text, offset, textLength, maxDistance, scratch);
+
+		return Math.min(distance(text, offset, textLength, scratch), maxDistance + 1);
+	}
+
+	/**
+	 * Cálculo da distância para palavras de até 64 caracteres, utilizando um único {@code long} por vetor.
+	 */
+	private int singleWordDistance(char[] text, int offset, int textLength){
+		long positiveVertical = -1L;
+		long negativeVertical = 0L;
+		int score = length;
+
+		for(int j = offset; j < offset + textLength; j++){
+			long equal = mask(text[j], 0);
+			long verticalChange = equal | negativeVertical;
+			long horizontalChange = (((equal & positiveVertical) + positiveVertical) ^ positiveVertical) | equal;
+			long positiveHorizontal = negativeVertical | ~(horizontalChange | positiveVertical);
+			long negativeHorizontal = positiveVertical & horizontalChange;
+
+			// Atualiza a distância acumulada na última linha da matriz
+			if((positiveHorizontal & lastBit) != 0)
+				score++;
+			else if((negativeHorizontal & lastBit) != 0)
+				score--;
+
+			// A primeira linha da matriz cresce de 1 em 1 (distância global), logo o carry de entrada é sempre +1
+			positiveHorizontal = (positiveHorizontal << 1) | 1L;
+			negativeHorizontal = negativeHorizontal << 1;
+			positiveVertical = negativeHorizontal | ~(verticalChange | positiveHorizontal);
+			negativeVertical = positiveHorizontal & verticalChange;
+		}
+
+		return score;
+	}
+
+	/**
+	 * Cálculo da distância para palavras com mais de 64 caracteres, processando a coluna em blocos de 64 linhas e
+	 * propagando a diferença horizontal da última linha de cada bloco para o bloco seguinte.
+	 */
+	private int multiWordDistance(char[] text, int offset, int textLength, DistanceScratch scratch){
+		long[] positiveVertical = scratch.positiveVertical(blocks);
+		long[] negativeVertical = scratch.negativeVertical(blocks);
+		Arrays.fill(positiveVertical, 0, blocks, -1L);
+		Arrays.fill(negativeVertical, 0, blocks, 0L);
+		int score = length;
+
+		for(int j = offset; j < offset + textLength; j++){
+			char c = text[j];
+			int carry = 1;
+
+			for(int b = 0; b < blocks; b++){
+				long equal = mask(c, b);
+				long pv = positiveVertical[b];
+				long mv = negativeVertical[b];
+
+				long verticalChange = equal | mv;
+				if(carry < 0)
+					equal |= 1L;
+				long horizontalChange = (((equal & pv) + pv) ^ pv) | equal;
+				long positiveHorizontal = mv | ~(horizontalChange | pv);
+				long negativeHorizontal = pv & horizontalChange;
+
+				long highBit = b == blocks - 1 ? lastBit : Long.MIN_VALUE;
+				int carryOut = (positiveHorizontal & highBit) != 0 ? 1 : (negativeHorizontal & highBit) != 0 ? -1 : 0;
+
+				positiveHorizontal <<= 1;
+				negativeHorizontal <<= 1;
+				if(carry < 0)
+					negativeHorizontal |= 1L;
+				else if(carry > 0)
+					positiveHorizontal |= 1L;
+
+				positiveVertical[b] = negativeHorizontal | ~(verticalChange | positiveHorizontal);
+				negativeVertical[b] = positiveHorizontal & verticalChange;
+				carry = carryOut;
+			}
+
+			score += carry;
+		}
+
+		return score;
+	}
+
+	/**
+	 * Recupera a máscara de ocorrência de um caractere no bloco informado.
+	 */
+	long mask(char c, int block){
+		if(c < DIRECT_TABLE_SIZE)
+			return directMasks[c * blocks + block];
+
+		int index = Arrays.binarySearch(extraChars, c);
+		return index < 0 ? 0L : extraMasks[index * blocks + block];
+	}
+
+}
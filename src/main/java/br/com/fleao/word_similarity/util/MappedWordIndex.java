@@ -0,0 +1,514 @@
+package br.com.fleao.word_similarity.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * Índice de palavras pré-construído, gravado em um arquivo binário e consultado diretamente a partir do arquivo
+ * mapeado em memória ({@link FileChannel#map}), sem que as palavras ou a estrutura de busca sejam desserializadas no
+ * heap.
+ * </p>
+ * <p>
+ * O arquivo contém uma BK-tree em formato plano: um cabeçalho com a versão do formato, as quantidades de palavras e de
+ * arestas e o CRC32 do conteúdo; a tabela de posições das palavras; os caracteres das palavras (UTF-16); e, para cada
+ * nó, o intervalo de suas arestas, ordenadas pela distância, em uma tabela de pares (distância, nó filho). O nó "i"
+ * corresponde à palavra "i" e o nó 0 é a raiz. A busca percorre a árvore da mesma forma que a {@link BKTree}, lendo as
+ * tabelas através de visões do buffer mapeado.
+ * </p>
+ * <p>
+ * Abrir o índice custa apenas o mapeamento do arquivo (e, opcionalmente, a verificação do CRC), e várias JVMs que
+ * mapeiam o mesmo arquivo compartilham o cache de páginas do sistema operacional. O índice é imutável e pode ser
+ * consultado por qualquer quantidade de threads.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class MappedWordIndex {
+
+	private static final int MAGIC = 0x57534958;
+	private static final int VERSION = 1;
+	// magic, versão, palavras, arestas, caracteres e CRC32 do conteúdo
+	private static final int HEADER_BYTES = 4 + 4 + 4 + 4 + 4 + 8;
+
+	private final int wordCount;
+	private final IntBuffer wordOffsets;
+	private final CharBuffer chars;
+	private final IntBuffer firstEdges;
+	private final IntBuffer edges;
+
+	private MappedWordIndex(ByteBuffer buffer, int wordCount, int edgeCount, int charCount){
+		this.wordCount = wordCount;
+		int position = HEADER_BYTES;
+		this.wordOffsets = section(buffer, position, (wordCount + 1) * 4).asIntBuffer();
+		position += (wordCount + 1) * 4;
+		this.chars = section(buffer, position, charCount * 2).asCharBuffer();
+		position += align(charCount * 2);
+		this.firstEdges = section(buffer, position, (wordCount + 1) * 4).asIntBuffer();
+		position += (wordCount + 1) * 4;
+		this.edges = section(buffer, position, edgeCount * 8).asIntBuffer();
+	}
+
+	/**
+	 * Mapeia um arquivo de índice em memória.
+	 *
+	 * @param file arquivo gravado por {@link #write(Path, List)}
+	 * @param verifyChecksum indica se o CRC do conteúdo deve ser verificado, o que exige a leitura do arquivo inteiro
+	 * @return índice mapeado
+	 * @throws IOException caso o arquivo não possa ser lido, seja de uma versão não suportada ou esteja corrompido
+	 */
+	public static MappedWordIndex open(Path file, boolean verifyChecksum) throws IOException{
+		MappedByteBuffer buffer;
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			if(channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE)
+				throw new IOException("O arquivo " + file + " não é um índice válido.");
+			// O mapeamento permanece válido após o fechamento do canal
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if(buffer.getInt(0) != MAGIC)
+			throw new IOException("O arquivo " + file + " não é um índice válido.");
+		int version = buffer.getInt(4);
+		if(version != VERSION)
+			throw new IOException("Versão de índice não suportada: " + version + ".");
+		int wordCount = buffer.getInt(8);
+		int edgeCount = buffer.getInt(12);
+		int charCount = buffer.getInt(16);
+		long checksum = buffer.getLong(20);
+
+		if(wordCount < 0 || edgeCount < 0 || charCount < 0
+				|| fileSize(wordCount, edgeCount, charCount) != buffer.capacity())
+			throw new IOException("O índice " + file + " está corrompido.");
+
+		if(verifyChecksum){
+			CRC32 crc = new CRC32();
+			crc.update(section(buffer, HEADER_BYTES, buffer.capacity() - HEADER_BYTES));
+			if(crc.getValue() != checksum)
+				throw new IOException("O índice " + file + " está corrompido.");
+		}
+		return new MappedWordIndex(buffer, wordCount, edgeCount, charCount);
+	}
+
+	/**
+	 * Constrói a BK-tree das palavras informadas e a grava em um arquivo de índice. A gravação é feita em um arquivo
+	 * temporário, sincronizado com o disco e renomeado atomicamente.
+	 *
+	 * @param file arquivo de destino
+	 * @param words palavras do índice, sem repetição
+	 * @throws IOException caso o arquivo não possa ser gravado
+	 * @throws IllegalArgumentException caso as palavras contenham nulos ou repetições
+	 */
+	public static void write(Path file, List<String> words) throws IOException, IllegalArgumentException{
+		if(words == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		int wordCount = words.size();
+		long charCount = 0;
+		for(String word : words){
+			if(word == null)
+				throw new IllegalArgumentException("O índice não pode conter palavras nulas.");
+			charCount += word.length();
+		}
+		// Cada palavra, exceto a raiz, é filha de exatamente uma aresta; o arquivo deve poder ser mapeado por open
+		if(fileSize(wordCount, Math.max(0, wordCount - 1), charCount) > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("As palavras informadas excedem o tamanho máximo do índice.");
+
+		// Arestas de cada nó, mantidas ordenadas pela distância durante a construção
+		int[][] edgeDistances = new int[wordCount][];
+		int[][] edgeChildren = new int[wordCount][];
+		int[] edgeCounts = new int[wordCount];
+		int edgeCount = 0;
+		for(int id = 1; id < wordCount; id++){
+			LevenshteinPattern pattern = new LevenshteinPattern(words.get(id));
+			int node = 0;
+			while(true){
+				int distance = pattern.distance(words.get(node));
+				if(distance == 0)
+					throw new IllegalArgumentException("O índice não pode conter palavras repetidas: " + words.get(id));
+				int[] distances = edgeDistances[node];
+				int edge = distances == null ? -1 : Arrays.binarySearch(distances, 0, edgeCounts[node], distance);
+				if(edge >= 0){
+					node = edgeChildren[node][edge];
+					continue;
+				}
+				insertEdge(edgeDistances, edgeChildren, edgeCounts, node, distances == null ? 0 : -edge - 1, distance, id);
+				edgeCount++;
+				break;
+			}
+		}
+
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)){
+			SectionWriter output = new SectionWriter(channel, HEADER_BYTES);
+			int offset = 0;
+			output.putInt(0);
+			for(String word : words){
+				offset += word.length();
+				output.putInt(offset);
+			}
+			for(String word : words){
+				for(int i = 0; i < word.length(); i++)
+					output.putChar(word.charAt(i));
+			}
+			if(charCount % 2 != 0)
+				output.putChar('\0');
+			int firstEdge = 0;
+			output.putInt(0);
+			for(int node = 0; node < wordCount; node++){
+				firstEdge += edgeCounts[node];
+				output.putInt(firstEdge);
+			}
+			for(int node = 0; node < wordCount; node++){
+				for(int edge = 0; edge < edgeCounts[node]; edge++){
+					output.putInt(edgeDistances[node][edge]);
+					output.putInt(edgeChildren[node][edge]);
+				}
+			}
+			long checksum = output.finish();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			header.putInt(MAGIC).putInt(VERSION).putInt(wordCount).putInt(edgeCount).putInt((int) charCount)
+					.putLong(checksum).flip();
+			channel.position(0);
+			while(header.hasRemaining())
+				channel.write(header);
+			channel.force(true);
+		}
+		Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Tamanho do arquivo de um índice com as quantidades informadas.
+	 */
+	private static long fileSize(long wordCount, long edgeCount, long charCount){
+		return HEADER_BYTES + (wordCount + 1) * 4 + align(charCount * 2) + (wordCount + 1) * 4 + edgeCount * 8;
+	}
+
+	/**
+	 * Retorna a quantidade de palavras do índice.
+	 *
+	 * @return quantidade de palavras
+	 */
+	public int size(){
+		return wordCount;
+	}
+
+	/**
+	 * Retorna a palavra com o identificador informado.
+	 *
+	 * @param id identificador da palavra, entre 0 e {@link #size()} - 1
+	 * @return palavra
+	 */
+	public String getWord(int id){
+		int start = wordOffsets.get(id);
+		int end = wordOffsets.get(id + 1);
+		char[] word = new char[end - start];
+		for(int i = 0; i < word.length; i++)
+			word[i] = chars.get(start + i);
+		return new String(word);
+	}
+
+	/**
+	 * Verifica se a palavra está presente no índice.
+	 *
+	 * @param word palavra procurada
+	 * @return true caso a palavra esteja presente
+	 */
+	public boolean contains(String word){
+		if(word == null)
+			return false;
+		ContainsCollector collector = new ContainsCollector();
+		search(word, 0, collector);
+		return collector.found;
+	}
+
+	/**
+	 * Retorna uma visão imutável das palavras do índice como um conjunto. As palavras são lidas do arquivo mapeado
+	 * somente durante a iteração.
+	 *
+	 * @return conjunto das palavras do índice
+	 */
+	public Set<String> asSet(){
+		return new AbstractSet<String>(){
+			@Override
+			public boolean contains(Object word){
+				return word instanceof String && MappedWordIndex.this.contains((String) word);
+			}
+
+			@Override
+			public Iterator<String> iterator(){
+				return new Iterator<String>(){
+					private int next;
+
+					@Override
+					public boolean hasNext(){
+						return next < wordCount;
+					}
+
+					@Override
+					public String next(){
+						if(next >= wordCount)
+							throw new NoSuchElementException();
+						return getWord(next++);
+					}
+				};
+			}
+
+			@Override
+			public int size(){
+				return wordCount;
+			}
+		};
+	}
+
+	/**
+	 * Busca as palavras do índice cuja distância de Levenshtein para a keyword é igual ou inferior ao threshold.
+	 *
+	 * @param keyword palavra cujos similares deseja-se encontrar
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param result coleção que receberá as palavras encontradas
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public void search(String keyword, int threshold, Collection<String> result) throws IllegalArgumentException{
+		if(keyword == null || result == null)
+			throw new IllegalArgumentException("Os parâmetros fornecidos não podem ser nulos.");
+		if(threshold < 0)
+			throw new IllegalArgumentException("O threshold informado deve ser positivo.");
+		if(wordCount == 0)
+			return;
+
+		LevenshteinPattern pattern = new LevenshteinPattern(keyword);
+		char[] word = new char[16];
+		int[] pending = new int[16];
+		int pendingCount = 0;
+		pending[pendingCount++] = 0;
+		int visited = 0;
+		while(pendingCount > 0){
+			QueryCancellation.check(visited++);
+			int node = pending[--pendingCount];
+			int start = wordOffsets.get(node);
+			int length = wordOffsets.get(node + 1) - start;
+			word = read(start, length, word);
+
+			int firstEdge = firstEdges.get(node);
+			int lastEdge = firstEdges.get(node + 1);
+			int largestEdge = lastEdge > firstEdge ? edges.get(2 * (lastEdge - 1)) : 0;
+
+			// Mesmo limite da BK-tree em memória: acima de "t + maior aresta" nenhum filho pode ser visitado
+			int bound = (int) Math.min((long) threshold + largestEdge, Integer.MAX_VALUE - 1);
+			int distance = pattern.boundedDistance(word, 0, length, bound);
+			if(distance <= threshold)
+				result.add(new String(word, 0, length));
+
+			int lower = distance - threshold;
+			int upper = distance + threshold;
+			if(pendingCount + (lastEdge - firstEdge) > pending.length)
+				pending = Arrays.copyOf(pending, Math.max(pendingCount + lastEdge - firstEdge, pending.length * 2));
+			for(int edge = firstEdge; edge < lastEdge; edge++){
+				int edgeDistance = edges.get(2 * edge);
+				if(edgeDistance > upper)
+					break;
+				if(edgeDistance >= lower)
+					pending[pendingCount++] = edges.get(2 * edge + 1);
+			}
+		}
+	}
+
+	/**
+	 * Busca as "k" palavras do índice mais próximas da keyword, utilizando a distância da pior palavra entre as "k"
+	 * melhores já encontradas como threshold da busca.
+	 *
+	 * @param keyword palavra cujas vizinhas deseja-se encontrar
+	 * @param k quantidade máxima de palavras retornadas
+	 * @return palavras mais próximas, ordenadas pela distância e, em caso de empate, alfabeticamente
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	public List<WordDistance> nearest(String keyword, int k) throws IllegalArgumentException{
+		if(keyword == null)
+			throw new IllegalArgumentException("A keyword informada é inválida.");
+		if(k <= 0)
+			throw new IllegalArgumentException("A quantidade de palavras informada deve ser positiva.");
+
+		NearestWords nearest = new NearestWords(k);
+		if(wordCount == 0)
+			return nearest.toList();
+
+		LevenshteinPattern pattern = new LevenshteinPattern(keyword);
+		char[] word = new char[16];
+		// Nós pendentes e o limite inferior da distância de cada um deles, obtido pela desigualdade triangular
+		int[] pendingNodes = new int[16];
+		int[] pendingBounds = new int[16];
+		int pendingCount = 0;
+		pendingNodes[pendingCount++] = 0;
+		int visited = 0;
+		while(pendingCount > 0){
+			QueryCancellation.check(visited++);
+			int node = pendingNodes[--pendingCount];
+			int radius = nearest.radius();
+			if(pendingBounds[pendingCount] > radius)
+				continue;
+
+			int start = wordOffsets.get(node);
+			int length = wordOffsets.get(node + 1) - start;
+			word = read(start, length, word);
+			int firstEdge = firstEdges.get(node);
+			int lastEdge = firstEdges.get(node + 1);
+			int largestEdge = lastEdge > firstEdge ? edges.get(2 * (lastEdge - 1)) : 0;
+
+			int bound = (int) Math.min((long) radius + largestEdge, Math.max(keyword.length(), length));
+			int distance = pattern.boundedDistance(word, 0, length, bound);
+			if(distance <= radius){
+				nearest.offer(new String(word, 0, length), distance);
+				radius = nearest.radius();
+			}
+			if(distance > bound)
+				continue;
+
+			// Filhos empilhados do mais distante para o mais próximo da aresta "d", que será visitado primeiro
+			if(pendingCount + (lastEdge - firstEdge) > pendingNodes.length){
+				int capacity = Math.max(pendingCount + lastEdge - firstEdge, pendingNodes.length * 2);
+				pendingNodes = Arrays.copyOf(pendingNodes, capacity);
+				pendingBounds = Arrays.copyOf(pendingBounds, capacity);
+			}
+			// As arestas estão ordenadas: a mais distante de "d" está sempre em uma das extremidades do intervalo restante
+			int left = firstEdge;
+			int right = lastEdge - 1;
+			while(left <= right){
+				int leftBound = Math.abs(edges.get(2 * left) - distance);
+				int rightBound = Math.abs(edges.get(2 * right) - distance);
+				int edge = leftBound > rightBound ? left++ : right--;
+				int lowerBound = Math.max(leftBound, rightBound);
+				if(lowerBound > radius)
+					continue;
+				pendingNodes[pendingCount] = edges.get(2 * edge + 1);
+				pendingBounds[pendingCount++] = lowerBound;
+			}
+		}
+		return nearest.toList();
+	}
+
+	/**
+	 * Copia os caracteres de uma palavra do arquivo mapeado para o buffer informado, ampliando-o quando necessário.
+	 */
+	private char[] read(int start, int length, char[] buffer){
+		if(length > buffer.length)
+			buffer = new char[Math.max(length, buffer.length * 2)];
+		for(int i = 0; i < length; i++)
+			buffer[i] = chars.get(start + i);
+		return buffer;
+	}
+
+	private static ByteBuffer section(ByteBuffer buffer, int position, int length){
+		ByteBuffer view = buffer.duplicate();
+		view.position(position);
+		view.limit(position + length);
+		return view.slice();
+	}
+
+	private static int align(int bytes){
+		return (bytes + 3) & ~3;
+	}
+
+	private static long align(long bytes){
+		return (bytes + 3) & ~3L;
+	}
+
+	private static void insertEdge(int[][] distances, int[][] children, int[] counts, int node, int index, int distance,
+			int child){
+		int count = counts[node];
+		if(distances[node] == null){
+			distances[node] = new int[2];
+			children[node] = new int[2];
+		}else if(count == distances[node].length){
+			distances[node] = Arrays.copyOf(distances[node], count * 2);
+			children[node] = Arrays.copyOf(children[node], count * 2);
+		}
+		System.arraycopy(distances[node], index, distances[node], index + 1, count - index);
+		System.arraycopy(children[node], index, children[node], index + 1, count - index);
+		distances[node][index] = distance;
+		children[node][index] = child;
+		counts[node] = count + 1;
+	}
+
+	/**
+	 * Gravação sequencial das seções do arquivo através de um buffer, calculando o CRC32 do conteúdo gravado.
+	 */
+	private static final class SectionWriter {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+		private final CRC32 crc = new CRC32();
+
+		private SectionWriter(FileChannel channel, long position) throws IOException{
+			this.channel = channel;
+			channel.position(position);
+		}
+
+		private void putInt(int value) throws IOException{
+			if(buffer.remaining() < 4)
+				flush();
+			buffer.putInt(value);
+		}
+
+		private void putChar(char value) throws IOException{
+			if(buffer.remaining() < 2)
+				flush();
+			buffer.putChar(value);
+		}
+
+		private void flush() throws IOException{
+			buffer.flip();
+			crc.update(buffer.duplicate());
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+			buffer.clear();
+		}
+
+		private long finish() throws IOException{
+			flush();
+			return crc.getValue();
+		}
+	}
+
+	/**
+	 * Coleção auxiliar que apenas registra se alguma palavra foi encontrada.
+	 */
+	private static final class ContainsCollector extends AbstractCollection<String> {
+		private boolean found;
+
+		@Override
+		public boolean add(String word){
+			found = true;
+			return true;
+		}
+
+		@Override
+		public Iterator<String> iterator(){
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int size(){
+			return found ? 1 : 0;
+		}
+	}
+
+}
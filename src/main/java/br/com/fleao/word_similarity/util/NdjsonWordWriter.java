@@ -0,0 +1,97 @@
+package br.com.fleao.word_similarity.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * <p>
+ * Coleção de escrita que grava cada palavra adicionada como uma linha NDJSON (uma String JSON por linha) no stream
+ * informado, permitindo que buscas e listagens enviem seus resultados à medida que são encontrados, sem acumulá-los em
+ * memória.
+ * </p>
+ * <p>
+ * A primeira palavra é enviada imediatamente, reduzindo o tempo até o primeiro byte da resposta; as demais são
+ * acumuladas no buffer do gerador JSON e enviadas a cada {@link #FLUSH_INTERVAL} palavras. Falhas de escrita, como a
+ * desconexão do cliente, são propagadas como {@link UncheckedIOException}, interrompendo a busca que está produzindo as
+ * palavras. A coleção não pode ser lida e não deve ser utilizada por mais de uma thread ao mesmo tempo.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class NdjsonWordWriter extends AbstractCollection<String> {
+
+	/**
+	 * Quantidade de palavras escritas entre dois envios do buffer.
+	 */
+	public static final int FLUSH_INTERVAL = 1024;
+
+	private static final JsonFactory FACTORY = new JsonFactory();
+
+	private final JsonGenerator generator;
+	private int count;
+
+	/**
+	 * @param output stream de destino, que não é fechado pelo escritor
+	 * @throws IOException caso o gerador JSON não possa ser criado
+	 */
+	public NdjsonWordWriter(OutputStream output) throws IOException{
+		if(output == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		generator = FACTORY.createGenerator(output, JsonEncoding.UTF8);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		// Cada palavra é seguida somente pela quebra de linha, sem o separador padrão entre valores
+		generator.setRootValueSeparator(null);
+	}
+
+	/**
+	 * Escreve a palavra como uma linha NDJSON.
+	 *
+	 * @throws UncheckedIOException caso a palavra não possa ser escrita
+	 */
+	@Override
+	public boolean add(String word){
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		try{
+			generator.writeString(word);
+			generator.writeRaw('\n');
+			count++;
+			if(count == 1 || count % FLUSH_INTERVAL == 0)
+				generator.flush();
+		}catch(IOException e){
+			throw new UncheckedIOException(e);
+		}
+		return true;
+	}
+
+	/**
+	 * Envia as palavras ainda mantidas no buffer.
+	 *
+	 * @throws IOException caso as palavras não possam ser escritas
+	 */
+	public void flush() throws IOException{
+		generator.flush();
+	}
+
+	/**
+	 * Retorna a quantidade de palavras escritas.
+	 */
+	@Override
+	public int size(){
+		return count;
+	}
+
+	@Override
+	public Iterator<String> iterator(){
+		throw new UnsupportedOperationException("As palavras escritas não podem ser lidas.");
+	}
+
+}
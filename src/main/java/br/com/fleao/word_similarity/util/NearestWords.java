@@ -0,0 +1,67 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * <p>
+ * Heap de máximo limitado às "k" palavras mais próximas encontradas durante uma busca.
+ * </p>
+ * <p>
+ * Enquanto o heap não está cheio qualquer palavra é aceita; a partir daí a pior palavra do heap define o raio da busca
+ * ({@link #radius()}), que só diminui e é utilizado como threshold pelos cálculos limitados de distância e pela poda
+ * dos índices. Empates são resolvidos pela ordem alfabética, de forma que o resultado não depende da ordem em que as
+ * palavras são visitadas.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+final class NearestWords {
+
+	private final int k;
+	private final PriorityQueue<WordDistance> heap;
+
+	/**
+	 * @param k quantidade máxima de palavras mantidas
+	 */
+	NearestWords(int k){
+		this.k = k;
+		this.heap = new PriorityQueue<WordDistance>(k, Collections.<WordDistance>reverseOrder());
+	}
+
+	/**
+	 * Distância máxima que uma palavra ainda pode ter para entrar no heap, ou {@link Integer#MAX_VALUE} enquanto ele
+	 * não estiver cheio.
+	 */
+	int radius(){
+		return heap.size() < k ? Integer.MAX_VALUE : heap.peek().getDistance();
+	}
+
+	/**
+	 * Oferece uma palavra ao heap, substituindo a pior palavra caso ele esteja cheio e a nova palavra seja melhor.
+	 */
+	void offer(String word, int distance){
+		if(heap.size() < k){
+			heap.add(new WordDistance(word, distance));
+			return;
+		}
+		WordDistance worst = heap.peek();
+		if(distance < worst.getDistance() || (distance == worst.getDistance() && word.compareTo(worst.getWord()) < 0)){
+			heap.poll();
+			heap.add(new WordDistance(word, distance));
+		}
+	}
+
+	/**
+	 * Palavras mantidas, ordenadas da mais próxima para a mais distante.
+	 */
+	List<WordDistance> toList(){
+		List<WordDistance> result = new ArrayList<WordDistance>(heap);
+		Collections.sort(result);
+		return result;
+	}
+
+}
@@ -0,0 +1,388 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Índice invertido de q-gramas (substrings de tamanho "q") utilizado como gerador de candidatos para a busca de
+ * palavras similares.
+ * </p>
+ * <p>
+ * Para cada q-grama o índice mantém uma lista primitiva com as ordens das palavras que o contêm (uma entrada por
+ * ocorrência). A busca aplica o lema de contagem de q-gramas: se a distância entre as palavras "a" e "b" é no máximo
+ * "k", elas compartilham ao menos {@code max(|a|,|b|) - q + 1 - k*q} q-gramas. Somente as palavras que atingem essa
+ * contagem são verificadas com o cálculo exato da distância, de forma que o custo da busca depende da quantidade de
+ * entradas das listas consultadas e não do tamanho do dicionário. O filtro é mais efetivo justamente para keywords
+ * longas, situação em que a BK-tree perde capacidade de descarte.
+ * </p>
+ * <p>
+ * Quando o limite da contagem não é positivo para um determinado tamanho de palavra o filtro não descarta nada; nesses
+ * casos todas as palavras daquele tamanho, mantidas em listas separadas por tamanho, são verificadas. Assim como os
+ * demais índices, admite um único escritor concorrente com qualquer quantidade de leitores.
+ * </p>
+ * <p>
+ * A remoção de uma palavra marca a sua ordem nas listas dos seus q-gramas e na lista do seu tamanho
+ * ({@link IntPostingList#remove(int)}), de forma que as buscas deixam de contá-la sem que nenhuma lista seja copiada.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public class QGramIndex implements SimilarityIndex {
+
+	private final int q;
+	// Q-grama (caracteres empacotados em um long) -> ordens das palavras, uma entrada por ocorrência
+	private final Map<Long, IntPostingList> grams = new ConcurrentHashMap<Long, IntPostingList>();
+	// Tamanho da palavra -> ordens das palavras com aquele tamanho
+	private final Map<Integer, IntPostingList> lengths = new ConcurrentHashMap<Integer, IntPostingList>();
+	// Palavras indexadas pela ordem de inserção; as posições das palavras removidas são nulas
+	private volatile String[] words = new String[16];
+	// Quantidade de ordens atribuídas, incluindo as das palavras removidas
+	private volatile int size;
+	private volatile int removed;
+
+	/**
+	 * @param q tamanho dos q-gramas, entre 1 e 4
+	 * @throws IllegalArgumentException caso o tamanho informado seja inválido
+	 */
+	public QGramIndex(int q) throws IllegalArgumentException{
+		if(q < 1 || q > 4)
+			throw new IllegalArgumentException("O tamanho dos q-gramas deve estar entre 1 e 4.");
+		this.q = q;
+	}
+
+	/**
+	 * Retorna o tamanho dos q-gramas do índice.
+	 *
+	 * @return tamanho dos q-gramas
+	 */
+	public int getQ(){
+		return q;
+	}
+
+	/**
+	 * Calcula a quantidade mínima de q-gramas que duas palavras com os tamanhos informados devem compartilhar para que
+	 * sua distância seja igual ou inferior ao threshold. Valores menores ou iguais a zero indicam que o filtro de
+	 * contagem não é capaz de descartar nenhuma palavra.
+	 *
+	 * @param keywordLength tamanho da keyword
+	 * @param wordLength tamanho da palavra armazenada
+	 * @param threshold distância máxima
+	 * @return quantidade mínima de q-gramas em comum
+	 */
+	public int minimumSharedGrams(int keywordLength, int wordLength, int threshold){
+		return Math.max(keywordLength, wordLength) - q + 1 - threshold * q;
+	}
+
+	@Override
+	public boolean add(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		// A própria busca com threshold 0 identifica se a palavra já está armazenada
+		ContainsCollector existing = new ContainsCollector();
+		search(word, 0, size, existing);
+		if(existing.found)
+			return false;
+
+		int order = size;
+		String[] current = words;
+		if(order == current.length)
+			current = Arrays.copyOf(current, current.length * 2);
+		current[order] = word;
+		words = current;
+
+		for(long gram : extractGrams(word)){
+			IntPostingList postings = grams.get(gram);
+			if(postings == null){
+				postings = new IntPostingList();
+				grams.put(gram, postings);
+			}
+			postings.add(order);
+		}
+
+		IntPostingList sameLength = lengths.get(word.length());
+		if(sameLength == null){
+			sameLength = new IntPostingList();
+			lengths.put(word.length(), sameLength);
+		}
+		sameLength.add(order);
+
+		size = order + 1;
+		return true;
+	}
+
+	@Override
+	public boolean remove(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		int order = find(word);
+		if(order < 0)
+			return false;
+		for(long gram : extractGrams(word))
+			grams.get(gram).remove(order);
+		lengths.get(word.length()).remove(order);
+		words[order] = null;
+		removed++;
+		return true;
+	}
+
+	/**
+	 * Procura a ordem de uma palavra não removida, percorrendo a menor das listas dos seus q-gramas, ou a lista do seu
+	 * tamanho caso ela seja menor que "q".
+	 *
+	 * @return ordem da palavra, ou -1 caso ela não esteja presente
+	 */
+	private int find(String word){
+		IntPostingList smallest = lengths.get(word.length());
+		for(long gram : extractGrams(word)){
+			IntPostingList postings = grams.get(gram);
+			if(postings == null)
+				return -1;
+			if(smallest == null || postings.size() < smallest.size())
+				smallest = postings;
+		}
+		if(smallest == null)
+			return -1;
+
+		int count = smallest.size();
+		int[] ids = smallest.values();
+		String[] stored = words;
+		for(int i = 0; i < count; i++){
+			if(ids[i] >= 0 && word.equals(stored[ids[i]]))
+				return ids[i];
+		}
+		return -1;
+	}
+
+	@Override
+	public void search(String keyword, int threshold, int visibleCount, Collection<String> result)
+			throws IllegalArgumentException{
+		search(keyword, threshold, visibleCount, result, null);
+	}
+
+	@Override
+	public void search(String keyword, int threshold, int visibleCount, Collection<String> result,
+			SearchCounters counters) throws IllegalArgumentException{
+		if(keyword == null || result == null)
+			throw new IllegalArgumentException("Os parâmetros fornecidos não podem ser nulos.");
+		if(threshold < 0)
+			throw new IllegalArgumentException("O threshold informado deve ser positivo.");
+
+		int keywordLength = keyword.length();
+		String[] stored = words;
+		LevenshteinPattern pattern = new LevenshteinPattern(keyword);
+
+		// Contagem de q-gramas em comum (interseção de multiconjuntos) entre a keyword e cada palavra das listas
+		IntCounter shared = new IntCounter();
+		long[] keywordGrams = extractGrams(keyword);
+		Arrays.sort(keywordGrams);
+		for(int start = 0; start < keywordGrams.length; ){
+			int end = start;
+			while(end < keywordGrams.length && keywordGrams[end] == keywordGrams[start])
+				end++;
+			int keywordOccurrences = end - start;
+
+			IntPostingList postings = grams.get(keywordGrams[start]);
+			if(postings != null){
+				int count = postings.size();
+				int[] ids = postings.values();
+				// As ordens são inseridas em ordem crescente e cada ocorrência gera uma entrada consecutiva
+				for(int i = 0; i < count; ){
+					int id = ids[i];
+					// Ordens removidas são negativas
+					if(id < 0){
+						i++;
+						continue;
+					}
+					if(id >= visibleCount)
+						break;
+					int occurrences = 0;
+					while(i < count && ids[i] == id){
+						occurrences++;
+						i++;
+					}
+					shared.add(id, Math.min(keywordOccurrences, occurrences));
+				}
+			}
+			start = end;
+		}
+
+		// Candidatos que atingem a contagem mínima para o seu tamanho
+		long examined = 0;
+		int verified = 0;
+		for(int slot = 0; slot < shared.capacity(); slot++){
+			QueryCancellation.check(slot);
+			int id = shared.keyAt(slot);
+			if(id < 0)
+				continue;
+			String word = stored[id];
+			// Palavra removida depois da leitura das listas
+			if(word == null)
+				continue;
+			examined++;
+			int length = word.length();
+			int required = minimumSharedGrams(keywordLength, length, threshold);
+			if(Math.abs(length - keywordLength) > threshold || required <= 0)
+				continue;
+			if(shared.valueAt(slot) < required)
+				continue;
+			verified++;
+			if(pattern.boundedDistance(word, threshold) <= threshold)
+				result.add(word);
+		}
+
+		// Tamanhos para os quais o filtro não descarta nada: todas as palavras do tamanho são verificadas
+		for(int length = Math.max(0, keywordLength - threshold); length <= keywordLength + threshold; length++){
+			if(minimumSharedGrams(keywordLength, length, threshold) > 0)
+				continue;
+			IntPostingList sameLength = lengths.get(length);
+			if(sameLength == null)
+				continue;
+			int count = sameLength.size();
+			int[] ids = sameLength.values();
+			for(int i = 0; i < count; i++){
+				QueryCancellation.check(i);
+				if(ids[i] < 0)
+					continue;
+				if(ids[i] >= visibleCount)
+					break;
+				String word = stored[ids[i]];
+				if(word == null)
+					continue;
+				examined++;
+				verified++;
+				if(pattern.boundedDistance(word, threshold) <= threshold)
+					result.add(word);
+			}
+		}
+		if(counters != null)
+			counters.add(examined, verified);
+	}
+
+	@Override
+	public int size(){
+		return size - removed;
+	}
+
+	/**
+	 * Soma o tamanho das listas dos q-gramas distintos da keyword, ou seja, a quantidade de entradas que uma busca
+	 * percorreria na etapa de contagem. Utilizado para estimar o custo de uma busca sem executá-la.
+	 *
+	 * @param keyword keyword da busca
+	 * @return quantidade de entradas das listas dos q-gramas da keyword
+	 */
+	public long countPostings(String keyword){
+		if(keyword == null)
+			throw new IllegalArgumentException("A keyword informada é inválida.");
+		long[] keywordGrams = extractGrams(keyword);
+		Arrays.sort(keywordGrams);
+		long count = 0;
+		for(int i = 0; i < keywordGrams.length; i++){
+			if(i > 0 && keywordGrams[i] == keywordGrams[i - 1])
+				continue;
+			IntPostingList postings = grams.get(keywordGrams[i]);
+			if(postings != null)
+				count += postings.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Extrai os q-gramas da palavra, com repetição, empacotando os caracteres de cada um em um long.
+	 */
+	private long[] extractGrams(String word){
+		int count = Math.max(0, word.length() - q + 1);
+		long[] result = new long[count];
+		for(int i = 0; i < count; i++){
+			long gram = 0;
+			for(int j = 0; j < q; j++)
+				gram = (gram << 16) | word.charAt(i + j);
+			result[i] = gram;
+		}
+		return result;
+	}
+
+	/**
+	 * Coleção auxiliar que apenas registra se alguma palavra foi encontrada.
+	 */
+	private static final class ContainsCollector extends AbstractCollection<String> {
+		private boolean found;
+
+		@Override
+		public boolean add(String word){
+			found = true;
+			return true;
+		}
+
+		@Override
+		public Iterator<String> iterator(){
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int size(){
+			return found ? 1 : 0;
+		}
+	}
+
+	/**
+	 * Mapa primitivo (endereçamento aberto) de ordem de palavra para contagem, utilizado durante uma busca.
+	 */
+	private static final class IntCounter {
+		private int[] keys = newKeys(64);
+		private int[] values = new int[64];
+		private int used;
+
+		private static int[] newKeys(int capacity){
+			int[] keys = new int[capacity];
+			Arrays.fill(keys, -1);
+			return keys;
+		}
+
+		private void add(int key, int amount){
+			if(used * 2 >= keys.length)
+				grow();
+			int mask = keys.length - 1;
+			int slot = (key * 0x9E3779B9) >>> 1 & mask;
+			while(keys[slot] >= 0 && keys[slot] != key)
+				slot = (slot + 1) & mask;
+			if(keys[slot] < 0){
+				keys[slot] = key;
+				used++;
+			}
+			values[slot] += amount;
+		}
+
+		private void grow(){
+			int[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = newKeys(oldKeys.length * 2);
+			values = new int[oldKeys.length * 2];
+			used = 0;
+			for(int i = 0; i < oldKeys.length; i++){
+				if(oldKeys[i] >= 0)
+					add(oldKeys[i], oldValues[i]);
+			}
+		}
+
+		private int capacity(){
+			return keys.length;
+		}
+
+		private int keyAt(int slot){
+			return keys[slot];
+		}
+
+		private int valueAt(int slot){
+			return values[slot];
+		}
+	}
+
+}
@@ -0,0 +1,53 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * <p>
+ * Cancelamento cooperativo das buscas. As buscas não recebem nenhum parâmetro de cancelamento: quem deseja interromper
+ * uma busca em andamento interrompe a thread que a executa ({@link Thread#interrupt()}), por exemplo através de
+ * {@link java.util.concurrent.Future#cancel(boolean)}, e os laços das buscas verificam periodicamente o estado de
+ * interrupção da thread corrente, encerrando a busca com uma {@link CancellationException}.
+ * </p>
+ * <p>
+ * A verificação é feita a cada {@link #CHECK_INTERVAL} iterações, de forma que seu custo é desprezível em relação ao
+ * cálculo das distâncias. O estado de interrupção é mantido, cabendo a quem executa a busca (normalmente o pool de
+ * threads) limpá-lo.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class QueryCancellation {
+
+	/**
+	 * Quantidade de iterações entre duas verificações, potência de 2.
+	 */
+	public static final int CHECK_INTERVAL = 1024;
+	private static final int CHECK_MASK = CHECK_INTERVAL - 1;
+
+	private QueryCancellation(){
+	}
+
+	/**
+	 * Encerra a busca corrente caso a thread tenha sido interrompida.
+	 *
+	 * @throws CancellationException caso a thread corrente tenha sido interrompida
+	 */
+	public static void check() throws CancellationException{
+		if(Thread.currentThread().isInterrupted())
+			throw new CancellationException("A busca foi cancelada.");
+	}
+
+	/**
+	 * Executa a verificação somente a cada {@link #CHECK_INTERVAL} iterações.
+	 *
+	 * @param iteration contador de iterações do laço da busca
+	 * @throws CancellationException caso a thread corrente tenha sido interrompida
+	 */
+	static void check(int iteration) throws CancellationException{
+		if((iteration & CHECK_MASK) == 0)
+			check();
+	}
+
+}
@@ -0,0 +1,81 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Contadores acumulados das varreduras realizadas em um {@link LengthBucketIndex}, indicando quantas palavras cada
+ * filtro descartou antes do cálculo da distância.
+ * </p>
+ * <p>
+ * Os contadores são atualizados uma única vez por consulta ou bloco varrido, e nunca por palavra, podendo ser lidos a
+ * qualquer momento por qualquer thread. Nas buscas em lote, cada par formado por uma palavra e uma keyword distinta do
+ * lote é contabilizado como uma palavra percorrida.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class ScanStatistics {
+
+	private final LongAdder queries = new LongAdder();
+	private final LongAdder rejectedByLength = new LongAdder();
+	private final LongAdder scanned = new LongAdder();
+	private final LongAdder rejectedBySignature = new LongAdder();
+	private final LongAdder verified = new LongAdder();
+	private final LongAdder matched = new LongAdder();
+
+	void recordQuery(long lengthRejections){
+		recordQueries(1, lengthRejections);
+	}
+
+	void recordQueries(long count, long lengthRejections){
+		queries.add(count);
+		rejectedByLength.add(lengthRejections);
+	}
+
+	void recordScan(long scannedWords, long signatureRejections, long verifiedWords, long matchedWords){
+		scanned.add(scannedWords);
+		rejectedBySignature.add(signatureRejections);
+		verified.add(verifiedWords);
+		matched.add(matchedWords);
+	}
+
+	/** @return quantidade de consultas realizadas */
+	public long getQueries(){
+		return queries.sum();
+	}
+
+	/** @return palavras descartadas por estarem em tamanhos fora do intervalo da keyword +/- threshold */
+	public long getRejectedByLength(){
+		return rejectedByLength.sum();
+	}
+
+	/** @return palavras percorridas nos tamanhos visitados */
+	public long getScanned(){
+		return scanned.sum();
+	}
+
+	/** @return palavras descartadas pelo limite inferior da assinatura de caracteres */
+	public long getRejectedBySignature(){
+		return rejectedBySignature.sum();
+	}
+
+	/** @return palavras cuja distância foi efetivamente calculada */
+	public long getVerified(){
+		return verified.sum();
+	}
+
+	/** @return palavras similares encontradas */
+	public long getMatched(){
+		return matched.sum();
+	}
+
+	@Override
+	public String toString(){
+		return "ScanStatistics[queries=" + getQueries() + ", rejectedByLength=" + getRejectedByLength() + ", scanned="
+				+ getScanned() + ", rejectedBySignature=" + getRejectedBySignature() + ", verified=" + getVerified()
+				+ ", matched=" + getMatched() + "]";
+	}
+
+}
@@ -0,0 +1,63 @@
+package br.com.fleao.word_similarity.util;
+
+/**
+ * <p>
+ * Contadores do trabalho realizado por uma única busca, utilizados para explicar a execução de uma consulta.
+ * </p>
+ * <p>
+ * As buscas acumulam os valores em variáveis locais e os somam aos contadores uma única vez ao final (ou ao final de
+ * cada bloco, nas varreduras paralelas), de forma que informar contadores não tem custo por palavra. Diferente de
+ * {@link ScanStatistics}, que acumula os totais de todas as varreduras, uma instância deve ser criada por busca.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class SearchCounters {
+
+	private long examined;
+	private long verified;
+	private long cells;
+
+	/**
+	 * Soma os valores informados aos contadores. Pode ser invocado por várias threads.
+	 *
+	 * @param examined palavras (ou nós do índice) alcançadas pela busca
+	 * @param verified cálculos de distância realizados
+	 */
+	public synchronized void add(long examined, long verified){
+		this.examined += examined;
+		this.verified += verified;
+	}
+
+	/**
+	 * Soma a quantidade informada de células da matriz de distância calculadas. Pode ser invocado por várias threads.
+	 *
+	 * @param cells células calculadas
+	 * @see LevenshteinDistanceAlgorithm#getComputedCells()
+	 */
+	public synchronized void addCells(long cells){
+		this.cells += cells;
+	}
+
+	/** @return palavras (ou nós do índice) alcançadas pela busca, antes de qualquer filtro */
+	public synchronized long getExamined(){
+		return examined;
+	}
+
+	/** @return cálculos de distância realizados */
+	public synchronized long getVerified(){
+		return verified;
+	}
+
+	/** @return células da matriz de distância calculadas */
+	public synchronized long getCells(){
+		return cells;
+	}
+
+	@Override
+	public synchronized String toString(){
+		return "SearchCounters[examined=" + examined + ", verified=" + verified + ", cells=" + cells + "]";
+	}
+
+}
@@ -0,0 +1,78 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.Collection;
+
+/**
+ * <p>
+ * Índice de palavras capaz de responder buscas por palavras similares de acordo com a distância de Levenshtein.
+ * </p>
+ * <p>
+ * As implementações admitem um único escritor concorrente com qualquer quantidade de leitores: as inserções e
+ * remoções devem ser serializadas por quem utiliza o índice, enquanto as buscas podem ser realizadas por qualquer
+ * thread sem bloqueio.
+ * Cada palavra recebe, no momento da inserção, um número de ordem sequencial; as buscas podem ser restritas às
+ * primeiras palavras inseridas, de forma a refletir exatamente as palavras visíveis em um {@link WordSnapshot}.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public interface SimilarityIndex {
+
+	/**
+	 * Adiciona uma palavra ao índice. Caso a palavra já esteja presente ela não será duplicada.
+	 *
+	 * @param word palavra a ser adicionada
+	 * @return true caso a palavra tenha sido adicionada, false caso ela já estivesse presente no índice
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 */
+	boolean add(String word) throws IllegalArgumentException;
+
+	/**
+	 * Remove uma palavra do índice de forma incremental, sem reconstruí-lo. As estruturas ocupadas pela palavra podem
+	 * continuar alocadas até que o índice seja reconstruído, mas a palavra deixa de ser retornada pelas buscas. Caso
+	 * seja adicionada novamente, a palavra recebe um novo número de ordem.
+	 *
+	 * @param word palavra a ser removida
+	 * @return true caso a palavra tenha sido removida, false caso ela não estivesse presente no índice
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 */
+	boolean remove(String word) throws IllegalArgumentException;
+
+	/**
+	 * Busca as palavras cuja distância de Levenshtein para a keyword é igual ou inferior ao threshold informado,
+	 * considerando somente as primeiras palavras inseridas no índice.
+	 *
+	 * @param keyword palavra cujos similares deseja-se encontrar
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param visibleCount quantidade de palavras, em ordem de inserção, consideradas na busca
+	 * @param result coleção que receberá as palavras encontradas
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	void search(String keyword, int threshold, int visibleCount, Collection<String> result) throws IllegalArgumentException;
+
+	/**
+	 * Busca as palavras similares como {@link #search(String, int, int, Collection)}, somando aos contadores
+	 * informados o trabalho realizado pela busca. Implementações que não contabilizam o trabalho deixam os contadores
+	 * inalterados.
+	 *
+	 * @param keyword palavra cujos similares deseja-se encontrar
+	 * @param threshold distância máxima para considerar duas palavras como similares
+	 * @param visibleCount quantidade de palavras, em ordem de inserção, consideradas na busca
+	 * @param result coleção que receberá as palavras encontradas
+	 * @param counters contadores da busca, ou null
+	 * @throws IllegalArgumentException caso algum dos parâmetros informados seja inválido
+	 */
+	default void search(String keyword, int threshold, int visibleCount, Collection<String> result,
+			SearchCounters counters) throws IllegalArgumentException{
+		search(keyword, threshold, visibleCount, result);
+	}
+
+	/**
+	 * Retorna a quantidade de palavras armazenadas no índice, descontando as removidas.
+	 *
+	 * @return quantidade de palavras
+	 */
+	int size();
+
+}
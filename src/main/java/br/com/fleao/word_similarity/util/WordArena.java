@@ -0,0 +1,332 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Armazenamento compacto de palavras sem duplicação: os caracteres de todas as palavras são copiados para páginas
+ * contíguas de {@code char} e cada palavra é identificada pela sua ordem de inserção.
+ * </p>
+ * <p>
+ * Para cada palavra a arena guarda somente um {@code long} com a posição global do primeiro caractere e o tamanho da
+ * palavra; a deduplicação utiliza uma tabela hash de endereçamento aberto com os identificadores das palavras. Não
+ * existe nenhum objeto por palavra: comparado a um conjunto de Strings, que custa dezenas de bytes de cabeçalhos e
+ * nós de mapa por palavra, a ocupação de memória se resume aos caracteres e a cerca de 16 bytes por palavra, e o
+ * coletor de lixo percorre apenas alguns arrays grandes. Os algoritmos de distância leem os caracteres diretamente das
+ * páginas; Strings só são criadas quando uma palavra precisa ser devolvida ({@link #get(int)}).
+ * </p>
+ * <p>
+ * Uma palavra nunca é dividida entre duas páginas. A página corrente cresce por cópia até {@link #PAGE_SIZE}
+ * caracteres e as páginas, posições e a tabela hash são publicadas através de referências voláteis, de forma que a
+ * arena admite um único escritor concorrente com qualquer quantidade de leitores. Um leitor deve obter o identificador
+ * de uma palavra (ou a quantidade de palavras visíveis) através de uma leitura volátil realizada após a inserção, como
+ * {@link #size()} ou o snapshot publicado por um {@link WordStore}.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class WordArena {
+
+	static final int PAGE_BITS = 20;
+	/**
+	 * Tamanho máximo de uma página e, consequentemente, de uma palavra, em caracteres.
+	 */
+	public static final int PAGE_SIZE = 1 << PAGE_BITS;
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+	// A posição global do primeiro caractere é um int positivo: no máximo 2^31 caracteres
+	private static final int MAX_PAGES = 1 << (31 - PAGE_BITS);
+	private static final int INITIAL_PAGE_SIZE = 256;
+	private static final int EMPTY = -1;
+
+	private volatile char[][] pages = new char[0][];
+	// Posição livre na última página
+	private int pagePosition;
+	// Posição global do primeiro caractere (32 bits superiores) e tamanho da palavra (32 bits inferiores)
+	private volatile long[] entries = new long[16];
+	// Identificadores das palavras por hash, com sondagem linear
+	private volatile int[] table = newTable(32);
+	private volatile int size;
+	private long charCount;
+
+	/**
+	 * Adiciona uma palavra ao final da arena. Deve ser invocado somente pelo escritor.
+	 *
+	 * @param word palavra a ser adicionada
+	 * @return identificador da palavra adicionada, ou -1 caso ela já estivesse presente
+	 * @throws IllegalArgumentException caso a palavra seja nula ou maior que {@link #PAGE_SIZE}
+	 */
+	public int add(String word) throws IllegalArgumentException{
+		validate(word);
+		if(find(word) >= 0)
+			return -1;
+		return store(word);
+	}
+
+	/**
+	 * Adiciona uma nova ocorrência de uma palavra ao final da arena, mesmo que ela já esteja presente. Utilizado para
+	 * armazenar novamente uma palavra removida de um {@link WordStore}: a partir da inserção, {@link #find(String)}
+	 * passa a retornar o novo identificador, e a ocorrência anterior continua sendo encontrada por
+	 * {@link #find(String, int)} por leitores que não enxergam a nova. Deve ser invocado somente pelo escritor.
+	 *
+	 * @param word palavra a ser adicionada
+	 * @return identificador da nova ocorrência da palavra
+	 * @throws IllegalArgumentException caso a palavra seja nula ou maior que {@link #PAGE_SIZE}
+	 */
+	public int append(String word) throws IllegalArgumentException{
+		validate(word);
+		return store(word);
+	}
+
+	private static void validate(String word){
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		if(word.length() > PAGE_SIZE)
+			throw new IllegalArgumentException("A palavra informada excede o tamanho máximo de " + PAGE_SIZE
+					+ " caracteres.");
+	}
+
+	/**
+	 * Copia a palavra para a página corrente e a registra na tabela hash, mantendo as ocorrências anteriores.
+	 */
+	private int store(String word){
+		int length = word.length();
+		char[][] currentPages = pages;
+		int page = currentPages.length - 1;
+		if(page < 0 || pagePosition + length > PAGE_SIZE){
+			if(currentPages.length == MAX_PAGES)
+				throw new IllegalStateException("A capacidade máxima da arena de palavras foi atingida.");
+			currentPages = Arrays.copyOf(currentPages, currentPages.length + 1);
+			page = currentPages.length - 1;
+			currentPages[page] = new char[Math.max(INITIAL_PAGE_SIZE, length)];
+			pagePosition = 0;
+			pages = currentPages;
+		}else if(pagePosition + length > currentPages[page].length){
+			// A página corrente cresce por cópia; leitores com a cópia anterior enxergam todas as palavras que já viam
+			currentPages = currentPages.clone();
+			int capacity = Math.min(PAGE_SIZE, Math.max(pagePosition + length, currentPages[page].length * 2));
+			currentPages[page] = Arrays.copyOf(currentPages[page], capacity);
+			pages = currentPages;
+		}
+		int start = page << PAGE_BITS | pagePosition;
+		word.getChars(0, length, currentPages[page], pagePosition);
+		pagePosition += length;
+		charCount += length;
+
+		int id = size;
+		long[] currentEntries = entries;
+		if(id == currentEntries.length)
+			currentEntries = Arrays.copyOf(currentEntries, currentEntries.length * 2);
+		currentEntries[id] = (long) start << 32 | length;
+		entries = currentEntries;
+
+		int[] currentTable = table;
+		if((id + 1) * 2 > currentTable.length)
+			currentTable = rehash(currentTable, currentTable.length * 2);
+		insert(currentTable, hash(word), id);
+		table = currentTable;
+
+		size = id + 1;
+		return id;
+	}
+
+	/**
+	 * Procura o identificador de uma palavra. Caso a palavra tenha sido adicionada mais de uma vez
+	 * ({@link #append(String)}), retorna o identificador da ocorrência mais recente.
+	 *
+	 * @param word palavra procurada
+	 * @return identificador da palavra, ou -1 caso ela não esteja presente
+	 */
+	public int find(String word){
+		// A quantidade é lida antes das demais estruturas, garantindo que todas as palavras visíveis estejam completas
+		return find(word, size);
+	}
+
+	/**
+	 * Procura o identificador da ocorrência mais recente de uma palavra entre os primeiros identificadores. Utilizado
+	 * por leitores que enxergam somente parte da arena, como um {@link WordSnapshot}, para os quais uma ocorrência
+	 * adicionada depois ({@link #append(String)}) não deve ocultar a anterior.
+	 *
+	 * @param word palavra procurada
+	 * @param visible quantidade de identificadores considerados, obtida por uma leitura volátil após as inserções
+	 * @return identificador da palavra, ou -1 caso ela não esteja presente entre os identificadores considerados
+	 */
+	public int find(String word, int visible){
+		if(word == null)
+			return EMPTY;
+
+		int[] currentTable = table;
+		long[] currentEntries = entries;
+		char[][] currentPages = pages;
+		int mask = currentTable.length - 1;
+		// Todas as ocorrências da palavra estão na mesma sequência de sondagem, que termina na primeira posição vazia
+		int found = EMPTY;
+		for(int slot = hash(word) & mask; ; slot = (slot + 1) & mask){
+			int id = currentTable[slot];
+			if(id == EMPTY)
+				return found;
+			// Palavras inseridas depois da leitura da quantidade são ignoradas
+			if(id < visible && id > found && equals(currentPages, currentEntries[id], word))
+				found = id;
+		}
+	}
+
+	/**
+	 * Retorna a quantidade de palavras da arena.
+	 *
+	 * @return quantidade de palavras
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Cria uma String com a palavra do identificador informado.
+	 *
+	 * @param id identificador da palavra
+	 * @return palavra
+	 * @throws IndexOutOfBoundsException caso o identificador não seja visível
+	 */
+	public String get(int id) throws IndexOutOfBoundsException{
+		if(id < 0 || id >= size)
+			throw new IndexOutOfBoundsException("Posição inválida: " + id);
+		return toString(pages, entries[id]);
+	}
+
+	/**
+	 * Retorna o tamanho da palavra do identificador informado.
+	 *
+	 * @param id identificador da palavra
+	 * @return tamanho da palavra, em caracteres
+	 * @throws IndexOutOfBoundsException caso o identificador não seja visível
+	 */
+	public int length(int id) throws IndexOutOfBoundsException{
+		if(id < 0 || id >= size)
+			throw new IndexOutOfBoundsException("Posição inválida: " + id);
+		return length(entries[id]);
+	}
+
+	/**
+	 * Retorna a estimativa da memória ocupada pela arena, em bytes, considerando a capacidade alocada das páginas, das
+	 * posições e da tabela hash.
+	 *
+	 * @return memória ocupada, em bytes
+	 */
+	public long getEstimatedBytes(){
+		long bytes = (long) entries.length * 8 + (long) table.length * 4;
+		for(char[] page : pages)
+			bytes += 16 + (long) page.length * 2;
+		return bytes;
+	}
+
+	/**
+	 * Retorna a quantidade total de caracteres armazenados.
+	 *
+	 * @return quantidade de caracteres
+	 */
+	public long getCharCount(){
+		return charCount;
+	}
+
+	/**
+	 * Posições de todas as palavras. Deve ser lido após a leitura volátil que tornou os identificadores visíveis.
+	 */
+	long[] entries(){
+		return entries;
+	}
+
+	/**
+	 * Páginas de caracteres. Deve ser lido após {@link #entries()}.
+	 */
+	char[][] pages(){
+		return pages;
+	}
+
+	/**
+	 * Página que contém a palavra da posição informada.
+	 */
+	static char[] page(char[][] pages, long entry){
+		return pages[(int) (entry >>> 32) >>> PAGE_BITS];
+	}
+
+	/**
+	 * Posição do primeiro caractere da palavra dentro de sua página.
+	 */
+	static int offset(long entry){
+		return (int) (entry >>> 32) & PAGE_MASK;
+	}
+
+	/**
+	 * Tamanho da palavra da posição informada.
+	 */
+	static int length(long entry){
+		return (int) entry;
+	}
+
+	static String toString(char[][] pages, long entry){
+		return new String(page(pages, entry), offset(entry), length(entry));
+	}
+
+	private static boolean equals(char[][] pages, long entry, String word){
+		int length = length(entry);
+		if(length != word.length())
+			return false;
+		char[] page = page(pages, entry);
+		int offset = offset(entry);
+		for(int i = 0; i < length; i++){
+			if(page[offset + i] != word.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Recria a tabela hash com a capacidade informada, reinserindo os identificadores da tabela atual.
+	 */
+	private int[] rehash(int[] current, int capacity){
+		int[] rehashed = newTable(capacity);
+		long[] currentEntries = entries;
+		char[][] currentPages = pages;
+		for(int id : current){
+			if(id != EMPTY)
+				insert(rehashed, hash(currentPages, currentEntries[id]), id);
+		}
+		return rehashed;
+	}
+
+	private static void insert(int[] table, int hash, int id){
+		int mask = table.length - 1;
+		int slot = hash & mask;
+		while(table[slot] != EMPTY)
+			slot = (slot + 1) & mask;
+		table[slot] = id;
+	}
+
+	private static int[] newTable(int capacity){
+		int[] table = new int[capacity];
+		Arrays.fill(table, EMPTY);
+		return table;
+	}
+
+	private static int hash(String word){
+		int hash = 0;
+		for(int i = 0; i < word.length(); i++)
+			hash = 31 * hash + word.charAt(i);
+		return mix(hash);
+	}
+
+	private static int hash(char[][] pages, long entry){
+		char[] page = page(pages, entry);
+		int offset = offset(entry);
+		int hash = 0;
+		for(int i = 0; i < length(entry); i++)
+			hash = 31 * hash + page[offset + i];
+		return mix(hash);
+	}
+
+	private static int mix(int hash){
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+}
@@ -0,0 +1,59 @@
+package br.com.fleao.word_similarity.util;
+
+/**
+ * Palavra armazenada acompanhada de sua distância de Levenshtein para a keyword de uma consulta. A ordenação natural é
+ * pela distância e, em caso de empate, pela própria palavra.
+ *
+ * @author felipe
+ *
+ */
+public final class WordDistance implements Comparable<WordDistance> {
+
+	private final String word;
+	private final int distance;
+
+	/**
+	 * @param word palavra armazenada
+	 * @param distance distância entre a palavra e a keyword
+	 */
+	public WordDistance(String word, int distance){
+		this.word = word;
+		this.distance = distance;
+	}
+
+	/** @return palavra armazenada */
+	public String getWord(){
+		return word;
+	}
+
+	/** @return distância entre a palavra e a keyword */
+	public int getDistance(){
+		return distance;
+	}
+
+	@Override
+	public int compareTo(WordDistance other){
+		if(distance != other.distance)
+			return distance < other.distance ? -1 : 1;
+		return word.compareTo(other.word);
+	}
+
+	@Override
+	public boolean equals(Object other){
+		if(!(other instanceof WordDistance))
+			return false;
+		WordDistance that = (WordDistance) other;
+		return distance == that.distance && word.equals(that.word);
+	}
+
+	@Override
+	public int hashCode(){
+		return 31 * word.hashCode() + distance;
+	}
+
+	@Override
+	public String toString(){
+		return word + "=" + distance;
+	}
+
+}
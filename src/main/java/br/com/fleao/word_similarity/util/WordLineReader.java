@@ -0,0 +1,124 @@
+package br.com.fleao.word_similarity.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>
+ * Leitor de palavras separadas por quebras de linha a partir de um canal NIO, com uma palavra por linha.
+ * </p>
+ * <p>
+ * Os bytes são lidos em blocos para um buffer direto e decodificados (UTF-8) para um buffer de caracteres reutilizado,
+ * de forma que arquivos arbitrariamente grandes são processados com memória constante. Quebras de linha no formato
+ * Windows ("\r\n") são aceitas e linhas vazias são ignoradas. Instâncias não são thread-safe.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class WordLineReader implements Closeable {
+
+	private final ReadableByteChannel channel;
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+	private final ByteBuffer bytes;
+	private final CharBuffer chars;
+	private final StringBuilder line = new StringBuilder();
+	private boolean endOfInput;
+	private boolean flushed;
+
+	/**
+	 * @param channel canal de onde as palavras serão lidas
+	 * @param bufferSize tamanho dos buffers de leitura, em bytes
+	 * @throws IllegalArgumentException caso o canal seja nulo ou o tamanho do buffer seja inválido
+	 */
+	public WordLineReader(ReadableByteChannel channel, int bufferSize) throws IllegalArgumentException{
+		if(channel == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		if(bufferSize < 16)
+			throw new IllegalArgumentException("O tamanho do buffer deve ser de ao menos 16 bytes.");
+		this.channel = channel;
+		this.bytes = ByteBuffer.allocateDirect(bufferSize);
+		this.chars = CharBuffer.allocate(bufferSize);
+		// Nenhum caractere disponível até a primeira leitura
+		this.chars.flip();
+	}
+
+	/**
+	 * Retorna a próxima palavra do canal.
+	 *
+	 * @return próxima palavra, ou null caso o canal tenha terminado
+	 * @throws IOException caso ocorra um erro de leitura ou o conteúdo não seja UTF-8 válido
+	 */
+	public String nextWord() throws IOException{
+		while(true){
+			while(chars.hasRemaining()){
+				char c = chars.get();
+				if(c != '\n'){
+					line.append(c);
+				}else{
+					String word = takeLine();
+					if(!word.isEmpty())
+						return word;
+				}
+			}
+			if(!fill()){
+				String word = takeLine();
+				return word.isEmpty() ? null : word;
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException{
+		channel.close();
+	}
+
+	/**
+	 * Retorna a linha acumulada, sem o "\r" final, e reinicia o acúmulo.
+	 */
+	private String takeLine(){
+		int length = line.length();
+		if(length > 0 && line.charAt(length - 1) == '\r')
+			length--;
+		String word = line.substring(0, length);
+		line.setLength(0);
+		return word;
+	}
+
+	/**
+	 * Decodifica o próximo bloco de caracteres, lendo mais bytes do canal quando necessário.
+	 *
+	 * @return false caso o canal tenha terminado e não haja mais caracteres
+	 */
+	private boolean fill() throws IOException{
+		if(flushed)
+			return false;
+		chars.clear();
+		while(true){
+			if(!endOfInput && channel.read(bytes) < 0)
+				endOfInput = true;
+
+			bytes.flip();
+			CoderResult result = decoder.decode(bytes, chars, endOfInput);
+			bytes.compact();
+			if(result.isError())
+				result.throwException();
+			if(endOfInput && result.isUnderflow() && !flushed){
+				decoder.flush(chars);
+				flushed = true;
+			}
+
+			if(chars.position() > 0 || flushed){
+				chars.flip();
+				return chars.hasRemaining();
+			}
+		}
+	}
+
+}
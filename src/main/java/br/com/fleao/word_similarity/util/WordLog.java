@@ -0,0 +1,286 @@
+package br.com.fleao.word_similarity.util;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * Segmento de log de escrita antecipada (write-ahead log) das palavras armazenadas, com inserção somente ao final.
+ * </p>
+ * <p>
+ * O arquivo possui um cabeçalho com a versão do formato e o número de sequência anterior ao primeiro registro,
+ * seguido de um registro por palavra: tamanho, bytes da palavra em UTF-8 e o CRC32 desses bytes. Cada registro
+ * recebe um número de sequência crescente, contínuo entre segmentos consecutivos.
+ * </p>
+ * <p>
+ * A partir da versão 2 do formato, a remoção de uma palavra ({@link #appendRemoval(String)}) é registrada com o
+ * tamanho e o CRC complementados ({@code ~tamanho} e {@code ~crc}); na recuperação, a palavra é removida da coleção
+ * que recebe as palavras lidas. Segmentos da versão 1, que só contêm inserções, continuam sendo lidos.
+ * </p>
+ * <p>
+ * As inserções ({@link #append(String)}) apenas acumulam o registro em memória. A gravação é feita em grupo
+ * ({@link #sync(long)}): a primeira thread que solicita a durabilidade de um registro grava e sincroniza com o disco
+ * (fsync) todos os registros pendentes, inclusive os de outras threads, que ao obterem o lock encontram seus registros
+ * já duráveis. Assim, escritas concorrentes compartilham uma única sincronização.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class WordLog implements Closeable {
+
+	private static final int MAGIC = 0x57534C47;
+	private static final int VERSION = 2;
+	private static final int FIRST_VERSION = 1;
+	private static final int HEADER_BYTES = 4 + 4 + 8;
+
+	private final FileChannel channel;
+	private final long startSequence;
+
+	// Registros pendentes de gravação; o buffer reserva é reutilizado a cada gravação em grupo
+	private final Object bufferLock = new Object();
+	private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+	private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+	private long appended;
+
+	private final Lock syncLock = new ReentrantLock();
+	private volatile long durable;
+	// Falha de gravação; após uma falha nenhum registro pendente pode ser confirmado
+	private IOException failure;
+
+	private WordLog(FileChannel channel, long startSequence){
+		this.channel = channel;
+		this.startSequence = startSequence;
+		this.appended = startSequence;
+		this.durable = startSequence;
+	}
+
+	/**
+	 * Cria um novo segmento vazio, cujo primeiro registro receberá a sequência {@code startSequence + 1}.
+	 *
+	 * @param file arquivo do segmento, que não deve existir
+	 * @param startSequence sequência anterior ao primeiro registro do segmento
+	 * @return segmento aberto para inserções
+	 * @throws IOException caso o arquivo não possa ser criado
+	 */
+	public static WordLog create(Path file, long startSequence) throws IOException{
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		try{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			header.putInt(MAGIC).putInt(VERSION).putLong(startSequence).flip();
+			while(header.hasRemaining())
+				channel.write(header);
+			channel.force(true);
+			return new WordLog(channel, startSequence);
+		}catch(IOException e){
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Lê as palavras de um segmento existente, na ordem em que foram registradas. Os registros de remoção retiram a
+	 * palavra da coleção informada.
+	 * </p>
+	 * <p>
+	 * Um registro incompleto ou com CRC inválido indica que a gravação foi interrompida: ele e o restante do arquivo
+	 * são descartados e o arquivo é truncado na posição do último registro válido. Como um registro só é confirmado
+	 * após sua sincronização com o disco, nenhum registro confirmado é descartado.
+	 * </p>
+	 *
+	 * @param file arquivo do segmento
+	 * @param startSequence sequência inicial esperada para o segmento
+	 * @param words coleção que receberá as palavras lidas
+	 * @return sequência do último registro válido do segmento
+	 * @throws IOException caso o arquivo não possa ser lido ou não seja um segmento válido
+	 */
+	public static long recover(Path file, long startSequence, Collection<String> words) throws IOException{
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+			// Cabeçalho incompleto: a criação foi interrompida antes de qualquer registro
+			if(channel.size() < HEADER_BYTES)
+				return startSequence;
+
+			DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+			if(input.readInt() != MAGIC)
+				throw new IOException("O arquivo " + file + " não é um segmento de log válido.");
+			int version = input.readInt();
+			if(version < FIRST_VERSION || version > VERSION)
+				throw new IOException("Versão de segmento de log não suportada: " + version + ".");
+			long sequence = input.readLong();
+			if(sequence != startSequence)
+				throw new IOException("O segmento de log " + file + " não inicia na sequência esperada.");
+
+			long validBytes = HEADER_BYTES;
+			long size = channel.size();
+			CRC32 crc = new CRC32();
+			while(true){
+				try{
+					int length = input.readInt();
+					// Registros de remoção têm o tamanho complementado
+					boolean removal = length < 0 && version > FIRST_VERSION;
+					if(removal)
+						length = ~length;
+					if(length < 0 || validBytes + 8 + length > size)
+						break;
+					byte[] bytes = new byte[length];
+					input.readFully(bytes);
+					crc.reset();
+					crc.update(bytes, 0, length);
+					int expected = (int) crc.getValue();
+					if(input.readInt() != (removal ? ~expected : expected))
+						break;
+					String word = new String(bytes, StandardCharsets.UTF_8);
+					if(removal)
+						words.remove(word);
+					else
+						words.add(word);
+					validBytes += 8 + length;
+					sequence++;
+				}catch(EOFException e){
+					break;
+				}
+			}
+
+			// Descarta o final interrompido, de forma que novas leituras encontrem somente registros válidos
+			if(validBytes < size){
+				channel.truncate(validBytes);
+				channel.force(true);
+			}
+			return sequence;
+		}
+	}
+
+	/**
+	 * Retorna a sequência anterior ao primeiro registro do segmento.
+	 *
+	 * @return sequência inicial
+	 */
+	public long getStartSequence(){
+		return startSequence;
+	}
+
+	/**
+	 * Registra uma palavra em memória, sem gravá-la. A palavra só é durável após {@link #sync(long)} com a sequência
+	 * retornada.
+	 *
+	 * @param word palavra a ser registrada
+	 * @return sequência do registro
+	 */
+	public long append(String word){
+		return append(word, false);
+	}
+
+	/**
+	 * Registra em memória a remoção de uma palavra, sem gravá-la. A remoção só é durável após {@link #sync(long)} com a
+	 * sequência retornada.
+	 *
+	 * @param word palavra removida
+	 * @return sequência do registro
+	 */
+	public long appendRemoval(String word){
+		return append(word, true);
+	}
+
+	private long append(String word, boolean removal){
+		byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+		int length = removal ? ~bytes.length : bytes.length;
+		int checksum = removal ? ~(int) crc.getValue() : (int) crc.getValue();
+		synchronized(bufferLock){
+			if(pending.remaining() < 8 + bytes.length){
+				ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + 8 + bytes.length));
+				pending.flip();
+				larger.put(pending);
+				pending = larger;
+			}
+			pending.putInt(length).put(bytes).putInt(checksum);
+			return ++appended;
+		}
+	}
+
+	/**
+	 * Retorna a sequência do último registro em memória.
+	 *
+	 * @return sequência do último registro
+	 */
+	public long getAppendedSequence(){
+		synchronized(bufferLock){
+			return appended;
+		}
+	}
+
+	/**
+	 * Garante que o registro com a sequência informada, e todos os anteriores, estejam gravados e sincronizados com o
+	 * disco. Todos os registros pendentes no momento são gravados em uma única escrita e sincronização.
+	 *
+	 * @param sequence sequência do registro
+	 * @throws IOException caso a gravação ou a sincronização falhem
+	 */
+	public void sync(long sequence) throws IOException{
+		if(durable >= sequence)
+			return;
+
+		syncLock.lock();
+		try{
+			// Outra thread pode ter gravado o registro enquanto esta aguardava o lock
+			if(durable >= sequence)
+				return;
+			if(failure != null)
+				throw new IOException("Uma gravação anterior do log falhou.", failure);
+
+			ByteBuffer batch;
+			long last;
+			synchronized(bufferLock){
+				batch = pending;
+				pending = spare;
+				last = appended;
+			}
+
+			try{
+				batch.flip();
+				while(batch.hasRemaining())
+					channel.write(batch);
+				channel.force(false);
+			}catch(IOException e){
+				failure = e;
+				throw e;
+			}
+			batch.clear();
+			durable = last;
+
+			synchronized(bufferLock){
+				spare = batch;
+			}
+		}finally{
+			syncLock.unlock();
+		}
+	}
+
+	/**
+	 * Grava os registros pendentes e fecha o segmento.
+	 */
+	@Override
+	public void close() throws IOException{
+		try{
+			sync(getAppendedSequence());
+		}finally{
+			channel.close();
+		}
+	}
+
+}
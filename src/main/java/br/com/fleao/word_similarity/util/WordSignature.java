@@ -0,0 +1,39 @@
+package br.com.fleao.word_similarity.util;
+
+/**
+ * <p>
+ * Assinatura de 64 bits dos caracteres de uma palavra, utilizada como filtro barato antes do cálculo da distância.
+ * </p>
+ * <p>
+ * Cada caractere liga o bit correspondente ao seu código módulo 64. Se um bit está ligado na assinatura de uma palavra
+ * e desligado na da outra, nenhum caractere da segunda pertence àquela classe e todas as ocorrências da classe na
+ * primeira precisam ser removidas ou substituídas, o que exige ao menos uma operação por classe. Como cada operação
+ * altera no máximo uma posição de cada palavra, a distância é no mínimo o maior entre os dois lados dessa diferença.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+final class WordSignature {
+
+	private WordSignature(){
+	}
+
+	/**
+	 * Calcula a assinatura dos caracteres da palavra.
+	 */
+	static long of(String word){
+		long signature = 0;
+		for(int i = 0; i < word.length(); i++)
+			signature |= 1L << word.charAt(i);
+		return signature;
+	}
+
+	/**
+	 * Limite inferior da distância de Levenshtein entre duas palavras a partir de suas assinaturas.
+	 */
+	static int lowerBound(long left, long right){
+		return Math.max(Long.bitCount(left & ~right), Long.bitCount(right & ~left));
+	}
+
+}
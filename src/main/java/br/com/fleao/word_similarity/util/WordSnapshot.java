@@ -0,0 +1,155 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Visão imutável e versionada das palavras armazenadas em um {@link WordStore} em um determinado momento.
+ * </p>
+ * <p>
+ * O snapshot referencia a arena de palavras do store e a quantidade de posições visíveis no momento de sua publicação.
+ * Como a arena só recebe novas palavras após a última posição publicada, as palavras visíveis por um snapshot nunca
+ * são alteradas e podem ser percorridas por qualquer quantidade de threads sem nenhum bloqueio, mesmo enquanto novas
+ * palavras são adicionadas ao store. As Strings são criadas somente quando as palavras são lidas.
+ * </p>
+ * <p>
+ * As palavras removidas do store continuam ocupando as suas posições e são marcadas em um mapa de bits imutável,
+ * também capturado na publicação: {@link #getIdCount()} é a quantidade de posições visíveis, utilizada para restringir
+ * as buscas dos índices, e {@link #size()} a quantidade de palavras efetivamente armazenadas.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class WordSnapshot extends AbstractSet<String> {
+
+	// Posições por página do mapa de bits das posições removidas
+	static final int REMOVED_PAGE_BITS = 16;
+	static final int REMOVED_PAGE_MASK = (1 << REMOVED_PAGE_BITS) - 1;
+	static final int REMOVED_PAGE_LONGS = 1 << (REMOVED_PAGE_BITS - 6);
+
+	// Arena compartilhada com o store; palavras em posições >= idCount não são visíveis
+	private final WordArena arena;
+	private final int idCount;
+	// Páginas do mapa de bits das posições removidas, compartilhadas entre snapshots; páginas nulas não têm remoções
+	private final long[][] removed;
+	private final int removedCount;
+	private final long generation;
+
+	WordSnapshot(WordArena arena, int idCount, long[][] removed, int removedCount, long generation){
+		this.arena = arena;
+		this.idCount = idCount;
+		this.removed = removed;
+		this.removedCount = removedCount;
+		this.generation = generation;
+	}
+
+	/**
+	 * Retorna a versão do snapshot. Cada publicação de novas palavras ou remoções no store gera uma versão maior que a
+	 * anterior.
+	 *
+	 * @return versão do snapshot
+	 */
+	public long getGeneration(){
+		return generation;
+	}
+
+	/**
+	 * Retorna a quantidade de posições visíveis neste snapshot, incluindo as removidas. Os índices consideram somente
+	 * as palavras com identificador inferior a essa quantidade.
+	 *
+	 * @return quantidade de posições visíveis
+	 */
+	public int getIdCount(){
+		return idCount;
+	}
+
+	/**
+	 * Retorna a quantidade de posições visíveis que foram removidas.
+	 *
+	 * @return quantidade de posições removidas
+	 */
+	public int getRemovedCount(){
+		return removedCount;
+	}
+
+	/**
+	 * Indica se a palavra da posição informada foi removida.
+	 *
+	 * @param index posição da palavra
+	 * @return true caso a posição tenha sido removida
+	 */
+	public boolean isRemoved(int index){
+		int page = index >>> REMOVED_PAGE_BITS;
+		if(page >= removed.length || removed[page] == null)
+			return false;
+		return (removed[page][(index & REMOVED_PAGE_MASK) >>> 6] & 1L << index) != 0;
+	}
+
+	/**
+	 * Retorna a palavra armazenada na posição informada. As posições seguem a ordem de inserção das palavras.
+	 *
+	 * @param index posição da palavra, entre 0 (inclusive) e {@link #getIdCount()} (exclusive)
+	 * @return palavra armazenada na posição, ou null caso ela tenha sido removida
+	 * @throws IndexOutOfBoundsException caso a posição não seja visível neste snapshot
+	 */
+	public String get(int index) throws IndexOutOfBoundsException{
+		if(index < 0 || index >= idCount)
+			throw new IndexOutOfBoundsException("Posição inválida: " + index);
+		return isRemoved(index) ? null : arena.get(index);
+	}
+
+	@Override
+	public int size(){
+		return idCount - removedCount;
+	}
+
+	@Override
+	public boolean contains(Object word){
+		if(!(word instanceof String))
+			return false;
+		// Ocorrências da palavra armazenadas novamente após este snapshot não ocultam a ocorrência visível por ele
+		int position = arena.find((String) word, idCount);
+		return position >= 0 && !isRemoved(position);
+	}
+
+	@Override
+	public Iterator<String> iterator(){
+		return new Iterator<String>(){
+			private int next = skipRemoved(0);
+
+			@Override
+			public boolean hasNext(){
+				return next < idCount;
+			}
+
+			@Override
+			public String next(){
+				if(next >= idCount)
+					throw new NoSuchElementException();
+				String word = arena.get(next);
+				next = skipRemoved(next + 1);
+				return word;
+			}
+		};
+	}
+
+	/**
+	 * Páginas do mapa de bits das posições removidas, compartilhadas com o próximo snapshot.
+	 */
+	long[][] removedPages(){
+		return removed;
+	}
+
+	/**
+	 * Primeira posição não removida a partir da posição informada, ou {@link #getIdCount()} caso não exista.
+	 */
+	private int skipRemoved(int index){
+		while(index < idCount && isRemoved(index))
+			index++;
+		return index;
+	}
+
+}
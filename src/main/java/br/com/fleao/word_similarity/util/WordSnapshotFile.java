@@ -0,0 +1,116 @@
+package br.com.fleao.word_similarity.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * <p>
+ * Leitura e gravação de snapshots binários compactos das palavras armazenadas.
+ * </p>
+ * <p>
+ * O arquivo possui um cabeçalho com a versão do formato, a sequência do log coberta pelo snapshot e a quantidade de
+ * palavras, seguido das palavras (tamanho e bytes em UTF-8) e do CRC32 de todo o conteúdo anterior. A gravação é
+ * feita em um arquivo temporário, sincronizado com o disco e renomeado atomicamente, de forma que um snapshot
+ * existente está sempre completo.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public final class WordSnapshotFile {
+
+	private static final int MAGIC = 0x5753534E;
+	private static final int VERSION = 1;
+
+	private WordSnapshotFile(){
+	}
+
+	/**
+	 * Grava um snapshot com as palavras informadas.
+	 *
+	 * @param file arquivo de destino
+	 * @param sequence sequência do log coberta pelo snapshot
+	 * @param words palavras do snapshot
+	 * @throws IOException caso o arquivo não possa ser gravado
+	 */
+	public static void write(Path file, long sequence, Collection<String> words) throws IOException{
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)){
+			CRC32 crc = new CRC32();
+			// O canal não é fechado pelo stream, permitindo a sincronização ao final
+			OutputStream unclosable = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024){
+				@Override
+				public void close() throws IOException{
+					flush();
+				}
+			};
+			DataOutputStream output = new DataOutputStream(new CheckedOutputStream(unclosable, crc));
+			output.writeInt(MAGIC);
+			output.writeInt(VERSION);
+			output.writeLong(sequence);
+			output.writeInt(words.size());
+			for(String word : words){
+				byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+				output.writeInt(bytes.length);
+				output.write(bytes);
+			}
+			output.flush();
+			new DataOutputStream(unclosable).writeLong(crc.getValue());
+			unclosable.close();
+			channel.force(true);
+		}
+		Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Lê as palavras de um snapshot, validando seu formato e CRC.
+	 *
+	 * @param file arquivo do snapshot
+	 * @param words coleção que receberá as palavras lidas
+	 * @return sequência do log coberta pelo snapshot
+	 * @throws IOException caso o arquivo não possa ser lido ou esteja corrompido
+	 */
+	public static long read(Path file, Collection<String> words) throws IOException{
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			CRC32 crc = new CRC32();
+			BufferedInputStream buffered = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+			DataInputStream input = new DataInputStream(new CheckedInputStream(buffered, crc));
+			if(input.readInt() != MAGIC)
+				throw new IOException("O arquivo " + file + " não é um snapshot válido.");
+			int version = input.readInt();
+			if(version != VERSION)
+				throw new IOException("Versão de snapshot não suportada: " + version + ".");
+			long sequence = input.readLong();
+			int count = input.readInt();
+			for(int i = 0; i < count; i++){
+				int length = input.readInt();
+				if(length < 0 || length > channel.size())
+					throw new IOException("O snapshot " + file + " está corrompido.");
+				byte[] bytes = new byte[length];
+				input.readFully(bytes);
+				words.add(new String(bytes, StandardCharsets.UTF_8));
+			}
+			long expected = crc.getValue();
+			if(new DataInputStream(buffered).readLong() != expected)
+				throw new IOException("O snapshot " + file + " está corrompido.");
+			return sequence;
+		}
+	}
+
+}
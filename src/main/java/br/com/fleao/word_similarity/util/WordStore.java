@@ -0,0 +1,198 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * <p>
+ * Armazenamento de palavras sem duplicação cujas leituras nunca bloqueiam.
+ * </p>
+ * <p>
+ * As palavras são mantidas em uma {@link WordArena}, com inserção somente ao final e sem nenhum objeto por palavra.
+ * Novas palavras são primeiro preparadas ({@link #append(String)}), ficando invisíveis para as leituras, e depois
+ * publicadas em lote ({@link #publish()}) na forma de um novo {@link WordSnapshot}, disponibilizado através de uma
+ * referência volátil. Leitores obtêm o snapshot atual e o percorrem livremente, sem locks e sem interferência das
+ * escritas concorrentes.
+ * </p>
+ * <p>
+ * As escritas ({@link #append(String)} e {@link #publish()}) devem ser serializadas por quem utiliza a classe; as
+ * leituras ({@link #snapshot()}) podem ser realizadas por qualquer thread a qualquer momento.
+ * </p>
+ * <p>
+ * Palavras também podem ser removidas ({@link #remove(String)}), tornando-se invisíveis a partir da próxima
+ * publicação. A remoção não altera a arena nem as posições das demais palavras: cada snapshot carrega um mapa de bits
+ * imutável das posições removidas, copiado por páginas somente nas páginas alteradas desde a publicação anterior. Uma
+ * palavra removida que volta a ser armazenada recebe uma nova posição ao final. As posições removidas continuam
+ * ocupando a arena até que o store seja reconstruído somente com as palavras restantes.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public class WordStore {
+
+	// Arena compartilhada com os snapshots; as palavras preparadas ficam além da quantidade publicada
+	private final WordArena arena = new WordArena();
+
+	private volatile WordSnapshot snapshot = new WordSnapshot(arena, 0, new long[0][], 0, 0);
+
+	// Posições removidas, inclusive as ainda não publicadas; acessadas somente pelo escritor
+	private final BitSet removed = new BitSet();
+	private int removedCount;
+	// Posições removidas desde a última publicação
+	private int[] pendingRemovals = new int[16];
+	private int pendingCount;
+	// Caracteres das palavras não removidas, inclusive as preparadas
+	private long liveChars;
+
+	/**
+	 * Retorna a arena onde as palavras são armazenadas, que pode ser compartilhada com os índices para que eles
+	 * referenciem as palavras pelos seus identificadores ao invés de manterem cópias.
+	 *
+	 * @return arena das palavras
+	 */
+	public WordArena getArena(){
+		return arena;
+	}
+
+	/**
+	 * Retorna o snapshot atualmente publicado.
+	 *
+	 * @return visão imutável das palavras publicadas
+	 */
+	public WordSnapshot snapshot(){
+		return snapshot;
+	}
+
+	/**
+	 * Prepara uma palavra para ser publicada. A palavra só se torna visível às leituras após a próxima chamada de
+	 * {@link #publish()}.
+	 *
+	 * @param word palavra a ser adicionada
+	 * @return true caso a palavra tenha sido preparada, false caso ela já estivesse armazenada ou preparada
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 */
+	public boolean append(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		int id = arena.find(word);
+		if(id >= 0 && !removed.get(id))
+			return false;
+		// Uma palavra removida recebe uma nova posição, de forma que a posição antiga continue removida
+		if(id >= 0)
+			arena.append(word);
+		else
+			arena.add(word);
+		liveChars += word.length();
+		return true;
+	}
+
+	/**
+	 * Remove uma palavra armazenada ou preparada. A palavra só deixa de ser visível às leituras após a próxima chamada
+	 * de {@link #publish()}.
+	 *
+	 * @param word palavra a ser removida
+	 * @return true caso a palavra tenha sido removida, false caso ela não estivesse armazenada
+	 * @throws IllegalArgumentException caso a palavra informada seja nula
+	 */
+	public boolean remove(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+		int id = arena.find(word);
+		if(id < 0 || removed.get(id))
+			return false;
+
+		removed.set(id);
+		removedCount++;
+		liveChars -= word.length();
+		if(pendingCount == pendingRemovals.length)
+			pendingRemovals = Arrays.copyOf(pendingRemovals, pendingRemovals.length * 2);
+		pendingRemovals[pendingCount++] = id;
+		return true;
+	}
+
+	/**
+	 * Indica se a posição informada foi removida, inclusive por remoções ainda não publicadas. Deve ser invocado
+	 * somente pelo escritor.
+	 *
+	 * @param id posição da palavra
+	 * @return true caso a posição tenha sido removida
+	 */
+	public boolean isRemoved(int id){
+		return removed.get(id);
+	}
+
+	/**
+	 * Retorna a quantidade de palavras armazenadas e preparadas, descontando as removidas. Deve ser invocado somente
+	 * pelo escritor.
+	 *
+	 * @return quantidade de palavras
+	 */
+	public int size(){
+		return arena.size() - removedCount;
+	}
+
+	/**
+	 * Retorna a quantidade de posições removidas, inclusive as ainda não publicadas. Deve ser invocado somente pelo
+	 * escritor.
+	 *
+	 * @return quantidade de posições removidas
+	 */
+	public int getRemovedCount(){
+		return removedCount;
+	}
+
+	/**
+	 * Retorna a quantidade de caracteres das palavras armazenadas e preparadas, descontando as removidas. Deve ser
+	 * invocado somente pelo escritor.
+	 *
+	 * @return quantidade de caracteres
+	 */
+	public long getCharCount(){
+		return liveChars;
+	}
+
+	/**
+	 * Publica todas as palavras preparadas e remoções realizadas desde a última publicação em um novo snapshot. Caso
+	 * nenhuma palavra tenha sido preparada ou removida, o snapshot atual é mantido.
+	 *
+	 * @return o snapshot atual após a publicação
+	 */
+	public WordSnapshot publish(){
+		WordSnapshot current = snapshot;
+		int size = arena.size();
+		if(current.getIdCount() == size && pendingCount == 0)
+			return current;
+
+		long[][] removedPages = current.removedPages();
+		if(pendingCount > 0){
+			removedPages = applyRemovals(removedPages);
+			pendingCount = 0;
+		}
+		snapshot = new WordSnapshot(arena, size, removedPages, removedCount, current.getGeneration() + 1);
+		return snapshot;
+	}
+
+	/**
+	 * Cria o mapa de bits das posições removidas do próximo snapshot. As páginas sem remoções pendentes são
+	 * compartilhadas com o snapshot anterior e as demais são copiadas uma única vez.
+	 */
+	private long[][] applyRemovals(long[][] previous){
+		int maxPage = 0;
+		for(int i = 0; i < pendingCount; i++)
+			maxPage = Math.max(maxPage, pendingRemovals[i] >>> WordSnapshot.REMOVED_PAGE_BITS);
+		long[][] pages = Arrays.copyOf(previous, Math.max(previous.length, maxPage + 1));
+		boolean[] copied = new boolean[pages.length];
+		for(int i = 0; i < pendingCount; i++){
+			int id = pendingRemovals[i];
+			int page = id >>> WordSnapshot.REMOVED_PAGE_BITS;
+			if(!copied[page]){
+				pages[page] = pages[page] == null ? new long[WordSnapshot.REMOVED_PAGE_LONGS] : pages[page].clone();
+				copied[page] = true;
+			}
+			pages[page][(id & WordSnapshot.REMOVED_PAGE_MASK) >>> 6] |= 1L << id;
+		}
+		return pages;
+	}
+
+}
@@ -0,0 +1,296 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * <p>
+ * Índice de palavras em uma trie compactada (radix tree): cada aresta guarda uma sequência de caracteres e palavras
+ * com prefixos em comum compartilham os nós correspondentes a esses prefixos. Em dicionários com muitas flexões ou
+ * códigos com prefixos comuns, a estrutura ocupa menos memória que um conjunto de Strings independentes.
+ * </p>
+ * <p>
+ * A busca por palavras similares é realizada em um único percurso da trie. A cada caractere de uma aresta é calculada
+ * uma linha da matriz de distância de Levenshtein entre a keyword e o prefixo correspondente, de forma que as linhas
+ * de um prefixo são calculadas uma única vez e compartilhadas por todas as palavras que o possuem. Como os valores de
+ * uma linha nunca diminuem nas linhas seguintes, assim que o menor valor da linha ultrapassa o threshold toda a
+ * subárvore é descartada.
+ * </p>
+ * <p>
+ * Assim como na {@link BKTree}, a trie admite um único escritor concorrente com qualquer quantidade de leitores. Os
+ * filhos de cada nó são substituídos por cópia e a divisão de uma aresta cria novos nós ao invés de alterar os
+ * existentes, de forma que uma busca em andamento sempre observa uma trie consistente.
+ * </p>
+ * <p>
+ * A remoção de uma palavra apenas desmarca o nó onde ela termina, sem remover nós nem juntar arestas; os nós sem
+ * palavras continuam ocupando memória até que a trie seja reconstruída.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+public class WordTrie implements SimilarityIndex {
+
+	private static final char[] NO_CHARS = new char[0];
+	// Ordem de um nó onde nenhuma palavra termina e de um nó cuja palavra foi removida
+	private static final int NO_WORD = -1;
+	private static final int REMOVED = -2;
+
+	private final Node root = new Node(NO_CHARS, Node.NO_CHILDREN, NO_WORD);
+	// Quantidade de ordens atribuídas, incluindo as das palavras removidas
+	private volatile int size;
+	private volatile int removed;
+
+	@Override
+	public boolean add(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		char[] chars = word.toCharArray();
+		Node node = root;
+		int position = 0;
+		while(true){
+			// Fim da palavra: o nó atual passa a representar uma palavra armazenada
+			if(position == chars.length){
+				if(node.order >= 0)
+					return false;
+				// Uma palavra removida recebe uma nova ordem; a anterior continua contada entre as removidas
+				node.order = size++;
+				return true;
+			}
+
+			int childIndex = node.findChild(chars[position]);
+			if(childIndex < 0){
+				node.insertChild(-childIndex - 1, new Node(Arrays.copyOfRange(chars, position, chars.length),
+						Node.NO_CHILDREN, size++));
+				return true;
+			}
+
+			Node child = node.children[childIndex];
+			int common = commonPrefix(child.label, chars, position);
+			if(common == child.label.length){
+				node = child;
+				position += common;
+				continue;
+			}
+
+			/*
+			 * A palavra diverge no meio da aresta: a aresta é dividida em um nó intermediário com o prefixo comum e um
+			 * novo nó com o restante do rótulo, que herda os filhos do nó original. O nó original não é alterado.
+			 */
+			Node tail = new Node(Arrays.copyOfRange(child.label, common, child.label.length), child.children, child.order);
+			Node middle;
+			if(position + common == chars.length){
+				middle = new Node(Arrays.copyOf(child.label, common), new Node[]{ tail }, size++);
+			}else{
+				Node leaf = new Node(Arrays.copyOfRange(chars, position + common, chars.length), Node.NO_CHILDREN, size++);
+				Node[] children = leaf.label[0] < tail.label[0] ? new Node[]{ leaf, tail } : new Node[]{ tail, leaf };
+				middle = new Node(Arrays.copyOf(child.label, common), children, NO_WORD);
+			}
+			node.replaceChild(childIndex, middle);
+			return true;
+		}
+	}
+
+	@Override
+	public boolean remove(String word) throws IllegalArgumentException{
+		if(word == null)
+			throw new IllegalArgumentException("O parâmetro informado não pode ser nulo.");
+
+		char[] chars = word.toCharArray();
+		Node node = root;
+		int position = 0;
+		while(position < chars.length){
+			int childIndex = node.findChild(chars[position]);
+			if(childIndex < 0)
+				return false;
+			Node child = node.children[childIndex];
+			if(commonPrefix(child.label, chars, position) < child.label.length)
+				return false;
+			node = child;
+			position += child.label.length;
+		}
+		if(node.order < 0)
+			return false;
+		node.order = REMOVED;
+		removed++;
+		return true;
+	}
+
+	@Override
+	public void search(String keyword, int threshold, int visibleCount, Collection<String> result)
+			throws IllegalArgumentException{
+		search(keyword, threshold, visibleCount, result, null);
+	}
+
+	@Override
+	public void search(String keyword, int threshold, int visibleCount, Collection<String> result,
+			SearchCounters counters) throws IllegalArgumentException{
+		if(keyword == null || result == null)
+			throw new IllegalArgumentException("Os parâmetros fornecidos não podem ser nulos.");
+		if(threshold < 0)
+			throw new IllegalArgumentException("O threshold informado deve ser positivo.");
+
+		char[] pattern = keyword.toCharArray();
+		int columns = pattern.length;
+
+		// Linhas da matriz indexadas pelo tamanho do prefixo; a linha 0 corresponde ao prefixo vazio
+		int[][] rows = new int[16][];
+		rows[0] = new int[columns + 1];
+		for(int j = 0; j <= columns; j++)
+			rows[0][j] = j;
+		char[] path = new char[16];
+
+		if(root.isVisible(visibleCount) && columns <= threshold)
+			result.add("");
+
+		// Percurso em profundidade: nós pendentes e o tamanho do prefixo que antecede cada um deles
+		Node[] pendingNodes = new Node[16];
+		int[] pendingDepths = new int[16];
+		int pending = 0;
+		for(Node child : root.children){
+			pendingNodes[pending] = child;
+			pendingDepths[pending++] = 0;
+		}
+
+		int visited = 0;
+		long computedRows = 0;
+		while(pending > 0){
+			QueryCancellation.check(visited++);
+			Node node = pendingNodes[--pending];
+			int depth = pendingDepths[pending];
+			char[] label = node.label;
+
+			// Garante espaço para as linhas e para o caminho até o final do rótulo
+			int end = depth + label.length;
+			if(end >= rows.length){
+				rows = Arrays.copyOf(rows, Math.max(end + 1, rows.length * 2));
+				path = Arrays.copyOf(path, rows.length);
+			}
+
+			// Uma linha por caractere do rótulo, interrompendo assim que nenhuma célula estiver dentro do threshold
+			boolean pruned = false;
+			for(int i = 0; i < label.length; i++){
+				computedRows++;
+				char c = label[i];
+				path[depth + i] = c;
+				int[] previous = rows[depth + i];
+				int[] current = rows[depth + i + 1];
+				if(current == null)
+					current = rows[depth + i + 1] = new int[columns + 1];
+
+				current[0] = previous[0] + 1;
+				int rowMinimum = current[0];
+				for(int j = 1; j <= columns; j++){
+					int value = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1),
+							previous[j - 1] + (pattern[j - 1] == c ? 0 : 1));
+					current[j] = value;
+					if(value < rowMinimum)
+						rowMinimum = value;
+				}
+
+				if(rowMinimum > threshold){
+					pruned = true;
+					break;
+				}
+			}
+			if(pruned)
+				continue;
+
+			if(node.isVisible(visibleCount) && rows[end][columns] <= threshold)
+				result.add(new String(path, 0, end));
+
+			Node[] children = node.children;
+			if(pending + children.length > pendingNodes.length){
+				pendingNodes = Arrays.copyOf(pendingNodes, Math.max(pending + children.length, pendingNodes.length * 2));
+				pendingDepths = Arrays.copyOf(pendingDepths, pendingNodes.length);
+			}
+			for(Node child : children){
+				pendingNodes[pending] = child;
+				pendingDepths[pending++] = end;
+			}
+		}
+		DistanceScratch.forCurrentThread().cells += computedRows * columns;
+		// Cada nó visitado calcula as linhas da matriz do seu rótulo
+		if(counters != null)
+			counters.add(visited, visited);
+	}
+
+	@Override
+	public int size(){
+		return size - removed;
+	}
+
+	/**
+	 * Tamanho do prefixo comum entre o rótulo e a palavra a partir da posição informada.
+	 */
+	private static int commonPrefix(char[] label, char[] word, int position){
+		int limit = Math.min(label.length, word.length - position);
+		int i = 0;
+		while(i < limit && label[i] == word[position + i])
+			i++;
+		return i;
+	}
+
+	/**
+	 * Nó da trie. Os filhos são mantidos ordenados pelo primeiro caractere do rótulo e nunca são alterados após
+	 * publicados: cada modificação publica uma cópia do array.
+	 */
+	private static final class Node {
+		private static final Node[] NO_CHILDREN = new Node[0];
+
+		// Caracteres da aresta entre o nó pai e este nó
+		private final char[] label;
+		private volatile Node[] children;
+		// Ordem de inserção da palavra terminada neste nó, ou negativo caso nenhuma palavra termine aqui
+		private volatile int order;
+
+		private Node(char[] label, Node[] children, int order){
+			this.label = label;
+			this.children = children;
+			this.order = order;
+		}
+
+		private boolean isVisible(int visibleCount){
+			int current = order;
+			return current >= 0 && current < visibleCount;
+		}
+
+		/**
+		 * Busca binária pelo filho cujo rótulo começa com o caractere informado. Retorna a posição do filho ou
+		 * (-(posição de inserção) - 1) caso ele não exista.
+		 */
+		private int findChild(char c){
+			Node[] current = children;
+			int low = 0;
+			int high = current.length - 1;
+			while(low <= high){
+				int middle = (low + high) >>> 1;
+				char first = current[middle].label[0];
+				if(first < c)
+					low = middle + 1;
+				else if(first > c)
+					high = middle - 1;
+				else
+					return middle;
+			}
+			return -(low + 1);
+		}
+
+		private void insertChild(int index, Node child){
+			Node[] current = children;
+			Node[] updated = new Node[current.length + 1];
+			System.arraycopy(current, 0, updated, 0, index);
+			updated[index] = child;
+			System.arraycopy(current, index, updated, index + 1, current.length - index);
+			children = updated;
+		}
+
+		private void replaceChild(int index, Node child){
+			Node[] updated = children.clone();
+			updated[index] = child;
+			children = updated;
+		}
+	}
+
+}
@@ -3,7 +3,9 @@ package br.com.fleao.word_similarity.configuration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import br.com.fleao.word_similarity.services.WordIngestionService;
 import br.com.fleao.word_similarity.services.WordService;
+import br.com.fleao.word_similarity.services.WordSimilarityMetrics;
 
 /**
  * Configuração de beans para casos de teste.
@@ -19,4 +21,14 @@ public class UnitTestConfiguration {
 		return new WordService();
 	}
 
+	@Bean
+	public WordIngestionService wordIngestionService() {
+		return new WordIngestionService();
+	}
+
+	@Bean
+	public WordSimilarityMetrics wordSimilarityMetrics() {
+		return new WordSimilarityMetrics();
+	}
+
 }
\ No newline at end of file
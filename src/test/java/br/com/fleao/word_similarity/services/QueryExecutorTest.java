@@ -0,0 +1,153 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+import br.com.fleao.word_similarity.util.QueryCancellation;
+
+/**
+ * Classe de teste para validar os métodos da classe QueryExecutor
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class QueryExecutorTest {
+
+	private QueryExecutor executor;
+
+	@Before
+	public void setUp() throws Exception {
+		executor = new QueryExecutor(1, 1);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		executor.shutdown();
+	}
+
+	/**
+	 * O resultado da busca deve ser entregue através do future
+	 */
+	@Test
+	public void testSubmit() throws Exception {
+		CompletableFuture<String> result = executor.submit(new Callable<String>(){
+			@Override
+			public String call(){
+				return "manhã";
+			}
+		}, 0);
+		Assert.assertEquals("manhã", result.get(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Com a thread e a fila ocupadas, novas buscas devem ser rejeitadas imediatamente
+	 */
+	@Test
+	public void testRejectsWhenSaturated() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.submit(blocking(started, release), 0);
+		started.await(5, TimeUnit.SECONDS);
+		executor.submit(blocking(new CountDownLatch(1), release), 0);
+		Assert.assertEquals(1, executor.getQueuedCount());
+
+		try{
+			executor.submit(blocking(new CountDownLatch(1), release), 0);
+			Assert.fail("O executor aceitou uma busca além da sua capacidade.");
+		}catch(RejectedExecutionException e){ }
+		Assert.assertEquals(1, executor.getRejectedCount());
+		release.countDown();
+	}
+
+	/**
+	 * Ao expirar o prazo, o resultado deve ser concluído com TimeoutException e a busca interrompida
+	 */
+	@Test
+	public void testTimeoutInterruptsQuery() throws Exception {
+		final CountDownLatch cancelled = new CountDownLatch(1);
+		CompletableFuture<String> result = executor.submit(new Callable<String>(){
+			@Override
+			public String call(){
+				try{
+					while(true)
+						QueryCancellation.check();
+				}catch(CancellationException e){
+					cancelled.countDown();
+					throw e;
+				}
+			}
+		}, 50);
+
+		try{
+			result.get(5, TimeUnit.SECONDS);
+			Assert.fail("A busca não expirou.");
+		}catch(ExecutionException e){
+			Assert.assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		Assert.assertTrue("A busca não foi interrompida.", cancelled.await(5, TimeUnit.SECONDS));
+		Assert.assertEquals(1, executor.getTimedOutCount());
+
+		// A thread interrompida deve continuar disponível para as próximas buscas
+		Assert.assertEquals("tarde", executor.submit(new Callable<String>(){
+			@Override
+			public String call(){
+				QueryCancellation.check();
+				return "tarde";
+			}
+		}, 0).get(5, TimeUnit.SECONDS));
+	}
+
+	/**
+	 * Buscas canceladas enquanto aguardam na fila não devem ser executadas
+	 */
+	@Test
+	public void testCancelledQueryIsNotExecuted() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.submit(blocking(started, release), 0);
+		started.await(5, TimeUnit.SECONDS);
+
+		CountDownLatch executed = new CountDownLatch(1);
+		CompletableFuture<String> queued = executor.submit(blocking(executed, new CountDownLatch(0)), 0);
+		queued.cancel(true);
+		release.countDown();
+		Assert.assertFalse(executed.await(200, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Busca que sinaliza o seu início e aguarda a liberação
+	 */
+	private static Callable<String> blocking(final CountDownLatch started, final CountDownLatch release){
+		return new Callable<String>(){
+			@Override
+			public String call() throws InterruptedException{
+				started.countDown();
+				release.await();
+				return "";
+			}
+		};
+	}
+
+}
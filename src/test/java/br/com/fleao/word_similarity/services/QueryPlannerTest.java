@@ -0,0 +1,134 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+import br.com.fleao.word_similarity.util.DeletionIndex;
+import br.com.fleao.word_similarity.util.LengthBucketIndex;
+import br.com.fleao.word_similarity.util.QGramIndex;
+
+/**
+ * Classe de teste para validar as escolhas da classe QueryPlanner
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class QueryPlannerTest {
+
+	private LengthBucketIndex buckets;
+	private DeletionIndex deletions;
+	private QGramIndex qgrams;
+
+	@Before
+	public void setUp() throws Exception {
+		buckets = new LengthBucketIndex();
+		deletions = new DeletionIndex(2);
+		qgrams = new QGramIndex(2);
+		for(int i = 0; i < 5000; i++){
+			String word = "palavra" + Integer.toString(i, 7);
+			buckets.append(word);
+			deletions.add(word);
+			qgrams.add(word);
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Thresholds pequenos em relação à keyword devem utilizar o índice; thresholds altos, a varredura
+	 */
+	@Test
+	public void testIndexVersusScan() {
+		QueryPlanner planner = new QueryPlanner(0, 100000, 0.5);
+		Assert.assertEquals(SearchStrategy.SIMILARITY_INDEX,
+				planner.plan("palavra1234", 1, buckets.size(), buckets, null, null, true, null));
+		Assert.assertEquals(SearchStrategy.SCAN,
+				planner.plan("palavra1234", 6, buckets.size(), buckets, null, null, true, null));
+		// Nenhuma palavra com tamanho compatível: a varredura não custa nada
+		Assert.assertEquals(SearchStrategy.SCAN,
+				planner.plan("a", 0, buckets.size(), buckets, null, null, true, null));
+	}
+
+	/**
+	 * A varredura é paralela a partir da quantidade de palavras configurada, quando permitida
+	 */
+	@Test
+	public void testParallelScan() {
+		Assert.assertEquals(SearchStrategy.PARALLEL_SCAN, new QueryPlanner(4, 1000, 0.5)
+				.plan("palavra1234", 6, buckets.size(), buckets, null, null, true, null));
+		Assert.assertEquals(SearchStrategy.SCAN, new QueryPlanner(4, 1000, 0.5)
+				.plan("palavra1234", 6, buckets.size(), buckets, null, null, false, null));
+		Assert.assertEquals(SearchStrategy.SCAN, new QueryPlanner(4, 100000, 0.5)
+				.plan("palavra1234", 6, buckets.size(), buckets, null, null, true, null));
+	}
+
+	/**
+	 * Os índices de remoções e de q-gramas devem ser escolhidos quando habilitados e mais baratos, e somente para os
+	 * thresholds que suportam
+	 */
+	@Test
+	public void testDeletionAndQGramIndexes() {
+		QueryPlanner planner = new QueryPlanner(0, 100000, 0.5);
+		Map<SearchStrategy, Double> costs = new EnumMap<SearchStrategy, Double>(SearchStrategy.class);
+		Assert.assertEquals(SearchStrategy.DELETION_INDEX,
+				planner.plan("palavra1234", 1, buckets.size(), buckets, deletions, qgrams, true, costs));
+		Assert.assertEquals(4, costs.size());
+
+		// Palavras com prefixo comum compartilham os mesmos q-gramas: a varredura é mais barata
+		costs.clear();
+		Assert.assertEquals(SearchStrategy.SCAN, new QueryPlanner(0, 100000, 0.0)
+				.plan("palavra1234", 3, buckets.size(), buckets, deletions, qgrams, true, costs));
+		Assert.assertTrue(costs.containsKey(SearchStrategy.QGRAM_INDEX));
+		// Threshold acima da distância máxima do índice de remoções
+		Assert.assertFalse(costs.containsKey(SearchStrategy.DELETION_INDEX));
+	}
+
+	/**
+	 * Em um dicionário sem prefixos comuns as listas de q-gramas são curtas e o índice de q-gramas deve ser escolhido
+	 */
+	@Test
+	public void testQGramIndexOnDiverseWords() {
+		LengthBucketIndex randomBuckets = new LengthBucketIndex();
+		QGramIndex randomQGrams = new QGramIndex(2);
+		Random random = new Random(42);
+		char[] word = new char[10];
+		for(int i = 0; i < 5000; i++){
+			for(int j = 0; j < word.length; j++)
+				word[j] = (char) ('a' + random.nextInt(26));
+			randomBuckets.append(new String(word));
+			randomQGrams.add(new String(word));
+		}
+		Assert.assertEquals(SearchStrategy.QGRAM_INDEX, new QueryPlanner(0, 100000, 0.0)
+				.plan("abcdefghij", 3, randomBuckets.size(), randomBuckets, null, randomQGrams, true, null));
+	}
+
+	/**
+	 * A quantidade de remoções deve ser a soma das combinações de até "t" caracteres
+	 */
+	@Test
+	public void testCountDeletions() {
+		Assert.assertEquals(1, QueryPlanner.countDeletions(5, 0), 0);
+		Assert.assertEquals(1 + 5 + 10, QueryPlanner.countDeletions(5, 2), 0);
+		Assert.assertEquals(1 + 2 + 1, QueryPlanner.countDeletions(2, 5), 0);
+	}
+
+}
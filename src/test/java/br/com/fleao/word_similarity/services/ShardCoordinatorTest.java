@@ -0,0 +1,323 @@
+package br.com.fleao.word_similarity.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.web.client.RestTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import br.com.fleao.word_similarity.Runner;
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+import br.com.fleao.word_similarity.util.LevenshteinDistanceAlgorithm;
+import br.com.fleao.word_similarity.util.RandomWords;
+import br.com.fleao.word_similarity.util.WordDistance;
+
+/**
+ * Classe de teste para validar os métodos da classe ShardCoordinator, com duas instâncias da aplicação executadas como
+ * shards em portas locais. As instâncias são compartilhadas entre os testes, que não dependem das palavras armazenadas
+ * pelos demais.
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class ShardCoordinatorTest {
+
+	// Palavras curtas sobre um alfabeto reduzido, aumentando a chance de palavras similares
+	private static final RandomWords WORDS = new RandomWords(1, 7, "abcde");
+
+	private static final List<ConfigurableApplicationContext> shards = new ArrayList<ConfigurableApplicationContext>();
+	private static final List<String> nodes = new ArrayList<String>();
+	// Shard que demora a responder qualquer requisição
+	private static HttpServer slowShard;
+
+	@BeforeClass
+	public static void setUpShards() throws Exception {
+		for(int i = 0; i < 2; i++){
+			ConfigurableApplicationContext shard = new SpringApplicationBuilder(Runner.class)
+					.run("--server.port=0", "--spring.jmx.enabled=false");
+			shards.add(shard);
+			nodes.add("http://localhost:"
+					+ ((EmbeddedWebApplicationContext) shard).getEmbeddedServletContainer().getPort());
+		}
+
+		slowShard = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		slowShard.createContext("/", new HttpHandler(){
+			@Override
+			public void handle(HttpExchange exchange) throws IOException{
+				try{
+					Thread.sleep(3000);
+				}catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+				}
+				byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				try(OutputStream output = exchange.getResponseBody()){
+					output.write(body);
+				}
+			}
+		});
+		slowShard.start();
+	}
+
+	@AfterClass
+	public static void tearDownShards() throws Exception {
+		for(ConfigurableApplicationContext shard : shards)
+			shard.close();
+		if(slowShard != null)
+			slowShard.stop(0);
+	}
+
+	/**
+	 * Cada palavra deve ser armazenada somente no shard dono dela, e as palavras devem ser distribuídas entre todos os
+	 * shards
+	 */
+	@Test
+	public void testRouting() throws Exception {
+		ShardCoordinator coordinator = new ShardCoordinator(join(nodes), 5000, 0);
+		try{
+			Random random = new Random(47);
+			Set<String> words = new TreeSet<String>();
+			while(words.size() < 200)
+				words.add("rota" + WORDS.next(random));
+
+			ShardedResult<Integer> stored = coordinator.storeWords(new ArrayList<String>(words)).get();
+			Assert.assertFalse(stored.isPartial());
+			Assert.assertEquals(Integer.valueOf(200), stored.getResult());
+			Assert.assertEquals(2, stored.getShards().size());
+
+			// A inserção é idempotente: a palavra repetida não é duplicada no shard
+			Assert.assertTrue(coordinator.storeWord("rotaúnica").get());
+			Assert.assertTrue(coordinator.storeWord("rotaúnica").get());
+			words.add("rotaúnica");
+
+			for(int i = 0; i < shards.size(); i++){
+				Set<String> owned = new HashSet<String>();
+				for(String word : shards.get(i).getBean(WordService.class).getAllStoredWords()){
+					if(word.startsWith("rota"))
+						owned.add(word);
+				}
+				Assert.assertFalse("Nenhuma palavra foi armazenada no shard " + nodes.get(i), owned.isEmpty());
+				for(String word : words)
+					Assert.assertEquals(coordinator.getOwner(word).equals(nodes.get(i)), owned.contains(word));
+			}
+		}finally{
+			coordinator.shutdown();
+		}
+	}
+
+	/**
+	 * As buscas distribuídas devem retornar o mesmo resultado de uma busca sobre todas as palavras dos shards
+	 */
+	@Test
+	public void testScatterGather() throws Exception {
+		ShardCoordinator coordinator = new ShardCoordinator(join(nodes), 5000, 0);
+		try{
+			Random random = new Random(53);
+			List<String> words = new ArrayList<String>();
+			for(int i = 0; i < 300; i++)
+				words.add(WORDS.next(random));
+			coordinator.storeWords(words).get();
+
+			Set<String> allWords = new HashSet<String>();
+			for(ConfigurableApplicationContext shard : shards)
+				allWords.addAll(shard.getBean(WordService.class).getAllStoredWords());
+
+			for(int i = 0; i < 20; i++){
+				String keyword = WORDS.next(random);
+				int threshold = random.nextInt(3);
+
+				Set<String> expected = new TreeSet<String>();
+				List<WordDistance> distances = new ArrayList<WordDistance>();
+				for(String word : allWords){
+					int distance = LevenshteinDistanceAlgorithm.getDistance(keyword, word);
+					if(distance <= threshold)
+						expected.add(word);
+					distances.add(new WordDistance(word, distance));
+				}
+				Collections.sort(distances);
+
+				ShardedResult<Set<String>> similar = coordinator.listSimilarWords(keyword, threshold, 0).get();
+				Assert.assertFalse(similar.isPartial());
+				Assert.assertEquals("Resultado divergente para a keyword '" + keyword + "'", expected,
+						similar.getResult());
+
+				ShardedResult<List<WordDistance>> nearest = coordinator.listNearestWords(keyword, 5, 0).get();
+				Assert.assertFalse(nearest.isPartial());
+				Assert.assertEquals(distances.subList(0, 5), nearest.getResult());
+			}
+		}finally{
+			coordinator.shutdown();
+		}
+	}
+
+	/**
+	 * Shards que não respondem dentro do prazo ou estão indisponíveis devem tornar o resultado parcial, sem impedir a
+	 * resposta dos demais
+	 */
+	@Test
+	public void testPartialResults() throws Exception {
+		int closedPort;
+		try(ServerSocket socket = new ServerSocket(0)){
+			closedPort = socket.getLocalPort();
+		}
+		String slowNode = "http://localhost:" + slowShard.getAddress().getPort();
+		String closedNode = "http://localhost:" + closedPort;
+		ShardCoordinator coordinator = new ShardCoordinator(nodes.get(0) + "," + slowNode + "," + closedNode, 5000, 0);
+		try{
+			shards.get(0).getBean(WordService.class).storeWord("parcial");
+			// A primeira requisição a um shard recém-iniciado pode exceder o prazo reduzido da busca
+			ShardCoordinator warmUp = new ShardCoordinator(nodes.get(0), 5000, 0);
+			try{
+				warmUp.listSimilarWords("parcial", 0, 0).get();
+			}finally{
+				warmUp.shutdown();
+			}
+
+			long started = System.nanoTime();
+			ShardedResult<Set<String>> result = coordinator.listSimilarWords("parcial", 0, 1000).get();
+			Assert.assertTrue((System.nanoTime() - started) / 1000000 < 2500);
+
+			Assert.assertTrue(result.isPartial());
+			Assert.assertTrue(result.toString(), result.getShards().get(0).isSucceeded());
+			Assert.assertEquals(Collections.singleton("parcial"), result.getResult());
+			Assert.assertNull(result.getShards().get(0).getError());
+
+			ShardedResult.ShardStatus slow = result.getShards().get(1);
+			Assert.assertEquals(slowNode, slow.getNode());
+			Assert.assertFalse(slow.isSucceeded());
+			Assert.assertTrue(slow.getElapsedMs() >= 1000);
+			Assert.assertTrue(slow.getError().contains("1000 ms"));
+
+			ShardedResult.ShardStatus closed = result.getShards().get(2);
+			Assert.assertEquals(closedNode, closed.getNode());
+			Assert.assertFalse(closed.isSucceeded());
+			Assert.assertNotNull(closed.getError());
+		}finally{
+			coordinator.shutdown();
+		}
+	}
+
+	/**
+	 * O coordenador não deve ser iniciado caso algum shard esteja configurado com outra posição ou quantidade de
+	 * shards; shards sem posição configurada ou indisponíveis não impedem a inicialização
+	 */
+	@Test
+	public void testShardIdentityVerification() throws Exception {
+		int closedPort;
+		try(ServerSocket socket = new ServerSocket(0)){
+			closedPort = socket.getLocalPort();
+		}
+		String closedNode = "http://localhost:" + closedPort;
+		// Shard configurado como o segundo de três shards
+		HttpServer identifiedShard = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		identifiedShard.createContext("/rest/shard/identity", new HttpHandler(){
+			@Override
+			public void handle(HttpExchange exchange) throws IOException{
+				byte[] body = "{\"index\":1,\"count\":3}".getBytes(StandardCharsets.UTF_8);
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, body.length);
+				try(OutputStream output = exchange.getResponseBody()){
+					output.write(body);
+				}
+			}
+		});
+		identifiedShard.start();
+		try{
+			String identifiedNode = "http://localhost:" + identifiedShard.getAddress().getPort();
+			Assert.assertEquals(0, new RestTemplate().getForObject(nodes.get(0) + "/rest/shard/identity", 
+					JsonNode.class).get("count").asInt());
+
+			new ShardCoordinator(nodes.get(0) + "," + identifiedNode + "," + closedNode, 5000, 0).shutdown();
+
+			String[] misrouted = {identifiedNode, identifiedNode + "," + nodes.get(0) + "," + nodes.get(1), 
+					nodes.get(0) + "," + identifiedNode};
+			for(String list : misrouted){
+				try{
+					new ShardCoordinator(list, 5000, 0).shutdown();
+					Assert.fail("O coordenador aceitou a lista de shards '" + list + "'.");
+				}catch(IllegalArgumentException e){
+					Assert.assertTrue(e.getMessage(), e.getMessage().contains(identifiedNode));
+				}
+			}
+		}finally{
+			identifiedShard.stop(0);
+		}
+	}
+
+	/**
+	 * Configurações e parâmetros inválidos devem ser rejeitados
+	 */
+	@Test
+	public void testInvalidParameters() {
+		String[] invalidNodes = {"", " , ", "localhost:8080", "http://a:1,http://a:1/"};
+		for(String invalid : invalidNodes){
+			try{
+				new ShardCoordinator(invalid, 1000, 0).shutdown();
+				Assert.fail("O coordenador aceitou a configuração inválida '" + invalid + "'.");
+			}catch(IllegalArgumentException e){ }
+		}
+
+		ShardCoordinator coordinator = new ShardCoordinator("http://localhost:1/", 1000, 0);
+		try{
+			Assert.assertEquals(Collections.singletonList("http://localhost:1"), coordinator.getNodes());
+			try{
+				coordinator.listSimilarWords("palavra", -1, 0);
+				Assert.fail("O coordenador aceitou um threshold negativo.");
+			}catch(IllegalArgumentException e){ }
+			try{
+				coordinator.listNearestWords("palavra", 0, 0);
+				Assert.fail("O coordenador aceitou uma quantidade de palavras inválida.");
+			}catch(IllegalArgumentException e){ }
+			try{
+				coordinator.listSimilarWords("palavra", 1, -1);
+				Assert.fail("O coordenador aceitou um prazo negativo.");
+			}catch(IllegalArgumentException e){ }
+			try{
+				coordinator.storeWords(Collections.<String>singletonList(null));
+				Assert.fail("O coordenador aceitou um lote com palavras nulas.");
+			}catch(IllegalArgumentException e){ }
+		}finally{
+			coordinator.shutdown();
+		}
+	}
+
+	private static String join(List<String> values){
+		StringBuilder builder = new StringBuilder();
+		for(String value : values)
+			builder.append(builder.length() == 0 ? "" : ",").append(value);
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,146 @@
+package br.com.fleao.word_similarity.services;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Testes unitários para verificar o correto funcionamento dos métodos da classe {@link SimilarityCache}
+ * 
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class SimilarityCacheTest {
+
+	private SimilarityCache cache;
+	
+	@Before
+	public void setUp() throws Exception {
+		// Um único segmento com capacidade para 10 unidades de peso
+		cache = new SimilarityCache(10, 1);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+	
+	/**
+	 * Resultados devem ser recuperados pela keyword e pelo threshold
+	 */
+	@Test
+	public void testGetAndPut(){
+		Set<String> words = words("manhã", "manha");
+		cache.put("manhã", 1, 0, 5, 0, words);
+		
+		SimilarityCache.Result result = cache.get("manhã", 1);
+		Assert.assertSame(words, result.getWords());
+		Assert.assertEquals(5, result.getVisibleCount());
+		Assert.assertNull(cache.get("manhã", 2));
+		Assert.assertNull(cache.get("manha", 1));
+		
+		CacheStatistics statistics = cache.getStatistics();
+		Assert.assertEquals(1, statistics.getEntries());
+		Assert.assertEquals(3, statistics.getWeight());
+		Assert.assertEquals(10, statistics.getMaxWeight());
+	}
+	
+	/**
+	 * Um resultado calculado com menos palavras não deve substituir um resultado mais recente
+	 */
+	@Test
+	public void testKeepsMostRecentResult(){
+		cache.put("manhã", 1, 0, 5, 0, words("manhã", "manha"));
+		cache.put("manhã", 1, 0, 3, 0, words("manhã"));
+		Assert.assertEquals(5, cache.get("manhã", 1).getVisibleCount());
+		
+		cache.put("manhã", 1, 0, 8, 0, words("manhã", "manha", "manhãs"));
+		Assert.assertEquals(8, cache.get("manhã", 1).getVisibleCount());
+		Assert.assertEquals(1, cache.getStatistics().getEntries());
+	}
+	
+	/**
+	 * Um resultado calculado antes de remoções ou de uma reconstrução das palavras não deve substituir um resultado 
+	 * calculado depois delas
+	 */
+	@Test
+	public void testKeepsResultAfterRemovals(){
+		cache.put("manhã", 1, 0, 8, 2, words("manhã"));
+		cache.put("manhã", 1, 0, 8, 1, words("manhã", "manha"));
+		Assert.assertEquals(2, cache.get("manhã", 1).getRemovedCount());
+		
+		cache.put("manhã", 1, 1, 3, 0, words("manhã", "manhãs"));
+		cache.put("manhã", 1, 0, 9, 2, words("manhã"));
+		SimilarityCache.Result result = cache.get("manhã", 1);
+		Assert.assertEquals(1, result.getEpoch());
+		Assert.assertEquals(3, result.getVisibleCount());
+	}
+	
+	/**
+	 * Resultados consultados novamente devem ser protegidos de uma sequência de consultas únicas
+	 */
+	@Test
+	public void testSegmentedEviction(){
+		cache.put("frequente", 1, 0, 1, 0, words("a"));
+		Assert.assertNotNull(cache.get("frequente", 1));
+		
+		// Consultas únicas, cada uma com peso 2, expulsam somente umas às outras
+		for(int i = 0; i < 20; i++)
+			cache.put("única" + i, 1, 0, 1, 0, words("b"));
+		
+		Assert.assertNotNull(cache.get("frequente", 1));
+		Assert.assertNotNull(cache.get("única19", 1));
+		Assert.assertNull(cache.get("única0", 1));
+		CacheStatistics statistics = cache.getStatistics();
+		Assert.assertTrue(statistics.getWeight() <= 10);
+		Assert.assertEquals(21 - statistics.getEntries(), statistics.getEvictions());
+	}
+	
+	/**
+	 * Resultados maiores que a capacidade não devem ser armazenados
+	 */
+	@Test
+	public void testRejectsLargeResults(){
+		cache.put("a", 5, 0, 1, 0, words("a", "b", "c", "d", "e", "f", "g", "h", "i", "j"));
+		Assert.assertNull(cache.get("a", 5));
+		Assert.assertEquals(0, cache.getStatistics().getEvictions());
+	}
+	
+	/**
+	 * A limpeza deve remover todos os resultados
+	 */
+	@Test
+	public void testClear(){
+		cache.put("a", 1, 0, 1, 0, words("a"));
+		cache.clear();
+		Assert.assertNull(cache.get("a", 1));
+		Assert.assertEquals(0, cache.getStatistics().getWeight());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalCapacity(){
+		new SimilarityCache(0, 4);
+	}
+	
+	private static Set<String> words(String... words){
+		return Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(words)));
+	}
+	
+}
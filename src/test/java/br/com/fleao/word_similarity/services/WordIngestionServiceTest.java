@@ -0,0 +1,122 @@
+package br.com.fleao.word_similarity.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Testes unitários para verificar o correto funcionamento dos métodos da classe {@link WordIngestionService}
+ * 
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class WordIngestionServiceTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	@Autowired
+	private WordService wordService;
+	
+	@Autowired
+	private WordIngestionService wordIngestionService;
+	
+	@Before
+	public void setUp() throws Exception {
+		// Lotes pequenos para exercitar a divisão em vários lotes
+		ReflectionTestUtils.setField(wordIngestionService, "batchSize", 2);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		// Nada a fazer
+	}
+	
+	/**
+	 * Palavras separadas por linha devem ser armazenadas sem repetição, inclusive entre lotes diferentes
+	 */
+	@Test
+	public void testStoreLines() throws IOException{
+		wordService.storeWord("tarde");
+		
+		int added = wordIngestionService.storeLines(Channels.newChannel(stream("manhã\ntarde\nmanhã\r\n\nnoite\nabacate\nnoite")));
+		Assert.assertEquals(3, added);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "tarde", "noite", "abacate")), 
+				wordService.getAllStoredWords());
+	}
+	
+	/**
+	 * Palavras de um array JSON devem ser armazenadas sem repetição
+	 */
+	@Test
+	public void testStoreJsonArray() throws IOException{
+		int added = wordIngestionService.storeJsonArray(stream("[\"manhã\", \"tarde\", \"manhã\", \"noite\", \"\"]"));
+		Assert.assertEquals(4, added);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "tarde", "noite", "")), 
+				wordService.getAllStoredWords());
+	}
+	
+	/**
+	 * Conteúdos JSON que não são arrays de strings devem ser rejeitados
+	 */
+	@Test
+	public void testStoreJsonArrayIllegalContent() throws IOException{
+		for(String content : Arrays.asList("{\"word\": \"manhã\"}", "[\"manhã\", 3]", "[\"manhã\", null]")){
+			try{
+				wordIngestionService.storeJsonArray(stream(content));
+				Assert.fail("O método storeJsonArray() aceitou o conteúdo " + content);
+			}catch(IllegalArgumentException e){ }
+		}
+	}
+	
+	/**
+	 * Arquivos de dicionário devem ser carregados tanto diretamente quanto através da configuração
+	 */
+	@Test
+	public void testStoreFiles() throws IOException{
+		File first = folder.newFile("first.txt");
+		File second = folder.newFile("second.txt");
+		Files.write(first.toPath(), "manhã\ntarde\n".getBytes(StandardCharsets.UTF_8));
+		Files.write(second.toPath(), "tarde\nnoite\n".getBytes(StandardCharsets.UTF_8));
+		
+		Assert.assertEquals(2, wordIngestionService.storeFiles(Arrays.<Path>asList(first.toPath())));
+		
+		ReflectionTestUtils.setField(wordIngestionService, "loaderFiles", first.getPath() + " , " + second.getPath());
+		wordIngestionService.loadConfiguredFiles();
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "tarde", "noite")), 
+				wordService.getAllStoredWords());
+	}
+	
+	private static InputStream stream(String content){
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
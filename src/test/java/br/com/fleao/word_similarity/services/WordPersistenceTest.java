@@ -0,0 +1,221 @@
+package br.com.fleao.word_similarity.services;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Testes de recuperação da persistência das palavras armazenadas pelo {@link WordService}, incluindo a interrupção 
+ * abrupta do processo durante as escritas.
+ * 
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class WordPersistenceTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	private final List<WordService> services = new ArrayList<WordService>();
+	
+	@Before
+	public void setUp() throws Exception {
+		// Nada a fazer
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for(WordService service : services)
+			service.shutdown();
+	}
+	
+	/**
+	 * As palavras devem ser recuperadas após o encerramento normal do serviço, inclusive palavras armazenadas em lote
+	 */
+	@Test
+	public void testRecoverAfterShutdown(){
+		WordService service = openService(folder.getRoot());
+		service.storeWord("manhã");
+		service.storeWords(Arrays.asList("tarde", "noite", "manhã"));
+		service.shutdown();
+		
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "tarde", "noite")), 
+				openService(folder.getRoot()).getAllStoredWords());
+	}
+	
+	/**
+	 * As palavras removidas, explicitamente ou pela capacidade, não devem ser recuperadas, tanto pelo log quanto pelo 
+	 * snapshot
+	 */
+	@Test
+	public void testRecoverRemovals() throws IOException{
+		WordService service = openService(folder.getRoot());
+		ReflectionTestUtils.setField(service, "storeMaxWords", 3);
+		service.storeWords(Arrays.asList("manhã", "tarde", "noite"));
+		Assert.assertTrue(service.removeWord("tarde"));
+		service.checkpoint();
+		service.storeWords(Arrays.asList("madrugada", "alvorada"));
+		Assert.assertTrue(service.removeWord("noite"));
+		service.storeWord("tarde");
+		Set<String> expected = new HashSet<String>(Arrays.asList("madrugada", "alvorada", "tarde"));
+		Assert.assertEquals(expected, service.getAllStoredWords());
+		service.shutdown();
+		
+		Assert.assertEquals(expected, openService(folder.getRoot()).getAllStoredWords());
+	}
+	
+	/**
+	 * A recuperação deve combinar o snapshot com o final do log, removendo os segmentos cobertos pelo snapshot
+	 */
+	@Test
+	public void testRecoverSnapshotAndLogTail() throws IOException{
+		WordService service = openService(folder.getRoot());
+		service.storeWords(Arrays.asList("manhã", "tarde"));
+		service.checkpoint();
+		service.storeWord("noite");
+		service.checkpoint();
+		service.storeWord("abacate");
+		
+		// Somente o snapshot mais recente e o segmento posterior a ele são mantidos
+		Assert.assertEquals(2, folder.getRoot().list().length);
+		
+		// O serviço anterior não é encerrado, simulando uma interrupção
+		WordService recovered = openService(folder.getRoot());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "tarde", "noite", "abacate")), 
+				recovered.getAllStoredWords());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("noite")), recovered.listSimilarStoredWords("noites", 1));
+		
+		recovered.storeWord("boate");
+		Assert.assertEquals(5, openService(folder.getRoot()).getAllStoredWords().size());
+	}
+	
+	/**
+	 * Um checkpoint logo após a recuperação do final do log, sem novas escritas, deve manter o segmento aberto pela 
+	 * recuperação em uso
+	 */
+	@Test
+	public void testCheckpointAfterRecoveringLogTail() throws IOException{
+		WordService service = openService(folder.getRoot());
+		service.storeWords(Arrays.asList("manhã", "tarde"));
+		service.shutdown();
+		
+		WordService recovered = openService(folder.getRoot());
+		recovered.checkpoint();
+		recovered.storeWord("noite");
+		recovered.checkpoint();
+		recovered.storeWord("abacate");
+		
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "tarde", "noite", "abacate")), 
+				openService(folder.getRoot()).getAllStoredWords());
+	}
+	
+	/**
+	 * Um processo interrompido abruptamente (kill -9) durante escritas concorrentes e snapshots não deve perder 
+	 * nenhuma palavra cuja inserção foi confirmada
+	 */
+	@Test
+	public void testNoAcknowledgedWordLostOnCrash() throws Exception{
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), 
+				CrashingWriter.class.getName(), folder.getRoot().getPath()).redirectErrorStream(false).start();
+		
+		Set<String> acknowledged = new HashSet<String>();
+		try{
+			BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+			// Somente as linhas de confirmação são consideradas, ignorando o log da aplicação
+			for(String line = reader.readLine(); line != null && acknowledged.size() < 3000; line = reader.readLine()){
+				if(line.startsWith(CrashingWriter.ACK))
+					acknowledged.add(line.substring(CrashingWriter.ACK.length()));
+			}
+		}finally{
+			process.destroyForcibly();
+			process.waitFor(30, TimeUnit.SECONDS);
+		}
+		Assert.assertTrue("O processo foi encerrado antes de confirmar as palavras.", acknowledged.size() >= 3000);
+		
+		Set<String> recovered = openService(folder.getRoot()).getAllStoredWords();
+		for(String word : acknowledged)
+			Assert.assertTrue("A palavra confirmada '" + word + "' foi perdida.", recovered.contains(word));
+	}
+	
+	private WordService openService(File directory){
+		WordService service = new WordService();
+		ReflectionTestUtils.setField(service, "persistenceEnabled", true);
+		ReflectionTestUtils.setField(service, "persistenceDirectory", directory.getPath());
+		ReflectionTestUtils.setField(service, "persistenceSnapshotIntervalSeconds", 0L);
+		service.initialize();
+		services.add(service);
+		return service;
+	}
+	
+	/**
+	 * Processo que armazena palavras continuamente em várias threads, com snapshots periódicos, imprimindo cada 
+	 * palavra somente após a confirmação da inserção.
+	 */
+	public static final class CrashingWriter {
+		
+		static final String ACK = "ack ";
+		
+		public static void main(String[] args) throws Exception{
+			final WordService service = new WordService();
+			ReflectionTestUtils.setField(service, "persistenceEnabled", true);
+			ReflectionTestUtils.setField(service, "persistenceDirectory", args[0]);
+			ReflectionTestUtils.setField(service, "persistenceSnapshotIntervalSeconds", 0L);
+			service.initialize();
+			
+			for(int t = 0; t < 4; t++){
+				final int thread = t;
+				new Thread(){
+					@Override
+					public void run(){
+						for(int i = 0; ; i++){
+							String word = "palavra-" + thread + "-" + i;
+							if(i % 3 == 0)
+								service.storeWords(Arrays.asList(word));
+							else
+								service.storeWord(word);
+							synchronized(System.out){
+								System.out.println(ACK + word);
+								System.out.flush();
+							}
+							if(thread == 0 && i % 500 == 499)
+								service.checkpoint();
+						}
+					}
+				}.start();
+			}
+		}
+		
+	}
+
+}
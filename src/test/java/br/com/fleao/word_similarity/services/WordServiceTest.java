@@ -1,12 +1,29 @@
 package br.com.fleao.word_similarity.services;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.DirtiesContext;
@@ -14,8 +31,12 @@ import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+import br.com.fleao.word_similarity.util.DeletionIndex;
+import br.com.fleao.word_similarity.util.SimilarityIndex;
+import br.com.fleao.word_similarity.util.WordDistance;
 
 /**
  * Testes unitários para verificar o correto funcionamento dos métodos da classe {@link WordService}
@@ -32,6 +53,9 @@ public class WordServiceTest {
 	@Autowired
 	private WordService wordService;
 	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
 	@Before
 	public void setUp() throws Exception {
 		// Após cada tete o contexto é destruído e recriado, com os beans sendo reinjetados e singletons reinstanciados (@DirtiesContext)
@@ -124,9 +148,829 @@ public class WordServiceTest {
 		Assert.assertNotEquals(new HashSet<String>(Arrays.asList("manhã")), wordService.listSimilarStoredWords("manha", 0));
 	}
 	
+	/**
+	 * Verifica o armazenamento em lote, sem duplicação de palavras já armazenadas ou repetidas no lote
+	 */
+	@Test
+	public void testStoreWordsBatch(){
+		wordService.storeWord("a");
+		Assert.assertEquals(2, wordService.storeWords(Arrays.asList("a", "b", "c", "b")));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("a","b","c")), wordService.getAllStoredWords());
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("a","b","c")), wordService.listSimilarStoredWords("a", 1));
+	}
+	
+	/**
+	 * O conjunto retornado por {@link WordService#getAllStoredWords()} não deve ser alterado por inserções posteriores
+	 */
+	@Test
+	public void testGetAllStoredWordsIsSnapshot(){
+		wordService.storeWord("a");
+		Set<String> before = wordService.getAllStoredWords();
+		wordService.storeWord("b");
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("a")), before);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("a","b")), wordService.getAllStoredWords());
+	}
+	
+	/**
+	 * A varredura paralela deve produzir exatamente o mesmo resultado da busca no índice
+	 */
+	@Test
+	public void testParallelScanMatchesIndex(){
+		Random random = new Random(5);
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 5000; i++){
+			StringBuilder word = new StringBuilder();
+			for(int j = random.nextInt(8); j >= 0; j--)
+				word.append((char) ('a' + random.nextInt(4)));
+			words.add(word.toString());
+		}
+		wordService.storeWords(words);
+		
+		Map<String, Set<String>> expected = new HashMap<String, Set<String>>();
+		for(String keyword : Arrays.asList("abc", "dcba", "aaaaaaa", "b")){
+			expected.put(keyword, wordService.listSimilarStoredWords(keyword, 2));
+		}
+		
+		// Força o uso da varredura paralela com blocos pequenos, sem o cache de resultados
+		ReflectionTestUtils.setField(wordService, "cache", null);
+		ReflectionTestUtils.setField(wordService, "parallelMinWords", 0);
+		ReflectionTestUtils.setField(wordService, "parallelMinThresholdRatio", 0.0);
+		ReflectionTestUtils.setField(wordService, "parallelChunkSize", 64);
+		for(Map.Entry<String, Set<String>> entry : expected.entrySet()){
+			Assert.assertEquals(entry.getValue(), wordService.listSimilarStoredWords(entry.getKey(), 2));
+		}
+	}
+	
+	/**
+	 * Buscas com threshold alto em relação à keyword devem ser realizadas pela varredura filtrada
+	 */
+	@Test
+	public void testScanStatistics(){
+		testListSimilarStoredWords();
+		
+		// "boate" com threshold 3 e "banana" com threshold 3 e 4 utilizam a varredura
+		Assert.assertEquals(3, wordService.getScanStatistics().getQueries());
+		Assert.assertTrue(wordService.getScanStatistics().getMatched() >= 4);
+	}
+	
+	/**
+	 * A busca utilizando a trie deve produzir o mesmo resultado da BK-tree
+	 */
+	@Test
+	public void testTrieIndex(){
+		ReflectionTestUtils.setField(wordService, "similarityIndexType", SimilarityIndexType.TRIE);
+		wordService.initialize();
+		testListSimilarStoredWords();
+	}
+	
+	/**
+	 * Com o índice de remoções habilitado, thresholds pequenos são respondidos por ele e thresholds maiores pelo 
+	 * índice principal, sempre com o mesmo resultado
+	 */
+	@Test
+	public void testDeletionIndex(){
+		ReflectionTestUtils.setField(wordService, "deletionIndexEnabled", true);
+		ReflectionTestUtils.setField(wordService, "deletionIndexMaxEditDistance", 1);
+		wordService.initialize();
+		testListSimilarStoredWords();
+		Assert.assertEquals(4, wordService.getDeletionIndexReport().getWords());
+	}
+	
+	@Test
+	public void testQGramIndex(){
+		ReflectionTestUtils.setField(wordService, "qgramIndexEnabled", true);
+		wordService.initialize();
+		testListSimilarStoredWords();
+		
+		wordService.storeWord("paralelepipedo");
+		wordService.storeWord("paralelepipedos");
+		Set<String> similarWords = wordService.listSimilarStoredWords("paralelepípedo", 1);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("paralelepipedo")), similarWords);
+	}
+	
+	/**
+	 * As palavras mais próximas devem ser retornadas em ordem de distância, com o mesmo resultado para todos os índices
+	 */
+	@Test
+	public void testListNearestStoredWords(){
+		testListSimilarStoredWords();
+		
+		List<WordDistance> expected = Arrays.asList(new WordDistance("noite", 2), new WordDistance("abacate", 3), 
+				new WordDistance("tarde", 4));
+		Assert.assertEquals(expected, wordService.listNearestStoredWords("boate", 3));
+		Assert.assertEquals(4, wordService.listNearestStoredWords("boate", 10).size());
+		
+		replaceIndexes(SimilarityIndexType.TRIE.create(), null);
+		Assert.assertEquals(expected, wordService.listNearestStoredWords("boate", 3));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testListNearestStoredWordsIllegalK(){
+		wordService.listNearestStoredWords("boate", 0);
+	}
+	
+	/**
+	 * A busca em lote deve retornar, na ordem das consultas, o mesmo resultado das buscas individuais, tanto na 
+	 * varredura quanto no índice de remoções
+	 */
+	@Test
+	public void testListSimilarStoredWordsBatch(){
+		testListSimilarStoredWords();
+		
+		List<SimilarityQuery> queries = Arrays.asList(new SimilarityQuery("boate", 3), new SimilarityQuery("banana", 4), 
+				new SimilarityQuery("manhã", 0), new SimilarityQuery("boate", 1));
+		List<SimilarityResult> results = wordService.listSimilarStoredWordsBatch(queries);
+		Assert.assertEquals(queries.size(), results.size());
+		for(int i = 0; i < queries.size(); i++){
+			SimilarityQuery query = queries.get(i);
+			Assert.assertEquals(query.getKeyword(), results.get(i).getKeyword());
+			Assert.assertEquals(query.getThreshold(), results.get(i).getThreshold());
+			Assert.assertEquals(wordService.listSimilarStoredWords(query.getKeyword(), query.getThreshold()), 
+					results.get(i).getWords());
+		}
+		
+		replaceIndexes(null, new DeletionIndex(1));
+		Assert.assertEquals(new HashSet<String>(), 
+				wordService.listSimilarStoredWordsBatch(Arrays.asList(new SimilarityQuery("manhã", 0))).get(0).getWords());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testListSimilarStoredWordsBatchIllegalThreshold(){
+		wordService.listSimilarStoredWordsBatch(Arrays.asList(new SimilarityQuery("boate", -1)));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testStoreWordsIllegalArguments(){
+		wordService.storeWords(Arrays.asList("a", null));
+	}
+	
 	@Test(expected = IllegalArgumentException.class)
 	public void testListSimilarStoredWOrdsIllegalKeyword(){
 		wordService.listSimilarStoredWords(null, 0);
 	}
-
+	
+	/**
+	 * Verifica se as palavras exportadas para o índice mapeado são consultadas junto com as palavras armazenadas 
+	 * posteriormente, sem duplicação
+	 */
+	@Test
+	public void testMappedIndex(){
+		wordService.storeWords(Arrays.asList("manhã", "manha", "tarde", "noite"));
+		Path file = folder.getRoot().toPath().resolve("words.idx");
+		Assert.assertEquals(4, wordService.exportIndex(file));
+		
+		WordService mappedService = new WordService();
+		ReflectionTestUtils.setField(mappedService, "mappedIndexFile", file.toString());
+		mappedService.initialize();
+		try{
+			Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "manha", "tarde", "noite")), 
+					mappedService.getAllStoredWords());
+			
+			// Palavras presentes no índice mapeado não são armazenadas novamente
+			mappedService.storeWords(Arrays.asList("manha", "manhãs", "noites"));
+			Assert.assertEquals(6, mappedService.getAllStoredWords().size());
+			Assert.assertTrue(mappedService.getAllStoredWords().contains("tarde"));
+			Assert.assertTrue(mappedService.getAllStoredWords().contains("noites"));
+			
+			Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "manha", "manhãs")), 
+					mappedService.listSimilarStoredWords("manhã", 1));
+			Assert.assertEquals(new HashSet<String>(Arrays.asList("noite", "noites")), 
+					mappedService.listSimilarStoredWordsBatch(Arrays.asList(new SimilarityQuery("noite", 1))).get(0).getWords());
+			Assert.assertEquals(Arrays.asList(new WordDistance("noite", 0), new WordDistance("noites", 1)), 
+					mappedService.listNearestStoredWords("noite", 2));
+		}finally{
+			mappedService.shutdown();
+		}
+	}
+	
+	/**
+	 * A exportação pelo arquivo configurado deve falhar quando nenhum arquivo foi configurado
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testExportIndexNotConfigured(){
+		wordService.exportIndex();
+	}
+	
+	/**
+	 * Consultas repetidas devem ser respondidas pelo cache e, após novas palavras, atualizadas somente com elas
+	 */
+	@Test
+	public void testResultCache(){
+		wordService.storeWords(Arrays.asList("manhã", "manha", "tarde"));
+		Set<String> first = wordService.listSimilarStoredWords("manhã", 1);
+		Assert.assertSame(first, wordService.listSimilarStoredWords("manhã", 1));
+		
+		CacheStatistics statistics = wordService.getCacheStatistics();
+		Assert.assertEquals(1, statistics.getMisses());
+		Assert.assertEquals(1, statistics.getHits());
+		Assert.assertEquals(1, statistics.getEntries());
+		
+		// A nova palavra é avaliada contra o resultado armazenado, sem refazer a busca
+		wordService.storeWords(Arrays.asList("manhãs", "noite"));
+		long scannedQueries = wordService.getScanStatistics().getQueries();
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "manha", "manhãs")), 
+				wordService.listSimilarStoredWords("manhã", 1));
+		Assert.assertEquals(1, wordService.getCacheStatistics().getRefreshes());
+		Assert.assertEquals(scannedQueries + 1, wordService.getScanStatistics().getQueries());
+		
+		// Muitas palavras novas: a busca é refeita por completo
+		ReflectionTestUtils.setField(wordService, "cacheMaxRefreshWords", 0);
+		wordService.storeWord("manhão");
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "manha", "manhãs", "manhão")), 
+				wordService.listSimilarStoredWords("manhã", 1));
+		Assert.assertEquals(2, wordService.getCacheStatistics().getMisses());
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testCachedResultIsImmutable(){
+		wordService.storeWord("manhã");
+		wordService.listSimilarStoredWords("manhã", 1).add("tarde");
+	}
+	
+	/**
+	 * A navegação pelas páginas deve retornar todas as palavras, na ordem de inserção, sem repetições, incluindo as 
+	 * palavras adicionadas durante a navegação
+	 */
+	@Test
+	public void testStoredWordsPage(){
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 25; i++)
+			words.add("palavra" + i);
+		wordService.storeWords(words);
+		
+		WordPage first = wordService.getStoredWordsPage(null, 10);
+		Assert.assertEquals(words.subList(0, 10), first.getWords());
+		String epoch = first.getNext().substring(0, first.getNext().indexOf('-'));
+		Assert.assertEquals(epoch + "-9", first.getNext());
+		
+		// Palavras adicionadas durante a navegação não alteram as posições das anteriores
+		wordService.storeWord("nova");
+		List<String> all = new ArrayList<String>(first.getWords());
+		WordPage page = first;
+		while(page.getNext() != null){
+			page = wordService.getStoredWordsPage(page.getNext(), 10);
+			all.addAll(page.getWords());
+		}
+		List<String> expected = new ArrayList<String>(words);
+		expected.add("nova");
+		Assert.assertEquals(expected, all);
+		
+		// Cursor além da última palavra: página vazia
+		WordPage empty = wordService.getStoredWordsPage(epoch + "-100", 10);
+		Assert.assertTrue(empty.getWords().isEmpty());
+		Assert.assertNull(empty.getNext());
+	}
+	
+	/**
+	 * Um cursor obtido antes da reconstrução do dicionário deve ser rejeitado, já que as posições foram renumeradas, e
+	 * a listagem reiniciada deve percorrer as palavras restantes
+	 */
+	@Test
+	public void testStoredWordsPageAcrossCompaction() throws Exception{
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 3000; i++)
+			words.add("palavra" + i);
+		wordService.storeWords(words);
+		WordPage first = wordService.getStoredWordsPage(null, 10);
+		Assert.assertEquals(words.subList(0, 10), first.getWords());
+		
+		// Remoções suficientes para reconstruir o dicionário
+		for(int i = 0; i < 1500; i++)
+			wordService.removeWord("palavra" + (i * 2));
+		awaitCompaction();
+		try{
+			wordService.getStoredWordsPage(first.getNext(), 10);
+			Assert.fail("O cursor anterior à reconstrução deveria ser rejeitado");
+		}catch(StaleCursorException e){
+		}
+		
+		List<String> all = new ArrayList<String>();
+		WordPage page = wordService.getStoredWordsPage(null, 1000);
+		all.addAll(page.getWords());
+		while(page.getNext() != null){
+			page = wordService.getStoredWordsPage(page.getNext(), 1000);
+			all.addAll(page.getWords());
+		}
+		List<String> expected = new ArrayList<String>();
+		for(int i = 1; i < 3000; i += 2)
+			expected.add("palavra" + i);
+		Assert.assertEquals(expected, all);
+	}
+	
+	/**
+	 * Cursores em formato diferente do retornado pelas páginas devem ser rejeitados
+	 */
+	@Test
+	public void testStoredWordsPageIllegalCursor(){
+		for(String cursor : Arrays.asList("-1", "9", "a-9", "0-", "0--1")){
+			try{
+				wordService.getStoredWordsPage(cursor, 10);
+				Assert.fail("O cursor '" + cursor + "' deveria ser rejeitado");
+			}catch(IllegalArgumentException e){
+				Assert.assertFalse(e instanceof StaleCursorException);
+			}
+		}
+	}
+	
+	/**
+	 * As palavras do índice mapeado devem ocupar as primeiras posições da listagem paginada
+	 */
+	@Test
+	public void testStoredWordsPageWithMappedIndex(){
+		wordService.storeWords(Arrays.asList("manhã", "tarde"));
+		Path file = folder.getRoot().toPath().resolve("words.idx");
+		wordService.exportIndex(file);
+		
+		WordService mappedService = new WordService();
+		ReflectionTestUtils.setField(mappedService, "mappedIndexFile", file.toString());
+		mappedService.initialize();
+		try{
+			mappedService.storeWords(Arrays.asList("noite", "madrugada"));
+			WordPage first = mappedService.getStoredWordsPage(null, 3);
+			Assert.assertEquals(Arrays.asList("manhã", "tarde", "noite"), first.getWords());
+			WordPage second = mappedService.getStoredWordsPage(first.getNext(), 3);
+			Assert.assertEquals(Arrays.asList("madrugada"), second.getWords());
+			Assert.assertNull(second.getNext());
+		}finally{
+			mappedService.shutdown();
+		}
+	}
+	
+	/**
+	 * Quantidades acima do limite configurado devem ser rejeitadas
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testStoredWordsPageIllegalLimit(){
+		wordService.getStoredWordsPage(null, 10001);
+	}
+	
+	/**
+	 * A busca com entrega incremental deve entregar as mesmas palavras da busca convencional, uma única vez cada, 
+	 * por todos os caminhos de busca
+	 */
+	@Test
+	public void testListSimilarStoredWordsIncremental(){
+		Random random = new Random(41);
+		for(int i = 0; i < 2000; i++){
+			StringBuilder word = new StringBuilder();
+			for(int j = random.nextInt(8); j >= 0; j--)
+				word.append((char) ('a' + random.nextInt(4)));
+			wordService.storeWord(word.toString());
+		}
+		
+		ReflectionTestUtils.setField(wordService, "cache", null);
+		for(String keyword : Arrays.asList("a", "abcd", "abcdabcd")){
+			for(int threshold = 0; threshold <= 4; threshold++){
+				List<String> delivered = new ArrayList<String>();
+				wordService.listSimilarStoredWords(keyword, threshold, delivered);
+				Set<String> expected = wordService.listSimilarStoredWords(keyword, threshold);
+				Assert.assertEquals(expected.size(), delivered.size());
+				Assert.assertEquals(expected, new HashSet<String>(delivered));
+			}
+		}
+		
+		// Resultados em cache são entregues a partir dele
+		wordService.initialize();
+		Set<String> cached = wordService.listSimilarStoredWords("abcd", 1);
+		List<String> delivered = new ArrayList<String>();
+		wordService.listSimilarStoredWords("abcd", 1, delivered);
+		Assert.assertEquals(cached, new HashSet<String>(delivered));
+		Assert.assertEquals(1, wordService.getCacheStatistics().getHits());
+	}
+	
+	/**
+	 * As buscas assíncronas devem produzir o mesmo resultado das buscas síncronas
+	 */
+	@Test
+	public void testAsyncQueries() throws Exception{
+		wordService.storeWords(Arrays.asList("manhã", "manha", "tarde", "noite"));
+		Assert.assertEquals(wordService.listSimilarStoredWords("manhã", 1), 
+				wordService.listSimilarStoredWordsAsync("manhã", 1, 0).get(5, TimeUnit.SECONDS));
+		Assert.assertEquals(wordService.listNearestStoredWords("noite", 2), 
+				wordService.listNearestStoredWordsAsync("noite", 2, 5000).get(5, TimeUnit.SECONDS));
+		Assert.assertEquals(1, wordService.listSimilarStoredWordsBatchAsync(
+				Arrays.asList(new SimilarityQuery("tarde", 0)), 0).get(5, TimeUnit.SECONDS).size());
+	}
+	
+	/**
+	 * A busca em streaming deve ocupar uma thread do executor enquanto aguarda a coleção que recebe as palavras, 
+	 * sendo rejeitada com o executor ocupado e interrompida ao fim do prazo
+	 */
+	@Test
+	public void testStreamingQueryOnExecutor() throws Exception{
+		wordService.storeWords(Arrays.asList("manhã", "manha", "tarde", "noite"));
+		((QueryExecutor) ReflectionTestUtils.getField(wordService, "queryExecutor")).shutdown();
+		QueryExecutor executor = new QueryExecutor(1, 0);
+		ReflectionTestUtils.setField(wordService, "queryExecutor", executor);
+		
+		CompletableFuture<List<String>> result = new CompletableFuture<List<String>>();
+		CompletableFuture<Void> search = wordService.listSimilarStoredWordsAsync("manhã", 1, result, 0);
+		try{
+			wordService.listSimilarStoredWordsAsync("manhã", 1, new CompletableFuture<List<String>>(), 0);
+			Assert.fail("A busca deveria ser rejeitada com o executor ocupado");
+		}catch(RejectedExecutionException e){
+		}
+		List<String> words = new ArrayList<String>();
+		result.complete(words);
+		search.get(5, TimeUnit.SECONDS);
+		Assert.assertEquals(wordService.listSimilarStoredWords("manhã", 1), new HashSet<String>(words));
+		
+		// Coleção nunca disponibilizada: o prazo expira. Um novo executor evita disputar a thread que acaba de concluir
+		executor.shutdown();
+		ReflectionTestUtils.setField(wordService, "queryExecutor", new QueryExecutor(1, 0));
+		try{
+			wordService.listSimilarStoredWordsAsync("manhã", 1, new CompletableFuture<List<String>>(), 50)
+					.get(5, TimeUnit.SECONDS);
+			Assert.fail("O prazo da busca deveria expirar");
+		}catch(ExecutionException e){
+			Assert.assertTrue(e.getCause() instanceof TimeoutException);
+		}
+	}
+	
+	/**
+	 * Os parâmetros da busca em streaming devem ser validados na submissão, antes que a coleção que recebe as 
+	 * palavras esteja disponível e, portanto, antes do início da resposta
+	 */
+	@Test
+	public void testStreamingQueryIllegalArguments(){
+		for(int threshold : new int[]{ -1, 1 }){
+			try{
+				wordService.listSimilarStoredWordsAsync(threshold < 0 ? "manhã" : null, threshold, 
+						new CompletableFuture<List<String>>(), 0);
+				Assert.fail("A busca deveria ser rejeitada");
+			}catch(IllegalArgumentException e){
+			}
+		}
+	}
+	
+	/**
+	 * Parâmetros inválidos devem ser rejeitados antes da submissão da busca
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testAsyncQueryIllegalTimeout(){
+		wordService.listSimilarStoredWordsAsync("manhã", 1, -1);
+	}
+	
+	/**
+	 * A explicação da busca deve informar a estratégia escolhida e o trabalho realizado, com o mesmo resultado da 
+	 * busca convencional
+	 */
+	@Test
+	public void testExplainSimilarStoredWords(){
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 2000; i++)
+			words.add("palavra" + i);
+		wordService.storeWords(words);
+		
+		QueryPlan plan = wordService.explainSimilarStoredWords("palavra12", 1);
+		Assert.assertEquals(SearchStrategy.SIMILARITY_INDEX, plan.getStrategy());
+		Assert.assertTrue(plan.getEstimatedCosts().containsKey(SearchStrategy.SCAN));
+		Assert.assertEquals(wordService.listSimilarStoredWords("palavra12", 1).size(), plan.getMatches());
+		Assert.assertEquals(2000, plan.getVisibleWords());
+		Assert.assertEquals(1000, plan.getLengthWindowWords());
+		Assert.assertTrue(plan.getExamined() > 0 && plan.getExamined() < 2000);
+		Assert.assertFalse(plan.isCached());
+		
+		// Threshold alto em relação à keyword: varredura somente das palavras de tamanho compatível
+		plan = wordService.explainSimilarStoredWords("palavra", 4);
+		Assert.assertEquals(SearchStrategy.SCAN, plan.getStrategy());
+		Assert.assertEquals(plan.getLengthWindowWords(), plan.getExamined());
+		Assert.assertTrue(plan.getVerified() <= plan.getExamined());
+		
+		// O resultado em cache é informado, mas a busca é executada
+		wordService.listSimilarStoredWords("palavra12", 1);
+		Assert.assertTrue(wordService.explainSimilarStoredWords("palavra12", 1).isCached());
+	}
+	
+	/**
+	 * As buscas devem registrar o trabalho realizado por estratégia e as latências de cada fase, e o relatório deve 
+	 * refletir as palavras armazenadas
+	 */
+	@Test
+	public void testMetricsReport() throws Exception{
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 2000; i++)
+			words.add("palavra" + i);
+		wordService.storeWords(words);
+		wordService.storeWord("abacate");
+		
+		wordService.listSimilarStoredWords("palavra12", 1);
+		wordService.listSimilarStoredWordsAsync("palavra", 4, 0).get(10, TimeUnit.SECONDS);
+		
+		MetricsReport report = wordService.getMetricsReport();
+		Assert.assertEquals(2001, report.getStoredWords());
+		Assert.assertTrue(report.getStoreEstimatedBytes() > 2001 * 7 * 2);
+		Assert.assertTrue(report.getHeapUsedBytes() > 0);
+		// Inicialização do serviço e duas escritas
+		Assert.assertEquals(3, report.getLatencies().get("store.writeLock.wait").getCount());
+		Assert.assertEquals(1, report.getLatencies().get("query.listSimilar.queue").getCount());
+		Assert.assertEquals(1, report.getLatencies().get("query.listSimilar.execution").getCount());
+		
+		QueryMetrics.SearchMetrics index = report.getSearches().get(SearchStrategy.SIMILARITY_INDEX);
+		Assert.assertEquals(1, index.getSearches());
+		Assert.assertEquals(1, index.getLatency().getCount());
+		Assert.assertTrue(index.getExamined() > 0 && index.getCells() > 0);
+		
+		QueryMetrics.SearchMetrics scan = report.getSearches().get(SearchStrategy.SCAN);
+		Assert.assertEquals(1, scan.getSearches());
+		Assert.assertEquals(scan.getExamined(), scan.getPruned() + scan.getVerified());
+		Assert.assertTrue(scan.getCells() >= scan.getVerified());
+		
+		// A explicação da busca informa as células calculadas
+		Assert.assertTrue(wordService.explainSimilarStoredWords("palavra12", 1).getCells() > 0);
+	}
+	
+	/**
+	 * A palavra removida deve deixar de ser retornada por todas as buscas e listagens, em todos os índices, e pode 
+	 * ser armazenada novamente
+	 */
+	@Test
+	public void testRemoveWord(){
+		ReflectionTestUtils.setField(wordService, "deletionIndexEnabled", true);
+		ReflectionTestUtils.setField(wordService, "qgramIndexEnabled", true);
+		wordService.initialize();
+		wordService.storeWords(Arrays.asList("manhã", "manha", "manhãs", "tarde"));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "manha", "manhãs")), 
+				wordService.listSimilarStoredWords("manhã", 1));
+		
+		Assert.assertTrue(wordService.removeWord("manha"));
+		Assert.assertFalse(wordService.removeWord("manha"));
+		Assert.assertFalse(wordService.removeWord("inexistente"));
+		
+		Set<String> expected = new HashSet<String>(Arrays.asList("manhã", "manhãs"));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "manhãs", "tarde")), 
+				wordService.getAllStoredWords());
+		Assert.assertEquals(expected, wordService.listSimilarStoredWords("manhã", 1));
+		Assert.assertEquals(1, wordService.getCacheStatistics().getRefreshes());
+		List<String> delivered = new ArrayList<String>();
+		ReflectionTestUtils.setField(wordService, "cache", null);
+		wordService.listSimilarStoredWords("manhã", 1, delivered);
+		Assert.assertEquals(expected, new HashSet<String>(delivered));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã")), 
+				wordService.listSimilarStoredWordsBatch(Arrays.asList(new SimilarityQuery("manha", 1))).get(0).getWords());
+		Assert.assertEquals(Arrays.asList(new WordDistance("manhã", 1), new WordDistance("manhãs", 2)), 
+				wordService.listNearestStoredWords("manha", 2));
+		Assert.assertEquals(3, wordService.getDeletionIndexReport().getWords());
+		
+		// A listagem paginada pula a posição removida
+		WordPage page = wordService.getStoredWordsPage(null, 2);
+		Assert.assertEquals(Arrays.asList("manhã", "manhãs"), page.getWords());
+		Assert.assertEquals(Arrays.asList("tarde"), wordService.getStoredWordsPage(page.getNext(), 2).getWords());
+		
+		// A palavra armazenada novamente volta a ser encontrada por todos os índices
+		wordService.storeWord("manha");
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "manha", "manhãs")), 
+				wordService.listSimilarStoredWords("manhã", 1));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manha")), wordService.listSimilarStoredWords("manha", 0));
+		Assert.assertEquals(4, wordService.getAllStoredWords().size());
+		Assert.assertEquals(1, wordService.getMetricsReport().getRemovedWords());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testRemoveWordIllegalArguments(){
+		wordService.removeWord(null);
+	}
+	
+	/**
+	 * Após muitas remoções o dicionário deve ser reconstruído somente com as palavras restantes, sem alterar o 
+	 * resultado das buscas
+	 */
+	@Test
+	public void testRemovalCompaction() throws Exception{
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 3000; i++)
+			words.add("palavra" + i);
+		wordService.storeWords(words);
+		Set<String> before = wordService.listSimilarStoredWords("palavra2999", 1);
+		
+		WordDictionary original = (WordDictionary) ReflectionTestUtils.getField(wordService, "dictionary");
+		for(int i = 0; i < 1500; i++)
+			Assert.assertTrue(wordService.removeWord("palavra" + i));
+		awaitCompaction();
+		WordDictionary compacted = (WordDictionary) ReflectionTestUtils.getField(wordService, "dictionary");
+		Assert.assertNotSame(original, compacted);
+		Assert.assertEquals(original.getEpoch() + 1, compacted.getEpoch());
+		Assert.assertEquals(0, compacted.getStore().getRemovedCount());
+		Assert.assertEquals(1500, compacted.getStore().getArena().size());
+		
+		Assert.assertEquals(1500, wordService.getAllStoredWords().size());
+		Assert.assertEquals(words.subList(1500, 1510), wordService.getStoredWordsPage(null, 10).getWords());
+		Set<String> expected = new HashSet<String>();
+		for(String word : before){
+			if(Integer.parseInt(word.substring("palavra".length())) >= 1500)
+				expected.add(word);
+		}
+		Assert.assertEquals(expected, wordService.listSimilarStoredWords("palavra2999", 1));
+		Assert.assertEquals(Arrays.asList(new WordDistance("palavra1500", 0)), 
+				wordService.listNearestStoredWords("palavra1500", 1));
+		Assert.assertFalse(wordService.removeWord("palavra0"));
+		Assert.assertTrue(wordService.removeWord("palavra1500"));
+	}
+	
+	/**
+	 * A reconstrução do dicionário não deve bloquear as escritas, e as remoções e inserções realizadas enquanto ela 
+	 * está pendente devem ser refletidas no dicionário reconstruído
+	 */
+	@Test
+	public void testCompactionDoesNotBlockWrites() throws Exception{
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 3000; i++)
+			words.add("palavra" + i);
+		wordService.storeWords(words);
+		
+		// Retém a thread de reconstrução até que as escritas abaixo sejam concluídas
+		final CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(wordService, "compactionExecutor");
+		executor.submit(new Runnable(){
+			@Override
+			public void run(){
+				try{
+					release.await();
+				}catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		
+		WordDictionary original = (WordDictionary) ReflectionTestUtils.getField(wordService, "dictionary");
+		for(int i = 0; i < 1500; i++)
+			Assert.assertTrue(wordService.removeWord("palavra" + i));
+		Assert.assertEquals("palavra1500", wordService.listSimilarStoredWords("palavra1500", 0).iterator().next());
+		CompletableFuture.runAsync(new Runnable(){
+			@Override
+			public void run(){
+				for(int i = 1500; i < 1510; i++)
+					Assert.assertTrue(wordService.removeWord("palavra" + i));
+				for(int i = 0; i < 10; i++)
+					wordService.storeWord("nova" + i);
+				Assert.assertTrue(wordService.removeWord("palavra1510"));
+				wordService.storeWord("palavra1510");
+			}
+		}).get(10, TimeUnit.SECONDS);
+		Assert.assertSame(original, ReflectionTestUtils.getField(wordService, "dictionary"));
+		
+		release.countDown();
+		awaitCompaction();
+		WordDictionary compacted = (WordDictionary) ReflectionTestUtils.getField(wordService, "dictionary");
+		Assert.assertEquals(original.getEpoch() + 1, compacted.getEpoch());
+		Assert.assertEquals(1511, compacted.getStore().getArena().size());
+		
+		Set<String> expected = new HashSet<String>(words.subList(1510, 3000));
+		for(int i = 0; i < 10; i++)
+			expected.add("nova" + i);
+		Assert.assertEquals(expected, wordService.getAllStoredWords());
+		Assert.assertEquals(new HashSet<String>(), wordService.listSimilarStoredWords("palavra1500", 0));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("palavra1510")), 
+				wordService.listSimilarStoredWords("palavra1510", 0));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("nova3")), wordService.listSimilarStoredWords("nova3", 0));
+		
+		// As palavras adicionadas durante a reconstrução ocupam as últimas posições
+		List<String> last = new ArrayList<String>();
+		for(int i = 0; i < 10; i++)
+			last.add("nova" + i);
+		last.add("palavra1510");
+		List<String> all = new ArrayList<String>();
+		WordPage page = wordService.getStoredWordsPage(null, 1000);
+		all.addAll(page.getWords());
+		while(page.getNext() != null){
+			page = wordService.getStoredWordsPage(page.getNext(), 1000);
+			all.addAll(page.getWords());
+		}
+		Assert.assertEquals(last, all.subList(all.size() - 11, all.size()));
+	}
+	
+	/**
+	 * Aguarda a reconstrução do dicionário agendada pelas remoções
+	 */
+	private void awaitCompaction() throws Exception{
+		Future<?> compaction = (Future<?>) ReflectionTestUtils.getField(wordService, "compaction");
+		Assert.assertNotNull("Nenhuma reconstrução foi agendada", compaction);
+		compaction.get(10, TimeUnit.SECONDS);
+	}
+	
+	/**
+	 * Com a capacidade atingida, a política LRU deve remover a palavra que está há mais tempo fora dos resultados das 
+	 * buscas
+	 */
+	@Test
+	public void testEvictionLeastRecentlyUsed(){
+		ReflectionTestUtils.setField(wordService, "storeMaxWords", 3);
+		wordService.initialize();
+		wordService.storeWords(Arrays.asList("manhã", "tarde", "noite"));
+		
+		// "manhã" é a mais antiga, mas aparece em um resultado
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã")), wordService.listSimilarStoredWords("manha", 1));
+		wordService.storeWord("madrugada");
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "noite", "madrugada")), 
+				wordService.getAllStoredWords());
+		
+		// O resultado em cache também conta como uso
+		wordService.listNearestStoredWords("noites", 1);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã")), wordService.listSimilarStoredWords("manha", 1));
+		wordService.storeWord("alvorada");
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "noite", "alvorada")), 
+				wordService.getAllStoredWords());
+		Assert.assertEquals(2, wordService.getMetricsReport().getEvictedWords());
+		
+		// Palavras já armazenadas não provocam remoções
+		wordService.storeWord("noite");
+		Assert.assertEquals(3, wordService.getAllStoredWords().size());
+		Assert.assertEquals(2, wordService.getMetricsReport().getEvictedWords());
+	}
+	
+	/**
+	 * Com a capacidade atingida, a política LFU deve remover a palavra que apareceu menos vezes nos resultados das 
+	 * buscas
+	 */
+	@Test
+	public void testEvictionLeastFrequentlyUsed(){
+		ReflectionTestUtils.setField(wordService, "storeMaxWords", 3);
+		ReflectionTestUtils.setField(wordService, "evictionPolicy", EvictionPolicy.LFU);
+		wordService.initialize();
+		wordService.storeWords(Arrays.asList("manhã", "tarde", "noite"));
+		
+		for(int i = 0; i < 3; i++)
+			wordService.listSimilarStoredWords("tarde", 0);
+		wordService.listSimilarStoredWords("manhã", 0);
+		wordService.listSimilarStoredWords("noite", 0);
+		wordService.listSimilarStoredWords("noite", 0);
+		
+		// "manhã" apareceu uma única vez, mesmo que mais recentemente que "tarde"
+		wordService.storeWord("madrugada");
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("tarde", "noite", "madrugada")), 
+				wordService.getAllStoredWords());
+		// A palavra recém-inserida é a menos utilizada
+		wordService.storeWord("alvorada");
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("tarde", "noite", "alvorada")), 
+				wordService.getAllStoredWords());
+	}
+	
+	/**
+	 * A capacidade em bytes deve limitar a memória estimada das palavras armazenadas, rejeitando palavras que 
+	 * sozinhas a excedem
+	 */
+	@Test
+	public void testEvictionMaxBytes(){
+		// Três palavras de 5 caracteres: 3 * (5 * 2 + 32) bytes
+		ReflectionTestUtils.setField(wordService, "storeMaxBytes", 126L);
+		wordService.initialize();
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 100; i++)
+			words.add("p" + (1000 + i));
+		Assert.assertEquals(100, wordService.storeWords(words));
+		Assert.assertEquals(new HashSet<String>(words.subList(97, 100)), wordService.getAllStoredWords());
+		Assert.assertEquals(97, wordService.getMetricsReport().getEvictedWords());
+		
+		try{
+			wordService.storeWord(new String(new char[48]).replace('\0', 'a'));
+			Assert.fail("O serviço aceitou uma palavra maior que a capacidade configurada.");
+		}catch(IllegalArgumentException e){ }
+		Assert.assertEquals(3, wordService.getAllStoredWords().size());
+	}
+	
+	/**
+	 * Com a reconstrução do dicionário pendente as posições removidas pela capacidade passam a ser a maioria, e a 
+	 * política de remoção deve continuar respeitando a capacidade
+	 */
+	@Test
+	public void testEvictionDuringPendingCompaction() throws Exception{
+		ReflectionTestUtils.setField(wordService, "storeMaxWords", 8);
+		wordService.initialize();
+		final CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(wordService, "compactionExecutor");
+		executor.submit(new Runnable(){
+			@Override
+			public void run(){
+				try{
+					release.await();
+				}catch(InterruptedException e){
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		
+		for(int i = 0; i < 10000; i++)
+			wordService.storeWord("palavra" + i);
+		WordDictionary current = (WordDictionary) ReflectionTestUtils.getField(wordService, "dictionary");
+		Assert.assertEquals(10000 - 8, current.getStore().getRemovedCount());
+		Assert.assertEquals(8, wordService.getAllStoredWords().size());
+		Assert.assertTrue(wordService.getAllStoredWords().contains("palavra9999"));
+		Assert.assertEquals(10000 - 8, wordService.getMetricsReport().getEvictedWords());
+		
+		release.countDown();
+		awaitCompaction();
+		Assert.assertEquals(8, wordService.getAllStoredWords().size());
+	}
+	
+	/**
+	 * Substitui os índices do dicionário atual, mantendo as palavras armazenadas e os demais índices
+	 */
+	private void replaceIndexes(SimilarityIndex similarityIndex, DeletionIndex deletionIndex){
+		WordDictionary current = (WordDictionary) ReflectionTestUtils.getField(wordService, "dictionary");
+		ReflectionTestUtils.setField(wordService, "dictionary", new WordDictionary(current.getEpoch(), 
+				current.getStore(), similarityIndex != null ? similarityIndex : current.getSimilarityIndex(), 
+				deletionIndex != null ? deletionIndex : current.getDeletionIndex(), current.getQGramIndex(), 
+				current.getLengthBuckets(), current.getUsage()));
+	}
+	
 }
@@ -0,0 +1,116 @@
+package br.com.fleao.word_similarity.services;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.AnnotationMBeanExporter;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Testes unitários para verificar a exposição das métricas via JMX pela classe {@link WordSimilarityMetrics}
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class WordSimilarityMetricsTest {
+
+	@Autowired
+	private WordService wordService;
+
+	@Autowired
+	private WordSimilarityMetrics metrics;
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Os atributos devem refletir as palavras armazenadas e as buscas realizadas
+	 */
+	@Test
+	public void testAttributes() {
+		wordService.storeWords(Arrays.asList("abacate", "boate", "noite"));
+		wordService.listSimilarStoredWords("boate", 3);
+
+		Assert.assertEquals(3, metrics.getStoredWords());
+		Assert.assertTrue(metrics.getStoreEstimatedBytes() > 0);
+		Assert.assertEquals(0, metrics.getRejectedQueries());
+
+		Map<String, Long> latencies = metrics.getLatencies();
+		// Inicialização do serviço e armazenamento das palavras
+		Assert.assertEquals(Long.valueOf(2), latencies.get("store.writeLock.wait.count"));
+
+		Map<String, Long> searches = metrics.getSearches();
+		long total = 0;
+		for(SearchStrategy strategy : SearchStrategy.values())
+			total += searches.get(strategy.name() + ".searches");
+		Assert.assertEquals(1, total);
+	}
+
+	/**
+	 * As leituras de atributos próximas devem reutilizar o mesmo relatório, que é recalculado após expirar
+	 */
+	@Test
+	public void testReadingReused() {
+		wordService.storeWords(Arrays.asList("abacate", "boate"));
+		Assert.assertEquals(2, metrics.getStoredWords());
+		Map<String, Long> latencies = metrics.getLatencies();
+
+		wordService.storeWord("noite");
+		Assert.assertEquals(2, metrics.getStoredWords());
+		Assert.assertSame(latencies, metrics.getLatencies());
+
+		// Expira os valores calculados
+		ReflectionTestUtils.setField(metrics, "reading", null);
+		Assert.assertEquals(3, metrics.getStoredWords());
+		Assert.assertEquals(Long.valueOf(3), metrics.getLatencies().get("store.writeLock.wait.count"));
+	}
+
+	/**
+	 * As métricas devem ser registradas no servidor JMX pelo exportador do Spring
+	 */
+	@Test
+	public void testMBeanRegistration() throws Exception {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		AnnotationMBeanExporter exporter = new AnnotationMBeanExporter();
+		exporter.setServer(server);
+		exporter.registerManagedResource(metrics);
+		try{
+			ObjectName name = new ObjectName("br.com.fleao.word_similarity:type=Metrics,name=WordSimilarity");
+			// Registrado fora de um contexto, o nome recebe a identidade da instância como propriedade adicional
+			Set<ObjectName> names = server.queryNames(new ObjectName(name + ",*"), null);
+			Assert.assertEquals(1, names.size());
+			wordService.storeWord("abacate");
+			Assert.assertEquals(1, server.getAttribute(names.iterator().next(), "StoredWords"));
+		}finally{
+			exporter.destroy();
+		}
+	}
+
+}
@@ -0,0 +1,244 @@
+package br.com.fleao.word_similarity.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos da classe BKTree
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class BKTreeTest {
+
+	// Palavras curtas sobre um alfabeto reduzido, aumentando a chance de palavras similares
+	private static final RandomWords WORDS = new RandomWords(1, 8, "abcde");
+
+	private BKTree tree;
+
+	@Before
+	public void setUp() throws Exception {
+		tree = new BKTree();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Uma palavra inserida múltiplas vezes deve ser armazenada somente uma vez
+	 */
+	@Test
+	public void testRepeatedInsertion() {
+		Assert.assertTrue(tree.add("abacate"));
+		Assert.assertFalse(tree.add("abacate"));
+		Assert.assertTrue(tree.add("banana"));
+		Assert.assertEquals(2, tree.size());
+	}
+
+	/**
+	 * Busca em uma árvore vazia não deve retornar nenhuma palavra
+	 */
+	@Test
+	public void testSearchEmptyTree() {
+		Set<String> result = new HashSet<String>();
+		tree.search("abacate", 10, result);
+		Assert.assertTrue(result.isEmpty());
+	}
+
+	/**
+	 * Verifica a busca com os mesmos exemplos utilizados na documentação do serviço
+	 */
+	@Test
+	public void testSearch() {
+		for(String word : Arrays.asList("manhã", "tarde", "noite", "abacate"))
+			tree.add(word);
+
+		Set<String> result = new HashSet<String>();
+		tree.search("boate", 3, result);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("abacate","noite")), result);
+
+		result.clear();
+		tree.search("banana", 4, result);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("abacate","manhã")), result);
+	}
+
+	/**
+	 * O resultado da busca na árvore deve ser idêntico ao de uma comparação da keyword com todas as palavras
+	 */
+	@Test
+	public void testSearchMatchesLinearScan() {
+		Random random = new Random(42);
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 2000; i++){
+			String word = WORDS.next(random);
+			words.add(word);
+			tree.add(word);
+		}
+
+		for(int i = 0; i < 200; i++){
+			String keyword = WORDS.next(random);
+			int threshold = random.nextInt(5);
+
+			Set<String> expected = new HashSet<String>();
+			for(String word : words){
+				if(LevenshteinDistanceAlgorithm.getDistance(keyword, word) <= threshold)
+					expected.add(word);
+			}
+
+			Set<String> result = new HashSet<String>();
+			tree.search(keyword, threshold, result);
+			Assert.assertEquals("Resultado divergente para a keyword '" + keyword + "'", expected, result);
+		}
+	}
+
+	/**
+	 * As "k" palavras mais próximas devem ser idênticas às primeiras palavras de uma ordenação de todas as palavras por
+	 * distância, inclusive considerando somente as primeiras palavras inseridas
+	 */
+	@Test
+	public void testNearestMatchesSortedScan() {
+		Random random = new Random(43);
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 2000; i++){
+			String word = WORDS.next(random);
+			if(tree.add(word))
+				words.add(word);
+		}
+
+		for(int i = 0; i < 200; i++){
+			String keyword = WORDS.next(random);
+			int k = 1 + random.nextInt(20);
+			int visibleCount = random.nextInt(words.size() + 1);
+
+			List<WordDistance> expected = new ArrayList<WordDistance>();
+			for(String word : words.subList(0, visibleCount))
+				expected.add(new WordDistance(word, LevenshteinDistanceAlgorithm.getDistance(keyword, word)));
+			Collections.sort(expected);
+			expected = expected.subList(0, Math.min(k, expected.size()));
+
+			Assert.assertEquals("Resultado divergente para a keyword '" + keyword + "'", expected,
+					tree.nearest(keyword, k, visibleCount));
+		}
+	}
+
+	/**
+	 * A busca não deve alocar memória por palavra comparada: a memória alocada por busca (keyword pré-processada e
+	 * pilha do percurso) deve ser pequena e independente da quantidade de palavras visitadas.
+	 */
+	@Test
+	public void testSearchAllocationPerScan() {
+		Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+		Random random = new Random(3);
+		for(int i = 0; i < 20000; i++)
+			tree.add(WORDS.next(random) + WORDS.next(random));
+
+		// Somente os identificadores são contados: a criação das Strings dos resultados, a partir da arena, não é
+		// contabilizada
+		final int[] matches = new int[1];
+		IntConsumer counter = new IntConsumer(){
+			@Override
+			public void accept(int id){
+				matches[0]++;
+			}
+		};
+		for(int i = 0; i < 50; i++)
+			tree.search("abcdabcd", 6, Integer.MAX_VALUE, counter);
+
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		matches[0] = 0;
+		tree.search("abcdabcd", 6, Integer.MAX_VALUE, counter);
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+		Assert.assertTrue("A busca encontrou poucas palavras para que o teste seja significativo", matches[0] > 1000);
+		Assert.assertTrue("A busca alocou " + allocated + " bytes", allocated < 16 * 1024);
+	}
+
+	/**
+	 * Parâmetros nulos ou threshold negativo devem ser rejeitados
+	 */
+	@Test
+	public void testIllegalArguments(){
+		try{
+			tree.add(null);
+			Assert.fail("O método add() aceitou o parâmetro como NULL.");
+		}catch(IllegalArgumentException e){ }
+
+		try{
+			tree.search(null, 1, new HashSet<String>());
+			Assert.fail("O método search() aceitou a keyword como NULL.");
+		}catch(IllegalArgumentException e){ }
+
+		try{
+			tree.search("abacate", -1, new HashSet<String>());
+			Assert.fail("O método search() aceitou um threshold negativo.");
+		}catch(IllegalArgumentException e){ }
+	}
+
+	/**
+	 * Palavras removidas não devem ser retornadas pelas buscas e palavras adicionadas novamente devem voltar a ser
+	 * encontradas somente a partir da sua nova ordem, com o mesmo resultado de uma busca linear
+	 */
+	@Test
+	public void testRemoveMatchesLinearScan() {
+		RemovalScenario.check(new RemovalScenario.Index(){
+
+			@Override
+			boolean add(String word){
+				return tree.add(word);
+			}
+
+			@Override
+			boolean remove(String word){
+				return tree.remove(word);
+			}
+
+			@Override
+			int size(){
+				return tree.size();
+			}
+
+			@Override
+			void search(String keyword, int threshold, int visibleCount, Collection<String> result){
+				tree.search(keyword, threshold, visibleCount, result);
+			}
+
+			@Override
+			List<WordDistance> nearest(String keyword, int k, int visibleCount){
+				return tree.nearest(keyword, k, visibleCount);
+			}
+
+		}, 44, 5, WORDS);
+	}
+
+}
@@ -0,0 +1,139 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos da classe DeletionIndex
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class DeletionIndexTest {
+
+	// Palavras curtas sobre um alfabeto reduzido, aumentando a chance de palavras similares
+	private static final RandomWords WORDS = new RandomWords(0, 8, "abcd");
+
+	private DeletionIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		index = new DeletionIndex(2);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * As remoções geradas devem incluir a própria palavra e todas as combinações de até "k" remoções
+	 */
+	@Test
+	public void testGenerateDeletions() {
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("abc")), DeletionIndex.generateDeletions("abc", 0));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("abc", "bc", "ac", "ab", "a", "b", "c")),
+				DeletionIndex.generateDeletions("abc", 2));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("a", "")), DeletionIndex.generateDeletions("a", 5));
+	}
+
+	/**
+	 * Uma palavra inserida múltiplas vezes deve ser armazenada somente uma vez
+	 */
+	@Test
+	public void testRepeatedInsertion() {
+		Assert.assertTrue(index.add("abacate"));
+		Assert.assertFalse(index.add("abacate"));
+		Assert.assertTrue(index.add("abacat"));
+		Assert.assertEquals(2, index.size());
+	}
+
+	/**
+	 * Thresholds acima da distância máxima configurada devem ser rejeitados
+	 */
+	@Test
+	public void testRejectsLargeThreshold() {
+		Assert.assertTrue(index.supports(2));
+		Assert.assertFalse(index.supports(3));
+		try{
+			index.search("abacate", 3, Integer.MAX_VALUE, new HashSet<String>());
+			Assert.fail("O método search() aceitou um threshold maior que a distância máxima.");
+		}catch(IllegalArgumentException e){ }
+	}
+
+	/**
+	 * O resultado da busca no índice deve ser idêntico ao de uma comparação da keyword com todas as palavras
+	 */
+	@Test
+	public void testSearchMatchesLinearScan() {
+		Random random = new Random(23);
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 3000; i++){
+			String word = WORDS.next(random);
+			if(index.add(word))
+				words.add(word);
+		}
+
+		for(int i = 0; i < 300; i++){
+			String keyword = WORDS.next(random);
+			int threshold = random.nextInt(3);
+			int visibleCount = random.nextInt(words.size() + 1);
+
+			Set<String> expected = new HashSet<String>();
+			for(String word : words.subList(0, visibleCount)){
+				if(LevenshteinDistanceAlgorithm.getDistance(keyword, word) <= threshold)
+					expected.add(word);
+			}
+
+			Set<String> result = new HashSet<String>();
+			index.search(keyword, threshold, visibleCount, result);
+			Assert.assertEquals("Resultado divergente para a keyword '" + keyword + "'", expected, result);
+		}
+	}
+
+	/**
+	 * O relatório de memória deve refletir as remoções armazenadas
+	 */
+	@Test
+	public void testMemoryReport() {
+		Assert.assertEquals(0, index.getMemoryReport().getDeletionKeys());
+
+		index.add("abc");
+		DeletionIndex.MemoryReport report = index.getMemoryReport();
+		Assert.assertEquals(1, report.getWords());
+		Assert.assertEquals(2, report.getMaxEditDistance());
+		Assert.assertEquals(7, report.getDeletionKeys());
+		Assert.assertEquals(7, report.getPostings());
+		Assert.assertTrue(report.getEstimatedBytes() > 0);
+	}
+
+	/**
+	 * Palavras removidas não devem ser retornadas pelas buscas e palavras adicionadas novamente devem voltar a ser
+	 * encontradas somente a partir da sua nova ordem, com o mesmo resultado de uma busca linear
+	 */
+	@Test
+	public void testRemoveMatchesLinearScan() {
+		RemovalScenario.check(RemovalScenario.of(index), 46, 3, WORDS);
+	}
+
+}
@@ -0,0 +1,101 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos da classe LatencyHistogram
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class LatencyHistogramTest {
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Os buckets devem ser contíguos: o limite superior de um bucket é imediatamente anterior ao primeiro valor do
+	 * bucket seguinte, em todas as faixas de valores
+	 */
+	@Test
+	public void testBucketsAreContiguous() {
+		for(int index = 0; LatencyHistogram.bucketUpperBound(index) < Long.MAX_VALUE; index++){
+			long upper = LatencyHistogram.bucketUpperBound(index);
+			Assert.assertEquals(index, LatencyHistogram.bucketIndex(upper));
+			Assert.assertEquals(index + 1, LatencyHistogram.bucketIndex(upper + 1));
+		}
+	}
+
+	/**
+	 * Os percentis devem ter erro relativo inferior à precisão dos buckets
+	 */
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Assert.assertEquals(0, histogram.getP99Micros());
+
+		// Latências de 1 a 10000 microssegundos, em ordem aleatória
+		Random random = new Random(1);
+		long[] values = new long[10000];
+		for(int i = 0; i < values.length; i++)
+			values[i] = TimeUnit.MICROSECONDS.toNanos(i + 1);
+		for(int i = values.length - 1; i > 0; i--){
+			int j = random.nextInt(i + 1);
+			long swap = values[i];
+			values[i] = values[j];
+			values[j] = swap;
+		}
+		for(long value : values)
+			histogram.record(value);
+
+		Assert.assertEquals(10000, histogram.getCount());
+		Assert.assertEquals(5000.5, histogram.getMeanMicros(), 0.01);
+		Assert.assertEquals(10000, histogram.getMaxMicros());
+		Assert.assertEquals(10000, histogram.getPercentileMicros(100));
+		double tolerance = 2.0 / LatencyHistogram.SUB_BUCKETS;
+		Assert.assertEquals(5000, histogram.getP50Micros(), 5000 * tolerance);
+		Assert.assertEquals(9900, histogram.getP99Micros(), 9900 * tolerance);
+		Assert.assertEquals(9990, histogram.getP999Micros(), 9990 * tolerance);
+		Assert.assertTrue(histogram.getP999Micros() <= histogram.getMaxMicros());
+	}
+
+	/**
+	 * Valores negativos e percentis fora do intervalo
+	 */
+	@Test
+	public void testIllegalValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		Assert.assertEquals(1, histogram.getCount());
+		Assert.assertEquals(0, histogram.getPercentileNanos(50));
+
+		try{
+			histogram.getPercentileMicros(101);
+			Assert.fail("O método getPercentileMicros() aceitou um percentil maior que 100.");
+		}catch(IllegalArgumentException e){ }
+	}
+
+}
@@ -0,0 +1,254 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos da classe LengthBucketIndex
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class LengthBucketIndexTest {
+
+	// Palavras curtas sobre um alfabeto reduzido, aumentando a chance de palavras similares
+	private static final RandomWords WORDS = new RandomWords(0, 9, "abcdef");
+
+	private LengthBucketIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		index = new LengthBucketIndex();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * O limite inferior da assinatura nunca deve ser maior que a distância real
+	 */
+	@Test
+	public void testSignatureLowerBound() {
+		Assert.assertEquals(0, WordSignature.lowerBound(WordSignature.of("amor"), WordSignature.of("roma")));
+		Assert.assertEquals(3, WordSignature.lowerBound(WordSignature.of("abc"), WordSignature.of("xyz")));
+		Assert.assertEquals(2, WordSignature.lowerBound(WordSignature.of("abcd"), WordSignature.of("ab")));
+
+		Random random = new Random(31);
+		for(int i = 0; i < 2000; i++){
+			String left = WORDS.next(random);
+			String right = WORDS.next(random);
+			Assert.assertTrue(WordSignature.lowerBound(WordSignature.of(left), WordSignature.of(right))
+					<= LevenshteinDistanceAlgorithm.getDistance(left, right));
+		}
+	}
+
+	/**
+	 * O resultado da varredura deve ser idêntico ao de uma comparação da keyword com todas as palavras, inclusive
+	 * quando dividida em blocos arbitrários
+	 */
+	@Test
+	public void testSearchMatchesLinearScan() {
+		Random random = new Random(37);
+		List<String> words = new ArrayList<String>();
+		Set<String> unique = new HashSet<String>();
+		for(int i = 0; i < 3000; i++){
+			String word = WORDS.next(random);
+			if(unique.add(word)){
+				index.append(word);
+				words.add(word);
+			}
+		}
+
+		for(int i = 0; i < 300; i++){
+			String keyword = WORDS.next(random);
+			int threshold = random.nextInt(5);
+			int visibleCount = random.nextInt(words.size() + 1);
+
+			Set<String> expected = new HashSet<String>();
+			for(String word : words.subList(0, visibleCount)){
+				if(LevenshteinDistanceAlgorithm.getDistance(keyword, word) <= threshold)
+					expected.add(word);
+			}
+
+			Set<String> result = new HashSet<String>();
+			index.search(keyword, threshold, visibleCount, result);
+			Assert.assertEquals("Resultado divergente para a keyword '" + keyword + "'", expected, result);
+
+			LengthBucketIndex.Query query = index.prepare(keyword, threshold, visibleCount);
+			Set<String> chunked = new HashSet<String>();
+			for(int from = 0; from < query.getCandidateCount(); from += 37)
+				index.scan(query, from, Math.min(from + 37, query.getCandidateCount()), chunked);
+			Assert.assertEquals("Resultado em blocos divergente para a keyword '" + keyword + "'", expected, chunked);
+
+			// O cálculo escalar deve encontrar as mesmas palavras, na mesma ordem do cálculo em lote
+			List<String> batched = new ArrayList<String>();
+			index.scan(query, 0, query.getCandidateCount(), batched);
+			LengthBucketIndex.Query scalarQuery = index.prepare(keyword, threshold, visibleCount, false);
+			List<String> scalar = new ArrayList<String>();
+			index.scan(scalarQuery, 0, scalarQuery.getCandidateCount(), scalar);
+			Assert.assertEquals("Resultado escalar divergente para a keyword '" + keyword + "'", scalar, batched);
+		}
+	}
+
+	/**
+	 * As "k" palavras mais próximas devem ser idênticas às primeiras palavras de uma ordenação de todas as palavras por
+	 * distância
+	 */
+	@Test
+	public void testNearestMatchesSortedScan() {
+		Random random = new Random(41);
+		List<String> words = new ArrayList<String>();
+		Set<String> unique = new HashSet<String>();
+		for(int i = 0; i < 3000; i++){
+			String word = WORDS.next(random);
+			if(unique.add(word)){
+				index.append(word);
+				words.add(word);
+			}
+		}
+
+		for(int i = 0; i < 200; i++){
+			String keyword = WORDS.next(random);
+			int k = 1 + random.nextInt(20);
+			int visibleCount = random.nextInt(words.size() + 1);
+
+			List<WordDistance> expected = new ArrayList<WordDistance>();
+			for(String word : words.subList(0, visibleCount))
+				expected.add(new WordDistance(word, LevenshteinDistanceAlgorithm.getDistance(keyword, word)));
+			Collections.sort(expected);
+			expected = expected.subList(0, Math.min(k, expected.size()));
+
+			Assert.assertEquals("Resultado divergente para a keyword '" + keyword + "'", expected,
+					index.nearest(keyword, k, visibleCount));
+		}
+	}
+
+	/**
+	 * A busca em lote deve produzir, para cada keyword, o mesmo resultado da busca individual, inclusive com keywords
+	 * repetidas e thresholds diferentes
+	 */
+	@Test
+	public void testSearchBatchMatchesSearch() {
+		Random random = new Random(47);
+		Set<String> unique = new HashSet<String>();
+		for(int i = 0; i < 3000; i++){
+			String word = WORDS.next(random);
+			if(unique.add(word))
+				index.append(word);
+		}
+
+		List<String> keywords = new ArrayList<String>();
+		List<Integer> thresholds = new ArrayList<Integer>();
+		List<Set<String>> results = new ArrayList<Set<String>>();
+		for(int i = 0; i < 200; i++){
+			keywords.add(i % 10 == 9 ? keywords.get(i - 1) : WORDS.next(random));
+			thresholds.add(random.nextInt(5));
+			results.add(new HashSet<String>());
+		}
+		int visibleCount = unique.size() / 2;
+		index.searchBatch(keywords, thresholds, visibleCount, results);
+
+		for(int i = 0; i < keywords.size(); i++){
+			Set<String> expected = new HashSet<String>();
+			index.search(keywords.get(i), thresholds.get(i), visibleCount, expected);
+			Assert.assertEquals("Resultado divergente para a keyword '" + keywords.get(i) + "'", expected, results.get(i));
+		}
+	}
+
+	/**
+	 * As estatísticas devem contabilizar as palavras descartadas por cada filtro
+	 */
+	@Test
+	public void testStatistics() {
+		for(String word : Arrays.asList("a", "abcdefgh", "abc", "xyz", "abd"))
+			index.append(word);
+
+		Set<String> result = new HashSet<String>();
+		index.search("abc", 1, Integer.MAX_VALUE, result);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("abc", "abd")), result);
+
+		ScanStatistics statistics = index.getStatistics();
+		Assert.assertEquals(1, statistics.getQueries());
+		Assert.assertEquals(2, statistics.getRejectedByLength());
+		Assert.assertEquals(3, statistics.getScanned());
+		Assert.assertEquals(1, statistics.getRejectedBySignature());
+		Assert.assertEquals(2, statistics.getVerified());
+		Assert.assertEquals(2, statistics.getMatched());
+	}
+
+	/**
+	 * Palavras removidas não devem ser retornadas pelas buscas e palavras adicionadas novamente devem voltar a ser
+	 * encontradas somente a partir da sua nova ordem, com o mesmo resultado de uma busca linear
+	 */
+	@Test
+	public void testRemoveMatchesLinearScan() {
+		final Set<String> words = new HashSet<String>();
+		RemovalScenario scenario = RemovalScenario.check(new RemovalScenario.Index(){
+
+			@Override
+			boolean add(String word){
+				if(!words.add(word))
+					return false;
+				index.append(word);
+				return true;
+			}
+
+			@Override
+			boolean remove(String word){
+				words.remove(word);
+				return index.remove(word);
+			}
+
+			@Override
+			int size(){
+				return index.size();
+			}
+
+			@Override
+			void search(String keyword, int threshold, int visibleCount, Collection<String> result){
+				index.search(keyword, threshold, visibleCount, result);
+			}
+
+			@Override
+			List<WordDistance> nearest(String keyword, int k, int visibleCount){
+				return index.nearest(keyword, k, visibleCount);
+			}
+
+		}, 48, 5, WORDS);
+
+		// As palavras adicionadas novamente ocupam as últimas ordens
+		for(int i = 0; i < 200; i++){
+			String keyword = scenario.nextWord();
+			int threshold = scenario.nextThreshold(5);
+			Set<String> readded = new HashSet<String>();
+			index.searchRange(keyword, threshold, scenario.getReaddedFrom(), Integer.MAX_VALUE, readded);
+			Assert.assertEquals(scenario.expected(keyword, threshold, scenario.getReaddedFrom(), Integer.MAX_VALUE),
+					readded);
+		}
+	}
+
+}
@@ -0,0 +1,168 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos da classe LevenshteinBatch
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class LevenshteinBatchTest {
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * O cálculo em lote deve produzir exatamente as distâncias do cálculo escalar para todos os tamanhos de keyword
+	 * suportados, lotes completos ou parciais e caracteres fora da tabela Latin-1
+	 */
+	@Test
+	public void testBatchMatchesScalar() {
+		Random random = new Random(43);
+		for(int patternLength = 1; patternLength <= LevenshteinBatch.MAX_PATTERN_LENGTH; patternLength++){
+			LevenshteinPattern pattern = new LevenshteinPattern(randomWord(random, patternLength));
+			LevenshteinBatch batch = new LevenshteinBatch(pattern);
+			Assert.assertEquals(64 / (patternLength + 1), batch.getLanes());
+
+			int[] distances = new int[batch.getLanes()];
+			for(int round = 0; round < 20; round++){
+				int textLength = 1 + random.nextInt(patternLength + 4);
+				if(!LevenshteinBatch.supports(patternLength, textLength))
+					continue;
+				batch.reset(textLength);
+
+				int count = 1 + random.nextInt(batch.getLanes());
+				String[] texts = new String[count];
+				for(int i = 0; i < count; i++){
+					// Variações da keyword e palavras independentes, com prefixo para testar o deslocamento
+					texts[i] = random.nextBoolean() ? mutate(pattern.getPattern(), textLength, random)
+							: randomWord(random, textLength);
+					char[] text = ("xy" + texts[i]).toCharArray();
+					batch.add(text, 2);
+				}
+				Assert.assertEquals(count, batch.size());
+
+				Assert.assertEquals(count, batch.computeDistances(distances));
+				for(int i = 0; i < count; i++){
+					Assert.assertEquals("Distância divergente entre '" + pattern.getPattern() + "' e '" + texts[i] + "'",
+							pattern.distance(texts[i]), distances[i]);
+				}
+				Assert.assertEquals(0, batch.size());
+			}
+		}
+	}
+
+	/**
+	 * As células calculadas pelo lote devem ser as mesmas do cálculo escalar
+	 */
+	@Test
+	public void testComputedCells() {
+		LevenshteinBatch batch = new LevenshteinBatch(new LevenshteinPattern("casa"));
+		batch.reset(5);
+		batch.add("casas".toCharArray(), 0);
+		batch.add("asasa".toCharArray(), 0);
+		batch.add("coisa".toCharArray(), 0);
+
+		int[] distances = new int[batch.getLanes()];
+		long cells = LevenshteinDistanceAlgorithm.getComputedCells();
+		Assert.assertEquals(3, batch.computeDistances(distances));
+		Assert.assertEquals(3 * 4 * 5, LevenshteinDistanceAlgorithm.getComputedCells() - cells);
+		Assert.assertEquals(1, distances[0]);
+		Assert.assertEquals(2, distances[1]);
+		Assert.assertEquals(2, distances[2]);
+
+		// Um lote vazio não calcula nenhuma célula
+		cells = LevenshteinDistanceAlgorithm.getComputedCells();
+		Assert.assertEquals(0, batch.computeDistances(distances));
+		Assert.assertEquals(0, LevenshteinDistanceAlgorithm.getComputedCells() - cells);
+	}
+
+	/**
+	 * Keywords e tamanhos não suportados devem ser rejeitados, assim como palavras além da capacidade do lote
+	 */
+	@Test
+	public void testUnsupported() {
+		Assert.assertFalse(LevenshteinBatch.supports(0, 3));
+		Assert.assertFalse(LevenshteinBatch.supports(32, 32));
+		Assert.assertFalse(LevenshteinBatch.supports(3, 0));
+		// Com keywords de 1 caractere o contador de cada faixa possui 2 bits
+		Assert.assertTrue(LevenshteinBatch.supports(1, 3));
+		Assert.assertFalse(LevenshteinBatch.supports(1, 4));
+
+		try{
+			new LevenshteinBatch(new LevenshteinPattern(""));
+			Assert.fail("O lote aceitou uma keyword vazia.");
+		}catch(IllegalArgumentException e){ }
+		try{
+			new LevenshteinBatch(new LevenshteinPattern(randomWord(new Random(1), 32)));
+			Assert.fail("O lote aceitou uma keyword maior que o tamanho máximo.");
+		}catch(IllegalArgumentException e){ }
+
+		LevenshteinBatch batch = new LevenshteinBatch(new LevenshteinPattern("a"));
+		try{
+			batch.add("a".toCharArray(), 0);
+			Assert.fail("O lote aceitou uma palavra antes de ser inicializado.");
+		}catch(IllegalStateException e){ }
+		try{
+			batch.reset(4);
+			Assert.fail("O lote aceitou um tamanho de palavra não suportado.");
+		}catch(IllegalArgumentException e){ }
+
+		batch.reset(1);
+		for(int i = 0; i < batch.getLanes(); i++)
+			batch.add("b".toCharArray(), 0);
+		Assert.assertTrue(batch.isFull());
+		try{
+			batch.add("b".toCharArray(), 0);
+			Assert.fail("O lote aceitou uma palavra além da sua capacidade.");
+		}catch(IllegalStateException e){ }
+	}
+
+	/**
+	 * Gera uma palavra aleatória com o tamanho informado sobre um alfabeto reduzido
+	 */
+	private static String randomWord(Random random, int length){
+		char[] alphabet = {'a', 'b', 'c', 'ã', 'λ', '中'};
+		StringBuilder builder = new StringBuilder(length);
+		for(int i = 0; i < length; i++)
+			builder.append(alphabet[random.nextInt(alphabet.length)]);
+		return builder.toString();
+	}
+
+	/**
+	 * Ajusta a palavra informada ao tamanho desejado e substitui alguns de seus caracteres
+	 */
+	private static String mutate(String word, int length, Random random){
+		StringBuilder builder = new StringBuilder(word);
+		while(builder.length() < length)
+			builder.insert(random.nextInt(builder.length() + 1), 'b');
+		builder.setLength(length);
+		for(int i = random.nextInt(3); i > 0; i--)
+			builder.setCharAt(random.nextInt(length), 'c');
+		return builder.toString();
+	}
+
+}
@@ -1,5 +1,7 @@
 package br.com.fleao.word_similarity.util;
 
+import java.util.Random;
+
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -40,6 +42,7 @@ public class LevenshteinDistanceAlgorithmTest {
 	public void testDistanceSimpleInsertion() {
 		Assert.assertEquals(1, LevenshteinDistanceAlgorithm.getDistance("abc", "abcd"));
 		Assert.assertEquals(1, LevenshteinDistanceAlgorithm.getDistanceEfficiently("abc", "abcd"));
+		Assert.assertEquals(1, LevenshteinDistanceAlgorithm.getDistanceBitParallel("abc", "abcd"));
 	}
 	
 	/**
@@ -49,6 +52,7 @@ public class LevenshteinDistanceAlgorithmTest {
 	public void testDistanceSimpleRemotion() {
 		Assert.assertEquals(1, LevenshteinDistanceAlgorithm.getDistance("abcd", "abc"));
 		Assert.assertEquals(1, LevenshteinDistanceAlgorithm.getDistanceEfficiently("abcd", "abc"));
+		Assert.assertEquals(1, LevenshteinDistanceAlgorithm.getDistanceBitParallel("abcd", "abc"));
 	}
 	/**
 	 * Quando somente uma substituição é feita, a distância tem que ser igual a 1
@@ -57,6 +61,7 @@ public class LevenshteinDistanceAlgorithmTest {
 	public void testDistanceSimpleSubstitution() {
 		Assert.assertEquals(1, LevenshteinDistanceAlgorithm.getDistance("abc", "ab1"));
 		Assert.assertEquals(1, LevenshteinDistanceAlgorithm.getDistanceEfficiently("abc", "ab1"));
+		Assert.assertEquals(1, LevenshteinDistanceAlgorithm.getDistanceBitParallel("abc", "ab1"));
 	}
 	
 	/**
@@ -66,6 +71,7 @@ public class LevenshteinDistanceAlgorithmTest {
 	public void testMixedInsertSubstitutioRemotionCombination() {
 		Assert.assertEquals(3, LevenshteinDistanceAlgorithm.getDistance("abc", "0b1d"));
 		Assert.assertEquals(3, LevenshteinDistanceAlgorithm.getDistanceEfficiently("abc", "0b1d"));
+		Assert.assertEquals(3, LevenshteinDistanceAlgorithm.getDistanceBitParallel("abc", "0b1d"));
 	}
 	
 	/**
@@ -82,6 +88,11 @@ public class LevenshteinDistanceAlgorithmTest {
 				LevenshteinDistanceAlgorithm.getDistanceEfficiently("banana", "abacate"), 
 				LevenshteinDistanceAlgorithm.getDistanceEfficiently("abacate", "banana")
 			);
+		
+		Assert.assertEquals(
+				LevenshteinDistanceAlgorithm.getDistanceBitParallel("banana", "abacate"), 
+				LevenshteinDistanceAlgorithm.getDistanceBitParallel("abacate", "banana")
+			);
 	}
 	
 	/**
@@ -119,6 +130,16 @@ public class LevenshteinDistanceAlgorithmTest {
 			Assert.fail("O método getDistanceEfficiently() aceitou ambos os parâmetros como NULL.");
 		}catch(IllegalArgumentException e){ }
 		
+		try{
+			LevenshteinDistanceAlgorithm.getDistanceBitParallel(null, "abacate");
+			Assert.fail("O método getDistanceBitParallel() aceitou o primeiro parâmetro como NULL.");
+		}catch(IllegalArgumentException e){ }
+		
+		try{
+			LevenshteinDistanceAlgorithm.getDistanceBitParallel("banana", null);
+			Assert.fail("O método getDistanceBitParallel() aceitou o segundo parâmetro como NULL.");
+		}catch(IllegalArgumentException e){ }
+		
 	}
 	
 	/**
@@ -130,6 +151,107 @@ public class LevenshteinDistanceAlgorithmTest {
 		Assert.assertEquals("banana".length(), LevenshteinDistanceAlgorithm.getDistanceEfficiently("banana", ""));
 		Assert.assertEquals("banana".length(), LevenshteinDistanceAlgorithm.getDistance("", "banana"));
 		Assert.assertEquals("banana".length(), LevenshteinDistanceAlgorithm.getDistance("banana", ""));
+		Assert.assertEquals("banana".length(), LevenshteinDistanceAlgorithm.getDistanceBitParallel("", "banana"));
+		Assert.assertEquals("banana".length(), LevenshteinDistanceAlgorithm.getDistanceBitParallel("banana", ""));
+	}
+	
+	/**
+	 * O cálculo bit-paralelo deve produzir exatamente o mesmo resultado da implementação de referência, inclusive 
+	 * para palavras com mais de 64 caracteres (múltiplos blocos) e caracteres fora da tabela Latin-1.
+	 */
+	@Test
+	public void testBitParallelMatchesReference(){
+		Random random = new Random(7);
+		int[] maxLengths = {8, 64, 65, 130, 300};
+		for(int maxLength : maxLengths){
+			for(int i = 0; i < 300; i++){
+				String left = randomWord(random, maxLength);
+				String right = randomWord(random, maxLength);
+				Assert.assertEquals("Distância divergente entre '" + left + "' e '" + right + "'",
+						LevenshteinDistanceAlgorithm.getDistance(left, right), 
+						LevenshteinDistanceAlgorithm.getDistanceBitParallel(left, right));
+			}
+		}
+		
+		// Limites exatos de bloco
+		String block = new String(new char[64]).replace('\0', 'a');
+		Assert.assertEquals(64, LevenshteinDistanceAlgorithm.getDistanceBitParallel(block, ""));
+		Assert.assertEquals(0, LevenshteinDistanceAlgorithm.getDistanceBitParallel(block, block));
+		Assert.assertEquals(1, LevenshteinDistanceAlgorithm.getDistanceBitParallel(block, block + "b"));
+		Assert.assertEquals(1, LevenshteinDistanceAlgorithm.getDistanceBitParallel(block + "b", block));
+	}
+	
+	/**
+	 * O cálculo limitado deve retornar a distância exata quando ela está dentro do limite e "limite + 1" caso contrário
+	 */
+	@Test
+	public void testBoundedDistanceMatchesReference(){
+		Random random = new Random(11);
+		int[] maxLengths = {8, 40, 150};
+		for(int maxLength : maxLengths){
+			for(int i = 0; i < 500; i++){
+				String left = randomWord(random, maxLength);
+				String right = randomWord(random, maxLength);
+				int maxDistance = random.nextInt(8);
+				int expected = Math.min(LevenshteinDistanceAlgorithm.getDistance(left, right), maxDistance + 1);
+				
+				Assert.assertEquals("Distância divergente entre '" + left + "' e '" + right + "'",
+						expected, LevenshteinDistanceAlgorithm.boundedDistance(left, right, maxDistance));
+				Assert.assertEquals(expected, new LevenshteinPattern(left).boundedDistance(right, maxDistance));
+				Assert.assertEquals(expected <= maxDistance, 
+						LevenshteinDistanceAlgorithm.withinDistance(left, right, maxDistance));
+			}
+		}
+	}
+	
+	/**
+	 * Exemplos simples do cálculo limitado, incluindo o descarte imediato por diferença de tamanho
+	 */
+	@Test
+	public void testBoundedDistance(){
+		Assert.assertEquals(1, LevenshteinDistanceAlgorithm.boundedDistance("abc", "abcd", 3));
+		Assert.assertEquals(2, LevenshteinDistanceAlgorithm.boundedDistance("a", "abcdef", 1));
+		Assert.assertEquals(0, LevenshteinDistanceAlgorithm.boundedDistance("", "", 0));
+		Assert.assertTrue(LevenshteinDistanceAlgorithm.withinDistance("boate", "abacate", 3));
+		Assert.assertFalse(LevenshteinDistanceAlgorithm.withinDistance("banana", "abacate", 3));
+		
+		try{
+			LevenshteinDistanceAlgorithm.boundedDistance("banana", "abacate", -1);
+			Assert.fail("O método boundedDistance() aceitou uma distância máxima negativa.");
+		}catch(IllegalArgumentException e){ }
+	}
+	
+	/**
+	 * As células calculadas pela thread devem ser contabilizadas: a matriz inteira no cálculo bit-paralelo e somente a 
+	 * faixa diagonal no cálculo limitado de palavras longas
+	 */
+	@Test
+	public void testComputedCells(){
+		long cells = LevenshteinDistanceAlgorithm.getComputedCells();
+		LevenshteinDistanceAlgorithm.getDistanceBitParallel("abc", "abcd");
+		Assert.assertEquals(12, LevenshteinDistanceAlgorithm.getComputedCells() - cells);
+		
+		// Palavras descartadas pela diferença de tamanho não calculam nenhuma célula
+		cells = LevenshteinDistanceAlgorithm.getComputedCells();
+		LevenshteinDistanceAlgorithm.boundedDistance("a", "abcdef", 1);
+		Assert.assertEquals(0, LevenshteinDistanceAlgorithm.getComputedCells() - cells);
+		
+		// Faixa de largura 2k+1 = 3, exceto nas bordas da matriz
+		cells = LevenshteinDistanceAlgorithm.getComputedCells();
+		LevenshteinDistanceAlgorithm.boundedDistance("abcdefghij", "abcdefghij", 1);
+		Assert.assertEquals(2 + 8 * 3 + 2, LevenshteinDistanceAlgorithm.getComputedCells() - cells);
+	}
+	
+	/**
+	 * Gera uma palavra aleatória sobre um alfabeto reduzido que mistura caracteres ASCII e não-Latin-1
+	 */
+	private static String randomWord(Random random, int maxLength){
+		char[] alphabet = {'a', 'b', 'c', 'ã', '\u03bb', '\u4e2d'};
+		int length = maxLength == 0 ? 0 : random.nextInt(maxLength + 1);
+		StringBuilder builder = new StringBuilder(length);
+		for(int i = 0; i < length; i++)
+			builder.append(alphabet[random.nextInt(alphabet.length)]);
+		return builder.toString();
 	}
 
 }
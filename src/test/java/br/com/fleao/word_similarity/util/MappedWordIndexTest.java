@@ -0,0 +1,210 @@
+package br.com.fleao.word_similarity.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos da classe MappedWordIndex
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class MappedWordIndexTest {
+
+	// Palavras curtas sobre um alfabeto reduzido, aumentando a chance de palavras similares
+	private static final RandomWords WORDS = new RandomWords(0, 9, "abcde");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path file;
+
+	@Before
+	public void setUp() throws Exception {
+		file = folder.getRoot().toPath().resolve("words.idx");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * As palavras gravadas devem ser lidas do arquivo mapeado na mesma ordem
+	 */
+	@Test
+	public void testWriteAndOpen() throws IOException {
+		List<String> words = Arrays.asList("manhã", "", "abacate", "manha");
+		MappedWordIndex.write(file, words);
+
+		MappedWordIndex index = MappedWordIndex.open(file, true);
+		Assert.assertEquals(4, index.size());
+		Assert.assertEquals("manhã", index.getWord(0));
+		Assert.assertEquals("", index.getWord(1));
+		Assert.assertEquals(new ArrayList<String>(index.asSet()), words);
+		Assert.assertTrue(index.contains("abacate"));
+		Assert.assertTrue(index.asSet().contains(""));
+		Assert.assertFalse(index.contains("abacat"));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "manha")), search(index, "manhã", 1));
+	}
+
+	/**
+	 * Um índice vazio deve ser gravado e consultado normalmente
+	 */
+	@Test
+	public void testEmptyIndex() throws IOException {
+		MappedWordIndex.write(file, Collections.<String>emptyList());
+
+		MappedWordIndex index = MappedWordIndex.open(file, true);
+		Assert.assertEquals(0, index.size());
+		Assert.assertFalse(index.contains(""));
+		Assert.assertEquals(new HashSet<String>(), search(index, "abc", 5));
+		Assert.assertEquals(Collections.emptyList(), index.nearest("abc", 3));
+	}
+
+	/**
+	 * Palavras repetidas não podem ser gravadas no índice
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsRepeatedWords() throws IOException {
+		MappedWordIndex.write(file, Arrays.asList("abc", "abd", "abc"));
+	}
+
+	/**
+	 * Palavras cujo índice excederia o tamanho que pode ser mapeado devem ser rejeitadas antes da criação do arquivo
+	 */
+	@Test
+	public void testRejectsOversizedIndex() throws IOException {
+		// Cada palavra ocupa ao menos 18 bytes no arquivo, entre posição, caracteres, intervalo e aresta
+		List<String> words = new AbstractList<String>(){
+			@Override
+			public String get(int index){
+				return "a";
+			}
+			@Override
+			public int size(){
+				return Integer.MAX_VALUE / 18 + 1;
+			}
+		};
+		try{
+			MappedWordIndex.write(file, words);
+			Assert.fail("O índice deveria ter sido rejeitado.");
+		}catch(IllegalArgumentException e){
+			// As palavras repetidas só seriam detectadas na construção da árvore
+			Assert.assertTrue(e.getMessage().contains("tamanho máximo"));
+			Assert.assertEquals(0, folder.getRoot().list().length);
+		}
+	}
+
+	/**
+	 * A busca no arquivo mapeado deve ser idêntica a uma comparação da keyword com todas as palavras
+	 */
+	@Test
+	public void testSearchMatchesLinearScan() throws IOException {
+		Random random = new Random(31);
+		List<String> words = WORDS.next(random, 3000);
+		MappedWordIndex.write(file, words);
+		MappedWordIndex index = MappedWordIndex.open(file, true);
+
+		for(int i = 0; i < 300; i++){
+			String keyword = WORDS.next(random);
+			int threshold = random.nextInt(5);
+
+			Set<String> expected = new HashSet<String>();
+			for(String word : words){
+				if(LevenshteinDistanceAlgorithm.getDistance(keyword, word) <= threshold)
+					expected.add(word);
+			}
+			Assert.assertEquals("Resultado divergente para a keyword '" + keyword + "'", expected,
+					search(index, keyword, threshold));
+		}
+	}
+
+	/**
+	 * As palavras mais próximas obtidas no arquivo mapeado devem ser as primeiras de uma ordenação completa
+	 */
+	@Test
+	public void testNearestMatchesSortedScan() throws IOException {
+		Random random = new Random(37);
+		List<String> words = WORDS.next(random, 2000);
+		MappedWordIndex.write(file, words);
+		MappedWordIndex index = MappedWordIndex.open(file, false);
+
+		for(int i = 0; i < 200; i++){
+			String keyword = WORDS.next(random);
+			int k = 1 + random.nextInt(20);
+
+			List<WordDistance> expected = new ArrayList<WordDistance>();
+			for(String word : words)
+				expected.add(new WordDistance(word, LevenshteinDistanceAlgorithm.getDistance(keyword, word)));
+			Collections.sort(expected);
+			Assert.assertEquals("Resultado divergente para a keyword '" + keyword + "'", expected.subList(0, k),
+					index.nearest(keyword, k));
+		}
+	}
+
+	/**
+	 * Um arquivo com o conteúdo alterado deve ser rejeitado quando a verificação do CRC está habilitada
+	 */
+	@Test
+	public void testDetectsCorruption() throws IOException {
+		MappedWordIndex.write(file, Arrays.asList("manhã", "tarde", "noite"));
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)){
+			channel.write(ByteBuffer.wrap(new byte[]{ 'x' }), channel.size() - 20);
+		}
+
+		MappedWordIndex.open(file, false);
+		try{
+			MappedWordIndex.open(file, true);
+			Assert.fail("O método open() aceitou um índice corrompido.");
+		}catch(IOException e){ }
+	}
+
+	/**
+	 * Arquivos de outra versão do formato devem ser rejeitados
+	 */
+	@Test(expected = IOException.class)
+	public void testRejectsUnsupportedVersion() throws IOException {
+		MappedWordIndex.write(file, Arrays.asList("manhã"));
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)){
+			channel.write(ByteBuffer.allocate(4).putInt(0, 99), 4);
+		}
+		MappedWordIndex.open(file, true);
+	}
+
+	private static Set<String> search(MappedWordIndex index, String keyword, int threshold){
+		Set<String> result = new HashSet<String>();
+		index.search(keyword, threshold, result);
+		return result;
+	}
+
+}
@@ -0,0 +1,86 @@
+package br.com.fleao.word_similarity.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos da classe NdjsonWordWriter
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class NdjsonWordWriterTest {
+
+	private ByteArrayOutputStream output;
+	private NdjsonWordWriter writer;
+
+	@Before
+	public void setUp() throws Exception {
+		output = new ByteArrayOutputStream();
+		writer = new NdjsonWordWriter(output);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Cada palavra deve ser escrita como uma String JSON em uma linha própria, com os caracteres especiais escapados
+	 */
+	@Test
+	public void testWritesOneStringPerLine() throws IOException {
+		writer.addAll(Arrays.asList("manhã", "aspas\"", "linha\nquebrada"));
+		writer.flush();
+		Assert.assertEquals("\"manhã\"\n\"aspas\\\"\"\n\"linha\\nquebrada\"\n",
+				new String(output.toByteArray(), StandardCharsets.UTF_8));
+		Assert.assertEquals(3, writer.size());
+	}
+
+	/**
+	 * A primeira palavra deve ser enviada imediatamente, sem aguardar o preenchimento do buffer
+	 */
+	@Test
+	public void testFirstWordIsFlushed() {
+		writer.add("manhã");
+		Assert.assertEquals("\"manhã\"\n", new String(output.toByteArray(), StandardCharsets.UTF_8));
+
+		writer.add("tarde");
+		Assert.assertEquals("\"manhã\"\n", new String(output.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Falhas de escrita devem ser propagadas, interrompendo quem produz as palavras
+	 */
+	@Test(expected = UncheckedIOException.class)
+	public void testWriteFailure() throws IOException {
+		NdjsonWordWriter failing = new NdjsonWordWriter(new OutputStream(){
+			@Override
+			public void write(int b) throws IOException{
+				throw new IOException("Conexão encerrada");
+			}
+		});
+		failing.add("manhã");
+	}
+
+}
@@ -0,0 +1,129 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos da classe QGramIndex
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class QGramIndexTest {
+
+	// Palavras sobre um alfabeto reduzido, com repetição de q-gramas e tamanhos variados
+	private static final RandomWords WORDS = new RandomWords(0, 23, "abcd");
+
+	private QGramIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		index = new QGramIndex(2);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Tamanhos de q-grama fora do intervalo suportado devem ser rejeitados
+	 */
+	@Test
+	public void testIllegalQ() {
+		try{
+			new QGramIndex(0);
+			Assert.fail("O construtor aceitou q = 0.");
+		}catch(IllegalArgumentException e){ }
+		try{
+			new QGramIndex(5);
+			Assert.fail("O construtor aceitou q = 5.");
+		}catch(IllegalArgumentException e){ }
+	}
+
+	/**
+	 * O limite de q-gramas em comum deve seguir o lema de contagem
+	 */
+	@Test
+	public void testMinimumSharedGrams() {
+		Assert.assertEquals(2, index.getQ());
+		Assert.assertEquals(9, index.minimumSharedGrams(10, 10, 0));
+		Assert.assertEquals(5, index.minimumSharedGrams(10, 9, 2));
+		Assert.assertTrue(index.minimumSharedGrams(4, 4, 2) <= 0);
+	}
+
+	/**
+	 * Uma palavra inserida múltiplas vezes deve ser armazenada somente uma vez, inclusive palavras sem q-gramas
+	 */
+	@Test
+	public void testRepeatedInsertion() {
+		Assert.assertTrue(index.add("abacate"));
+		Assert.assertFalse(index.add("abacate"));
+		Assert.assertTrue(index.add("abacat"));
+		Assert.assertTrue(index.add("a"));
+		Assert.assertFalse(index.add("a"));
+		Assert.assertTrue(index.add(""));
+		Assert.assertFalse(index.add(""));
+		Assert.assertEquals(4, index.size());
+	}
+
+	/**
+	 * O resultado da busca no índice deve ser idêntico ao de uma comparação da keyword com todas as palavras, tanto
+	 * para tamanhos em que o filtro de contagem é efetivo quanto para aqueles em que não é
+	 */
+	@Test
+	public void testSearchMatchesLinearScan() {
+		Random random = new Random(29);
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 3000; i++){
+			String word = WORDS.next(random);
+			if(index.add(word))
+				words.add(word);
+		}
+
+		for(int i = 0; i < 300; i++){
+			String keyword = WORDS.next(random);
+			int threshold = random.nextInt(6);
+			int visibleCount = random.nextInt(words.size() + 1);
+
+			Set<String> expected = new HashSet<String>();
+			for(String word : words.subList(0, visibleCount)){
+				if(LevenshteinDistanceAlgorithm.getDistance(keyword, word) <= threshold)
+					expected.add(word);
+			}
+
+			Set<String> result = new HashSet<String>();
+			index.search(keyword, threshold, visibleCount, result);
+			Assert.assertEquals("Resultado divergente para a keyword '" + keyword + "'", expected, result);
+		}
+	}
+
+	/**
+	 * Palavras removidas não devem ser retornadas pelas buscas e palavras adicionadas novamente devem voltar a ser
+	 * encontradas somente a partir da sua nova ordem, com o mesmo resultado de uma busca linear
+	 */
+	@Test
+	public void testRemoveMatchesLinearScan() {
+		RemovalScenario.check(RemovalScenario.of(index), 47, 4, WORDS);
+	}
+
+}
@@ -0,0 +1,91 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.HashSet;
+import java.util.concurrent.CancellationException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar o cancelamento cooperativo das buscas (QueryCancellation)
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class QueryCancellationTest {
+
+	private WordArena arena;
+	private BKTree tree;
+	private LengthBucketIndex buckets;
+
+	@Before
+	public void setUp() throws Exception {
+		arena = new WordArena();
+		tree = new BKTree(arena);
+		buckets = new LengthBucketIndex(arena);
+		for(int i = 0; i < 5000; i++){
+			String word = "palavra" + i;
+			arena.add(word);
+			tree.add(word);
+			buckets.append(word);
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		// Garante que o estado de interrupção não afete os demais testes
+		Thread.interrupted();
+	}
+
+	/**
+	 * Sem interrupção, a verificação não deve ter nenhum efeito
+	 */
+	@Test
+	public void testNotInterrupted() {
+		QueryCancellation.check();
+		HashSet<String> result = new HashSet<String>();
+		buckets.searchRange("palavra1", 0, 0, 5000, result);
+		Assert.assertEquals(1, result.size());
+	}
+
+	/**
+	 * Buscas executadas por uma thread interrompida devem ser encerradas com CancellationException
+	 */
+	@Test
+	public void testInterruptedSearches() {
+		Thread.currentThread().interrupt();
+		try{
+			tree.search("palavra", 3, Integer.MAX_VALUE, new HashSet<String>());
+			Assert.fail("A busca na BK-tree não foi cancelada.");
+		}catch(CancellationException e){ }
+		try{
+			buckets.search("palavra", 3, Integer.MAX_VALUE, new HashSet<String>());
+			Assert.fail("A varredura não foi cancelada.");
+		}catch(CancellationException e){ }
+		try{
+			buckets.nearest("palavra", 5, Integer.MAX_VALUE);
+			Assert.fail("A busca pelas palavras mais próximas não foi cancelada.");
+		}catch(CancellationException e){ }
+
+		// O estado de interrupção é mantido para quem executa a busca
+		Assert.assertTrue(Thread.interrupted());
+		HashSet<String> result = new HashSet<String>();
+		tree.search("palavra1", 0, Integer.MAX_VALUE, result);
+		Assert.assertEquals(1, result.size());
+	}
+
+}
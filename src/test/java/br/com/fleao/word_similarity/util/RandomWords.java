@@ -0,0 +1,55 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Gerador de palavras aleatórias compartilhado pelos testes, com tamanho sorteado em um intervalo e caracteres
+ * sorteados de um alfabeto. Alfabetos reduzidos aumentam a chance de palavras similares.
+ *
+ * @author felipe
+ *
+ */
+public final class RandomWords {
+
+	private final int minLength;
+	private final int maxLength;
+	private final char[] alphabet;
+
+	/**
+	 * @param minLength tamanho mínimo das palavras
+	 * @param maxLength tamanho máximo das palavras, inclusivo
+	 * @param alphabet caracteres das palavras
+	 */
+	public RandomWords(int minLength, int maxLength, String alphabet){
+		this.minLength = minLength;
+		this.maxLength = maxLength;
+		this.alphabet = alphabet.toCharArray();
+	}
+
+	/**
+	 * @return palavra aleatória
+	 */
+	public String next(Random random){
+		int length = minLength + random.nextInt(maxLength - minLength + 1);
+		StringBuilder builder = new StringBuilder(length);
+		for(int i = 0; i < length; i++)
+			builder.append(alphabet[random.nextInt(alphabet.length)]);
+		return builder.toString();
+	}
+
+	/**
+	 * @return palavras aleatórias distintas, na ordem em que foram geradas, a partir da quantidade informada de
+	 * sorteios
+	 */
+	public List<String> next(Random random, int count){
+		Set<String> words = new LinkedHashSet<String>();
+		for(int i = 0; i < count; i++)
+			words.add(next(random));
+		return new ArrayList<String>(words);
+	}
+
+}
@@ -0,0 +1,215 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+
+/**
+ * <p>
+ * Cenário de remoções compartilhado pelos testes dos índices: insere palavras aleatórias, remove aproximadamente um
+ * terço delas, adiciona novamente metade das removidas e compara as buscas do índice com uma busca linear.
+ * </p>
+ * <p>
+ * Todas as buscas ocorrem após as remoções e reinserções e são repetidas sem limite de visibilidade e com limites que
+ * tornam visível somente um prefixo das ordens: metade das ordens originais, todas as ordens originais (o limite entre
+ * as remoções e as reinserções) e metade das reinserções. As palavras removidas não são retornadas com nenhum limite, e
+ * uma palavra removida e adicionada novamente só é visível quando o limite inclui a sua nova ordem.
+ * </p>
+ *
+ * @author felipe
+ *
+ */
+final class RemovalScenario {
+
+	/**
+	 * Operações do índice exercitadas pelo cenário
+	 */
+	static abstract class Index {
+
+		abstract boolean add(String word);
+
+		abstract boolean remove(String word);
+
+		abstract int size();
+
+		abstract void search(String keyword, int threshold, int visibleCount, Collection<String> result);
+
+		/**
+		 * @return as k palavras mais próximas da keyword, ou null caso o índice não ofereça essa busca
+		 */
+		List<WordDistance> nearest(String keyword, int k, int visibleCount){
+			return null;
+		}
+
+	}
+
+	private static final int WORD_COUNT = 2000;
+	private static final int QUERY_COUNT = 200;
+	private static final int NEAREST_COUNT = 5;
+
+	/** Palavra armazenada em cada ordem */
+	private final List<String> orders = new ArrayList<String>();
+	/** Ordens cujas palavras foram removidas */
+	private final BitSet removed = new BitSet();
+	/** Ordem a partir da qual as palavras removidas foram adicionadas novamente */
+	private int readdedFrom;
+	private final Random random;
+	private final RandomWords words;
+
+	private RemovalScenario(long seed, RandomWords words){
+		this.random = new Random(seed);
+		this.words = words;
+	}
+
+	/**
+	 * Adapta um {@link SimilarityIndex} às operações do cenário
+	 */
+	static Index of(final SimilarityIndex index){
+		return new Index(){
+
+			@Override
+			boolean add(String word){
+				return index.add(word);
+			}
+
+			@Override
+			boolean remove(String word){
+				return index.remove(word);
+			}
+
+			@Override
+			int size(){
+				return index.size();
+			}
+
+			@Override
+			void search(String keyword, int threshold, int visibleCount, Collection<String> result){
+				index.search(keyword, threshold, visibleCount, result);
+			}
+
+		};
+	}
+
+	/**
+	 * Executa o cenário sobre o índice, que deve estar vazio e numerar as palavras a partir de zero
+	 *
+	 * @param index índice testado
+	 * @param seed semente das palavras, remoções e keywords geradas
+	 * @param maxThreshold threshold máximo, exclusivo, das buscas
+	 * @param words gerador das palavras
+	 * @return cenário executado, para verificações específicas de cada índice
+	 */
+	static RemovalScenario check(Index index, long seed, int maxThreshold, RandomWords words){
+		RemovalScenario scenario = new RemovalScenario(seed, words);
+		scenario.populate(index);
+		int[] visibleCounts = { Integer.MAX_VALUE, scenario.readdedFrom / 2, scenario.readdedFrom,
+				(scenario.readdedFrom + scenario.orders.size()) / 2 };
+		for(int i = 0; i < QUERY_COUNT; i++){
+			String keyword = scenario.nextWord();
+			int threshold = scenario.random.nextInt(maxThreshold);
+			for(int visibleCount : visibleCounts){
+				Set<String> result = new HashSet<String>();
+				index.search(keyword, threshold, visibleCount, result);
+				Assert.assertEquals("Resultado divergente para a keyword '" + keyword + "' com " + visibleCount
+						+ " palavras visíveis", scenario.expected(keyword, threshold, 0, visibleCount), result);
+
+				List<WordDistance> nearest = index.nearest(keyword, NEAREST_COUNT, visibleCount);
+				if(nearest != null)
+					Assert.assertEquals(scenario.expectedNearest(keyword, visibleCount), nearest);
+			}
+		}
+		return scenario;
+	}
+
+	private void populate(Index index){
+		Map<String, Integer> live = new HashMap<String, Integer>();
+		for(int i = 0; i < WORD_COUNT; i++){
+			String word = nextWord();
+			if(live.containsKey(word)){
+				Assert.assertFalse(index.add(word));
+			}else{
+				Assert.assertTrue(index.add(word));
+				live.put(word, orders.size());
+				orders.add(word);
+			}
+		}
+		List<String> removedWords = new ArrayList<String>();
+		for(int order = 0; order < orders.size(); order++){
+			if(random.nextInt(3) == 0){
+				String word = orders.get(order);
+				Assert.assertTrue(index.remove(word));
+				Assert.assertFalse(index.remove(word));
+				live.remove(word);
+				removed.set(order);
+				removedWords.add(word);
+			}
+		}
+		Assert.assertFalse(index.remove("inexistente"));
+		// Metade das palavras removidas é adicionada novamente, recebendo novas ordens
+		readdedFrom = orders.size();
+		for(String word : removedWords.subList(0, removedWords.size() / 2)){
+			Assert.assertTrue(index.add(word));
+			live.put(word, orders.size());
+			orders.add(word);
+		}
+		Assert.assertEquals(live.size(), index.size());
+	}
+
+	/**
+	 * @return próxima palavra aleatória do cenário, utilizada também como keyword
+	 */
+	String nextWord(){
+		return words.next(random);
+	}
+
+	/**
+	 * @return próximo threshold aleatório do cenário, inferior ao máximo informado
+	 */
+	int nextThreshold(int maxThreshold){
+		return random.nextInt(maxThreshold);
+	}
+
+	/**
+	 * @return ordem a partir da qual as palavras removidas foram adicionadas novamente
+	 */
+	int getReaddedFrom(){
+		return readdedFrom;
+	}
+
+	/**
+	 * Busca linear pelas palavras não removidas com ordem no intervalo informado
+	 *
+	 * @param from primeira ordem considerada
+	 * @param to ordem final, exclusiva
+	 */
+	Set<String> expected(String keyword, int threshold, int from, int to){
+		Set<String> expected = new HashSet<String>();
+		for(int order = from; order < Math.min(to, orders.size()); order++){
+			String word = orders.get(order);
+			if(!removed.get(order) && LevenshteinDistanceAlgorithm.getDistance(keyword, word) <= threshold)
+				expected.add(word);
+		}
+		return expected;
+	}
+
+	private List<WordDistance> expectedNearest(String keyword, int visibleCount){
+		List<WordDistance> nearest = new ArrayList<WordDistance>();
+		for(int order = 0; order < Math.min(visibleCount, orders.size()); order++){
+			if(!removed.get(order))
+				nearest.add(new WordDistance(orders.get(order),
+						LevenshteinDistanceAlgorithm.getDistance(keyword, orders.get(order))));
+		}
+		Collections.sort(nearest);
+		return nearest.subList(0, Math.min(NEAREST_COUNT, nearest.size()));
+	}
+
+}
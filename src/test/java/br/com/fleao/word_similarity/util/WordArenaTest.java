@@ -0,0 +1,194 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos da classe WordArena
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class WordArenaTest {
+
+	private static final RandomWords WORDS = new RandomWords(4, 12, "abcdefghijklmnopqrstuvwxyz");
+
+	private WordArena arena;
+
+	@Before
+	public void setUp() throws Exception {
+		arena = new WordArena();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * As palavras devem receber identificadores sequenciais, sem duplicação, e ser recuperadas intactas
+	 */
+	@Test
+	public void testAddAndFind() {
+		Assert.assertEquals(0, arena.add("manhã"));
+		Assert.assertEquals(1, arena.add(""));
+		Assert.assertEquals(-1, arena.add("manhã"));
+		Assert.assertEquals(2, arena.add("manha"));
+
+		Assert.assertEquals(3, arena.size());
+		Assert.assertEquals(0, arena.find("manhã"));
+		Assert.assertEquals(1, arena.find(""));
+		Assert.assertEquals(-1, arena.find("manh"));
+		Assert.assertEquals(-1, arena.find(null));
+		Assert.assertEquals("manha", arena.get(2));
+		Assert.assertEquals(5, arena.length(0));
+		Assert.assertEquals(10, arena.getCharCount());
+	}
+
+	/**
+	 * Uma palavra adicionada novamente deve receber um novo identificador, que passa a ser retornado pela busca,
+	 * inclusive após o crescimento da tabela hash
+	 */
+	@Test
+	public void testAppendExistingWord() {
+		Assert.assertEquals(0, arena.append("manhã"));
+		Assert.assertEquals(1, arena.add("tarde"));
+		Assert.assertEquals(2, arena.append("manhã"));
+		Assert.assertEquals(2, arena.find("manhã"));
+		Assert.assertEquals("manhã", arena.get(0));
+		// Leitores que não enxergam a nova ocorrência continuam encontrando a anterior
+		Assert.assertEquals(0, arena.find("manhã", 2));
+		Assert.assertEquals(2, arena.find("manhã", 3));
+		Assert.assertEquals(-1, arena.find("tarde", 1));
+
+		for(int i = 0; i < 1000; i++)
+			arena.add("palavra" + i);
+		Assert.assertEquals(2, arena.find("manhã"));
+		Assert.assertEquals(1, arena.find("tarde"));
+		Assert.assertEquals(1002, arena.find("palavra999"));
+		// As ocorrências anteriores são mantidas quando a tabela hash é recriada
+		Assert.assertEquals(0, arena.find("manhã", 1));
+	}
+
+	/**
+	 * Identificadores ainda não adicionados devem ser rejeitados
+	 */
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetInvalidId() {
+		arena.add("manhã");
+		arena.get(1);
+	}
+
+	/**
+	 * Palavras que não cabem no restante da página devem ser armazenadas em uma nova página
+	 */
+	@Test
+	public void testPageBoundary() {
+		char[] large = new char[WordArena.PAGE_SIZE - 3];
+		Arrays.fill(large, 'a');
+		String first = new String(large);
+		Assert.assertEquals(0, arena.add(first));
+		Assert.assertEquals(1, arena.add("bcdef"));
+		Assert.assertEquals(2, arena.add("xy"));
+
+		Assert.assertEquals(first, arena.get(0));
+		Assert.assertEquals("bcdef", arena.get(1));
+		Assert.assertEquals("xy", arena.get(2));
+		Assert.assertEquals(1, arena.find("bcdef"));
+	}
+
+	/**
+	 * Palavras maiores que uma página devem ser rejeitadas
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsLargeWord() {
+		arena.add(new String(new char[WordArena.PAGE_SIZE + 1]));
+	}
+
+	/**
+	 * A ocupação estimada da arena deve ser muito menor que a de Strings independentes (cerca de 56 bytes para uma
+	 * palavra de 8 caracteres, sem contar a estrutura de deduplicação)
+	 */
+	@Test
+	public void testCompactRepresentation() {
+		Random random = new Random(5);
+		List<String> words = new ArrayList<String>();
+		while(words.size() < 100000){
+			String word = WORDS.next(random);
+			if(arena.add(word) >= 0)
+				words.add(word);
+		}
+		for(int i = 0; i < words.size(); i += 97)
+			Assert.assertEquals(i, arena.find(words.get(i)));
+
+		// Caracteres + posição + tabela hash, com folga de crescimento dos arrays
+		Assert.assertTrue("Ocupação de " + arena.getEstimatedBytes() + " bytes",
+				arena.getEstimatedBytes() < words.size() * 48L);
+	}
+
+	/**
+	 * Leitores concorrentes devem encontrar todas as palavras visíveis no momento da leitura, enquanto o escritor
+	 * adiciona novas palavras e reorganiza páginas, posições e tabela hash
+	 */
+	@Test
+	public void testConcurrentReaders() throws InterruptedException {
+		final List<String> words = new ArrayList<String>();
+		Random random = new Random(11);
+		while(words.size() < 50000){
+			String word = WORDS.next(random) + words.size();
+			words.add(word);
+		}
+
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread[] readers = new Thread[3];
+		for(int r = 0; r < readers.length; r++){
+			final int seed = r;
+			readers[r] = new Thread(new Runnable(){
+				@Override
+				public void run(){
+					Random random = new Random(seed);
+					try{
+						while(arena.size() < words.size()){
+							int visible = arena.size();
+							if(visible == 0)
+								continue;
+							int id = random.nextInt(visible);
+							Assert.assertEquals(id, arena.find(words.get(id)));
+							Assert.assertEquals(words.get(id), arena.get(id));
+						}
+					}catch(Throwable e){
+						failure.set(e);
+					}
+				}
+			});
+			readers[r].start();
+		}
+
+		for(String word : words)
+			arena.add(word);
+		for(Thread reader : readers)
+			reader.join();
+		if(failure.get() != null)
+			throw new AssertionError(failure.get());
+	}
+
+}
@@ -0,0 +1,84 @@
+package br.com.fleao.word_similarity.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos da classe WordLineReader
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class WordLineReaderTest {
+
+	@Before
+	public void setUp() throws Exception {
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Linhas devem ser lidas corretamente mesmo quando caracteres multibyte e quebras de linha cruzam o limite do buffer
+	 */
+	@Test
+	public void testReadAcrossBufferBoundaries() throws IOException {
+		String content = "manhã\r\ntarde\n\nnoite\nçãõéíóú-ação\n\r\nabacate";
+		Assert.assertEquals(Arrays.asList("manhã", "tarde", "noite", "çãõéíóú-ação", "abacate"), read(content, 16));
+		Assert.assertEquals(Arrays.asList("manhã", "tarde", "noite", "çãõéíóú-ação", "abacate"), read(content, 4096));
+	}
+
+	/**
+	 * Conteúdos vazios ou somente com quebras de linha não devem produzir palavras
+	 */
+	@Test
+	public void testEmptyContent() throws IOException {
+		Assert.assertEquals(new ArrayList<String>(), read("", 16));
+		Assert.assertEquals(new ArrayList<String>(), read("\n\r\n\n", 16));
+		Assert.assertEquals(Arrays.asList("a"), read("a\n", 16));
+	}
+
+	/**
+	 * Conteúdos que não são UTF-8 válido devem ser rejeitados
+	 */
+	@Test(expected = IOException.class)
+	public void testMalformedInput() throws IOException {
+		WordLineReader reader = new WordLineReader(Channels.newChannel(
+				new ByteArrayInputStream(new byte[]{ 'a', (byte) 0xC3, '\n' })), 16);
+		while(reader.nextWord() != null);
+	}
+
+	private static List<String> read(String content, int bufferSize) throws IOException{
+		List<String> words = new ArrayList<String>();
+		try(WordLineReader reader = new WordLineReader(Channels.newChannel(
+				new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))), bufferSize)){
+			for(String word = reader.nextWord(); word != null; word = reader.nextWord())
+				words.add(word);
+		}
+		return words;
+	}
+
+}
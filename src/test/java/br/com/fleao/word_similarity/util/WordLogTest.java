@@ -0,0 +1,183 @@
+package br.com.fleao.word_similarity.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos das classes WordLog e WordSnapshotFile
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class WordLogTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path file;
+
+	@Before
+	public void setUp() throws Exception {
+		file = folder.getRoot().toPath().resolve("wal.log");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * As palavras sincronizadas devem ser lidas na mesma ordem, com as sequências continuando a partir da inicial
+	 */
+	@Test
+	public void testAppendAndRecover() throws IOException {
+		WordLog log = WordLog.create(file, 10);
+		Assert.assertEquals(11, log.append("manhã"));
+		Assert.assertEquals(12, log.append(""));
+		log.sync(12);
+		Assert.assertEquals(13, log.append("abacate"));
+		log.close();
+
+		List<String> words = new ArrayList<String>();
+		Assert.assertEquals(13, WordLog.recover(file, 10, words));
+		Assert.assertEquals(Arrays.asList("manhã", "", "abacate"), words);
+	}
+
+	/**
+	 * As remoções devem ser aplicadas às palavras recuperadas, na ordem em que foram registradas
+	 */
+	@Test
+	public void testAppendRemoval() throws IOException {
+		WordLog log = WordLog.create(file, 0);
+		log.append("manhã");
+		log.append("tarde");
+		log.appendRemoval("manhã");
+		log.appendRemoval("");
+		log.append("noite");
+		log.append("manhã");
+		log.appendRemoval("tarde");
+		log.sync(log.getAppendedSequence());
+		log.close();
+
+		Set<String> words = new LinkedHashSet<String>();
+		Assert.assertEquals(7, WordLog.recover(file, 0, words));
+		Assert.assertEquals(Arrays.asList("noite", "manhã"), new ArrayList<String>(words));
+	}
+
+	/**
+	 * Registros não sincronizados não devem ser gravados
+	 */
+	@Test
+	public void testUnsyncedRecordsAreNotWritten() throws IOException {
+		WordLog log = WordLog.create(file, 0);
+		log.append("manhã");
+		log.sync(1);
+		log.append("tarde");
+
+		List<String> words = new ArrayList<String>();
+		Assert.assertEquals(1, WordLog.recover(file, 0, words));
+		Assert.assertEquals(Arrays.asList("manhã"), words);
+		log.close();
+	}
+
+	/**
+	 * Um registro interrompido no final do arquivo deve ser descartado e o arquivo truncado
+	 */
+	@Test
+	public void testTornTailIsTruncated() throws IOException {
+		WordLog log = WordLog.create(file, 0);
+		log.append("manhã");
+		log.append("tarde");
+		log.close();
+		long size = Files.size(file);
+
+		// Registro incompleto: tamanho de 100 bytes seguido de apenas 3 bytes
+		appendBytes(ByteBuffer.allocate(7).putInt(100).put(new byte[]{ 1, 2, 3 }));
+		List<String> words = new ArrayList<String>();
+		Assert.assertEquals(2, WordLog.recover(file, 0, words));
+		Assert.assertEquals(Arrays.asList("manhã", "tarde"), words);
+		Assert.assertEquals(size, Files.size(file));
+
+		// Registro completo com CRC inválido
+		appendBytes(ByteBuffer.allocate(9).putInt(1).put((byte) 'a').putInt(0));
+		words.clear();
+		Assert.assertEquals(2, WordLog.recover(file, 0, words));
+		Assert.assertEquals(size, Files.size(file));
+	}
+
+	/**
+	 * Um segmento criado sem cabeçalho completo não possui registros
+	 */
+	@Test
+	public void testIncompleteHeader() throws IOException {
+		Files.write(file, new byte[]{ 1, 2, 3 });
+		List<String> words = new ArrayList<String>();
+		Assert.assertEquals(5, WordLog.recover(file, 5, words));
+		Assert.assertTrue(words.isEmpty());
+	}
+
+	/**
+	 * Segmentos que não iniciam na sequência esperada devem ser rejeitados
+	 */
+	@Test(expected = IOException.class)
+	public void testUnexpectedStartSequence() throws IOException {
+		WordLog.create(file, 3).close();
+		WordLog.recover(file, 0, new ArrayList<String>());
+	}
+
+	/**
+	 * Snapshots devem ser lidos integralmente e snapshots corrompidos rejeitados
+	 */
+	@Test
+	public void testSnapshotFile() throws IOException {
+		Path snapshot = folder.getRoot().toPath().resolve("snapshot.bin");
+		WordSnapshotFile.write(snapshot, 42, Arrays.asList("manhã", "tarde", ""));
+
+		List<String> words = new ArrayList<String>();
+		Assert.assertEquals(42, WordSnapshotFile.read(snapshot, words));
+		Assert.assertEquals(Arrays.asList("manhã", "tarde", ""), words);
+
+		byte[] bytes = Files.readAllBytes(snapshot);
+		bytes[bytes.length - 12] ^= 1;
+		Files.write(snapshot, bytes);
+		try{
+			WordSnapshotFile.read(snapshot, new ArrayList<String>());
+			Assert.fail("O método read() aceitou um snapshot corrompido.");
+		}catch(IOException e){ }
+	}
+
+	private void appendBytes(ByteBuffer buffer) throws IOException{
+		buffer.flip();
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)){
+			channel.write(buffer);
+		}
+	}
+
+}
@@ -0,0 +1,207 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos das classes WordStore e WordSnapshot
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class WordStoreTest {
+
+	private WordStore store;
+
+	@Before
+	public void setUp() throws Exception {
+		store = new WordStore();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Palavras preparadas só devem ser visíveis após a publicação, sem duplicação
+	 */
+	@Test
+	public void testAppendAndPublish() {
+		Assert.assertTrue(store.append("a"));
+		Assert.assertTrue(store.append("b"));
+		Assert.assertFalse(store.append("a"));
+		Assert.assertTrue(store.snapshot().isEmpty());
+		Assert.assertFalse(store.snapshot().contains("a"));
+
+		WordSnapshot snapshot = store.publish();
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("a","b")), snapshot);
+		Assert.assertEquals("a", snapshot.get(0));
+		Assert.assertEquals("b", snapshot.get(1));
+	}
+
+	/**
+	 * Um snapshot já obtido não deve ser afetado por publicações posteriores, e cada publicação gera uma nova versão
+	 */
+	@Test
+	public void testSnapshotIsolation() {
+		store.append("a");
+		WordSnapshot first = store.publish();
+
+		// Força o crescimento do array interno
+		for(int i = 0; i < 100; i++)
+			store.append("palavra" + i);
+		WordSnapshot second = store.publish();
+
+		Assert.assertEquals(1, first.size());
+		Assert.assertFalse(first.contains("palavra0"));
+		Assert.assertEquals(101, second.size());
+		Assert.assertTrue(second.contains("palavra99"));
+		Assert.assertTrue(second.getGeneration() > first.getGeneration());
+
+		// Publicação sem palavras novas mantém o snapshot atual
+		Assert.assertSame(second, store.publish());
+	}
+
+	/**
+	 * Palavras removidas só devem deixar de ser visíveis após a publicação, sem afetar snapshots anteriores, e podem
+	 * ser armazenadas novamente em uma nova posição
+	 */
+	@Test
+	public void testRemove() {
+		for(int i = 0; i < 70000; i++)
+			store.append("palavra" + i);
+		WordSnapshot first = store.publish();
+
+		Assert.assertTrue(store.remove("palavra1"));
+		Assert.assertTrue(store.remove("palavra69999"));
+		Assert.assertFalse(store.remove("palavra1"));
+		Assert.assertFalse(store.remove("inexistente"));
+		Assert.assertEquals(69998, store.size());
+		Assert.assertTrue(store.snapshot().contains("palavra1"));
+
+		WordSnapshot second = store.publish();
+		Assert.assertEquals(70000, first.size());
+		Assert.assertTrue(first.contains("palavra1"));
+		Assert.assertEquals(69998, second.size());
+		Assert.assertEquals(70000, second.getIdCount());
+		Assert.assertFalse(second.contains("palavra1"));
+		Assert.assertTrue(second.isRemoved(69999));
+		Assert.assertNull(second.get(1));
+		Assert.assertEquals("palavra2", second.get(2));
+
+		int count = 0;
+		for(String word : second){
+			Assert.assertNotEquals("palavra1", word);
+			count++;
+		}
+		Assert.assertEquals(69998, count);
+
+		// A palavra removida volta a ser armazenada ao final, enquanto a posição antiga continua removida
+		Assert.assertTrue(store.append("palavra1"));
+		Assert.assertFalse(store.append("palavra1"));
+		WordSnapshot third = store.publish();
+		Assert.assertEquals(69999, third.size());
+		Assert.assertTrue(third.contains("palavra1"));
+		Assert.assertNull(third.get(1));
+		Assert.assertEquals("palavra1", third.get(70000));
+		Assert.assertFalse(second.contains("palavra1"));
+	}
+
+	/**
+	 * Um snapshot obtido antes da remoção de uma palavra deve continuar contendo a palavra mesmo após ela ser removida e
+	 * armazenada novamente, diversas vezes
+	 */
+	@Test
+	public void testSnapshotAcrossRemoveAndReAdd() {
+		store.append("manhã");
+		store.append("tarde");
+		WordSnapshot before = store.publish();
+
+		List<WordSnapshot> snapshots = new ArrayList<WordSnapshot>();
+		for(int i = 0; i < 3; i++){
+			store.remove("manhã");
+			WordSnapshot removed = store.publish();
+			store.append("manhã");
+			WordSnapshot added = store.publish();
+			Assert.assertFalse(removed.contains("manhã"));
+			Assert.assertTrue(added.contains("manhã"));
+			snapshots.add(removed);
+		}
+
+		Assert.assertTrue(before.contains("manhã"));
+		Assert.assertTrue(before.contains("tarde"));
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("manhã", "tarde")), new HashSet<String>(before));
+		for(WordSnapshot removed : snapshots){
+			Assert.assertFalse(removed.contains("manhã"));
+			Assert.assertTrue(removed.contains("tarde"));
+		}
+	}
+
+	/**
+	 * Leituras concorrentes com escritas não devem falhar nem observar snapshots inconsistentes
+	 */
+	@Test
+	public void testConcurrentReadsDuringWrites() throws Exception {
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		Thread reader = new Thread(){
+			@Override
+			public void run(){
+				try{
+					while(!isInterrupted()){
+						WordSnapshot snapshot = store.snapshot();
+						int count = 0;
+						for(String word : snapshot){
+							Assert.assertNotNull(word);
+							count++;
+						}
+						Assert.assertEquals(snapshot.size(), count);
+					}
+				}catch(Throwable e){
+					failure.set(e);
+				}
+			}
+		};
+		reader.start();
+
+		for(int i = 0; i < 20000; i++){
+			store.append("palavra" + i);
+			if(i % 7 == 0)
+				store.publish();
+		}
+		store.publish();
+		reader.interrupt();
+		reader.join();
+
+		Assert.assertNull(String.valueOf(failure.get()), failure.get());
+		Assert.assertEquals(20000, store.snapshot().size());
+	}
+
+	/**
+	 * Snapshots são imutáveis
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSnapshotIsImmutable() {
+		store.snapshot().add("a");
+	}
+
+}
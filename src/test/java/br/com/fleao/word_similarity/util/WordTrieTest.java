@@ -0,0 +1,164 @@
+package br.com.fleao.word_similarity.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import br.com.fleao.word_similarity.configuration.UnitTestConfiguration;
+
+/**
+ * Classe de teste para validar os métodos publicos da classe WordTrie
+ *
+ * @author felipe
+ *
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = { UnitTestConfiguration.class })
+@TestPropertySource(value = { "classpath:application.properties" })
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+public class WordTrieTest {
+
+	// Palavras com prefixos frequentemente compartilhados, incluindo caracteres não-Latin-1
+	private static final RandomWords WORDS = new RandomWords(0, 9, "abcã中");
+
+	private WordTrie trie;
+
+	@Before
+	public void setUp() throws Exception {
+		trie = new WordTrie();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+	}
+
+	/**
+	 * Palavras que são prefixo de outras, que dividem arestas ou repetidas devem ser tratadas corretamente
+	 */
+	@Test
+	public void testInsertion() {
+		Assert.assertTrue(trie.add("abacate"));
+		Assert.assertTrue(trie.add("abacaxi"));
+		Assert.assertTrue(trie.add("aba"));
+		Assert.assertTrue(trie.add("abacates"));
+		Assert.assertTrue(trie.add(""));
+		Assert.assertFalse(trie.add("aba"));
+		Assert.assertFalse(trie.add("abacate"));
+		Assert.assertEquals(5, trie.size());
+
+		Set<String> result = new HashSet<String>();
+		trie.search("abacate", 0, Integer.MAX_VALUE, result);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("abacate")), result);
+
+		result.clear();
+		trie.search("", 3, Integer.MAX_VALUE, result);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("", "aba")), result);
+	}
+
+	/**
+	 * Verifica a busca com os mesmos exemplos utilizados na documentação do serviço
+	 */
+	@Test
+	public void testSearch() {
+		for(String word : Arrays.asList("manhã", "tarde", "noite", "abacate"))
+			trie.add(word);
+
+		Set<String> result = new HashSet<String>();
+		trie.search("boate", 3, Integer.MAX_VALUE, result);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("abacate","noite")), result);
+
+		result.clear();
+		trie.search("banana", 4, Integer.MAX_VALUE, result);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("abacate","manhã")), result);
+	}
+
+	/**
+	 * Somente as primeiras palavras inseridas devem ser consideradas quando a busca é restrita
+	 */
+	@Test
+	public void testSearchVisibleCount() {
+		trie.add("abacate");
+		trie.add("abacaxi");
+		trie.add("aba");
+
+		Set<String> result = new HashSet<String>();
+		trie.search("abacate", 10, 1, result);
+		Assert.assertEquals(new HashSet<String>(Arrays.asList("abacate")), result);
+	}
+
+	/**
+	 * O resultado da busca na trie deve ser idêntico ao de uma comparação da keyword com todas as palavras
+	 */
+	@Test
+	public void testSearchMatchesLinearScan() {
+		Random random = new Random(17);
+		List<String> words = new ArrayList<String>();
+		for(int i = 0; i < 3000; i++){
+			String word = WORDS.next(random);
+			if(trie.add(word))
+				words.add(word);
+		}
+		Assert.assertEquals(words.size(), trie.size());
+
+		for(int i = 0; i < 200; i++){
+			String keyword = WORDS.next(random);
+			int threshold = random.nextInt(5);
+			int visibleCount = random.nextInt(words.size() + 1);
+
+			Set<String> expected = new HashSet<String>();
+			for(String word : words.subList(0, visibleCount)){
+				if(LevenshteinDistanceAlgorithm.getDistance(keyword, word) <= threshold)
+					expected.add(word);
+			}
+
+			Set<String> result = new HashSet<String>();
+			trie.search(keyword, threshold, visibleCount, result);
+			Assert.assertEquals("Resultado divergente para a keyword '" + keyword + "'", expected, result);
+		}
+	}
+
+	/**
+	 * Parâmetros nulos ou threshold negativo devem ser rejeitados
+	 */
+	@Test
+	public void testIllegalArguments(){
+		try{
+			trie.add(null);
+			Assert.fail("O método add() aceitou o parâmetro como NULL.");
+		}catch(IllegalArgumentException e){ }
+
+		try{
+			trie.search(null, 1, Integer.MAX_VALUE, new HashSet<String>());
+			Assert.fail("O método search() aceitou a keyword como NULL.");
+		}catch(IllegalArgumentException e){ }
+
+		try{
+			trie.search("abacate", -1, Integer.MAX_VALUE, new HashSet<String>());
+			Assert.fail("O método search() aceitou um threshold negativo.");
+		}catch(IllegalArgumentException e){ }
+	}
+
+	/**
+	 * Palavras removidas não devem ser retornadas pelas buscas e palavras adicionadas novamente devem voltar a ser
+	 * encontradas somente a partir da sua nova ordem, com o mesmo resultado de uma busca linear
+	 */
+	@Test
+	public void testRemoveMatchesLinearScan() {
+		RemovalScenario.check(RemovalScenario.of(trie), 45, 5, WORDS);
+	}
+
+}